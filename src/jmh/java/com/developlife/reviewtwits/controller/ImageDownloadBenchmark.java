@@ -0,0 +1,118 @@
+package com.developlife.reviewtwits.controller;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실행 중인 서버(baseUrl)의 GET /request-images/{UUID} 를 HTTP 로 호출해 전체 응답(200), 캐시 검증(304), 범위 요청(206)의
+ * 초당 요청 수를 잰다. 필터, 파일 색인, StaticFileUtils, Tomcat sendfile 까지 실제 요청과 같은 경로를 거친다.
+ * imageName 이 비어 있으면 시작할 때 /files/save 로 imageSize 크기의 png 를 하나 올려서 쓴다.
+ * 예: ./gradlew bootRun 뒤 ./gradlew jmh -Pjmh.includes=ImageDownloadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class ImageDownloadBenchmark {
+
+    @Param({"http://localhost:8080"})
+    private String baseUrl;
+
+    @Param({""})
+    private String imageName;
+
+    @Param({"1024"})
+    private int imageSize;
+
+    private HttpClient httpClient;
+    private HttpRequest fullRequest;
+    private HttpRequest notModifiedRequest;
+    private HttpRequest rangeRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        if(imageName.isEmpty()){
+            imageName = uploadImage();
+        }
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        URI imageUri = URI.create(baseUrl + "/request-images/" + imageName);
+        fullRequest = HttpRequest.newBuilder(imageUri).GET().build();
+
+        HttpResponse<Void> response = httpClient.send(fullRequest, HttpResponse.BodyHandlers.discarding());
+        if(response.statusCode() != 200){
+            throw new IllegalStateException("이미지를 받지 못했습니다. status=" + response.statusCode() + ", image=" + imageName);
+        }
+        String etag = response.headers().firstValue(HttpHeaders.ETAG)
+                .orElseThrow(() -> new IllegalStateException("이미지 응답에 ETag 가 없습니다."));
+        notModifiedRequest = HttpRequest.newBuilder(imageUri).header(HttpHeaders.IF_NONE_MATCH, etag).GET().build();
+        rangeRequest = HttpRequest.newBuilder(imageUri).header(HttpHeaders.RANGE, "bytes=0-1023").GET().build();
+    }
+
+    @Benchmark
+    public int full() throws IOException, InterruptedException {
+        return expect(fullRequest, 200);
+    }
+
+    @Benchmark
+    public int notModified() throws IOException, InterruptedException {
+        return expect(notModifiedRequest, 304);
+    }
+
+    @Benchmark
+    public int range() throws IOException, InterruptedException {
+        return expect(rangeRequest, 206);
+    }
+
+    private int expect(HttpRequest request, int status) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if(response.statusCode() != status){
+            throw new IllegalStateException("예상한 응답이 아닙니다. expected=" + status + ", actual=" + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    // 압축되지 않도록 임의의 색으로 채운 png 를 올리고, 저장된 이름을 반환한다.
+    private String uploadImage() throws IOException {
+        BufferedImage image = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+        SplittableRandom random = new SplittableRandom(42);
+        for(int y = 0; y < imageSize; y++){
+            for(int x = 0; x < imageSize; x++){
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("attachedFiles", new ByteArrayResource(content.toByteArray()) {
+            @Override
+            public String getFilename() {
+                return "benchmark.png";
+            }
+        });
+        body.add("id", "1");
+        body.add("referenceType", "IMAGE");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new RestTemplate().postForObject(baseUrl + "/files/save", new HttpEntity<>(body, headers), String.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.developlife.reviewtwits.repository.statistics.columnar;
+
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 방문 정보로 컬럼 저장소 스캔과 DB group by(in-memory H2)의 유입 경로/연령대·성별 집계 시간을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VisitColumnStoreBenchmark {
+
+    private static final int PROJECT_COUNT = 100;
+    private static final int PRODUCTS_PER_PROJECT = 50;
+    private static final int USER_COUNT = 100_000;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final long TARGET_PROJECT_ID = 1;
+
+    private static final String INFLOW_SQL =
+            "select inflow, count(*) from stat_info where project_project_id = ? group by inflow";
+    private static final String BIRTH_YEAR_SQL =
+            "select s.product_product_id, year(u.birth_date), count(*) from stat_info s join user u on u.user_id = s.user_user_id " +
+            "where s.project_project_id = ? and u.provider is not null and u.birth_date is not null " +
+            "group by s.product_product_id, year(u.birth_date)";
+    private static final String GENDER_SQL =
+            "select s.product_product_id, u.gender, count(*) from stat_info s join user u on u.user_id = s.user_user_id " +
+            "where s.project_project_id = ? and u.provider is not null and u.gender is not null " +
+            "group by s.product_product_id, u.gender";
+
+    @Param({"10000000"})
+    private int eventCount;
+
+    private VisitColumnStore visitColumnStore;
+    private Connection connection;
+    private int currentYear;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        currentYear = LocalDateTime.now().getYear();
+        visitColumnStore = new VisitColumnStore(true, 65536, Long.MAX_VALUE);
+        visitColumnStore.beginLoad(LocalDateTime.now());
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:benchmark;NON_KEYWORDS=USER");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table user (user_id bigint primary key, gender varchar(10), birth_date timestamp, provider varchar(20))");
+            statement.execute("create table stat_info (stat_id bigint primary key, created_date timestamp, inflow varchar(10), device varchar(10), " +
+                    "product_product_id bigint, project_project_id bigint, user_user_id bigint)");
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        Gender[] genders = Gender.values();
+        Gender[] userGenders = new Gender[USER_COUNT + 1];
+        int[] userBirthYears = new int[USER_COUNT + 1];
+        try (PreparedStatement insertUser = connection.prepareStatement("insert into user values (?, ?, ?, 'KAKAO')")) {
+            for(int userId = 1; userId <= USER_COUNT; userId++){
+                userGenders[userId] = genders[random.nextInt(genders.length)];
+                userBirthYears[userId] = 1950 + random.nextInt(60);
+                insertUser.setLong(1, userId);
+                insertUser.setString(2, userGenders[userId].name());
+                insertUser.setTimestamp(3, Timestamp.valueOf(LocalDateTime.of(userBirthYears[userId], 1, 1, 0, 0)));
+                insertUser.addBatch();
+            }
+            insertUser.executeBatch();
+        }
+
+        Inflow[] inflows = Inflow.values();
+        Device[] devices = Device.values();
+        LocalDateTime start = LocalDateTime.now().minusMonths(12);
+        try (PreparedStatement insertVisit = connection.prepareStatement("insert into stat_info values (?, ?, ?, ?, ?, ?, ?)")) {
+            List<VisitColumnRow> rows = new ArrayList<>(CHUNK_SIZE);
+            for(int statId = 1; statId <= eventCount; statId++){
+                long projectId = 1 + random.nextInt(PROJECT_COUNT);
+                long productId = projectId * PRODUCTS_PER_PROJECT + random.nextInt(PRODUCTS_PER_PROJECT);
+                int userId = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(USER_COUNT);
+                LocalDateTime createdDate = start.plusSeconds(statId * 3L);
+                Inflow inflow = inflows[random.nextInt(inflows.length)];
+                Device device = devices[random.nextInt(devices.length)];
+
+                insertVisit.setLong(1, statId);
+                insertVisit.setTimestamp(2, Timestamp.valueOf(createdDate));
+                insertVisit.setString(3, inflow.name());
+                insertVisit.setString(4, device.name());
+                insertVisit.setLong(5, productId);
+                insertVisit.setLong(6, projectId);
+                if(userId == 0){
+                    insertVisit.setNull(7, Types.BIGINT);
+                }else{
+                    insertVisit.setLong(7, userId);
+                }
+                insertVisit.addBatch();
+                rows.add(new VisitColumnRow(createdDate, projectId, productId, inflow, device,
+                        userId == 0 ? null : userGenders[userId], userId == 0 ? null : userBirthYears[userId], 1));
+
+                if(rows.size() == CHUNK_SIZE){
+                    insertVisit.executeBatch();
+                    visitColumnStore.appendLoaded(rows);
+                    rows = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            insertVisit.executeBatch();
+            visitColumnStore.appendLoaded(rows);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index idx_stat_info_project on stat_info (project_project_id)");
+        }
+        visitColumnStore.markLoaded();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Object searchFlowFromColumnStore() {
+        return visitColumnStore.countByInflow(TARGET_PROJECT_ID).orElseThrow();
+    }
+
+    @Benchmark
+    public void searchFlowFromDatabase(Blackhole blackhole) throws SQLException {
+        query(INFLOW_SQL, blackhole);
+    }
+
+    @Benchmark
+    public Object demographicsFromColumnStore() {
+        return visitColumnStore.countDemographics(TARGET_PROJECT_ID, currentYear).orElseThrow();
+    }
+
+    @Benchmark
+    public void demographicsFromDatabase(Blackhole blackhole) throws SQLException {
+        query(BIRTH_YEAR_SQL, blackhole);
+        query(GENDER_SQL, blackhole);
+    }
+
+    private void query(String sql, Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, TARGET_PROJECT_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while(resultSet.next()){
+                    blackhole.consume(resultSet.getObject(1));
+                    blackhole.consume(resultSet.getLong(resultSet.getMetaData().getColumnCount()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.developlife.reviewtwits.utils.file;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 파일 하나를 loopback 소켓에 복사할 때 FileChannel.transferTo(sendfile) 와 스트림 복사(StreamUtils.copy)의
+ * 초당 복사 횟수와 초당 전송 byte 수(bytes)를 비교한다.
+ * HTTP 처리(StaticFileUtils 의 헤더, 304, range, Tomcat sendfile)는 거치지 않으므로 HTTP 요청 처리량이 아니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FileSocketCopyBenchmark {
+
+    @Param({"65536", "4194304"})
+    private int fileSize;
+
+    private Path file;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private OutputStream clientOutput;
+    private Thread drainer;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Transferred {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] content = new byte[fileSize];
+        new SplittableRandom(42).nextBytes(content);
+        file = Files.createTempFile("file-socket-copy-benchmark", ".mp4");
+        Files.write(file, content);
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel accepted = server.accept();
+        // 받는 쪽은 읽기만 하고 버린다.
+        drainer = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            try (accepted) {
+                while(accepted.read(buffer.clear()) >= 0){
+                    // 버린다.
+                }
+            } catch (IOException e) {
+                // 연결을 닫으면 끝난다.
+            }
+        });
+        drainer.setDaemon(true);
+        drainer.start();
+        clientOutput = Channels.newOutputStream(client);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        drainer.join(1000);
+        server.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long transferTo(Transferred transferred) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            while(position < fileSize){
+                position += fileChannel.transferTo(position, fileSize - position, client);
+            }
+            transferred.bytes += position;
+            return position;
+        }
+    }
+
+    @Benchmark
+    public long streamCopy(Transferred transferred) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            long copied = StreamUtils.copy(input, clientOutput);
+            transferred.bytes += copied;
+            return copied;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.developlife.reviewtwits.config;
 
+import com.developlife.reviewtwits.config.query.QueryCountInspector;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -92,7 +94,10 @@ public class DataSourceConfiguration {
     private EntityManagerFactoryBuilder createEntityManagerFactoryBuilder(JpaProperties jpaProperties) {
         AbstractJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         // jpaProperties는 properties에 있는 jpa.properties를 의미
-        return new EntityManagerFactoryBuilder(vendorAdapter, jpaProperties.getProperties(), null);
+        HashMap<String, String> properties = new HashMap<>(jpaProperties.getProperties());
+        // 요청별 쿼리 수 집계(query-count.enabled)를 위한 inspector
+        properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, QueryCountInspector.class.getName());
+        return new EntityManagerFactoryBuilder(vendorAdapter, properties, null);
     }
 
 
@@ -9,7 +9,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * @author ghdic
@@ -27,10 +28,17 @@ public class RedisConfig {
         return new LettuceConnectionFactory(host, port);
     }
 
+    // 타임라인 key/member 모두 문자열로 다루기 위해 String 직렬화 템플릿을 사용
     @Bean
-    public RedisTemplate<?, ?> redisTemplate() {
-        RedisTemplate<?, ?> redisTemplate = new RedisTemplate<>();
-        redisTemplate.setConnectionFactory(redisConnectionFactory());
-        return redisTemplate;
+    public StringRedisTemplate redisTemplate() {
+        return new StringRedisTemplate(redisConnectionFactory());
+    }
+
+    // 서버마다 들고 있는 메모리 색인의 무효화를 pub/sub 으로 주고받는다.
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        return container;
     }
 }
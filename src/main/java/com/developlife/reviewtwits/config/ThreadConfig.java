@@ -1,12 +1,16 @@
 package com.developlife.reviewtwits.config;
 
+import com.developlife.reviewtwits.config.query.QueryCountHolder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * @author ghdic
@@ -14,6 +18,7 @@ import java.util.concurrent.Executor;
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class ThreadConfig {
     @Bean(name = "threadPoolTaskExecutor")
     public Executor threadPoolTaskExecutor() {
@@ -25,4 +30,96 @@ public class ThreadConfig {
         threadPoolTaskExecutor.initialize();
         return threadPoolTaskExecutor;
     }
+
+    /**
+     * 통계 대시보드 패널 계산 전용 executor. 큐가 차면 패널을 바로 거절해 요청 스레드가 대신 실행하지 않도록 한다.
+     */
+    @Bean(name = "dashboardExecutor")
+    public ThreadPoolTaskExecutor dashboardExecutor(@Value("${statistics.dashboard.pool-size:8}") int poolSize,
+                                                    @Value("${statistics.dashboard.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor dashboardExecutor = new ThreadPoolTaskExecutor();
+        dashboardExecutor.setCorePoolSize(poolSize);
+        dashboardExecutor.setMaxPoolSize(poolSize);
+        dashboardExecutor.setQueueCapacity(queueCapacity);
+        dashboardExecutor.setThreadNamePrefix("DashboardExecutor-");
+        // 패널 쿼리도 요청의 쿼리 수 집계에 들어가도록 한다.
+        dashboardExecutor.setTaskDecorator(QueryCountHolder::propagate);
+        dashboardExecutor.initialize();
+        return dashboardExecutor;
+    }
+
+    /**
+     * 실시간 방문 스트림의 구독자별 전송 전용 executor. 느린 구독자가 다른 executor 의 스레드를 붙잡지 않도록 분리한다.
+     */
+    @Bean(name = "liveVisitExecutor")
+    public ThreadPoolTaskExecutor liveVisitExecutor(@Value("${statistics.live-visit.pool-size:4}") int poolSize,
+                                                    @Value("${statistics.live-visit.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor liveVisitExecutor = new ThreadPoolTaskExecutor();
+        liveVisitExecutor.setCorePoolSize(poolSize);
+        liveVisitExecutor.setMaxPoolSize(poolSize);
+        liveVisitExecutor.setQueueCapacity(queueCapacity);
+        liveVisitExecutor.setThreadNamePrefix("LiveVisitExecutor-");
+        liveVisitExecutor.initialize();
+        return liveVisitExecutor;
+    }
+
+    /**
+     * 통계 backfill 작업 전용 executor. 작업 하나가 스레드 하나를 오래 쓰므로 @Async 작업과 스레드를 나누지 않는다.
+     */
+    @Bean(name = "backfillExecutor")
+    public ThreadPoolTaskExecutor backfillExecutor(@Value("${statistics.backfill.pool-size:2}") int poolSize) {
+        ThreadPoolTaskExecutor backfillExecutor = new ThreadPoolTaskExecutor();
+        backfillExecutor.setCorePoolSize(poolSize);
+        backfillExecutor.setMaxPoolSize(poolSize);
+        backfillExecutor.setQueueCapacity(16);
+        backfillExecutor.setThreadNamePrefix("BackfillExecutor-");
+        backfillExecutor.initialize();
+        return backfillExecutor;
+    }
+
+    /**
+     * 업로드 파일 쓰기 전용 executor. 큐가 차면 요청 스레드가 직접 써서 디스크가 밀릴 때 업로드 속도를 늦춘다.
+     */
+    @Bean(name = "fileIoExecutor")
+    public ThreadPoolTaskExecutor fileIoExecutor(@Value("${file.io.pool-size:4}") int poolSize,
+                                                 @Value("${file.io.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor fileIoExecutor = new ThreadPoolTaskExecutor();
+        fileIoExecutor.setCorePoolSize(poolSize);
+        fileIoExecutor.setMaxPoolSize(poolSize);
+        fileIoExecutor.setQueueCapacity(queueCapacity);
+        fileIoExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        fileIoExecutor.setThreadNamePrefix("FileIoExecutor-");
+        fileIoExecutor.initialize();
+        return fileIoExecutor;
+    }
+
+    /**
+     * 방문 정보 버퍼의 쓰기 전용 executor. 스레드 하나가 종료될 때까지 버퍼를 비우며 batch insert 한다.
+     */
+    @Bean(name = "visitWriterExecutor")
+    public ThreadPoolTaskExecutor visitWriterExecutor() {
+        ThreadPoolTaskExecutor visitWriterExecutor = new ThreadPoolTaskExecutor();
+        visitWriterExecutor.setCorePoolSize(1);
+        visitWriterExecutor.setMaxPoolSize(1);
+        visitWriterExecutor.setQueueCapacity(0);
+        visitWriterExecutor.setDaemon(true);
+        visitWriterExecutor.setThreadNamePrefix("VisitWriterExecutor-");
+        visitWriterExecutor.initialize();
+        return visitWriterExecutor;
+    }
+
+    /**
+     * 타임라인 fan-out 전용 executor. 팔로워가 많은 리뷰도 요청 스레드를 붙잡지 않도록 커밋 후 여기서 Redis 에 반영한다.
+     */
+    @Bean(name = "timelineExecutor")
+    public ThreadPoolTaskExecutor timelineExecutor(@Value("${timeline.fanout-pool-size:2}") int poolSize,
+                                                   @Value("${timeline.fanout-queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor timelineExecutor = new ThreadPoolTaskExecutor();
+        timelineExecutor.setCorePoolSize(poolSize);
+        timelineExecutor.setMaxPoolSize(poolSize);
+        timelineExecutor.setQueueCapacity(queueCapacity);
+        timelineExecutor.setThreadNamePrefix("TimelineExecutor-");
+        timelineExecutor.initialize();
+        return timelineExecutor;
+    }
 }
@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
 import org.springframework.web.servlet.config.annotation.*;
 
@@ -19,6 +20,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private DateTimeFormatConfig dateTimeFormatConfig;
 
+    private static final String LIVE_VISITS_PATH = "/statistics/live-visits";
+
     private static final String[] CLASSPATH_RESOURCE_LOCATIONS = { "classpath:/static/", "classpath:/public/", "classpath:/",
             "classpath:/resources/", "classpath:/META-INF/resources/", "classpath:/META-INF/resources/webjars/" };
 
@@ -47,6 +50,21 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .maxAge(3000);
     }
 
+    /**
+     * 기본 OSIV 대신 등록한다. OSIV 는 응답이 끝날 때까지 EntityManager 와 커넥션을 붙잡으므로,
+     * 오래 열려 있는 실시간 방문 스트림(SSE)에는 적용하지 않는다.
+     */
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(LIVE_VISITS_PATH);
+    }
+
     @Override
     public void addFormatters(FormatterRegistry registry) {
         dateTimeFormatConfig.registerFormatters(registry);
@@ -0,0 +1,40 @@
+package com.developlife.reviewtwits.config.query;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * query-count.enabled=true 일 때 요청별 SQL 수 집계를 켠다.
+ * StatementInspector 는 항상 등록되지만, 필터가 집계를 열지 않은 스레드에서는 아무것도 하지 않는다.
+ */
+@Configuration
+public class QueryCountConfig {
+
+    // 기본 설정으로 만들어지는 EntityManagerFactory(test 프로필) 용. 운영 설정은 DataSourceConfiguration 에서 등록한다.
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, QueryCountInspector.class.getName());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "query-count", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(ApplicationEventPublisher eventPublisher,
+                                                                     EntityManagerFactory entityManagerFactory,
+                                                                     @Value("${query-count.warn-query-count:30}") int warnQueryCount,
+                                                                     @Value("${query-count.warn-repeated-count:10}") int warnRepeatedCount) {
+        FilterRegistrationBean<QueryCountFilter> registrationBean = new FilterRegistrationBean<>(
+                new QueryCountFilter(eventPublisher, entityManagerFactory, warnQueryCount, warnRepeatedCount));
+        // 인증 필터에서 유저를 읽는 쿼리까지 세기 위해 Security 필터 체인보다 앞에 둔다.
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registrationBean;
+    }
+}
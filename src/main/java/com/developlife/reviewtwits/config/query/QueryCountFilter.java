@@ -0,0 +1,77 @@
+package com.developlife.reviewtwits.config.query;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 요청마다 실행된 SQL 수를 집계해 QueryCountResult 이벤트로 발행한다.
+ * warnQueryCount 나 warnRepeatedCount 를 넘긴 요청은 가장 많이 반복된 SQL fingerprint 와 함께 로그로 남긴다.
+ * 로딩된 엔티티 수는 hibernate.generate_statistics 가 켜져 있을 때만 채워지며, 전역 통계의 차이이므로 동시 요청이 있으면 섞일 수 있다.
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Statistics statistics;
+    private final int warnQueryCount;
+    private final int warnRepeatedCount;
+
+    public QueryCountFilter(ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory,
+                            int warnQueryCount, int warnRepeatedCount) {
+        this.eventPublisher = eventPublisher;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.warnQueryCount = warnQueryCount;
+        this.warnRepeatedCount = warnRepeatedCount;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long entityLoadCountBefore = statistics.isStatisticsEnabled() ? statistics.getEntityLoadCount() : 0;
+        QueryCountHolder.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Map<String, Integer> statementCounts = QueryCountHolder.finish();
+            long entityLoadCount = statistics.isStatisticsEnabled() ? statistics.getEntityLoadCount() - entityLoadCountBefore : 0;
+
+            QueryCountResult result = QueryCountResult.builder()
+                    .method(request.getMethod())
+                    .endpoint(getEndpoint(request))
+                    .queryCount(statementCounts.values().stream().mapToInt(Integer::intValue).sum())
+                    .entityLoadCount(entityLoadCount)
+                    .statementCounts(statementCounts)
+                    .build();
+
+            warnIfOverThreshold(result);
+            eventPublisher.publishEvent(result);
+        }
+    }
+
+    private void warnIfOverThreshold(QueryCountResult result) {
+        if(result.queryCount() <= warnQueryCount && result.maxRepeatedCount() <= warnRepeatedCount){
+            return;
+        }
+        log.warn("쿼리 수 기준 초과 endpoint={} {} queryCount={} entityLoadCount={} mostRepeated={}",
+                result.method(), result.endpoint(), result.queryCount(), result.entityLoadCount(),
+                result.mostRepeatedStatements(3));
+    }
+
+    // /sns/reviews/3 과 /sns/reviews/4 가 같은 endpoint 로 묶이도록 매핑된 URL 패턴을 사용한다.
+    private String getEndpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
@@ -0,0 +1,74 @@
+package com.developlife.reviewtwits.config.query;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 스레드에서 실행된 SQL 을 세는 ThreadLocal 저장소.
+ * QueryCountFilter 가 요청 시작/종료 시 열고 닫으며, 열려 있지 않으면 기록하지 않는다.
+ * 요청이 executor 에 넘긴 작업은 propagate 로 감싸야 같은 집계에 기록된다(dashboardExecutor 는 TaskDecorator 로 감싼다).
+ */
+public final class QueryCountHolder {
+
+    private static final ThreadLocal<Map<String, Integer>> STATEMENT_COUNTS = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private QueryCountHolder() {
+    }
+
+    public static void start() {
+        STATEMENT_COUNTS.set(new ConcurrentHashMap<>());
+    }
+
+    public static Map<String, Integer> finish() {
+        Map<String, Integer> statementCounts = STATEMENT_COUNTS.get();
+        STATEMENT_COUNTS.remove();
+        // 요청이 끝난 뒤에도 돌고 있는 작업이 발행된 결과를 바꾸지 않도록 복사한다.
+        return statementCounts == null ? Map.of() : Map.copyOf(statementCounts);
+    }
+
+    /**
+     * 지금 스레드의 집계를 작업을 실행하는 스레드에서도 쓰도록 감싼다. 집계가 열려 있지 않으면 그대로 돌려준다.
+     */
+    public static Runnable propagate(Runnable task) {
+        Map<String, Integer> statementCounts = STATEMENT_COUNTS.get();
+        if(statementCounts == null){
+            return task;
+        }
+        return () -> {
+            Map<String, Integer> previousCounts = STATEMENT_COUNTS.get();
+            STATEMENT_COUNTS.set(statementCounts);
+            try {
+                task.run();
+            } finally {
+                if(previousCounts == null){
+                    STATEMENT_COUNTS.remove();
+                }else{
+                    STATEMENT_COUNTS.set(previousCounts);
+                }
+            }
+        };
+    }
+
+    static void record(String sql) {
+        Map<String, Integer> statementCounts = STATEMENT_COUNTS.get();
+        if(statementCounts != null){
+            statementCounts.merge(fingerprint(sql), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 값과 IN 목록 길이만 다른 SQL 이 같은 문장으로 묶이도록 정규화한다.
+     */
+    static String fingerprint(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim().toLowerCase()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return IN_LIST.matcher(normalized).replaceAll("in (...)");
+    }
+}
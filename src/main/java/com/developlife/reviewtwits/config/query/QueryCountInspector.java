@@ -0,0 +1,15 @@
+package com.developlife.reviewtwits.config.query;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 실행하는 모든 SQL 을 QueryCountHolder 에 기록한다. SQL 자체는 바꾸지 않는다.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCountHolder.record(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,34 @@
+package com.developlife.reviewtwits.config.query;
+
+import lombok.Builder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP 요청 한 번 동안 실행된 SQL 수와 로딩된 엔티티 수.
+ * statementCounts 는 SQL fingerprint 별 실행 횟수이다.
+ */
+public record QueryCountResult(String method,
+                               String endpoint,
+                               int queryCount,
+                               long entityLoadCount,
+                               Map<String, Integer> statementCounts) {
+
+    @Builder
+    public QueryCountResult {
+
+    }
+
+    public int maxRepeatedCount() {
+        return statementCounts.values().stream().max(Integer::compare).orElse(0);
+    }
+
+    public List<Map.Entry<String, Integer>> mostRepeatedStatements(int limit) {
+        return statementCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -21,6 +21,8 @@ import java.io.IOException;
  */
 @Component
 public class JwtAuthenticationFilter extends GenericFilterBean {
+    public static final String BEACON_PATH = "/statistics/beacon";
+
     private final JwtTokenProvider jwtTokenProvider;
 
     public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider) {
@@ -33,6 +35,12 @@ public class JwtAuthenticationFilter extends GenericFilterBean {
             ServletResponse response,
             FilterChain chain) throws IOException, ServletException {
 
+        // beacon 은 요청 헤더를 정할 수 없어 비로그인 방문으로만 기록하므로, 토큰을 확인하지 않고 넘깁니다.
+        if(BEACON_PATH.equals(((HttpServletRequest) request).getServletPath())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
         // 헤더에서 JWT 를 받아옵니다.
         String token = jwtTokenProvider.resolveToken((HttpServletRequest) request);
 //        token = jwtTokenProvider.removePrefix(token);
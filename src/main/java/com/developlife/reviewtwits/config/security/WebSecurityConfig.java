@@ -40,10 +40,12 @@ public class WebSecurityConfig {
     }
 
 
-    // 정적 자원에 대해서는 Security 설정을 적용하지 않음
+    // 정적 자원과 인증이 필요 없는 방문 beacon 에 대해서는 Security 설정을 적용하지 않음
     @Bean
     public WebSecurityCustomizer webSecurityCustomizer() {
-        return (web) -> web.ignoring().requestMatchers(PathRequest.toStaticResources().atCommonLocations());
+        return (web) -> web.ignoring()
+                .requestMatchers(PathRequest.toStaticResources().atCommonLocations())
+                .antMatchers(HttpMethod.POST, JwtAuthenticationFilter.BEACON_PATH);
     }
 
     @Bean
@@ -65,6 +67,7 @@ public class WebSecurityConfig {
             .antMatchers(HttpMethod.PATCH, "/sns/comments/**").hasRole("USER")
             .antMatchers("/sns/reviews/**").hasRole("USER")
             .antMatchers("/sns/reviews").hasRole("USER")
+            .antMatchers("/sns/home-feeds").hasRole("USER")
             .antMatchers(HttpMethod.POST,"/reviews/shopping").hasRole("USER")
             .antMatchers(HttpMethod.POST, "/reviews/shopping/**").hasRole("USER")
             .antMatchers(HttpMethod.DELETE,"/reviews/shopping/**").hasRole("USER")
@@ -77,6 +80,8 @@ public class WebSecurityConfig {
             .antMatchers("/sns/comments-like/**").hasRole("USER")
             .antMatchers("/review-management/approve").hasRole("USER")
             .antMatchers("/review-management/search").hasRole("USER")
+            .antMatchers("/statistics/backfill-jobs/**").hasRole("ADMIN")
+            .antMatchers("/statistics/ingestion-policies/**").hasRole("ADMIN")
             .antMatchers(HttpMethod.GET,"/statistics/**").hasRole("USER")
             .anyRequest()
             .permitAll()
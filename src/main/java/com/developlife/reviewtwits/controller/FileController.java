@@ -2,15 +2,17 @@ package com.developlife.reviewtwits.controller;
 
 import com.developlife.reviewtwits.entity.FileInfo;
 import com.developlife.reviewtwits.exception.file.InvalidFilenameExtensionException;
+import com.developlife.reviewtwits.repository.file.FileMetadataIndex.FileMetadata;
 import com.developlife.reviewtwits.message.request.FileUpdateRequest;
 import com.developlife.reviewtwits.message.response.ErrorResponse;
 import com.developlife.reviewtwits.service.FileStoreService;
+import com.developlife.reviewtwits.service.ImageVariantService;
+import com.developlife.reviewtwits.service.ImageVariantService.ImageVariant;
 import com.developlife.reviewtwits.type.ReferenceType;
+import com.developlife.reviewtwits.utils.file.StaticFileUtils;
 import com.google.common.net.HttpHeaders;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,10 +20,12 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriUtils;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 
 import static com.developlife.reviewtwits.handler.ExceptionHandlerTool.makeErrorResponse;
@@ -32,6 +36,7 @@ import static com.developlife.reviewtwits.handler.ExceptionHandlerTool.makeError
 public class FileController {
 
     private final FileStoreService fileStore;
+    private final ImageVariantService imageVariantService;
     // private final AwsS3Service s3Service;
 
     @PostMapping(value = "/files/save", produces = "application/json")
@@ -53,38 +58,55 @@ public class FileController {
         return ResponseEntity.ok().body(storeFilename); // 바꾸기
     }
 
+    // UUID 이름의 파일은 내용이 바뀌지 않으므로, 캐시 검증 요청은 메모리 색인에서 파일 정보를 찾은 뒤 디스크를 보지 않고 304 로 응답한다.
+    // 삭제된 파일은 304 대신 404 를 보내 브라우저 캐시에서도 지워지게 한다.
     @GetMapping(value = "/request-images/{UUID}")
-    public Resource downloadImage(@PathVariable(name = "UUID") String fileName, HttpServletResponse response) throws IOException {
+    public void downloadImage(@PathVariable(name = "UUID") String fileName,
+                              @RequestParam(name = "w", required = false) Integer width,
+                              @RequestParam(name = "fmt", required = false) String format,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
 
         if(ReferenceType.isValidFileType(ReferenceType.IMAGE, fileName)){
-            String originalFilename = fileStore.findOriginalFilename(fileName);
-            if(originalFilename == null){
-                throw new FileNotFoundException("해당 파일이 존재하지 않습니다.");
+            FileMetadata fileMetadata = fileStore.findStoredFileMetadata(fileName)
+                    .orElseThrow(() -> new FileNotFoundException("해당 파일이 존재하지 않습니다."));
+            String etag = StaticFileUtils.toETag(fileName + (width == null ? "" : ".w" + width) + (format == null ? "" : "." + format));
+            if(StaticFileUtils.checkNotModified(request, response, etag)){
+                return;
+            }
+            // 내용이 같은 파일은 blob 하나를 함께 쓰므로 realFilename 이 아니라 저장된 경로로 읽는다.
+            Path filePath = fileStore.getStoredFilePath(fileMetadata);
+            if(width != null || format != null){
+                ImageVariant variant = imageVariantService.getVariant(fileName, filePath, width, format);
+                StaticFileUtils.write(request, response, variant.path(), variant.contentType(), variant.generated() ? etag : null);
+                return;
             }
-            response.setContentType(MediaType.IMAGE_JPEG.toString());
             // return s3Service.getFilesFromS3(fileName);
-            return new UrlResource("file:"+ fileStore.getFullPath(fileName));
+            StaticFileUtils.write(request, response, filePath, MediaType.IMAGE_JPEG_VALUE, etag,
+                    fileMetadata.size(), fileMetadata.lastModified());
+            return;
         }
         throw new InvalidFilenameExtensionException("등록된 이미지 파일 확장자로 온 요청이 아닙니다.");
     }
 
-    @GetMapping(value = "/request-download-files/{UUID}", produces = "application/json")
-    public ResponseEntity<Resource> downloadFile(@PathVariable(name = "UUID") String fileName) throws IOException {
-        String originalFilename = fileStore.findOriginalFilename(fileName);
-
-        if(originalFilename == null){
-            throw new FileNotFoundException("해당 파일이 존재하지 않습니다.");
+    @GetMapping(value = "/request-download-files/{UUID}")
+    public void downloadFile(@PathVariable(name = "UUID") String fileName,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileMetadata fileMetadata = fileStore.findStoredFileMetadata(fileName)
+                .orElseThrow(() -> new FileNotFoundException("해당 파일이 존재하지 않습니다."));
+        String etag = StaticFileUtils.toETag(fileName);
+        if(StaticFileUtils.checkNotModified(request, response, etag)){
+            return;
         }
+        String originalFilename = fileMetadata.originalFilename();
         // Resource resource = s3Service.getFilesFromS3(fileName);
-        UrlResource resource = new UrlResource("file:" + fileStore.getFullPath(fileName));
 
         String encodeDownloadFileName = UriUtils.encode(originalFilename, StandardCharsets.UTF_8);
         String contentDisposition = "attachment; filename:\"" + encodeDownloadFileName + "\"";
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                .header(HttpHeaders.CONTENT_TYPE, ReferenceType.getContentType(fileName))
-                .body(resource);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        StaticFileUtils.write(request, response, fileStore.getStoredFilePath(fileMetadata),
+                fileMetadata.contentType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : fileMetadata.contentType(), etag,
+                fileMetadata.size(), fileMetadata.lastModified());
     }
 
     @ExceptionHandler(NullPointerException.class)
@@ -92,9 +114,11 @@ public class FileController {
         return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
 
+    // 파일을 보내다 사라진 경우 이미 붙인 immutable 캐시 헤더가 404 에 남지 않도록 덮어쓴다.
     @ExceptionHandler(FileNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
-    public List<ErrorResponse> FileNotFoundExceptionHandler(){
+    public List<ErrorResponse> FileNotFoundExceptionHandler(HttpServletResponse response){
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
         return makeErrorResponse(new FileNotFoundException("해당 파일이 존재하지 않습니다."), "fileName");
     }
 }
@@ -51,6 +51,14 @@ public class SnsReviewController {
         return snsReviewService.getSnsReviews(user,reviewId, size);
     }
 
+    @GetMapping("/home-feeds")
+    public List<DetailSnsReviewResponse> getHomeFeeds(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) Long reviewId,
+            @RequestParam @Min(value = 1, message = "size 는 1 이상의 양수로 입력해야 합니다.") int size){
+        return snsReviewService.getHomeFeeds(user, reviewId, size);
+    }
+
     @GetMapping("/feeds/filter")
     public List<DetailSnsReviewResponse> getSnsReviewWithFilter(
             @AuthenticationPrincipal User user,
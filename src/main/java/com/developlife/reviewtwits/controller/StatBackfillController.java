@@ -0,0 +1,35 @@
+package com.developlife.reviewtwits.controller;
+
+import com.developlife.reviewtwits.message.response.statistics.BackfillJobResponse;
+import com.developlife.reviewtwits.service.statistics.BackfillJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 통계 backfill 작업의 진행 상황 조회와 시작/멈춤. 관리자만 사용할 수 있다.
+ */
+@RestController
+@RequestMapping("/statistics/backfill-jobs")
+@RequiredArgsConstructor
+public class StatBackfillController {
+
+    private final BackfillJobService backfillJobService;
+
+    @GetMapping
+    public List<BackfillJobResponse> getBackfillJobs(){
+        return backfillJobService.getJobs();
+    }
+
+    @PostMapping("/{jobName}/start")
+    public BackfillJobResponse startBackfillJob(@PathVariable String jobName,
+                                                @RequestParam(defaultValue = "false") boolean restart){
+        return backfillJobService.start(jobName, restart);
+    }
+
+    @PostMapping("/{jobName}/pause")
+    public BackfillJobResponse pauseBackfillJob(@PathVariable String jobName){
+        return backfillJobService.pause(jobName);
+    }
+}
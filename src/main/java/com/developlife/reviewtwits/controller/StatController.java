@@ -6,20 +6,30 @@ import com.developlife.reviewtwits.message.annotation.project.ChartPeriod;
 import com.developlife.reviewtwits.message.annotation.project.ProjectName;
 import com.developlife.reviewtwits.message.request.StatMessageRequest;
 import com.developlife.reviewtwits.message.response.statistics.DailyVisitInfoResponse;
+import com.developlife.reviewtwits.message.response.statistics.DashboardResponse;
 import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
 import com.developlife.reviewtwits.message.response.statistics.VisitTotalGraphResponse;
 import com.developlife.reviewtwits.message.response.project.*;
 import com.developlife.reviewtwits.message.response.statistics.SaveStatResponse;
 import com.developlife.reviewtwits.message.response.statistics.SimpleProjectInfoResponse;
+import com.developlife.reviewtwits.service.StatDashboardService;
 import com.developlife.reviewtwits.service.StatService;
+import com.developlife.reviewtwits.service.statistics.VisitBeaconService;
+import com.developlife.reviewtwits.type.project.DashboardPanel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author WhalesBob
@@ -33,6 +43,8 @@ import java.util.Map;
 public class StatController {
 
     private final StatService statService;
+    private final StatDashboardService statDashboardService;
+    private final VisitBeaconService visitBeaconService;
 
     @PostMapping("/visited-info")
     public SaveStatResponse saveVisitedInfo(@AuthenticationPrincipal User user,
@@ -41,6 +53,13 @@ public class StatController {
         return statService.saveStatInfo(user,statMessageRequest);
     }
 
+    @PostMapping(value = "/beacon", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void saveVisitBeacon(HttpServletRequest request) throws IOException {
+
+        visitBeaconService.save(request.getInputStream(), request.getContentLengthLong());
+    }
+
     @GetMapping("/visit-graph-infos")
     public VisitTotalGraphResponse getVisitGraphInfos(@AuthenticationPrincipal User user,
                                                       @RequestParam
@@ -65,6 +84,20 @@ public class StatController {
         return statService.getRecentVisitCounts(projectName, user);
     }
 
+    @GetMapping("/dashboard")
+    public DashboardResponse dashBoard(@AuthenticationPrincipal User user,
+                                       @RequestParam @ProjectName String projectName,
+                                       @RequestParam(required = false) Set<DashboardPanel> panels,
+                                       @RequestParam(defaultValue = "1mo") @ChartPeriod String range){
+        return statDashboardService.getDashboard(projectName, panels, range, user);
+    }
+
+    @GetMapping(value = "/live-visits", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeLiveVisits(@AuthenticationPrincipal User user,
+                                          @RequestParam @ProjectName String projectName){
+        return statService.subscribeLiveVisits(projectName, user);
+    }
+
     @GetMapping("/dashboard/simple-project-info")
     public SimpleProjectInfoResponse dashBoardSimpleInfo(@AuthenticationPrincipal User user,
                                                          @RequestParam @ProjectName String projectName){
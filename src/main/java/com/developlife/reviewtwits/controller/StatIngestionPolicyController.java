@@ -0,0 +1,34 @@
+package com.developlife.reviewtwits.controller;
+
+import com.developlife.reviewtwits.message.annotation.project.ProjectName;
+import com.developlife.reviewtwits.message.request.statistics.VisitIngestionPolicyRequest;
+import com.developlife.reviewtwits.message.response.statistics.VisitIngestionPolicyResponse;
+import com.developlife.reviewtwits.service.statistics.VisitIngestionPolicyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+/**
+ * 프로젝트별 방문 수집 정책 조회와 변경. 관리자만 사용할 수 있다.
+ */
+@RestController
+@RequestMapping("/statistics/ingestion-policies")
+@RequiredArgsConstructor
+@Validated
+public class StatIngestionPolicyController {
+
+    private final VisitIngestionPolicyService visitIngestionPolicyService;
+
+    @GetMapping("/{projectName}")
+    public VisitIngestionPolicyResponse getIngestionPolicy(@PathVariable @ProjectName String projectName){
+        return visitIngestionPolicyService.getPolicy(projectName);
+    }
+
+    @PutMapping("/{projectName}")
+    public VisitIngestionPolicyResponse changeIngestionPolicy(@PathVariable @ProjectName String projectName,
+                                                              @RequestBody @Valid VisitIngestionPolicyRequest request){
+        return visitIngestionPolicyService.changePolicy(projectName, request);
+    }
+}
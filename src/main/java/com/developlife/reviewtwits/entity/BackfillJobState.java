@@ -0,0 +1,77 @@
+package com.developlife.reviewtwits.entity;
+
+import com.developlife.reviewtwits.type.project.BackfillJobStatus;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 통계 backfill 작업의 체크포인트. chunk 를 처리한 트랜잭션 안에서 마지막 키와 처리한 행 수를 함께 기록하므로,
+ * 서버가 재시작되어도 마지막으로 커밋된 chunk 다음부터 이어서 처리한다.
+ * 같은 작업을 두 곳에서 실행하면 version 이 어긋난 쪽의 chunk 가 롤백된다.
+ */
+@Entity
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "backfill_job_state")
+public class BackfillJobState extends BaseEntity {
+
+    @Id
+    private String jobName;
+
+    @Enumerated(EnumType.STRING)
+    private BackfillJobStatus status;
+
+    // 마지막으로 처리한 chunk 의 키. 키의 의미는 작업마다 다르다.
+    private long lastKey;
+
+    private long processedRows;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime startedDate;
+
+    private LocalDateTime finishedDate;
+
+    @Version
+    private Long version;
+
+    public void start(long initialKey) {
+        this.status = BackfillJobStatus.RUNNING;
+        this.lastKey = initialKey;
+        this.processedRows = 0;
+        this.lastError = null;
+        this.startedDate = LocalDateTime.now();
+        this.finishedDate = null;
+    }
+
+    public void resume() {
+        this.status = BackfillJobStatus.RUNNING;
+        this.lastError = null;
+        this.finishedDate = null;
+    }
+
+    public void checkpoint(long lastKey, long processedRows) {
+        this.lastKey = lastKey;
+        this.processedRows += processedRows;
+    }
+
+    public void complete() {
+        this.status = BackfillJobStatus.COMPLETED;
+        this.finishedDate = LocalDateTime.now();
+    }
+
+    public void pause() {
+        this.status = BackfillJobStatus.PAUSED;
+    }
+
+    public void fail(String error) {
+        this.status = BackfillJobStatus.FAILED;
+        this.lastError = error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+        this.finishedDate = LocalDateTime.now();
+    }
+}
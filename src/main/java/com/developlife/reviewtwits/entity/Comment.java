@@ -20,10 +20,10 @@ public class Comment extends BaseEntity {
     @Id @GeneratedValue
     private long commentId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Review review;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
     private String content;
@@ -20,10 +20,10 @@ public class CommentLike {
     @Id @GeneratedValue
     private long commentLikeId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Comment comment;
 
     @PrePersist
@@ -0,0 +1,34 @@
+package com.developlife.reviewtwits.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 내용(SHA-256)이 같은 업로드 파일이 함께 쓰는 디스크 파일.
+ * referenceCount 는 이 파일을 가리키는 exist 상태의 FileInfo 수이고, 0 이 된 뒤 유예 기간이 지나면 FileBlobCollector 가 지운다.
+ */
+@Entity
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "file_blob", indexes = @Index(columnList = "referenceCount, releasedDate"))
+public class FileBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    private String blobPath;
+
+    private long byteSize;
+
+    private long referenceCount;
+
+    private LocalDateTime createdDate;
+
+    // referenceCount 가 0 이 된 시각
+    private LocalDateTime releasedDate;
+}
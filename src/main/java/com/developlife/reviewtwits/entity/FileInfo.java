@@ -11,7 +11,7 @@ import javax.persistence.*;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "file_storage")
+@Table(name = "file_storage", indexes = @Index(columnList = "realFilename"))
 public class FileInfo {
 
     @Id
@@ -25,6 +25,10 @@ public class FileInfo {
 
     private String originalFilename;
 
+    // 내용이 같은 파일이 함께 쓰는 FileBlob 의 hash. content-addressed 저장 이전에 저장된 파일은 null 이다.
+    @Column(length = 64)
+    private String blobHash;
+
     @Builder.Default
     @ColumnDefault(value = "true")
     private boolean exist = true;
@@ -25,7 +25,7 @@ public class Follow {
     @JoinColumn
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn
     private User targetUser;
 
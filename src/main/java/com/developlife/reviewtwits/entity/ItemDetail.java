@@ -23,7 +23,7 @@ public class ItemDetail extends BaseEntity {
 
     private String productName;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     private RelatedProduct relatedProduct;
 
     @Column(length = 10000)
@@ -23,7 +23,7 @@ public class Product {
     @Column(name = "path")
     private String productUrl;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "projectId")
     private Project project;
 
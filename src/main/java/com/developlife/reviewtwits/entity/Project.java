@@ -2,6 +2,7 @@ package com.developlife.reviewtwits.entity;
 
 import com.developlife.reviewtwits.type.project.Language;
 import com.developlife.reviewtwits.type.project.ProjectPricePlan;
+import com.developlife.reviewtwits.type.project.VisitIngestionPolicy;
 import lombok.*;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.DynamicUpdate;
@@ -26,7 +27,8 @@ public class Project extends BaseEntity {
     @Id @GeneratedValue
     private long projectId;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
     @Column(unique = true)
@@ -51,4 +53,17 @@ public class Project extends BaseEntity {
 
     @ColumnDefault("0")
     private int reviewCount;
+
+    // 같은 방문자의 같은 상품 방문을 한 번으로 보는 시간(초). 0 이면 중복을 제거하지 않는다.
+    @ColumnDefault("0")
+    private int visitDedupWindowSeconds;
+
+    // 방문을 몇 건 중 한 건꼴로 기록할지. 1 이면 모두 기록한다.
+    @Builder.Default
+    @ColumnDefault("1")
+    private int visitSampleInterval = 1;
+
+    public VisitIngestionPolicy getVisitIngestionPolicy() {
+        return new VisitIngestionPolicy(visitDedupWindowSeconds, visitSampleInterval);
+    }
 }
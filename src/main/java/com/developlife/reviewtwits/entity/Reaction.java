@@ -21,10 +21,10 @@ public class Reaction extends BaseEntity {
     @Id @GeneratedValue
     private long reactionId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Review review;
 
     @Enumerated(value = EnumType.STRING)
@@ -5,6 +5,9 @@ import lombok.*;
 import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,14 +23,16 @@ import java.util.List;
 @AllArgsConstructor
 public class Review extends BaseEntity {
 
+    private static final String IMAGE_MANIFEST_DELIMITER = ",";
+
     @Id @GeneratedValue
     private long reviewId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "project_id")
     private Project project;
 
@@ -59,6 +64,11 @@ public class Review extends BaseEntity {
     @ColumnDefault(value = "0")
     private int reviewImageCount = 0;
 
+    // 사용자가 올린 순서대로의 이미지 realFilename 목록(콤마 구분). "" 는 이미지 없음, null 은 아직 채우지 않은 기존 리뷰
+    @Builder.Default
+    @Column(length = 2048)
+    private String reviewImageManifest = "";
+
     @Transient
     @Setter
     private List<String> reviewImageUuidList;
@@ -79,4 +89,23 @@ public class Review extends BaseEntity {
             this.project.setReviewCount(this.project.getReviewCount() - 1);
         }
     }
-}
\ No newline at end of file
+
+    public List<String> getReviewImageManifestList(){
+        if(this.reviewImageManifest == null || this.reviewImageManifest.isEmpty()){
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(this.reviewImageManifest.split(IMAGE_MANIFEST_DELIMITER)));
+    }
+
+    public void addReviewImages(List<String> realFilenameList){
+        List<String> manifestList = getReviewImageManifestList();
+        manifestList.addAll(realFilenameList);
+        this.reviewImageManifest = String.join(IMAGE_MANIFEST_DELIMITER, manifestList);
+    }
+
+    public void removeReviewImages(Collection<String> realFilenameList){
+        List<String> manifestList = getReviewImageManifestList();
+        manifestList.removeAll(realFilenameList);
+        this.reviewImageManifest = String.join(IMAGE_MANIFEST_DELIMITER, manifestList);
+    }
+}
@@ -0,0 +1,35 @@
+package com.developlife.reviewtwits.entity;
+
+import com.developlife.reviewtwits.type.ReactionType;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import javax.persistence.*;
+
+/**
+ * 리뷰별, 리액션 타입별 리액션 갯수 집계.
+ * 피드를 그릴 때 Reaction 엔티티를 모두 읽지 않고, 리액션 타입 수 만큼의 행만 읽도록 한다.
+ */
+@Entity
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "review_reaction_summary",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"reviewId", "reactionType"}))
+public class ReviewReactionSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long reactionSummaryId;
+
+    private long reviewId;
+
+    @Enumerated(value = EnumType.STRING)
+    private ReactionType reactionType;
+
+    @Builder.Default
+    @ColumnDefault(value = "0")
+    private long reactionCount = 0;
+}
@@ -20,10 +20,10 @@ public class ReviewScrap {
     @Id @GeneratedValue
     private long reviewScrapId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Review review;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.developlife.reviewtwits.entity;
 
 import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -22,26 +24,43 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class StatInfo {
 
+    public static final int ID_ALLOCATION_SIZE = 500;
+
+    // 방문 정보는 미리 발급한 id 로 batch insert 하므로, id 를 블록 단위로 예약하는 전용 sequence 를 쓴다.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stat_info_id")
+    @SequenceGenerator(name = "stat_info_id", sequenceName = "stat_info_seq", allocationSize = ID_ALLOCATION_SIZE)
     private long statId;
 
     private String inflowUrl;
 
+    // 유입 URL 을 저장할 때 한 번 분류해 둔 유입 경로. 통계는 inflowHost 로 다시 분류하고, host 가 없을 때만 쓴다.
+    @Enumerated(value = EnumType.STRING)
+    @Column(length = 20)
+    private Inflow inflow;
+
+    // 유입 URL 에서 잘라낸 소문자 host. 유입 경로는 통계를 낼 때 이 값으로 분류한다.
+    private String inflowHost;
+
     private String productUrl;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Project project;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
     @Enumerated(value = EnumType.STRING)
     private Device device;
 
+    // 표본 추출로 남긴 방문은 버린 방문까지 대표하도록 추출 간격만큼의 가중치를 갖는다.
+    @Builder.Default
+    @ColumnDefault("1")
+    private int sampleWeight = 1;
+
     @CreatedDate
     @Column(updatable = false, columnDefinition = "TIMESTAMP DEFAULT '0000-00-00 00:00:00'")
     private LocalDateTime createdDate;
@@ -5,6 +5,7 @@ import com.developlife.reviewtwits.type.JwtProvider;
 import com.developlife.reviewtwits.type.UserRole;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.util.StringUtils;
@@ -65,6 +66,7 @@ public class User extends BaseEntity implements UserDetails {
 
     @Setter
     @ElementCollection(fetch = FetchType.EAGER) // pk-fk갖고 별도테이블 생성
+    @BatchSize(size = 100) // 유저 목록을 읽을 때 권한을 유저마다 따로 조회하지 않도록 묶어서 가져온다
     @Enumerated(EnumType.STRING)
     @Builder.Default // 인스턴스 만들때 특정 필드값으로 초기화 할경우
     private Set<UserRole> roles = new HashSet<>();
@@ -0,0 +1,51 @@
+package com.developlife.reviewtwits.entity;
+
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.Inflow;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 보관 기간이 지나 삭제되는 월의 원본 방문 정보를 유입 경로/성별/출생 연도별로 압축한 집계.
+ * 유입 경로, 상품별 연령대/성별 통계는 남아 있는 원본과 이 집계를 합쳐서 계산한다.
+ */
+@Entity
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "visit_archive_rollup",
+        indexes = {@Index(columnList = "projectId, productId"), @Index(columnList = "monthStart"), @Index(columnList = "compactedPartition")})
+public class VisitArchiveRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    private long projectId;
+
+    private long productId;
+
+    // 압축된 달의 첫째 날
+    private LocalDate monthStart;
+
+    // 이 행을 만든 파티션(그 달의 첫째 날). 파티션에는 이전 달의 방문도 들어 있을 수 있어 monthStart 와 다를 수 있다.
+    private LocalDate compactedPartition;
+
+    @Enumerated(value = EnumType.STRING)
+    @Column(length = 20)
+    private Inflow inflow;
+
+    // 유입 경로는 통계를 낼 때 이 host 로 분류한다.
+    private String inflowHost;
+
+    // 연령대/성별 통계와 같이, 가입을 마친 유저의 방문에만 채운다.
+    @Enumerated(value = EnumType.STRING)
+    private Gender gender;
+
+    private Integer birthYear;
+
+    private long visitCount;
+}
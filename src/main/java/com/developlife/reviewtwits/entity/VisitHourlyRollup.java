@@ -0,0 +1,34 @@
+package com.developlife.reviewtwits.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 프로젝트/상품별 한 시간 단위 방문 수 집계.
+ * 방문 정보가 기록될 때 같은 트랜잭션 안에서 visitCount 를 증가시킨다.
+ */
+@Entity
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "visit_hourly_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"projectId", "productId", "bucketStart"}),
+        indexes = @Index(columnList = "projectId, bucketStart"))
+public class VisitHourlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    private long projectId;
+
+    private long productId;
+
+    // 집계 구간의 시작 시각
+    private LocalDateTime bucketStart;
+
+    private long visitCount;
+}
@@ -0,0 +1,7 @@
+package com.developlife.reviewtwits.exception.file;
+
+public class InvalidImageVariantException extends RuntimeException{
+    public InvalidImageVariantException(String msg){
+        super(msg);
+    }
+}
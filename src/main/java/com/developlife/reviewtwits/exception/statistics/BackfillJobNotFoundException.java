@@ -0,0 +1,7 @@
+package com.developlife.reviewtwits.exception.statistics;
+
+public class BackfillJobNotFoundException extends RuntimeException {
+    public BackfillJobNotFoundException(String message) {
+        super(message);
+    }
+}
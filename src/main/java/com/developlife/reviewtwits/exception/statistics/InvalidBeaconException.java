@@ -0,0 +1,7 @@
+package com.developlife.reviewtwits.exception.statistics;
+
+public class InvalidBeaconException extends RuntimeException {
+    public InvalidBeaconException(String message) {
+        super(message);
+    }
+}
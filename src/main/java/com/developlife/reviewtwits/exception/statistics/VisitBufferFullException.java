@@ -0,0 +1,7 @@
+package com.developlife.reviewtwits.exception.statistics;
+
+public class VisitBufferFullException extends RuntimeException {
+    public VisitBufferFullException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package com.developlife.reviewtwits.handler;
 
 import com.developlife.reviewtwits.exception.file.FileEmptyException;
 import com.developlife.reviewtwits.exception.file.InvalidFilenameExtensionException;
+import com.developlife.reviewtwits.exception.file.InvalidImageVariantException;
 import com.developlife.reviewtwits.message.response.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.http.fileupload.FileUploadException;
@@ -32,6 +33,12 @@ public class FileExceptionHandler {
         return makeErrorResponse(e, "UUID");
     }
 
+    @ExceptionHandler(InvalidImageVariantException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public List<ErrorResponse> invalidImageVariantExceptionHandler(InvalidImageVariantException e){
+        return makeErrorResponse(e, "variant");
+    }
+
     @ExceptionHandler(FileUploadException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public List<ErrorResponse> fileUploadExceptionHandler(FileUploadException e){
@@ -0,0 +1,36 @@
+package com.developlife.reviewtwits.handler;
+
+import com.developlife.reviewtwits.exception.statistics.BackfillJobNotFoundException;
+import com.developlife.reviewtwits.exception.statistics.InvalidBeaconException;
+import com.developlife.reviewtwits.exception.statistics.VisitBufferFullException;
+import com.developlife.reviewtwits.message.response.ErrorResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.List;
+
+import static com.developlife.reviewtwits.handler.ExceptionHandlerTool.makeErrorResponse;
+
+@RestControllerAdvice
+public class StatExceptionHandler {
+
+    @ExceptionHandler(VisitBufferFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public List<ErrorResponse> visitBufferFullExceptionHandler(VisitBufferFullException e){
+        return makeErrorResponse(e, "visitedInfo");
+    }
+
+    @ExceptionHandler(BackfillJobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public List<ErrorResponse> backfillJobNotFoundExceptionHandler(BackfillJobNotFoundException e){
+        return makeErrorResponse(e, "jobName");
+    }
+
+    @ExceptionHandler(InvalidBeaconException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public List<ErrorResponse> invalidBeaconExceptionHandler(InvalidBeaconException e){
+        return makeErrorResponse(e, "beacon");
+    }
+}
@@ -5,6 +5,8 @@ import com.developlife.reviewtwits.message.response.review.*;
 import com.developlife.reviewtwits.message.response.sns.DetailSnsReviewResponse;
 import com.developlife.reviewtwits.message.response.sns.SnsReviewResponse;
 import com.developlife.reviewtwits.message.response.user.UserInfoResponse;
+import com.developlife.reviewtwits.repository.review.ReviewCard;
+import com.developlife.reviewtwits.type.ReactionType;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 
@@ -20,6 +22,8 @@ import java.util.Map;
 public interface ReviewMapper {
 
     String imageUrl = "/request-images/";
+    // 리뷰와 댓글의 작성자 프로필 사진은 작게 보여주므로 줄인 이미지를 받는다.
+    String profileImageVariant = "?w=160";
 
     ReviewMapper INSTANCE = Mappers.getMapper(ReviewMapper.class);
     List<DetailShoppingMallReviewResponse> toDetailReviewResponseList(List<Review> reviews);
@@ -34,7 +38,7 @@ public interface ReviewMapper {
     default UserInfoResponse mapUserToUserInfoResponse(User user){
         String profileImageUuid = user.getProfileImageUuid();
         if(profileImageUuid != null){
-            profileImageUuid = imageUrl + profileImageUuid;
+            profileImageUuid = imageUrl + profileImageUuid + profileImageVariant;
         }
 
         return UserInfoResponse.builder()
@@ -83,6 +87,40 @@ public interface ReviewMapper {
                 .build();
     }
 
+    default ReviewCard toReviewCard(Review review, Map<ReactionType, Integer> reactionCounts){
+        return ReviewCard.builder()
+                .createdDate(review.getCreatedDate())
+                .lastModifiedDate(review.getLastModifiedDate())
+                .reviewId(review.getReviewId())
+                .productName(review.getProductName())
+                .userInfo(mapUserToUserInfoResponse(review.getUser()))
+                .content(review.getContent())
+                .productUrl(review.getProductUrl())
+                .score(review.getScore())
+                .reviewImageUrlList(mapImageUuidToUrlList(review.getReviewImageUuidList()))
+                .commentCount(review.getCommentCount())
+                .reactionCounts(reactionCounts)
+                .build();
+    }
+
+    default DetailSnsReviewResponse toDetailSnsReviewResponse(ReviewCard reviewCard,
+                                                              ReactionType viewerReactionType, boolean isScrapped){
+        return DetailSnsReviewResponse.builder()
+                .createdDate(reviewCard.createdDate())
+                .lastModifiedDate(reviewCard.lastModifiedDate())
+                .reviewId(reviewCard.reviewId())
+                .productName(reviewCard.productName())
+                .userInfo(reviewCard.userInfo())
+                .content(reviewCard.content())
+                .productUrl(reviewCard.productUrl())
+                .score(reviewCard.score())
+                .reviewImageUrlList(reviewCard.reviewImageUrlList())
+                .commentCount(reviewCard.commentCount())
+                .reactionResponses(ReactionType.mappingReactionResponse(viewerReactionType, reviewCard.reactionCounts()))
+                .isScrapped(isScrapped)
+                .build();
+    }
+
     default CommentResponse toCommentResponse(Comment comment){
         return CommentResponse.builder()
                 .createdDate(comment.getCreatedDate())
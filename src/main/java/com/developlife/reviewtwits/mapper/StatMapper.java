@@ -1,9 +1,12 @@
 package com.developlife.reviewtwits.mapper;
 
+import com.developlife.reviewtwits.entity.BackfillJobState;
 import com.developlife.reviewtwits.entity.StatInfo;
 import com.developlife.reviewtwits.entity.User;
+import com.developlife.reviewtwits.message.response.statistics.BackfillJobResponse;
 import com.developlife.reviewtwits.message.response.statistics.SaveStatResponse;
 import com.developlife.reviewtwits.message.response.user.UserInfoResponse;
+import com.developlife.reviewtwits.service.statistics.VisitEvent;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.NullValueCheckStrategy;
@@ -30,4 +33,30 @@ public interface StatMapper {
                 .deviceInfo(statInfo.getDevice().toString())
                 .build();
     }
+
+    default SaveStatResponse mapVisitEventToSaveStatResponse(VisitEvent visitEvent, User user){
+        return SaveStatResponse.builder()
+                .statId(visitEvent.statId())
+                .userInfo(mapUserToUserInfoResponse(user))
+                .createdDate(visitEvent.createdDate().toLocalDate().toString())
+                .inflowUrl(visitEvent.inflowUrl())
+                .productUrl(visitEvent.productUrl())
+                .productId(visitEvent.productId())
+                .projectId(visitEvent.projectId())
+                .deviceInfo(visitEvent.device().toString())
+                .build();
+    }
+
+    default BackfillJobResponse mapBackfillJobStateToBackfillJobResponse(BackfillJobState backfillJobState){
+        return BackfillJobResponse.builder()
+                .jobName(backfillJobState.getJobName())
+                .status(backfillJobState.getStatus())
+                .lastKey(backfillJobState.getLastKey())
+                .processedRows(backfillJobState.getProcessedRows())
+                .lastError(backfillJobState.getLastError())
+                .startedDate(backfillJobState.getStartedDate())
+                .finishedDate(backfillJobState.getFinishedDate())
+                .lastModifiedDate(backfillJobState.getLastModifiedDate())
+                .build();
+    }
 }
@@ -5,6 +5,8 @@ import com.developlife.reviewtwits.message.annotation.statistics.Device;
 import com.developlife.reviewtwits.message.annotation.common.HttpURL;
 import lombok.Builder;
 
+import javax.validation.constraints.Size;
+
 /**
  * @author WhalesBob
  * @since 2023-04-23
@@ -16,7 +18,10 @@ public record StatMessageRequest(
         @HttpURL
         String productUrl,
         @Device
-        String device) {
+        String device,
+        // 비로그인 방문자를 구분하기 위해 클라이언트가 발급해 두는 id (순 방문자 집계용)
+        @Size(max = 64, message = "방문자 id 는 64자 이하로 입력해주세요")
+        String visitorId) {
 
         @Builder
         public StatMessageRequest {
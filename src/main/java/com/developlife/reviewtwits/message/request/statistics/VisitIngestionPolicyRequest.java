@@ -0,0 +1,25 @@
+package com.developlife.reviewtwits.message.request.statistics;
+
+import lombok.Builder;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * 프로젝트의 방문 수집 정책 변경 요청.
+ */
+public record VisitIngestionPolicyRequest(
+        @NotNull(message = "중복 제거 시간을 입력해주세요")
+        @Min(value = 0, message = "중복 제거 시간은 0초 이상이어야 합니다.")
+        @Max(value = 86400, message = "중복 제거 시간은 하루(86400초) 이하여야 합니다.")
+        Integer dedupWindowSeconds,
+        @NotNull(message = "표본 추출 간격을 입력해주세요")
+        @Min(value = 1, message = "표본 추출 간격은 1 이상이어야 합니다.")
+        @Max(value = 1000, message = "표본 추출 간격은 1000 이하여야 합니다.")
+        Integer sampleInterval) {
+
+    @Builder
+    public VisitIngestionPolicyRequest {
+    }
+}
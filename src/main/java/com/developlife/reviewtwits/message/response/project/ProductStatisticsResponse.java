@@ -3,8 +3,10 @@ package com.developlife.reviewtwits.message.response.project;
 import lombok.Builder;
 
 public record ProductStatisticsResponse(
+        Long productId,
         String productName,
         Long visitCount,
+        Long uniqueVisitorCount,
         Long reviewCount,
         Long mainAge,
         String mainGender,
@@ -13,4 +15,9 @@ public record ProductStatisticsResponse(
     @Builder
     public ProductStatisticsResponse {
     }
+
+    public ProductStatisticsResponse withUniqueVisitorCount(Long uniqueVisitorCount) {
+        return new ProductStatisticsResponse(productId, productName, visitCount, uniqueVisitorCount,
+                reviewCount, mainAge, mainGender, averageScore);
+    }
 }
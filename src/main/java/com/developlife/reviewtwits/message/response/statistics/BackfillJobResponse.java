@@ -0,0 +1,22 @@
+package com.developlife.reviewtwits.message.response.statistics;
+
+import com.developlife.reviewtwits.type.project.BackfillJobStatus;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 통계 backfill 작업의 진행 상황. 처음 실행되기 전의 작업은 status 가 null 이다.
+ */
+public record BackfillJobResponse(String jobName,
+                                  BackfillJobStatus status,
+                                  long lastKey,
+                                  long processedRows,
+                                  String lastError,
+                                  LocalDateTime startedDate,
+                                  LocalDateTime finishedDate,
+                                  LocalDateTime lastModifiedDate) {
+    @Builder
+    public BackfillJobResponse {
+    }
+}
@@ -0,0 +1,18 @@
+package com.developlife.reviewtwits.message.response.statistics;
+
+import lombok.Builder;
+
+/**
+ * 대시보드 패널 하나의 처리 결과. elapsedMillis 는 작업을 맡긴 시점부터 결과가 나온 시점(시간 초과면 기다린 시간)까지이다.
+ */
+public record DashboardPanelResult(Status status,
+                                   long elapsedMillis,
+                                   String message) {
+    @Builder
+    public DashboardPanelResult {
+    }
+
+    public enum Status {
+        OK, TIMEOUT, FAILED, REJECTED
+    }
+}
@@ -0,0 +1,25 @@
+package com.developlife.reviewtwits.message.response.statistics;
+
+import com.developlife.reviewtwits.message.response.project.ProductStatisticsResponse;
+import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
+import com.developlife.reviewtwits.message.response.project.SearchFlowResponse;
+import com.developlife.reviewtwits.type.project.DashboardPanel;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 통계 대시보드 응답. 요청하지 않았거나 제시간에 끝나지 않은 패널은 null 이고, 패널별 상태와 소요 시간은 panels 에 담긴다.
+ */
+public record DashboardResponse(SimpleProjectInfoResponse simpleProjectInfo,
+                                List<ProductStatisticsResponse> productStatistics,
+                                SearchFlowResponse requestInflowInfos,
+                                Map<Integer, Long> readTimeInfo,
+                                RecentVisitInfoResponse recentVisitCounts,
+                                DailyVisitInfoResponse dailyVisitGraphInfos,
+                                Map<DashboardPanel, DashboardPanelResult> panels) {
+    @Builder
+    public DashboardResponse {
+    }
+}
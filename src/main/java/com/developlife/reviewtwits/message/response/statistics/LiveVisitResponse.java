@@ -0,0 +1,15 @@
+package com.developlife.reviewtwits.message.response.statistics;
+
+import lombok.Builder;
+
+/**
+ * 실시간 방문 스트림으로 보내는 방문 수. newVisits 는 직전 전송 이후 새로 기록된 방문 수이다.
+ */
+public record LiveVisitResponse(long newVisits,
+                                int todayVisit,
+                                int yesterdayVisit,
+                                int totalVisit) {
+    @Builder
+    public LiveVisitResponse {
+    }
+}
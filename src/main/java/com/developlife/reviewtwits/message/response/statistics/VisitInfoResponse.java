@@ -14,5 +14,6 @@ import lombok.Setter;
 public class VisitInfoResponse{
     private String timeStamp;
     private Integer visitCount;
+    private Integer uniqueVisitorCount;
     private Integer previousCompare;
 }
\ No newline at end of file
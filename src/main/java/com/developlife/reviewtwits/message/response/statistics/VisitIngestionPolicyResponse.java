@@ -0,0 +1,14 @@
+package com.developlife.reviewtwits.message.response.statistics;
+
+import lombok.Builder;
+
+/**
+ * 프로젝트의 방문 수집 정책. dedupWindowSeconds 가 0 이면 중복을 제거하지 않고, sampleInterval 이 1 이면 모든 방문을 기록한다.
+ */
+public record VisitIngestionPolicyResponse(String projectName,
+                                           int dedupWindowSeconds,
+                                           int sampleInterval) {
+    @Builder
+    public VisitIngestionPolicyResponse {
+    }
+}
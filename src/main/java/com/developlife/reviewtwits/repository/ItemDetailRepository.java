@@ -2,6 +2,7 @@ package com.developlife.reviewtwits.repository;
 
 import com.developlife.reviewtwits.entity.ItemDetail;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -12,9 +13,11 @@ import java.util.Optional;
 @Repository
 public interface ItemDetailRepository extends JpaRepository<ItemDetail, Long> {
 
+    @EntityGraph(attributePaths = "relatedProduct")
     @Query("select i from ItemDetail i where i.relatedProduct.name like %:searchKey% or i.detailInfo like %:searchKey% ORDER BY i.itemId DESC")
     List<ItemDetail> findByRelatedProduct_NameLikeOrDetailInfoLike(String searchKey, Pageable pageable);
 
+    @EntityGraph(attributePaths = "relatedProduct")
     List<ItemDetail> findAllByOrderByCreatedDateDesc(Pageable pageable);
 
     Optional<ItemDetail> findByProductNameLike(String productName);
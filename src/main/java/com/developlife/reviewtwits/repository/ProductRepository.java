@@ -1,6 +1,7 @@
 package com.developlife.reviewtwits.repository;
 
 import com.developlife.reviewtwits.entity.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,5 +14,8 @@ import java.util.Optional;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findProductByProductUrl(String productUrl);
+    // 방문 정보 저장 시 프로젝트의 수집 정책도 함께 쓰므로 프로젝트를 함께 읽는다.
+    @EntityGraph(attributePaths = "project")
+    Optional<Product> findWithProjectByProductUrl(String productUrl);
     boolean existsProductByProductUrl(String productURL);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.developlife.reviewtwits.repository;
 
 import com.developlife.reviewtwits.entity.Project;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,9 +16,12 @@ import java.util.Optional;
 public interface ProjectRepository extends JpaRepository<Project, Long> {
     List<Project> findProjectsByUser_AccountId(String accountId);
 
+    // 프로젝트 소유자 확인에 쓰이므로 소유자를 함께 읽는다.
+    @EntityGraph(attributePaths = "user")
     Optional<Project> findByProjectId(Long projectId);
 
     Optional<Project> findFirstByUser_AccountId(String accountId);
+    @EntityGraph(attributePaths = "user")
     Optional<Project> findByProjectName(String projectName);
 
 
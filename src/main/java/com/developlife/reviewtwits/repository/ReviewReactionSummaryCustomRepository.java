@@ -0,0 +1,7 @@
+package com.developlife.reviewtwits.repository;
+
+import com.developlife.reviewtwits.type.ReactionType;
+
+public interface ReviewReactionSummaryCustomRepository {
+    void upsertReactionCount(long reviewId, ReactionType reactionType, long delta);
+}
@@ -0,0 +1,24 @@
+package com.developlife.reviewtwits.repository;
+
+import com.developlife.reviewtwits.type.ReactionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class ReviewReactionSummaryCustomRepositoryImpl implements ReviewReactionSummaryCustomRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UpsertSqlBuilder.Upsert upsert;
+
+    public ReviewReactionSummaryCustomRepositoryImpl(JdbcTemplate jdbcTemplate, UpsertSqlBuilder upsertSqlBuilder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsert = upsertSqlBuilder.addingUpsert("review_reaction_summary",
+                List.of("review_id", "reaction_type"), List.of("reaction_count"));
+    }
+
+    // 첫 리액션이 동시에 들어와도 unique 제약 위반 없이 한 문장으로 더한다.
+    @Override
+    public void upsertReactionCount(long reviewId, ReactionType reactionType, long delta) {
+        jdbcTemplate.update(upsert.sql(), upsert.arguments(reviewId, reactionType.name(), delta));
+    }
+}
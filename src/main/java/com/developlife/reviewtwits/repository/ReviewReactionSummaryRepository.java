@@ -0,0 +1,38 @@
+package com.developlife.reviewtwits.repository;
+
+import com.developlife.reviewtwits.entity.ReviewReactionSummary;
+import com.developlife.reviewtwits.type.ReactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReviewReactionSummaryRepository extends JpaRepository<ReviewReactionSummary, Long>, ReviewReactionSummaryCustomRepository {
+    List<ReviewReactionSummary> findByReviewIdIn(List<Long> reviewIdList);
+
+    @Modifying
+    @Query("UPDATE ReviewReactionSummary s SET s.reactionCount = s.reactionCount + :delta " +
+            "WHERE s.reviewId = :reviewId AND s.reactionType = :reactionType")
+    int addReactionCount(@Param("reviewId") long reviewId,
+                         @Param("reactionType") ReactionType reactionType,
+                         @Param("delta") long delta);
+
+    @Modifying
+    @Query("INSERT INTO ReviewReactionSummary (reviewId, reactionType, reactionCount) " +
+            "SELECT r.review.reviewId, r.reactionType, COUNT(r) FROM Reaction r GROUP BY r.review.reviewId, r.reactionType")
+    int rebuildFromReactions();
+
+    @Modifying
+    @Query("INSERT INTO ReviewReactionSummary (reviewId, reactionType, reactionCount) " +
+            "SELECT r.review.reviewId, r.reactionType, COUNT(r) FROM Reaction r " +
+            "WHERE r.review.reviewId = :reviewId GROUP BY r.review.reviewId, r.reactionType")
+    int rebuildFromReactions(@Param("reviewId") long reviewId);
+
+    @Modifying
+    @Query("DELETE FROM ReviewReactionSummary s WHERE s.reviewId = :reviewId")
+    int deleteByReviewId(@Param("reviewId") long reviewId);
+}
@@ -0,0 +1,86 @@
+package com.developlife.reviewtwits.repository;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 한 문장으로 행을 넣거나 갱신하는 upsert 문을 DB 에 맞게 만든다.
+ * MariaDB 는 INSERT ... ON DUPLICATE KEY UPDATE, 테스트의 H2 는 MERGE ... USING 을 쓴다.
+ * keyColumns 에는 unique key 가 있어야 하고, 값은 Upsert.arguments 에 keyColumns, valueColumns 순서로 넘긴다.
+ */
+@Component
+public class UpsertSqlBuilder {
+
+    private final DataSource dataSource;
+    private volatile Boolean h2;
+
+    public UpsertSqlBuilder(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // 이미 있는 행의 valueColumns 에 넘긴 값을 더한다.
+    public Upsert addingUpsert(String table, List<String> keyColumns, List<String> valueColumns) {
+        return upsert(table, keyColumns, valueColumns, true);
+    }
+
+    // 이미 있는 행의 valueColumns 를 넘긴 값으로 바꾼다.
+    public Upsert replacingUpsert(String table, List<String> keyColumns, List<String> valueColumns) {
+        return upsert(table, keyColumns, valueColumns, false);
+    }
+
+    private Upsert upsert(String table, List<String> keyColumns, List<String> valueColumns, boolean adding) {
+        List<String> columns = new ArrayList<>(keyColumns);
+        columns.addAll(valueColumns);
+        String placeholders = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+
+        if(isH2()){
+            // H2 는 타입을 알 수 없는 파라미터로 파생 테이블을 만들지 못하므로, 파라미터를 컬럼과 비교하거나 컬럼에 넣는 자리에만 둔다.
+            String sql = "merge into " + table + " t using (select 1) s " +
+                    "on " + keyColumns.stream().map(column -> "t." + column + " = ?").collect(Collectors.joining(" and ")) + " " +
+                    "when matched then update set " + valueColumns.stream()
+                            .map(column -> column + " = " + (adding ? "t." + column + " + ?" : "?"))
+                            .collect(Collectors.joining(", ")) + " " +
+                    "when not matched then insert (" + String.join(", ", columns) + ") values (" + placeholders + ")";
+            int[] argumentIndexes = IntStream.concat(IntStream.range(0, columns.size()), IntStream.range(0, columns.size())).toArray();
+            return new Upsert(sql, argumentIndexes);
+        }
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values (" + placeholders + ") " +
+                "on duplicate key update " + valueColumns.stream()
+                        .map(column -> column + " = " + (adding ? column + " + " : "") + "values(" + column + ")")
+                        .collect(Collectors.joining(", "));
+        return new Upsert(sql, IntStream.range(0, columns.size()).toArray());
+    }
+
+    private boolean isH2() {
+        Boolean detected = h2;
+        if(detected == null){
+            try {
+                String productName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                detected = productName.toLowerCase(Locale.ROOT).contains("h2");
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("DB 종류를 확인하지 못했습니다.", e);
+            }
+            h2 = detected;
+        }
+        return detected;
+    }
+
+    /**
+     * upsert 문과, keyColumns + valueColumns 순서의 값을 문장의 파라미터 순서로 펼치는 방법.
+     */
+    public record Upsert(String sql, int[] argumentIndexes) {
+
+        public Object[] arguments(Object... keyAndValues) {
+            return IntStream.of(argumentIndexes).mapToObj(index -> keyAndValues[index]).toArray();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.developlife.reviewtwits.repository.file;
 
 import com.developlife.reviewtwits.type.ReferenceType;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author WhalesBob
@@ -10,4 +12,5 @@ import java.util.List;
  */
 public interface FileCustomRepository {
     List<String> getRealFilename(Long referenceId, ReferenceType referenceType);
+    Map<Long, List<String>> findRealFilenamesByReferenceIds(Collection<Long> referenceIdList, ReferenceType referenceType);
 }
\ No newline at end of file
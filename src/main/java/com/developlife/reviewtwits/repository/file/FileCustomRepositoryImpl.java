@@ -4,10 +4,14 @@ import com.developlife.reviewtwits.type.ReferenceType;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static com.developlife.reviewtwits.entity.QFileInfo.fileInfo;
 import static com.developlife.reviewtwits.entity.QFileManager.fileManager;
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
 
 /**
  * @author WhalesBob
@@ -35,4 +39,16 @@ public class FileCustomRepositoryImpl implements FileCustomRepository{
                 )
                 .fetch();
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<Long, List<String>> findRealFilenamesByReferenceIds(Collection<Long> referenceIdList, ReferenceType referenceType) {
+        return jpaQueryFactory.select(fileManager.referenceId, fileInfo.realFilename)
+                .from(fileManager)
+                .join(fileManager.fileInfo, fileInfo)
+                .where(fileManager.referenceType.eq(referenceType)
+                        .and(fileManager.referenceId.in(referenceIdList))
+                        .and(fileInfo.exist.isTrue()))
+                .orderBy(fileInfo.fileID.asc())
+                .transform(groupBy(fileManager.referenceId).as(list(fileInfo.realFilename)));
+    }
+}
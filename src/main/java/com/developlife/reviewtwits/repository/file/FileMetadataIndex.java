@@ -0,0 +1,231 @@
+package com.developlife.reviewtwits.repository.file;
+
+import com.developlife.reviewtwits.entity.FileInfo;
+import com.developlife.reviewtwits.type.ReferenceType;
+import com.developlife.reviewtwits.utils.file.BlobPathUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * realFilename 으로 파일을 보낼 때 필요한 정보(원본 파일 이름, 삭제 여부, content type, 크기, 경로)를 메모리에 색인한다.
+ * 파일을 저장할 때 채우고, 색인에 없는 파일은 처음 요청될 때 DB 에서 읽어 채운다. 삭제된 파일은 지운 뒤 다시 읽어 삭제 상태로 채운다.
+ * DB 에 없는 이름은 negative-ttl-seconds 동안 없는 파일로 기억해, 없는 파일을 거듭 요청해도 DB 를 매번 읽지 않는다.
+ * 이 서버에서 저장한 파일은 바로 채우므로 기억한 것을 덮어쓰고, 다른 서버에서 저장한 파일은 그 시간 뒤에 찾을 수 있다.
+ * 삭제는 커밋 뒤 Redis 채널로 다른 서버에도 알리고, DB 를 읽는 도중 무효화된 항목은 채우지 않아 삭제 전 상태가 다시 들어가지 않는다.
+ * 키는 UUID 를 long 두 개와 확장자 번호로, blob 경로는 SHA-256 32 byte 로 들고 있어 항목마다 경로 문자열을 두지 않는다.
+ * 받을 수 있는 확장자(ReferenceType)가 아닌 이름은 색인하지 않는다.
+ * 적중/미적중 수는 cache.gets{cache=file.metadata} 메트릭으로 확인할 수 있다.
+ */
+@Slf4j
+@Component
+public class FileMetadataIndex {
+
+    public static final String CACHE_NAME = "file.metadata";
+    public static final String INVALIDATION_CHANNEL = "file:metadata:invalidate";
+    private static final int GENERATION_STRIPES = 1024;
+    private static final List<String> EXTENSIONS = ReferenceType.getAllFileTypes();
+
+    private final FileInfoRepository fileInfoRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final String fileDir;
+    private final Cache<FileKey, FileMetadata> cache;
+    // DB 에 없던 이름
+    private final Cache<String, Boolean> misses;
+    // 무효화할 때마다 올려, DB 를 읽는 동안 무효화된 항목을 채우지 않는다.
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public FileMetadataIndex(FileInfoRepository fileInfoRepository, MeterRegistry meterRegistry,
+                             StringRedisTemplate redisTemplate, RedisMessageListenerContainer redisMessageListenerContainer,
+                             @Value("${file.dir}") String fileDir,
+                             @Value("${file.metadata-index.maximum-size:200000}") long maximumSize,
+                             @Value("${file.metadata-index.expire-after-write-seconds:3600}") long expireAfterWriteSeconds,
+                             @Value("${file.metadata-index.negative-maximum-size:10000}") long negativeMaximumSize,
+                             @Value("${file.metadata-index.negative-ttl-seconds:10}") long negativeTtlSeconds) {
+        this.fileInfoRepository = fileInfoRepository;
+        this.redisTemplate = redisTemplate;
+        this.fileDir = fileDir;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        this.misses = CacheBuilder.newBuilder()
+                .maximumSize(negativeMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        redisMessageListenerContainer.addMessageListener((message, pattern) ->
+                        invalidateAll(Arrays.asList(new String(message.getBody(), StandardCharsets.UTF_8).split(","))),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * 삭제되지 않았고 디스크에 있는 파일의 정보를 반환한다. 색인하지 않는 이름의 파일은 DB 에서 읽는다.
+     */
+    public Optional<FileMetadata> find(String realFilename) {
+        FileKey key = FileKey.from(realFilename);
+        FileMetadata cached = key == null ? null : cache.getIfPresent(key);
+        if(cached == null){
+            if(misses.getIfPresent(realFilename) != null){
+                return Optional.empty();
+            }
+            long generationBeforeLoad = generations.get(stripeOf(realFilename));
+            Optional<FileMetadata> found = fileInfoRepository.findFileInfoByRealFilename(realFilename).map(this::toMetadata);
+            if(found.isEmpty()){
+                putMissIfNotInvalidated(realFilename, generationBeforeLoad);
+            } else if(key != null){
+                putIfNotInvalidated(realFilename, key, found.get(), generationBeforeLoad);
+            }
+            cached = found.orElse(null);
+        }
+        return Optional.ofNullable(cached).filter(FileMetadata::exists);
+    }
+
+    // 저장한 파일은 방금 쓴 크기와 시각으로 채우므로 처음 요청될 때도 DB 와 디스크를 보지 않는다.
+    // 커밋 전에 DB 를 읽어 없는 파일로 기억하려던 요청이 이 값을 덮어쓰지 않도록 generation 을 올린다.
+    public void put(FileInfo fileInfo, long size, long lastModified) {
+        String realFilename = fileInfo.getRealFilename();
+        generations.incrementAndGet(stripeOf(realFilename));
+        misses.invalidate(realFilename);
+        FileKey key = FileKey.from(realFilename);
+        if(key != null){
+            cache.put(key, toMetadata(fileInfo, true, size, lastModified));
+        }
+    }
+
+    public void invalidateAll(Collection<String> realFilenames) {
+        for(String realFilename : realFilenames){
+            generations.incrementAndGet(stripeOf(realFilename));
+            FileKey key = FileKey.from(realFilename);
+            if(key != null){
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * 이 서버의 색인에서 지우고 다른 서버에도 지우라고 알린다. 알리지 못하면 다른 서버는 expire-after-write 까지 이전 상태를 줄 수 있다.
+     */
+    public void invalidateAllInstances(Collection<String> realFilenames) {
+        invalidateAll(realFilenames);
+        if(realFilenames.isEmpty()){
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join(",", realFilenames));
+        } catch (RuntimeException e) {
+            log.warn("파일 색인 무효화를 다른 서버에 알리지 못했습니다. files={}", realFilenames, e);
+        }
+    }
+
+    public Path getPath(FileMetadata metadata) {
+        if(metadata.blobHash() == null){
+            return Path.of(metadata.legacyPath());
+        }
+        return BlobPathUtils.getBlobPath(fileDir, HexFormat.of().formatHex(metadata.blobHash()));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        misses.invalidateAll();
+    }
+
+    // 넣은 뒤에 무효화되었으면 다시 지운다.
+    private void putIfNotInvalidated(String realFilename, FileKey key, FileMetadata metadata, long generationBeforeLoad) {
+        int stripe = stripeOf(realFilename);
+        if(generations.get(stripe) != generationBeforeLoad){
+            return;
+        }
+        cache.put(key, metadata);
+        if(generations.get(stripe) != generationBeforeLoad){
+            cache.invalidate(key);
+        }
+    }
+
+    private void putMissIfNotInvalidated(String realFilename, long generationBeforeLoad) {
+        int stripe = stripeOf(realFilename);
+        if(generations.get(stripe) != generationBeforeLoad){
+            return;
+        }
+        misses.put(realFilename, true);
+        if(generations.get(stripe) != generationBeforeLoad){
+            misses.invalidate(realFilename);
+        }
+    }
+
+    private static int stripeOf(String realFilename) {
+        return Math.floorMod(realFilename.hashCode(), GENERATION_STRIPES);
+    }
+
+    private FileMetadata toMetadata(FileInfo fileInfo) {
+        if(!fileInfo.isExist()){
+            return toMetadata(fileInfo, false, 0, 0);
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Path.of(fileInfo.getFilePath()), BasicFileAttributes.class);
+            return toMetadata(fileInfo, true, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return toMetadata(fileInfo, false, 0, 0);
+        }
+    }
+
+    private FileMetadata toMetadata(FileInfo fileInfo, boolean exists, long size, long lastModified) {
+        String contentType = ReferenceType.getContentType(fileInfo.getRealFilename());
+        return new FileMetadata(
+                fileInfo.getOriginalFilename(),
+                exists,
+                contentType.isEmpty() ? null : contentType.intern(),
+                size,
+                lastModified,
+                fileInfo.getBlobHash() == null ? null : HexFormat.of().parseHex(fileInfo.getBlobHash()),
+                fileInfo.getBlobHash() == null ? fileInfo.getFilePath() : null);
+    }
+
+    // realFilename 은 UUID.randomUUID() 와 확장자로 만들므로, 같은 형식의 이름만 색인한다.
+    // 확장자는 요청 URL 에서 오므로 문자열로 두지 않고 EXTENSIONS 의 번호로 둔다.
+    private record FileKey(long mostSignificantBits, long leastSignificantBits, byte extension) {
+
+        private static FileKey from(String realFilename) {
+            int position = realFilename.lastIndexOf('.');
+            if(position != 36){
+                return null;
+            }
+            int extension = EXTENSIONS.indexOf(realFilename.substring(position + 1));
+            if(extension < 0){
+                return null;
+            }
+            String uuidText = realFilename.substring(0, position);
+            try {
+                UUID uuid = UUID.fromString(uuidText);
+                if(!uuid.toString().equals(uuidText)){
+                    return null;
+                }
+                return new FileKey(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), (byte) extension);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    // blobHash 가 없는 content-addressed 저장 이전의 파일만 legacyPath 를 가진다.
+    public record FileMetadata(String originalFilename, boolean exists, String contentType, long size, long lastModified,
+                               byte[] blobHash, String legacyPath) {
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +20,12 @@ public interface FollowRepository extends JpaRepository<Follow, Long>, FollowCus
 
     @Query("SELECT f.targetUser FROM Follow f WHERE f.user = :user")
     List<User> findFollowingsOfUser(User user);
+
+    long countByTargetUser_UserId(long userId);
+
+    @Query("SELECT f.user.userId FROM Follow f WHERE f.targetUser.userId = :userId")
+    List<Long> findFollowerIdsOfUser(long userId);
+
+    @Query("SELECT f.targetUser.userId FROM Follow f WHERE f.user.userId = :userId AND f.targetUser.userId IN :targetUserIds")
+    List<Long> findFollowingIdsIn(long userId, Collection<Long> targetUserIds);
 }
@@ -35,6 +35,7 @@ public class CommentRepositoryImpl implements CommentMappingRepository {
                         CommentMappingDTO.class,
                         comment,
                         set(commentLike).as("commentLikeSet"))).from(comment)
+                .join(comment.user).fetchJoin()
                 .leftJoin(commentLike).on(comment.eq(commentLike.comment))
                 .where(comment.review.reviewId.eq(reviewId))
                 .transform(groupBy(comment).as(set(commentLike)));
@@ -55,7 +56,8 @@ public class CommentRepositoryImpl implements CommentMappingRepository {
                 .content(comment.getContent())
                 .parentCommentId(comment.getParentId())
                 .commentLikeCount(commentLikeSet.size())
-                .isCommentLiked(commentLikeSet.stream().anyMatch(commentLike -> commentLike.getUser().equals(user)))
+                .isCommentLiked(user != null && commentLikeSet.stream()
+                        .anyMatch(commentLike -> commentLike.getUser().getUserId() == user.getUserId()))
                 .build();
     }
 }
\ No newline at end of file
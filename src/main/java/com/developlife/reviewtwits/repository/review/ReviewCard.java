@@ -0,0 +1,31 @@
+package com.developlife.reviewtwits.repository.review;
+
+import com.developlife.reviewtwits.message.response.user.UserInfoResponse;
+import com.developlife.reviewtwits.type.ReactionType;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 조회자와 무관한 리뷰 카드 정보. 조회자별 값(isReacted, isScrapped)은 응답을 만들 때 덧씌운다.
+ */
+public record ReviewCard(LocalDateTime createdDate,
+                         LocalDateTime lastModifiedDate,
+                         long reviewId,
+                         UserInfoResponse userInfo,
+                         String content,
+                         String productUrl,
+                         String productName,
+                         int score,
+                         List<String> reviewImageUrlList,
+                         int commentCount,
+                         Map<ReactionType, Integer> reactionCounts) {
+
+    @Builder
+    public ReviewCard {
+        reviewImageUrlList = List.copyOf(reviewImageUrlList);
+        reactionCounts = Map.copyOf(reactionCounts);
+    }
+}
@@ -0,0 +1,135 @@
+package com.developlife.reviewtwits.repository.review;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * reviewId 로 조회자와 무관한 ReviewCard 를 캐싱한다.
+ * 동시에 같은 리뷰를 처음 조회하는 요청들은 한 번의 조회 결과를 함께 기다리므로,
+ * 많은 사람이 보는 리뷰도 만료 전까지 DB 에서 한 번만 읽는다.
+ * 적중/미적중 수는 cache.gets{cache=review.card} 메트릭으로 확인할 수 있다.
+ * 지우기는 reviewId 의 세대를 올리고, 읽는 동안 세대가 바뀐 카드는 캐시에 넣지 않아
+ * 커밋 직후 지운 리뷰가 그 전에 읽은 카드로 다시 채워지지 않는다.
+ */
+@Component
+public class ReviewCardCache {
+
+    public static final String CACHE_NAME = "review.card";
+    // 세대는 reviewId 를 나눈 칸마다 센다. 같은 칸의 다른 리뷰가 지워지면 한 번 캐싱을 건너뛸 뿐이다.
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Long, ReviewCard> cache;
+    private final ConcurrentMap<Long, CompletableFuture<ReviewCard>> loadingCards = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ReviewCardCache(MeterRegistry meterRegistry,
+                           @Value("${review.card-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${review.card-cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 캐시에 없는 reviewId 만 loader 로 한 번에 읽어 채운다. 존재하지 않는 리뷰는 결과에서 빠진다.
+     */
+    public Map<Long, ReviewCard> getAll(List<Long> reviewIdList, Function<List<Long>, Map<Long, ReviewCard>> loader) {
+        Map<Long, ReviewCard> cards = new HashMap<>(cache.getAllPresent(reviewIdList));
+
+        Map<Long, CompletableFuture<ReviewCard>> claimedCards = new HashMap<>();
+        Map<Long, CompletableFuture<ReviewCard>> waitingCards = new HashMap<>();
+        for(Long reviewId : reviewIdList){
+            if(cards.containsKey(reviewId) || waitingCards.containsKey(reviewId)){
+                continue;
+            }
+            CompletableFuture<ReviewCard> newLoading = new CompletableFuture<>();
+            CompletableFuture<ReviewCard> existingLoading = loadingCards.putIfAbsent(reviewId, newLoading);
+            if(existingLoading == null){
+                claimedCards.put(reviewId, newLoading);
+                waitingCards.put(reviewId, newLoading);
+            }else{
+                waitingCards.put(reviewId, existingLoading);
+            }
+        }
+
+        if(!claimedCards.isEmpty()){
+            loadClaimedCards(claimedCards, loader);
+        }
+
+        waitingCards.forEach((reviewId, loading) -> {
+            ReviewCard card = loading.join();
+            if(card != null){
+                cards.put(reviewId, card);
+            }
+        });
+        return cards;
+    }
+
+    /**
+     * 진행 중인 트랜잭션의 변경 내용이 보이기 전후 모두에서 캐시가 비워지도록, 지금과 커밋 직후 두 번 지운다.
+     */
+    public void evictAfterCommit(long reviewId) {
+        evict(reviewId);
+        runAfterCommit(() -> evict(reviewId));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private void evict(long reviewId) {
+        generations.incrementAndGet(stripeOf(reviewId));
+        // 지우기 전에 시작된 조회를 이후 요청이 함께 기다리지 않도록 떼어낸다.
+        loadingCards.remove(reviewId);
+        cache.invalidate(reviewId);
+    }
+
+    private void loadClaimedCards(Map<Long, CompletableFuture<ReviewCard>> claimedCards,
+                                  Function<List<Long>, Map<Long, ReviewCard>> loader) {
+        Map<Long, Long> generationsBeforeLoad = new HashMap<>();
+        claimedCards.keySet().forEach(reviewId -> generationsBeforeLoad.put(reviewId, generations.get(stripeOf(reviewId))));
+        try {
+            Map<Long, ReviewCard> loadedCards = loader.apply(new ArrayList<>(claimedCards.keySet()));
+            claimedCards.forEach((reviewId, loading) -> {
+                ReviewCard card = loadedCards.get(reviewId);
+                long generationBeforeLoad = generationsBeforeLoad.get(reviewId);
+                if(card != null && generations.get(stripeOf(reviewId)) == generationBeforeLoad){
+                    cache.put(reviewId, card);
+                    // 넣는 사이에 지워졌다면 방금 넣은 카드도 뺀다.
+                    if(generations.get(stripeOf(reviewId)) != generationBeforeLoad){
+                        cache.invalidate(reviewId);
+                    }
+                }
+                loadingCards.remove(reviewId, loading);
+                loading.complete(card);
+            });
+        } catch (RuntimeException e) {
+            claimedCards.forEach((reviewId, loading) -> {
+                loadingCards.remove(reviewId, loading);
+                loading.completeExceptionally(e);
+            });
+            throw e;
+        }
+    }
+
+    private static int stripeOf(long reviewId) {
+        return (int) Math.floorMod(reviewId, (long) GENERATION_STRIPES);
+    }
+}
@@ -27,4 +27,7 @@ public interface ReviewMappingRepository {
 
     List<DetailSnsReviewResponse> findReviewListByUserInPage(User reviewWriter, User reviewReader, Long reviewId, Pageable pageable);
 
+    List<DetailSnsReviewResponse> findMappingReviewByIdIn(User user, List<Long> reviewIdList);
+    List<Long> findReviewIdsOfFollowings(User user, Long reviewId, int size);
+
 }
\ No newline at end of file
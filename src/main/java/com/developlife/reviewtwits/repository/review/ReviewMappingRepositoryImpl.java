@@ -1,26 +1,19 @@
 package com.developlife.reviewtwits.repository.review;
 
 import com.developlife.reviewtwits.entity.QReview;
-import com.developlife.reviewtwits.entity.Reaction;
 import com.developlife.reviewtwits.entity.Review;
 import com.developlife.reviewtwits.entity.User;
 import com.developlife.reviewtwits.mapper.ReviewMapper;
 import com.developlife.reviewtwits.mapper.UserMapper;
 import com.developlife.reviewtwits.message.response.review.DetailShoppingMallReviewResponse;
-import com.developlife.reviewtwits.message.response.review.ReactionResponse;
 import com.developlife.reviewtwits.message.response.sns.DetailSnsReviewResponse;
 import com.developlife.reviewtwits.message.response.user.UserInfoResponse;
 import com.developlife.reviewtwits.type.ReactionType;
-import com.developlife.reviewtwits.type.ReferenceType;
 import com.developlife.reviewtwits.type.review.ReviewStatus;
-import com.querydsl.core.group.Group;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.OrderSpecifier;
-import com.querydsl.core.types.Projections;
-import com.querydsl.core.types.QBean;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.core.types.dsl.EntityPathBase;
 import com.querydsl.jpa.JPAExpressions;
-import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -32,13 +25,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Supplier;
 
-import static com.developlife.reviewtwits.entity.QFileInfo.fileInfo;
-import static com.developlife.reviewtwits.entity.QFileManager.fileManager;
 import static com.developlife.reviewtwits.entity.QFollow.follow;
 import static com.developlife.reviewtwits.entity.QReaction.reaction;
 import static com.developlife.reviewtwits.entity.QReview.review;
+import static com.developlife.reviewtwits.entity.QReviewReactionSummary.reviewReactionSummary;
 import static com.developlife.reviewtwits.entity.QReviewScrap.reviewScrap;
 import static com.querydsl.core.group.GroupBy.*;
 
@@ -53,71 +44,46 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
     private final JPAQueryFactory jpaQueryFactory;
     private final ReviewMapper reviewMapper;
     private final UserMapper userMapper;
+    private final ReviewCardCache reviewCardCache;
 
     @Override
     public List<DetailSnsReviewResponse> findMappingReviewScrappedByUser(User user, Long reviewId, Pageable pageable) {
         // 유저가 스크랩한 리뷰를 모두 매핑해서 가져와야 한다.
         BooleanExpression scrappedByUser = reviewScrap.user.eq(user);
         BooleanExpression lessThanReviewId = getExpressionOfId(reviewScrap.review, reviewId, pageable);
-        QBean<ReviewMappingDTO> bean = getReviewMappingDTOQBean(reviewScrap.review);
 
-        Pageable realPageable = getRealPageable(pageable, scrappedByUser.and(lessThanReviewId), reviewScrap.review, reviewScrap);
-
-        Supplier<JPAQuery<ReviewMappingDTO>> codeSupplier = () -> jpaQueryFactory.select(bean)
-                .from(review, fileInfo, fileManager)
-                .leftJoin(reaction).on(review.eq(reaction.review))
-                .leftJoin(reviewScrap).on(reviewScrap.review.eq(review).and(scrappedByUser))
-                .where(fileExpressionWithInsertion(scrappedByUser.and(lessThanReviewId), reviewScrap.review));
+        List<Long> reviewIdList = jpaQueryFactory.select(reviewScrap.review.reviewId)
+                .from(reviewScrap)
+                .where(scrappedByUser.and(lessThanReviewId).and(hasReviewImage(reviewScrap.review)))
+                .orderBy(reviewScrap.review.reviewId.desc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
 
-        return findMappingReview(codeSupplier, user, realPageable, reviewScrap.review);
+        return findMappingReview(reviewIdList, user);
     }
 
     @Override
     public List<DetailSnsReviewResponse> findMappingReviewById(User user,Long reviewId, Pageable pageable) {
-        QBean<ReviewMappingDTO> bean = getReviewMappingDTOQBean(review);
         BooleanExpression lessThanReviewId = getExpressionOfId(review,reviewId, pageable);
-
-        Pageable realPageable = getRealPageable(pageable, lessThanReviewId, review, review);
-
-        Supplier<JPAQuery<ReviewMappingDTO>> codeSupplier = () -> jpaQueryFactory.select(bean)
-                .from(review, fileInfo, fileManager)
-                .leftJoin(reaction).on(review.eq(reaction.review))
-                .leftJoin(reviewScrap).on(reviewScrap.review.eq(review).and(getReviewScrapOfUser(user)))
-                .where(fileExpressionWithInsertion(lessThanReviewId,review));
-
-        return findMappingReview(codeSupplier, user, realPageable, review);
+        return findMappingReview(findReviewIdsInPage(lessThanReviewId, pageable), user);
     }
 
     @Override
     public List<DetailSnsReviewResponse> findMappingReviewByProductNameLikeOrContentLike(String searchKey, User reviewSearcher, Pageable pageable) {
-        QBean<ReviewMappingDTO> bean = getReviewMappingDTOQBean(review);
         BooleanExpression productNameLikeOrContentLike = getExpressionOfProductNameLikeOrContentLike(searchKey);
-
-        Pageable realPageable = getRealPageable(pageable, productNameLikeOrContentLike, review, review);
-
-        Supplier<JPAQuery<ReviewMappingDTO>> codeSupplier = () -> jpaQueryFactory.select(bean)
-                .from(review, fileInfo, fileManager)
-                .leftJoin(reaction).on(review.eq(reaction.review))
-                .leftJoin(reviewScrap).on(reviewScrap.review.eq(review).and(getReviewScrapOfUser(reviewSearcher)))
-                .where(fileExpressionWithInsertion(productNameLikeOrContentLike,review));
-
-        return findMappingReview(codeSupplier, reviewSearcher, realPageable, review);
+        return findMappingReview(findReviewIdsInPage(productNameLikeOrContentLike, pageable), reviewSearcher);
     }
 
     @Override
     public DetailSnsReviewResponse findOneMappingReviewById(User reviewSearcher, long reviewId) {
-        BooleanExpression findByReviewId = review.reviewId.eq(reviewId);
-        QBean<ReviewMappingDTO> bean = getReviewMappingDTOQBean(review);
-
-        Supplier<JPAQuery<ReviewMappingDTO>> codeSupplier = () -> jpaQueryFactory.select(bean)
-                .from(review,fileInfo, fileManager)
-                .leftJoin(reaction).on(review.eq(reaction.review))
-                .leftJoin(reviewScrap).on(reviewScrap.review.eq(review).and(getReviewScrapOfUser(reviewSearcher))) // 리뷰 스크랩은 하나만 있으면 된다. 그러므로, 유저 정보도 같이 걸어서 넣어 주는 것이 좋다.
-                .where(fileExpressionWithInsertion(findByReviewId,review));
-
-        PageRequest pageable = PageRequest.of(0, Integer.MAX_VALUE, Sort.by("reviewId").descending());
+        BooleanExpression findByReviewId = review.reviewId.eq(reviewId).and(hasReviewImage(review));
+        List<Long> reviewIdList = jpaQueryFactory.select(review.reviewId)
+                .from(review)
+                .where(findByReviewId)
+                .fetch();
 
-        List<DetailSnsReviewResponse> resultReview = findMappingReview(codeSupplier, reviewSearcher, pageable ,review);
+        List<DetailSnsReviewResponse> resultReview = findMappingReview(reviewIdList, reviewSearcher);
         if(resultReview.isEmpty()){
             return null;
         }
@@ -155,8 +121,6 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
         BooleanExpression expression = makeSearchExpression(user, status, startDate, endDate, keyword);
         BooleanExpression lessThanReviewId = getExpressionOfId(review, reviewId, pageable);
 
-        Pageable realPageable = getPageableContainsImageCount(pageable, expression.and(lessThanReviewId));
-
         OrderSpecifier<Long> orders;
         if(pageable.getSort().equals(Sort.by("reviewId").descending())){
             orders = review.reviewId.desc();
@@ -164,20 +128,17 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
             orders = review.reviewId.asc();
         }
 
-        Map<Review, List<String>> transform = jpaQueryFactory.select(review, fileInfo.realFilename)
-                .from(review, fileInfo, fileManager)
-                .where(fileExpressionWithInsertion(expression.and(lessThanReviewId), review))
+        List<Review> reviewList = jpaQueryFactory.selectFrom(review)
+                .join(review.user).fetchJoin()
+                .where(expression.and(lessThanReviewId).and(hasReviewImage(review)))
                 .orderBy(orders)
-                .offset(realPageable.getOffset())
-                .limit(realPageable.getPageSize())
-                .transform(
-                        groupBy(review).as(
-                                list(fileInfo.realFilename)));
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
 
         List<DetailShoppingMallReviewResponse> resultList = new ArrayList<>();
-        for(Map.Entry<Review, List<String>> entry : transform.entrySet()){
-            Review targetReview = entry.getKey();
-            targetReview.setReviewImageUuidList(entry.getValue());
+        for(Review targetReview : reviewList){
+            targetReview.setReviewImageUuidList(targetReview.getReviewImageManifestList());
             resultList.add(reviewMapper.mapReviewToDetailReviewResponse(targetReview));
         }
         return resultList;
@@ -187,22 +148,20 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
     public List<DetailShoppingMallReviewResponse> findReviewListMappingInfoByProductURL(User user, String productURL, String sort) {
         BooleanExpression findByProductUrl = review.productUrl.eq(productURL).and(review.project.isNotNull());
 
-        Map<Review, Group> transform = jpaQueryFactory.select(review, fileInfo.realFilename, reaction)
-                .from(review, fileInfo, fileManager)
-                .leftJoin(reaction).on(review.eq(reaction.review))
-                .where(fileExpressionWithInsertion(findByProductUrl, review))
+        List<Review> reviewList = jpaQueryFactory.selectFrom(review)
+                .join(review.user).fetchJoin()
+                .where(findByProductUrl.and(hasReviewImage(review)))
                 .orderBy(review.reviewId.desc())
-                .transform(
-                        groupBy(review).as(
-                                list(fileInfo.realFilename),
-                                set(reaction)));
+                .fetch();
+
+        List<Long> reviewIdList = reviewList.stream().map(Review::getReviewId).toList();
+        Map<Long, ReactionType> likedReviewMap = reviewIdList.isEmpty()
+                ? new HashMap<>() : findReactionTypesOfUser(reviewIdList, user);
 
         List<DetailShoppingMallReviewResponse> resultList = new ArrayList<>();
-        for(Map.Entry<Review, Group> entry : transform.entrySet()){
-            Review targetReview = entry.getKey();
-            targetReview.setReviewImageUuidList(entry.getValue().getList(fileInfo.realFilename));
-            boolean isLiked = isThisUserLikeThisReview(user, entry.getValue().getSet(reaction));
-            targetReview.setLiked(isLiked);
+        for(Review targetReview : reviewList){
+            targetReview.setReviewImageUuidList(targetReview.getReviewImageManifestList());
+            targetReview.setLiked(likedReviewMap.containsKey(targetReview.getReviewId()));
             resultList.add(reviewMapper.mapReviewToDetailReviewResponse(targetReview));
         }
 
@@ -216,17 +175,24 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
     @Override
     public List<DetailSnsReviewResponse> findReviewListByUserInPage(User reviewWriter, User reviewReader, Long reviewId, Pageable pageable) {
         BooleanExpression writtenByUser = getExpressionOfWrittenUser(reviewWriter, reviewId);
-        QBean<ReviewMappingDTO> bean = getReviewMappingDTOQBean(review);
-
-        Pageable realPageable = getRealPageable(pageable, writtenByUser, review, review);
+        return findMappingReview(findReviewIdsInPage(writtenByUser, pageable), reviewReader);
+    }
 
-        Supplier<JPAQuery<ReviewMappingDTO>> codeSupplier = () -> jpaQueryFactory.select(bean)
-                .from(review, fileInfo, fileManager)
-                .leftJoin(reaction).on(review.eq(reaction.review))
-                .leftJoin(reviewScrap).on(reviewScrap.review.eq(review).and(getReviewScrapOfUser(reviewReader)))
-                .where(fileExpressionWithInsertion(writtenByUser, review));
+    @Override
+    public List<DetailSnsReviewResponse> findMappingReviewByIdIn(User user, List<Long> reviewIdList) {
+        return findMappingReview(reviewIdList, user);
+    }
 
-        return findMappingReview(codeSupplier, reviewReader, realPageable, review);
+    @Override
+    public List<Long> findReviewIdsOfFollowings(User user, Long reviewId, int size) {
+        BooleanExpression writtenByFollowings = review.user.in(
+                JPAExpressions.select(follow.targetUser)
+                        .from(follow)
+                        .where(follow.user.eq(user)));
+        if(reviewId != null){
+            writtenByFollowings = writtenByFollowings.and(review.reviewId.lt(reviewId));
+        }
+        return findReviewIdsInPage(writtenByFollowings, PageRequest.of(0, size));
     }
 
     private BooleanExpression getExpressionOfWrittenUser(User reviewWriter, Long reviewId){
@@ -236,15 +202,6 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
         }
         return resultExpression;
     }
-    private boolean isThisUserLikeThisReview(User user, Set<Reaction> reactionSet){
-        for (Reaction reaction : reactionSet) {
-            if(reaction.getUser().equals(user)){
-                return true;
-            }
-        }
-        return false;
-    }
-
 
     private BooleanExpression makeSearchExpression(User user,String status, String startDate, String endDate, String keyword){
         BooleanExpression expression = review.project.user.eq(user);
@@ -274,93 +231,103 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
         return expression;
     }
 
-    private Pageable getPageableContainsImageCount(Pageable pageable, BooleanExpression expression){
+    /**
+     * 리뷰 피드를 두 단계로 조회한다.
+     * 1. 페이지에 해당하는 reviewId 만 keyset 으로 가져오고,
+     * 2. 조회자와 무관한 리뷰 카드는 ReviewCardCache 에서 꺼내고, 없는 카드만 reviewId IN (...) 쿼리로 채운다.
+     * 조회자의 리액션/스크랩 여부는 요청마다 따로 조회해 카드 위에 덧씌운다.
+     */
+    private List<DetailSnsReviewResponse> findMappingReview(List<Long> reviewIdList, User reviewSearcher){
+        if(reviewIdList.isEmpty()){
+            return new ArrayList<>();
+        }
+
+        Map<Long, ReviewCard> reviewCardMap = reviewCardCache.getAll(reviewIdList, this::loadReviewCards);
+        Map<Long, ReactionType> searcherReactionMap = findReactionTypesOfUser(reviewIdList, reviewSearcher);
+        Set<Long> scrappedReviewIdSet = findScrappedReviewIds(reviewIdList, reviewSearcher);
+
+        List<DetailSnsReviewResponse> snsResponse = new ArrayList<>();
+        for(Long reviewId : reviewIdList){
+            ReviewCard reviewCard = reviewCardMap.get(reviewId);
+            if(reviewCard == null){
+                continue;
+            }
+            snsResponse.add(reviewMapper.toDetailSnsReviewResponse(
+                    reviewCard, searcherReactionMap.get(reviewId), scrappedReviewIdSet.contains(reviewId)));
+        }
+        return snsResponse;
+    }
+
+    private Map<Long, ReviewCard> loadReviewCards(List<Long> reviewIdList){
+        // 리뷰 카드에는 작성자 정보만 필요하므로 작성자만 함께 읽는다.
         List<Review> reviewList = jpaQueryFactory.selectFrom(review)
-                .where(expression)
-                .orderBy(review.reviewId.desc())
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .join(review.user).fetchJoin()
+                .where(review.reviewId.in(reviewIdList))
                 .fetch();
 
-        int realPageableSize = 0;
-        for(Review review : reviewList){
-            realPageableSize += getReviewFieldCount(review.getReviewImageCount());
-        }
+        Map<Long, Map<ReactionType, Integer>> reactionCountMap = findReactionCounts(reviewIdList);
 
-        if(realPageableSize == 0){
-            realPageableSize = 1;
+        Map<Long, ReviewCard> reviewCardMap = new HashMap<>();
+        for(Review foundReview : reviewList){
+            long reviewId = foundReview.getReviewId();
+            foundReview.setReviewImageUuidList(foundReview.getReviewImageManifestList());
+            reviewCardMap.put(reviewId, reviewMapper.toReviewCard(foundReview, reactionCountMap.getOrDefault(reviewId, new HashMap<>())));
         }
-
-        return PageRequest.of(0,realPageableSize, pageable.getSort());
+        return reviewCardMap;
     }
 
-    public List<DetailSnsReviewResponse> findMappingReview(Supplier<JPAQuery<ReviewMappingDTO>> codeSupply,
-                                                           User reviewSearcher,
-                                                           Pageable pageable,
-                                                           QReview reviewEntity){
-
-        Map<Review, Group> transform = codeSupply.get()
-                .orderBy(reviewEntity.reviewId.desc())
+    private List<Long> findReviewIdsInPage(BooleanExpression expression, Pageable pageable){
+        return jpaQueryFactory.select(review.reviewId)
+                .from(review)
+                .where(expression.and(hasReviewImage(review)))
+                .orderBy(review.reviewId.desc())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .transform(
-                        groupBy(reviewEntity).as(
-                                sortedSet(fileInfo.realFilename),
-                                set(reaction),
-                                set(reviewScrap)));
-
-        return getDetailSnsReviewResponses(reviewSearcher, transform);
+                .fetch();
     }
 
-    private BooleanExpression fileExpressionWithInsertion(BooleanExpression expression, QReview reviewEntity) {
-        return expression
-                .and(fileInfo.eq(fileManager.fileInfo))
-                .and(fileInfo.exist.isTrue())
-                .and(fileManager.referenceId.eq(reviewEntity.reviewId)
-                        .and(fileManager.referenceType.eq(ReferenceType.REVIEW)));
-    }
+    private Map<Long, Map<ReactionType, Integer>> findReactionCounts(List<Long> reviewIdList){
+        List<Tuple> reactionCountList = jpaQueryFactory.select(
+                        reviewReactionSummary.reviewId,
+                        reviewReactionSummary.reactionType,
+                        reviewReactionSummary.reactionCount)
+                .from(reviewReactionSummary)
+                .where(reviewReactionSummary.reviewId.in(reviewIdList)
+                        .and(reviewReactionSummary.reactionCount.gt(0)))
+                .fetch();
 
-    private QBean<ReviewMappingDTO> getReviewMappingDTOQBean(QReview reviewEntity) {
-        return Projections.bean(
-                ReviewMappingDTO.class,
-                reviewEntity.as("REVIEW"),
-                sortedSet(fileInfo.realFilename).as("reviewImageNameList"),
-                set(reaction).as("reactionList"),
-                set(reviewScrap).as("reviewScrap")
-        );
+        Map<Long, Map<ReactionType, Integer>> reactionCountMap = new HashMap<>();
+        for(Tuple tuple : reactionCountList){
+            reactionCountMap.computeIfAbsent(tuple.get(reviewReactionSummary.reviewId), id -> new HashMap<>())
+                    .put(tuple.get(reviewReactionSummary.reactionType), tuple.get(reviewReactionSummary.reactionCount).intValue());
+        }
+        return reactionCountMap;
     }
 
-    private List<DetailSnsReviewResponse> getDetailSnsReviewResponses(User reviewSearcher, Map<Review, Group> transform) {
-        List<ReviewMappingDTO> reviewMappingList = transform.entrySet().stream()
-                .map(entry -> new ReviewMappingDTO(
-                        entry.getKey(),
-                        entry.getValue().getSortedSet(fileInfo.realFilename),
-                        entry.getValue().getSet(reaction),
-                        entry.getValue().getSet(reviewScrap))).toList();
-
-        List<DetailSnsReviewResponse> snsResponse = new ArrayList<>();
-
-        for(ReviewMappingDTO reviewMappingDTO : reviewMappingList){
-            Review review = reviewMappingDTO.getReview();
-            review.setReviewImageUuidList(reviewMappingDTO.getReviewImageNameSet().stream().toList());
-
-            Map<String, ReactionResponse> collectedReactionResponse = ReactionType.classifyReactionResponses(
-                    reviewSearcher,
-                    reviewMappingDTO.getReactionSet().stream().toList()
-            );
-
-            boolean isScrapped = !reviewMappingDTO.getReviewScrap().isEmpty();
-            snsResponse.add(reviewMapper.toDetailSnsReviewResponse(review, collectedReactionResponse,isScrapped));
+    private Map<Long, ReactionType> findReactionTypesOfUser(List<Long> reviewIdList, User reviewSearcher){
+        if(reviewSearcher == null){
+            return new HashMap<>();
         }
-
-        return snsResponse;
+        return jpaQueryFactory.select(reaction.review.reviewId, reaction.reactionType)
+                .from(reaction)
+                .where(reaction.user.eq(reviewSearcher)
+                        .and(reaction.review.reviewId.in(reviewIdList)))
+                .transform(groupBy(reaction.review.reviewId).as(reaction.reactionType));
     }
 
-    private BooleanExpression getReviewScrapOfUser(User user) {
-        if(user == null){
-            return reviewScrap.reviewScrapId.isNull();
+    private Set<Long> findScrappedReviewIds(List<Long> reviewIdList, User reviewSearcher){
+        if(reviewSearcher == null){
+            return new HashSet<>();
         }
-        return reviewScrap.user.eq(user);
+        return new HashSet<>(jpaQueryFactory.select(reviewScrap.review.reviewId)
+                .from(reviewScrap)
+                .where(reviewScrap.user.eq(reviewSearcher)
+                        .and(reviewScrap.review.reviewId.in(reviewIdList)))
+                .fetch());
+    }
+
+    private BooleanExpression hasReviewImage(QReview reviewEntity){
+        return reviewEntity.reviewImageManifest.isNotEmpty();
     }
 
     private BooleanExpression getExpressionOfId(QReview reviewEntity, Long reviewId, Pageable pageable) {
@@ -376,34 +343,4 @@ public class ReviewMappingRepositoryImpl implements ReviewMappingRepository{
     private BooleanExpression getExpressionOfProductNameLikeOrContentLike(String searchKey) {
         return review.productName.contains(searchKey).or(review.content.contains(searchKey));
     }
-
-    private Pageable getRealPageable(Pageable pageable, BooleanExpression expression, QReview reviewEntity, EntityPathBase<?> pathBase){
-        List<Review> reviewList = jpaQueryFactory.select(reviewEntity).from(pathBase)
-                .where(expression)
-                .orderBy(reviewEntity.reviewId.desc())
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
-
-        int realPageableSize = 0;
-
-        for(Review review : reviewList){
-            int reactionCount = getReviewFieldCount(review.getReactionCount());
-            int reviewImageCount = getReviewFieldCount(review.getReviewImageCount());
-            realPageableSize += (reactionCount * reviewImageCount);
-        }
-
-        if(realPageableSize == 0){
-            realPageableSize = 1;
-        }
-
-        return PageRequest.of(0,realPageableSize,Sort.by("reviewId").descending());
-    }
-
-    private int getReviewFieldCount(int count){
-        if(count == 0){
-            return 1;
-        }
-        return count;
-    }
 }
\ No newline at end of file
@@ -20,5 +20,7 @@ public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewMap
     List<Review> findReviewsByUser(User user);
     Page<Review> findReviewsByUser(User user, Pageable pageable);
     Page<Review> findByReviewIdLessThanAndUser(long reviewId, User user, Pageable pageable);
+
+    List<Review> findByReviewImageManifestIsNull(Pageable pageable);
 }
 
@@ -0,0 +1,9 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import com.developlife.reviewtwits.entity.BackfillJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BackfillJobStateRepository extends JpaRepository<BackfillJobState, String> {
+}
@@ -0,0 +1,121 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * MariaDB 의 range partition 으로 stat_info 를 월 단위로 나눈다.
+ * stat_info 는 아래와 같이 created_date 기준으로 파티션되며, 마지막에는 항상 p_future 파티션이 있다.
+ * 파티션되지 않은 테이블은 {@link #ensurePartitioned} 가 외래 키를 지우고 primary key 에 created_date 를 더한 뒤 나눈다.
+ * (파티션 테이블은 외래 키를 가질 수 없고 primary key 에 created_date 가 포함되어야 한다.
+ * 그래서 운영 DB 는 ddl-auto 로 외래 키를 다시 만들지 않도록 validate 나 none 으로 두어야 한다.)
+ * <pre>
+ * ALTER TABLE stat_info PARTITION BY RANGE COLUMNS(created_date) (
+ *     PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+ *     PARTITION p_future VALUES LESS THAN (MAXVALUE));
+ * </pre>
+ * 파티션 삭제는 데이터 양과 관계없이 파일만 지우므로 대량 DELETE 가 발생하지 않는다.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "statistics.visit-partition", name = "mode", havingValue = "mariadb", matchIfMissing = true)
+public class MariaDbVisitPartitionManager implements VisitPartitionManager {
+
+    private static final DateTimeFormatter PARTITION_NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<YearMonth> findPartitions() {
+        return findPartitionNames().stream()
+                .filter(name -> !FUTURE_PARTITION.equals(name))
+                .map(this::parseMonth)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * 테이블을 다시 쓰는 DDL 이므로 보관 기간 작업이 도는 새벽에, 한 서버에서만 실행되어야 한다.
+     */
+    @Override
+    public void ensurePartitioned(YearMonth currentMonth) {
+        if(!findPartitionNames().isEmpty()){
+            return;
+        }
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "select constraint_name from information_schema.table_constraints " +
+                "where table_schema = database() and table_name = 'stat_info' and constraint_type = 'FOREIGN KEY'", String.class);
+        for(String foreignKey : foreignKeys){
+            jdbcTemplate.execute("ALTER TABLE stat_info DROP FOREIGN KEY " + foreignKey);
+        }
+        jdbcTemplate.execute("ALTER TABLE stat_info DROP PRIMARY KEY, ADD PRIMARY KEY (stat_id, created_date)");
+
+        LocalDateTime oldestVisit = jdbcTemplate.queryForObject("select min(created_date) from stat_info", LocalDateTime.class);
+        YearMonth firstMonth = oldestVisit == null || YearMonth.from(oldestVisit).isAfter(currentMonth)
+                ? currentMonth
+                : YearMonth.from(oldestVisit);
+        StringJoiner partitions = new StringJoiner(", ");
+        for(YearMonth month = firstMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)){
+            partitions.add(String.format("PARTITION %s VALUES LESS THAN ('%s')",
+                    month.format(PARTITION_NAME_FORMAT), month.plusMonths(1).atDay(1)));
+        }
+        partitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE stat_info PARTITION BY RANGE COLUMNS(created_date) (" + partitions + ")");
+        log.info("stat_info 를 {} 부터 {} 까지 월 단위로 나눴습니다.", firstMonth, currentMonth);
+    }
+
+    @Override
+    public void ensurePartition(YearMonth month) {
+        if(!findPartitionNames().contains(FUTURE_PARTITION)){
+            log.warn("stat_info 가 월 단위로 파티션되어 있지 않아 {} 파티션을 만들지 않습니다.", month);
+            return;
+        }
+        List<YearMonth> partitions = findPartitions();
+        if(partitions.contains(month)){
+            return;
+        }
+        if(!partitions.isEmpty() && month.isBefore(partitions.get(partitions.size() - 1))){
+            // range partition 은 끝에서만 나눌 수 있으므로, 중간에 빠진 달은 앞 파티션에 함께 들어간다.
+            log.warn("{} 보다 뒤의 파티션이 이미 있어 {} 파티션을 만들지 않습니다.", partitions.get(partitions.size() - 1), month);
+            return;
+        }
+        jdbcTemplate.execute(String.format(
+                "ALTER TABLE stat_info REORGANIZE PARTITION %s INTO (" +
+                "PARTITION %s VALUES LESS THAN ('%s'), PARTITION %s VALUES LESS THAN (MAXVALUE))",
+                FUTURE_PARTITION, month.format(PARTITION_NAME_FORMAT), month.plusMonths(1).atDay(1), FUTURE_PARTITION));
+    }
+
+    @Override
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE stat_info DROP PARTITION " + month.format(PARTITION_NAME_FORMAT));
+    }
+
+    private List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(
+                "select partition_name from information_schema.partitions " +
+                "where table_schema = database() and table_name = 'stat_info' and partition_name is not null " +
+                "order by partition_ordinal_position", String.class);
+    }
+
+    private YearMonth parseMonth(String partitionName) {
+        try {
+            return YearMonth.parse(partitionName, PARTITION_NAME_FORMAT);
+        } catch (RuntimeException e) {
+            log.warn("월 파티션 이름 형식이 아닌 stat_info 파티션이 있습니다. partition={}", partitionName);
+            return null;
+        }
+    }
+}
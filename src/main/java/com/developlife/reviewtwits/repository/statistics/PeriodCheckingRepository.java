@@ -5,15 +5,19 @@ import com.developlife.reviewtwits.message.response.project.ProductStatisticsRes
 import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
 import com.developlife.reviewtwits.message.response.statistics.VisitInfoResponse;
 import com.developlife.reviewtwits.type.ChartPeriodUnit;
+import com.developlife.reviewtwits.type.project.ProjectPricePlan;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 
 public interface PeriodCheckingRepository {
     List<VisitInfoResponse> findByPeriod(Project project, LocalDate endDate, LocalDate startDate, ChartPeriodUnit interval);
-    RecentVisitInfoResponse findRecentVisitInfo(Project project);
+    RecentVisitInfoResponse countRecentVisits(long projectId, LocalDateTime yesterdayStart, LocalDateTime todayStart, LocalDateTime tomorrowStart);
+    List<Long> findVisitedProjectIds();
+    List<ProjectPricePlan> findPricePlansVisitedBetween(LocalDateTime start, LocalDateTime end);
     Map<Integer, Long> readTimeGraphInfo(Project project);
 
     List<ProductStatisticsResponse> findProductStatistics(Project project);
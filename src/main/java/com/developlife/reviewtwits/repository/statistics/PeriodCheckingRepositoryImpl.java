@@ -1,14 +1,19 @@
 package com.developlife.reviewtwits.repository.statistics;
 
-import com.developlife.reviewtwits.entity.Product;
 import com.developlife.reviewtwits.entity.Project;
+import com.developlife.reviewtwits.entity.QProduct;
+import com.developlife.reviewtwits.entity.QProject;
 import com.developlife.reviewtwits.entity.QReview;
-import com.developlife.reviewtwits.entity.StatInfo;
+import com.developlife.reviewtwits.entity.QUser;
+import com.developlife.reviewtwits.entity.QVisitArchiveRollup;
 import com.developlife.reviewtwits.message.response.project.ProductStatisticsResponse;
 import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
 import com.developlife.reviewtwits.message.response.statistics.VisitInfoResponse;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore.Demographics;
 import com.developlife.reviewtwits.type.ChartPeriodUnit;
 import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.ProjectPricePlan;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -16,16 +21,14 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.developlife.reviewtwits.entity.QStatInfo.statInfo;
+import static com.developlife.reviewtwits.entity.QVisitDailyRollup.visitDailyRollup;
+import static com.developlife.reviewtwits.entity.QVisitHourlyRollup.visitHourlyRollup;
 import static com.querydsl.core.group.GroupBy.groupBy;
-import static com.querydsl.core.group.GroupBy.list;
 
 /**
  * @author WhalesBob
@@ -35,58 +38,56 @@ import static com.querydsl.core.group.GroupBy.list;
 public class PeriodCheckingRepositoryImpl implements PeriodCheckingRepository {
 
     private final JPAQueryFactory jpaQueryFactory;
+    private final VisitColumnStore visitColumnStore;
 
-    public PeriodCheckingRepositoryImpl(JPAQueryFactory jpaQueryFactory) {
+    public PeriodCheckingRepositoryImpl(JPAQueryFactory jpaQueryFactory, VisitColumnStore visitColumnStore) {
         this.jpaQueryFactory = jpaQueryFactory;
+        this.visitColumnStore = visitColumnStore;
     }
 
     @Override
     public List<VisitInfoResponse> findByPeriod(Project project, LocalDate endDate, LocalDate startDate, ChartPeriodUnit interval) {
-        Map<Integer, List<StatInfo>> visitStatInfo = getVisitStatInfo(project, startDate, endDate);
-        return mappingVisitInfoResponse(visitStatInfo, interval, startDate, endDate);
+        Map<LocalDate, Long> dailyVisitCounts = getDailyVisitCounts(project, startDate, endDate);
+        return mappingVisitInfoResponse(dailyVisitCounts, interval, startDate, endDate);
     }
 
+    /**
+     * 시간 단위 집계에서 어제/오늘 방문 수를, 일간 집계에서 전체 방문 수를 센다.
+     * 구간 경계는 서버 시간대로 변환된 값이어야 하며, 시간 단위로 나누어 떨어지지 않는 경계는 해당 시간 구간 전체가 포함된다.
+     */
     @Override
-    public RecentVisitInfoResponse findRecentVisitInfo(Project project) {
-        LocalDate startDate = ChartPeriodUnit.getTimeRangeBefore(LocalDateTime.now(), ChartPeriodUnit.FIVE_YEAR, ChartPeriodUnit.ONE_DAY).toLocalDate();
+    public RecentVisitInfoResponse countRecentVisits(long projectId, LocalDateTime yesterdayStart, LocalDateTime todayStart, LocalDateTime tomorrowStart) {
+        Long yesterdayVisitCount = countHourlyVisits(projectId, yesterdayStart, todayStart);
+        Long todayVisitCount = countHourlyVisits(projectId, todayStart, tomorrowStart);
+        Long totalVisitCount = jpaQueryFactory.select(visitDailyRollup.visitCount.sum().coalesce(0L))
+                .from(visitDailyRollup)
+                .where(visitDailyRollup.projectId.eq(projectId))
+                .fetchOne();
 
-        Map<Integer, List<StatInfo>> visitStatInfo = getVisitStatInfo(project, startDate, LocalDate.now());
-
-        int today = LocalDateTime.now().getDayOfYear();
-        int yesterday = LocalDateTime.now().minusDays(1).getDayOfYear();
-
-        int todayVisitCount = 0;
-        int yesterdayVisitCount = 0;
-        int totalVisitCount = 0;
-
-        if(visitStatInfo.get(today) != null){
-            todayVisitCount = visitStatInfo.get(today).size();
-        }
-
-        if(visitStatInfo.get(yesterday) != null){
-            yesterdayVisitCount = visitStatInfo.get(yesterday).size();
-        }
-
-        for(Map.Entry<Integer, List<StatInfo>> entry : visitStatInfo.entrySet()){
-            totalVisitCount += entry.getValue().size();
-        }
         return RecentVisitInfoResponse.builder()
-                .todayVisit(todayVisitCount)
-                .yesterdayVisit(yesterdayVisitCount)
-                .totalVisit(totalVisitCount)
+                .todayVisit(todayVisitCount.intValue())
+                .yesterdayVisit(yesterdayVisitCount.intValue())
+                .totalVisit(totalVisitCount.intValue())
                 .build();
     }
 
+    @Override
+    public List<Long> findVisitedProjectIds() {
+        return jpaQueryFactory.select(visitDailyRollup.projectId)
+                .distinct()
+                .from(visitDailyRollup)
+                .fetch();
+    }
+
     @Override
     public Map<Integer, Long> readTimeGraphInfo(Project project) {
         Map<Integer, Long> result = jpaQueryFactory.select(
-                statInfo.createdDate.hour(), statInfo.createdDate.count()
-        ).from(statInfo)
-                .where(statInfo.project.eq(project))
-                        //.and(statInfo.createdDate.after(ChartPeriodUnit.getTimeRangeBefore(ChartPeriodUnit.ONE_MONTH))))
-                .groupBy(statInfo.createdDate.hour())
-                .orderBy(statInfo.createdDate.hour().asc())
-                .transform(groupBy(statInfo.createdDate.hour()).as(statInfo.createdDate.count()));
+                visitHourlyRollup.bucketStart.hour(), visitHourlyRollup.visitCount.sum()
+        ).from(visitHourlyRollup)
+                .where(visitHourlyRollup.projectId.eq(project.getProjectId()))
+                .groupBy(visitHourlyRollup.bucketStart.hour())
+                .orderBy(visitHourlyRollup.bucketStart.hour().asc())
+                .transform(groupBy(visitHourlyRollup.bucketStart.hour()).as(visitHourlyRollup.visitCount.sum()));
 
         IntStream.range(0, 24)
                 .forEach(h -> {
@@ -96,83 +97,178 @@ public class PeriodCheckingRepositoryImpl implements PeriodCheckingRepository {
                 });
         return new TreeMap<>(result);
     }
-    // 맵으로 product key로해서 visitCount구하고
+    /**
+     * 상품별 방문 수, 주요 연령대/성별, 리뷰 수/평균 점수를 상품 수와 관계없이 최대 6번의 group by 쿼리로 구한다.
+     * 방문 기록과 유저 엔티티는 메모리에 올리지 않으며, 연령대/성별은 남아 있는 원본과 압축된 집계를 합친다.
+     * 컬럼 저장소가 적재되어 있으면 원본의 연령대/성별은 저장소에서 세므로 쿼리는 4번이다.
+     */
     @Override
     public List<ProductStatisticsResponse> findProductStatistics(Project project) {
-         Map<Product, List<StatInfo>> result = jpaQueryFactory
-                .selectFrom(statInfo)
-                .where(statInfo.project.eq(project))
-                .transform(groupBy(statInfo.product).as(list(statInfo)));
-         List<ProductStatisticsResponse> response = new ArrayList<>();
-         result.forEach((product, statInfos) -> {
-             Collection<Long> mainAgeValues = statInfos.stream().filter(s -> s.getUser() != null && s.getUser().getProvider() != null)
-                     .map(s -> (s.getUser().getAge() / 10))
-                     .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-                     .values();
-
-             Gender gender = statInfos.stream().filter(s -> s.getUser() != null
-                             && s.getUser().getProvider() != null && s.getUser().getGender() != null)
-                     .map(s -> s.getUser().getGender())
-                     .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
-                     .entrySet().stream()
-                     .max(Map.Entry.comparingByValue())
-                     .map(Map.Entry::getKey)
-                     .orElse(null);
-
-             Tuple reviewTuple = jpaQueryFactory.select(QReview.review.count(), QReview.review.score.avg())
-                        .from(QReview.review)
-                        .where(QReview.review.productUrl.eq(product.getProductUrl()))
-                        .fetchOne();
-
-             Long reviewCount = reviewTuple.get(QReview.review.count());
-             Double averageScore = reviewTuple.get(QReview.review.score.avg());
-
-             ProductStatisticsResponse p = ProductStatisticsResponse.builder()
-                     .productName(product.getProductName())
-                     .visitCount(Long.valueOf(statInfos.size()))
-                     .reviewCount(reviewCount)
-                     .mainAge(mainAgeValues.size() == 0 ? null
-                             : mainAgeValues.stream()
-                             .max(Comparator.comparing(a -> a))
-                             .get()
-                     )
-                     .mainGender(gender == null ? null: gender.name())
-                     .averageScore(reviewCount == 0 ? 0.0 : averageScore)
-                     .build();
-                response.add(p);
-         });
+        QProduct product = QProduct.product;
+        QReview review = QReview.review;
+        QVisitArchiveRollup archive = QVisitArchiveRollup.visitArchiveRollup;
+
+        // 방문 수는 일간 집계에서, 방문이 있었던 상품만 대상으로 한다.
+        List<Tuple> visitCountList = jpaQueryFactory.select(product.productId, product.productName, visitDailyRollup.visitCount.sum())
+                .from(visitDailyRollup)
+                .join(product).on(product.productId.eq(visitDailyRollup.productId))
+                .where(visitDailyRollup.projectId.eq(project.getProjectId()))
+                .groupBy(product.productId, product.productName)
+                .orderBy(product.productId.asc())
+                .fetch();
+        if(visitCountList.isEmpty()){
+            return List.of();
+        }
 
+        // 원본 방문의 연령대/성별은 컬럼 저장소가 적재되어 있으면 저장소에서 센다.
+        int currentYear = LocalDate.now().getYear();
+        Demographics demographics = visitColumnStore.countDemographics(project.getProjectId(), currentYear)
+                .orElseGet(() -> countDemographics(project, currentYear));
+        Map<Long, Map<Integer, Long>> ageBandCounts = demographics.ageBandCounts();
+        Map<Long, Map<Gender, Long>> genderCounts = demographics.genderCounts();
+
+        jpaQueryFactory.select(archive.productId, archive.birthYear, archive.visitCount.sum())
+                .from(archive)
+                .where(archive.projectId.eq(project.getProjectId())
+                        .and(archive.birthYear.isNotNull()))
+                .groupBy(archive.productId, archive.birthYear)
+                .fetch()
+                .forEach(tuple -> {
+                    int ageBand = (currentYear - tuple.get(archive.birthYear) + 1) / 10;
+                    ageBandCounts.computeIfAbsent(tuple.get(archive.productId), productId -> new HashMap<>())
+                            .merge(ageBand, tuple.get(archive.visitCount.sum()), Long::sum);
+                });
 
+        jpaQueryFactory.select(archive.productId, archive.gender, archive.visitCount.sum())
+                .from(archive)
+                .where(archive.projectId.eq(project.getProjectId())
+                        .and(archive.gender.isNotNull()))
+                .groupBy(archive.productId, archive.gender)
+                .fetch()
+                .forEach(tuple -> genderCounts.computeIfAbsent(tuple.get(archive.productId), productId -> new HashMap<>())
+                        .merge(tuple.get(archive.gender), tuple.get(archive.visitCount.sum()), Long::sum));
+
+        // 리뷰는 상품 URL 로 연결되어 있으므로, 프로젝트의 상품과 URL 로 join 해서 한 번에 집계한다.
+        Map<Long, Tuple> reviewStatistics = new HashMap<>();
+        jpaQueryFactory.select(product.productId, review.count(), review.score.avg())
+                .from(review)
+                .join(product).on(product.productUrl.eq(review.productUrl))
+                .where(product.project.projectId.eq(project.getProjectId()))
+                .groupBy(product.productId)
+                .fetch()
+                .forEach(tuple -> reviewStatistics.put(tuple.get(product.productId), tuple));
+
+        List<ProductStatisticsResponse> response = new ArrayList<>(visitCountList.size());
+        for(Tuple visitCount : visitCountList){
+            Long productId = visitCount.get(product.productId);
+            Tuple reviewTuple = reviewStatistics.get(productId);
+            Long reviewCount = reviewTuple == null ? 0L : reviewTuple.get(review.count());
+
+            response.add(ProductStatisticsResponse.builder()
+                    .productId(productId)
+                    .productName(visitCount.get(product.productName))
+                    .visitCount(visitCount.get(visitDailyRollup.visitCount.sum()))
+                    .reviewCount(reviewCount)
+                    .mainAge(findMostFrequent(ageBandCounts.get(productId)).map(Integer::longValue).orElse(null))
+                    .mainGender(findMostFrequent(genderCounts.get(productId)).map(Gender::name).orElse(null))
+                    .averageScore(reviewCount == 0 ? 0.0 : reviewTuple.get(review.score.avg()))
+                    .build());
+        }
         return response;
     }
 
-    private Map<Integer, List<StatInfo>> getVisitStatInfo(Project project, LocalDate startDate, LocalDate endDate) {
+    // 나이는 출생 연도로 정해지므로 (상품, 출생 연도) 로 묶어 센 뒤 연령대로 합친다.
+    private Demographics countDemographics(Project project, int currentYear) {
+        QUser user = QUser.user;
+        NumberExpression<Long> visitCount = statInfo.sampleWeight.longValue().sum();
+        Map<Long, Map<Integer, Long>> ageBandCounts = new HashMap<>();
+        jpaQueryFactory.select(statInfo.product.productId, user.birthDate.year(), visitCount)
+                .from(statInfo)
+                .join(statInfo.user, user)
+                .where(statInfo.project.projectId.eq(project.getProjectId())
+                        .and(user.provider.isNotNull())
+                        .and(user.birthDate.isNotNull()))
+                .groupBy(statInfo.product.productId, user.birthDate.year())
+                .fetch()
+                .forEach(tuple -> {
+                    int ageBand = (currentYear - tuple.get(user.birthDate.year()) + 1) / 10;
+                    ageBandCounts.computeIfAbsent(tuple.get(statInfo.product.productId), productId -> new HashMap<>())
+                            .merge(ageBand, tuple.get(visitCount), Long::sum);
+                });
+
+        Map<Long, Map<Gender, Long>> genderCounts = new HashMap<>();
+        jpaQueryFactory.select(statInfo.product.productId, user.gender, visitCount)
+                .from(statInfo)
+                .join(statInfo.user, user)
+                .where(statInfo.project.projectId.eq(project.getProjectId())
+                        .and(user.provider.isNotNull())
+                        .and(user.gender.isNotNull()))
+                .groupBy(statInfo.product.productId, user.gender)
+                .fetch()
+                .forEach(tuple -> genderCounts.computeIfAbsent(tuple.get(statInfo.product.productId), productId -> new HashMap<>())
+                        .put(tuple.get(user.gender), tuple.get(visitCount)));
+        return new Demographics(ageBandCounts, genderCounts);
+    }
+
+    private <T> Optional<T> findMostFrequent(Map<T, Long> counts) {
+        if(counts == null){
+            return Optional.empty();
+        }
+        return counts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey);
+    }
+
+    // 일간 집계로 해당 기간에 방문 정보가 있는 프로젝트들의 요금제를 찾는다.
+    @Override
+    public List<ProjectPricePlan> findPricePlansVisitedBetween(LocalDateTime start, LocalDateTime end) {
+        QProject project = QProject.project;
+        return jpaQueryFactory.select(project.pricePlan)
+                .distinct()
+                .from(visitDailyRollup)
+                .join(project).on(project.projectId.eq(visitDailyRollup.projectId))
+                .where(visitDailyRollup.bucketStart.goe(start)
+                    .and(visitDailyRollup.bucketStart.lt(end)))
+                .fetch();
+    }
 
-        NumberExpression<Integer> intervalExpression = statInfo.createdDate.dayOfYear();
+    private Long countHourlyVisits(long projectId, LocalDateTime start, LocalDateTime end) {
+        return jpaQueryFactory.select(visitHourlyRollup.visitCount.sum().coalesce(0L))
+                .from(visitHourlyRollup)
+                .where(visitHourlyRollup.projectId.eq(projectId)
+                    .and(visitHourlyRollup.bucketStart.goe(start))
+                    .and(visitHourlyRollup.bucketStart.lt(end)))
+                .fetchOne();
+    }
 
-        return jpaQueryFactory.select(
-                        statInfo.createdDate.dayOfYear()
-                ).from(statInfo)
-                .where(statInfo.project.eq(project)
-                    .and(statInfo.createdDate.after(startDate.atStartOfDay()))
-                    .and(statInfo.createdDate.before(endDate.atTime(LocalTime.MAX))))
-                .transform(groupBy(intervalExpression).as(list(statInfo)));
+    // 일간 집계에서 기간 안의 날짜별 방문 수를 읽는다. 상품이 여러 개면 날짜별로 합친다.
+    private Map<LocalDate, Long> getDailyVisitCounts(Project project, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDateTime, Long> visitCounts = jpaQueryFactory.select(
+                        visitDailyRollup.bucketStart, visitDailyRollup.visitCount.sum()
+                ).from(visitDailyRollup)
+                .where(visitDailyRollup.projectId.eq(project.getProjectId())
+                    .and(visitDailyRollup.bucketStart.between(startDate.atStartOfDay(), endDate.atStartOfDay())))
+                .groupBy(visitDailyRollup.bucketStart)
+                .transform(groupBy(visitDailyRollup.bucketStart).as(visitDailyRollup.visitCount.sum()));
+
+        Map<LocalDate, Long> dailyVisitCounts = new TreeMap<>();
+        visitCounts.forEach((bucketStart, count) -> dailyVisitCounts.put(bucketStart.toLocalDate(), count));
+        return dailyVisitCounts;
     }
 
-    private List<VisitInfoResponse> mappingVisitInfoResponse(Map<Integer, List<StatInfo>> transform, ChartPeriodUnit interval, LocalDate startDate, LocalDate endDate){
+    private List<VisitInfoResponse> mappingVisitInfoResponse(Map<LocalDate, Long> dailyVisitCounts, ChartPeriodUnit interval, LocalDate startDate, LocalDate endDate){
 
-        Map<Integer, List<StatInfo>> sortedMap = new TreeMap<>(transform);
         List<VisitInfoResponse> response = makeVisitInfoResponseInit(startDate, endDate, interval);
 
         int visitInfoIndex = 0;
 
-        for(Map.Entry<Integer, List<StatInfo>> entry : sortedMap.entrySet()){
-            LocalDate entryDate = entry.getValue().get(0).getCreatedDate().toLocalDate();
+        for(Map.Entry<LocalDate, Long> entry : dailyVisitCounts.entrySet()){
+            LocalDate entryDate = entry.getKey();
             while(visitInfoIndex + 1 < response.size() && isDaysBefore(response.get(visitInfoIndex+1).getTimeStamp(), entryDate)){
                 visitInfoIndex++; // response 에 찍혀 있는 시간이 entry 의 시간보다 뒤에 올 때까지, response 의 index 하나씩 추가
             }
 
-            int visitCount = entry.getValue().size();
+            int visitCount = entry.getValue().intValue();
             int currentCount = response.get(visitInfoIndex).getVisitCount();
             response.get(visitInfoIndex).setVisitCount(currentCount + visitCount);
         }
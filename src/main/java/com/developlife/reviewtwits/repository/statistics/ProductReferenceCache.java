@@ -0,0 +1,59 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import com.developlife.reviewtwits.repository.ProductRepository;
+import com.developlife.reviewtwits.type.project.VisitIngestionPolicy;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 방문 정보 저장 시 productUrl 로 상품/프로젝트 id 와 프로젝트의 방문 수집 정책을 찾는 조회를 캐싱한다.
+ * 등록된 상품만 캐싱하므로, 새로 등록된 상품은 다음 요청에서 바로 조회된다.
+ * 수집 정책을 바꾸면 이 서버의 캐시는 바로 비우고, 다른 서버에는 expire-after-write 안에 반영된다.
+ */
+@Component
+public class ProductReferenceCache {
+
+    public static final String CACHE_NAME = "statistics.product";
+
+    private final ProductRepository productRepository;
+    private final Cache<String, ProductReference> cache;
+
+    public ProductReferenceCache(ProductRepository productRepository, MeterRegistry meterRegistry,
+                                 @Value("${statistics.product-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${statistics.product-cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds) {
+        this.productRepository = productRepository;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<ProductReference> findByProductUrl(String productUrl) {
+        ProductReference cached = cache.getIfPresent(productUrl);
+        if(cached != null){
+            return Optional.of(cached);
+        }
+
+        Optional<ProductReference> found = productRepository.findWithProjectByProductUrl(productUrl)
+                .map(product -> new ProductReference(product.getProductId(), product.getProject().getProjectId(),
+                        product.getProject().getVisitIngestionPolicy()));
+        found.ifPresent(reference -> cache.put(productUrl, reference));
+        return found;
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public record ProductReference(long productId, long projectId, VisitIngestionPolicy ingestionPolicy) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 파티션을 지원하지 않는 DB(H2 테스트 등)에서 월 파티션을 흉내 낸다.
+ * 방문 정보가 있는 달을 파티션으로 보고, 파티션 삭제는 해당 달의 범위 삭제로 대신한다.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "statistics.visit-partition", name = "mode", havingValue = "simulated")
+public class SimulatedVisitPartitionManager implements VisitPartitionManager {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<YearMonth> findPartitions() {
+        return jdbcTemplate.query(
+                "select distinct year(created_date) as visit_year, month(created_date) as visit_month from stat_info",
+                (rs, rowNum) -> YearMonth.of(rs.getInt("visit_year"), rs.getInt("visit_month")))
+                .stream()
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public void ensurePartitioned(YearMonth currentMonth) {
+        // 파티션을 흉내 내므로 테이블을 바꾸지 않는다.
+    }
+
+    @Override
+    public void ensurePartition(YearMonth month) {
+        // 하나의 테이블에 모두 기록하므로 미리 만들 파티션이 없다.
+    }
+
+    @Override
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.update("delete from stat_info where created_date >= ? and created_date < ?",
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+}
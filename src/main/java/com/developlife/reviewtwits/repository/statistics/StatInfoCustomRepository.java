@@ -4,7 +4,11 @@ import com.developlife.reviewtwits.entity.Project;
 import com.developlife.reviewtwits.message.response.project.SearchFlowResponse;
 import com.developlife.reviewtwits.message.response.statistics.SimpleProjectInfoResponse;
 
+import java.time.LocalDateTime;
+import java.util.Map;
+
 public interface StatInfoCustomRepository {
     SimpleProjectInfoResponse findSimpleProjectInfo(Project project);
     SearchFlowResponse findSearchFlow(Project project);
+    Map<VisitRollupKey, Long> countHourlyVisits(LocalDateTime from, LocalDateTime to);
 }
@@ -3,11 +3,18 @@ package com.developlife.reviewtwits.repository.statistics;
 import com.developlife.reviewtwits.entity.*;
 import com.developlife.reviewtwits.message.response.project.SearchFlowResponse;
 import com.developlife.reviewtwits.message.response.statistics.SimpleProjectInfoResponse;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import com.developlife.reviewtwits.type.project.Inflow;
 import com.developlife.reviewtwits.type.review.ReviewStatus;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,21 +27,24 @@ import java.util.Map;
 public class StatInfoCustomRepositoryImpl implements StatInfoCustomRepository {
 
     private final JPAQueryFactory jpaQueryFactory;
+    private final VisitColumnStore visitColumnStore;
 
-    public StatInfoCustomRepositoryImpl(JPAQueryFactory jpaQueryFactory) {
+    public StatInfoCustomRepositoryImpl(JPAQueryFactory jpaQueryFactory, VisitColumnStore visitColumnStore) {
         this.jpaQueryFactory = jpaQueryFactory;
+        this.visitColumnStore = visitColumnStore;
     }
 
     @Override
     public SimpleProjectInfoResponse findSimpleProjectInfo(Project project) {
         LocalDate currentDate = LocalDate.now();
 
-        // 월간 조회수
-        Long monthlyVisitCount = jpaQueryFactory.select(QStatInfo.statInfo.statId.count())
-                .from(QStatInfo.statInfo)
-                .where(QStatInfo.statInfo.project.eq(project))
-                .where(QStatInfo.statInfo.createdDate.month().eq(currentDate.getMonthValue())
-                    .and(QStatInfo.statInfo.createdDate.year().eq(currentDate.getYear())))
+        // 월간 조회수 (일간 집계에서 이번 달 구간만 합산)
+        LocalDate firstDayOfMonth = currentDate.withDayOfMonth(1);
+        Long monthlyVisitCount = jpaQueryFactory.select(QVisitDailyRollup.visitDailyRollup.visitCount.sum().coalesce(0L))
+                .from(QVisitDailyRollup.visitDailyRollup)
+                .where(QVisitDailyRollup.visitDailyRollup.projectId.eq(project.getProjectId()))
+                .where(QVisitDailyRollup.visitDailyRollup.bucketStart.goe(firstDayOfMonth.atStartOfDay())
+                    .and(QVisitDailyRollup.visitDailyRollup.bucketStart.lt(firstDayOfMonth.plusMonths(1).atStartOfDay())))
                 .fetchOne();
         // 일간 리뷰수
         Long dailyReviewCount = jpaQueryFactory.select(QReview.review.reviewId.count())
@@ -65,48 +75,90 @@ public class StatInfoCustomRepositoryImpl implements StatInfoCustomRepository {
     }
 
     @Override
-    public SearchFlowResponse findSearchFlow(Project project) {
-        List<StatInfo> statInfoList = jpaQueryFactory.selectFrom(QStatInfo.statInfo)
-                .where(QStatInfo.statInfo.project.eq(project))
+    public Map<VisitRollupKey, Long> countHourlyVisits(LocalDateTime from, LocalDateTime to) {
+        QStatInfo statInfo = QStatInfo.statInfo;
+        return countHourlyVisits(statInfo.project.isNotNull().and(statInfo.product.isNotNull())
+                .and(statInfo.createdDate.goe(from)).and(statInfo.createdDate.lt(to)));
+    }
+
+    private Map<VisitRollupKey, Long> countHourlyVisits(Predicate condition) {
+        QStatInfo statInfo = QStatInfo.statInfo;
+        NumberExpression<Long> visitCount = statInfo.sampleWeight.longValue().sum();
+        List<Tuple> visitCountList = jpaQueryFactory.select(
+                        statInfo.project.projectId, statInfo.product.productId,
+                        statInfo.createdDate.year(), statInfo.createdDate.month(),
+                        statInfo.createdDate.dayOfMonth(), statInfo.createdDate.hour(),
+                        visitCount)
+                .from(statInfo)
+                .where(condition)
+                .groupBy(statInfo.project.projectId, statInfo.product.productId,
+                        statInfo.createdDate.year(), statInfo.createdDate.month(),
+                        statInfo.createdDate.dayOfMonth(), statInfo.createdDate.hour())
                 .fetch();
-        // Long total, naver, daum, google, zoom, bing, yahoo, etc;
-        Map<String, Long> result = new HashMap<>();
-        String[] sites = {"google", "naver", "daum", "zoom", "bing", "yahoo"};
 
-        // 초기화
-        for (String site : sites) {
-            result.put(site, 0L);
+        Map<VisitRollupKey, Long> hourlyVisitCounts = new HashMap<>();
+        for(Tuple tuple : visitCountList){
+            LocalDateTime bucketStart = LocalDateTime.of(
+                    tuple.get(statInfo.createdDate.year()), tuple.get(statInfo.createdDate.month()),
+                    tuple.get(statInfo.createdDate.dayOfMonth()), tuple.get(statInfo.createdDate.hour()), 0);
+            hourlyVisitCounts.put(new VisitRollupKey(tuple.get(statInfo.project.projectId), tuple.get(statInfo.product.productId), bucketStart),
+                    tuple.get(visitCount));
         }
-        result.put("etc", 0L);
-
-        // 카운트 증가
-        for (StatInfo si : statInfoList) {
-            String referer = si.getInflowUrl();
-            boolean matched = false;
-
-            for (String site : sites) {
-                if (referer != null && referer.contains(site)) {
-                    result.put(site, result.get(site) + 1);
-                    matched = true;
-                    break;
-                }
-            }
-
-            if (!matched) {
-                result.put("etc", result.get("etc") + 1);
-            }
+        return hourlyVisitCounts;
+    }
+
+    @Override
+    public SearchFlowResponse findSearchFlow(Project project) {
+        Map<Inflow, Long> result = new EnumMap<>(Inflow.class);
+        for (Inflow inflow : Inflow.values()) {
+            result.put(inflow, 0L);
         }
 
+        // 원본 방문은 컬럼 저장소가 적재되어 있으면 저장소에서 센다.
+        visitColumnStore.countByInflow(project.getProjectId())
+                .ifPresentOrElse(counts -> counts.forEach((inflow, count) -> result.merge(inflow, count, Long::sum)),
+                        () -> countInflows(project, result));
+
+        // 보관 기간이 지나 삭제된 달은 압축된 집계에서 더한다.
+        QVisitArchiveRollup archive = QVisitArchiveRollup.visitArchiveRollup;
+        jpaQueryFactory.select(archive.inflowHost, archive.inflow, archive.visitCount.sum())
+                .from(archive)
+                .where(archive.projectId.eq(project.getProjectId()))
+                .groupBy(archive.inflowHost, archive.inflow)
+                .fetch()
+                .forEach(tuple -> result.merge(toInflow(tuple.get(archive.inflowHost), tuple.get(archive.inflow)),
+                        tuple.get(archive.visitCount.sum()), Long::sum));
 
         return SearchFlowResponse.builder()
                 .total(result.values().stream().mapToLong(Long::longValue).sum())
-                .google(result.get("google"))
-                .naver(result.get("naver"))
-                .daum(result.get("daum"))
-                .zoom(result.get("zoom"))
-                .bing(result.get("bing"))
-                .yahoo(result.get("yahoo"))
-                .etc(result.get("etc"))
+                .google(result.get(Inflow.GOOGLE))
+                .naver(result.get(Inflow.NAVER))
+                .daum(result.get(Inflow.DAUM))
+                .zoom(result.get(Inflow.ZOOM))
+                .bing(result.get(Inflow.BING))
+                .yahoo(result.get(Inflow.YAHOO))
+                .etc(result.get(Inflow.ETC))
                 .build();
     }
+
+    // 유입 host 별로 센 뒤 지금의 분류 기준으로 유입 경로를 정한다.
+    private void countInflows(Project project, Map<Inflow, Long> result) {
+        QStatInfo statInfo = QStatInfo.statInfo;
+        NumberExpression<Long> visitCount = statInfo.sampleWeight.longValue().sum();
+        jpaQueryFactory.select(statInfo.inflowHost, statInfo.inflow, visitCount)
+                .from(statInfo)
+                .where(statInfo.project.eq(project))
+                .groupBy(statInfo.inflowHost, statInfo.inflow)
+                .fetch()
+                .forEach(tuple -> result.merge(toInflow(tuple.get(statInfo.inflowHost), tuple.get(statInfo.inflow)),
+                        tuple.get(visitCount), Long::sum));
+    }
+
+    // host 가 없으면 host 를 채우기 전에 분류해 둔 값을 쓰고, 그것도 없으면 기타로 본다.
+    private Inflow toInflow(String inflowHost, Inflow storedInflow) {
+        if(inflowHost != null){
+            return Inflow.fromHost(inflowHost);
+        }
+        return storedInflow == null ? Inflow.ETC : storedInflow;
+    }
 }
@@ -0,0 +1,103 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import com.developlife.reviewtwits.type.Gender;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 방문 정보를 컬럼 저장소에 추가할 때 필요한 유저의 성별/출생 연도를 캐싱한다.
+ * 연령대/성별 통계와 같은 기준으로, 소셜 로그인(provider) 정보가 있는 유저의 값만 사용한다.
+ * 유저 정보가 바뀌면 커밋 뒤 Redis 채널로 모든 서버에서 지운다.
+ */
+@Slf4j
+@Component
+public class UserDemographicsCache {
+
+    public static final String CACHE_NAME = "statistics.user-demographics";
+    public static final String EVICTION_CHANNEL = "statistics:user-demographics:evict";
+
+    private static final String SELECT_USERS_SQL =
+            "select user_id, gender, birth_date, provider from user where user_id in (:userIds)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<Long, UserDemographics> cache;
+
+    public UserDemographicsCache(NamedParameterJdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 StringRedisTemplate redisTemplate, RedisMessageListenerContainer redisMessageListenerContainer,
+                                 @Value("${statistics.user-demographics-cache.maximum-size:100000}") long maximumSize,
+                                 @Value("${statistics.user-demographics-cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        redisMessageListenerContainer.addMessageListener((message, pattern) ->
+                        evict(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(EVICTION_CHANNEL));
+    }
+
+    /**
+     * 캐시에 없는 유저만 한 번의 in 쿼리로 읽는다. 존재하지 않는 유저는 결과에 포함되지 않는다.
+     */
+    public Map<Long, UserDemographics> findAll(Collection<Long> userIds) {
+        Map<Long, UserDemographics> result = new HashMap<>(cache.getAllPresent(userIds));
+        Set<Long> missingUserIds = new HashSet<>(userIds);
+        missingUserIds.removeAll(result.keySet());
+        if(missingUserIds.isEmpty()){
+            return result;
+        }
+
+        jdbcTemplate.query(SELECT_USERS_SQL, Map.of("userIds", missingUserIds), rs -> {
+            boolean hasProvider = rs.getString("provider") != null;
+            String gender = rs.getString("gender");
+            Timestamp birthDate = rs.getTimestamp("birth_date");
+            UserDemographics demographics = new UserDemographics(
+                    hasProvider && gender != null ? Gender.valueOf(gender) : null,
+                    hasProvider && birthDate != null ? birthDate.toLocalDateTime().getYear() : null);
+            cache.put(rs.getLong("user_id"), demographics);
+            result.put(rs.getLong("user_id"), demographics);
+        });
+        return result;
+    }
+
+    public void evict(long userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * 이 서버의 캐시에서 지우고 다른 서버에도 지우라고 알린다. 알리지 못하면 다른 서버는 expire-after-write 까지 이전 값을 쓴다.
+     */
+    public void evictAllInstances(long userId) {
+        evict(userId);
+        try {
+            redisTemplate.convertAndSend(EVICTION_CHANNEL, String.valueOf(userId));
+        } catch (RuntimeException e) {
+            log.warn("유저 성별/연령 캐시 삭제를 다른 서버에 알리지 못했습니다. userId={}", userId, e);
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public record UserDemographics(Gender gender, Integer birthYear) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * 삭제할 파티션의 원본 방문 정보를 visit_archive_rollup 으로 압축한다.
+ * range partition 은 앞 파티션의 경계부터 자기 경계 전까지를 담으므로, 압축 범위도 달 하나가 아닌 파티션의 실제 범위를 받는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VisitArchiveRepository {
+
+    private static final String COMPACT_SQL =
+            "insert into visit_archive_rollup (project_id, product_id, month_start, compacted_partition, inflow, inflow_host, gender, birth_year, visit_count) " +
+            "select s.project_project_id, s.product_product_id, ?, ?, s.inflow, s.inflow_host, " +
+            "case when u.provider is not null then u.gender end, " +
+            "case when u.provider is not null then year(u.birth_date) end, " +
+            "sum(s.sample_weight) " +
+            "from stat_info s left join user u on u.user_id = s.user_user_id " +
+            "where s.created_date >= ? and s.created_date < ? " +
+            "and s.project_project_id is not null and s.product_product_id is not null " +
+            "group by s.project_project_id, s.product_product_id, s.inflow, s.inflow_host, " +
+            "case when u.provider is not null then u.gender end, " +
+            "case when u.provider is not null then year(u.birth_date) end";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 파티션 삭제가 실패해 다시 실행되더라도 두 번 압축하지 않도록, 이미 압축된 파티션인지 확인한다.
+     */
+    public boolean isCompacted(YearMonth partition) {
+        Integer rowCount = jdbcTemplate.queryForObject(
+                "select count(*) from visit_archive_rollup where compacted_partition = ?", Integer.class, Date.valueOf(partition.atDay(1)));
+        return rowCount != null && rowCount > 0;
+    }
+
+    public boolean hasRawVisits(LocalDateTime from, LocalDateTime to) {
+        Integer rowCount = jdbcTemplate.queryForObject(
+                "select count(*) from (select 1 from stat_info where created_date >= ? and created_date < ? limit 1) t",
+                Integer.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return rowCount != null && rowCount > 0;
+    }
+
+    /**
+     * partition 파티션의 [from, to) 방문 정보를 방문한 달별로 압축한다. 호출하는 쪽의 트랜잭션 안에서 실행되어야 한다.
+     */
+    public int compact(YearMonth partition, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime oldestVisit = jdbcTemplate.queryForObject(
+                "select min(created_date) from stat_info where created_date >= ? and created_date < ?",
+                LocalDateTime.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if(oldestVisit == null){
+            return 0;
+        }
+
+        int archivedRows = 0;
+        for(YearMonth month = YearMonth.from(oldestVisit); month.atDay(1).atStartOfDay().isBefore(to); month = month.plusMonths(1)){
+            LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            archivedRows += jdbcTemplate.update(COMPACT_SQL,
+                    Date.valueOf(month.atDay(1)),
+                    Date.valueOf(partition.atDay(1)),
+                    Timestamp.valueOf(monthStart.isBefore(from) ? from : monthStart),
+                    Timestamp.valueOf(monthEnd.isAfter(to) ? to : monthEnd));
+        }
+        return archivedRows;
+    }
+}
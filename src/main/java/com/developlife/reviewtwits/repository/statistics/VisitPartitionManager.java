@@ -0,0 +1,31 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * stat_info 의 월 단위 파티션을 관리한다.
+ * 운영 DB(MariaDB)에서는 created_date 기준 range partition 을, 테스트(H2)에서는 이를 흉내 낸 구현을 사용한다.
+ */
+public interface VisitPartitionManager {
+
+    /**
+     * 테이블이 아직 월 단위로 나뉘어 있지 않으면, 가장 오래된 방문의 달부터 currentMonth 까지의 파티션으로 나눈다.
+     */
+    void ensurePartitioned(YearMonth currentMonth);
+
+    /**
+     * 방문 정보가 들어 있을 수 있는 월 파티션 목록을 오래된 순서로 반환한다.
+     */
+    List<YearMonth> findPartitions();
+
+    /**
+     * 해당 월의 방문 정보가 기록될 파티션을 미리 만들어 둔다.
+     */
+    void ensurePartition(YearMonth month);
+
+    /**
+     * 해당 월의 파티션을 통째로 삭제한다.
+     */
+    void dropPartition(YearMonth month);
+}
@@ -0,0 +1,6 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import java.time.LocalDateTime;
+
+public record VisitRollupKey(long projectId, long productId, LocalDateTime bucketStart) {
+}
@@ -0,0 +1,96 @@
+package com.developlife.reviewtwits.repository.statistics;
+
+import com.developlife.reviewtwits.repository.UpsertSqlBuilder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * visit_hourly_rollup / visit_daily_rollup 의 방문 수를 증가시키거나 다시 계산한 값으로 맞춘다.
+ * 구간별 방문 수는 DB 에 맞는 upsert 를 batch 로 보내 있으면 더하거나 바꾸고 없으면 만든다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VisitRollupRepository {
+
+    private static final String HOURLY_TABLE = "visit_hourly_rollup";
+    private static final String DAILY_TABLE = "visit_daily_rollup";
+    private static final List<String> KEY_COLUMNS = List.of("project_id", "product_id", "bucket_start");
+    private static final List<String> VALUE_COLUMNS = List.of("visit_count");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UpsertSqlBuilder upsertSqlBuilder;
+
+    /**
+     * 시간 단위 방문 수를 받아 시간/일 집계에 함께 반영한다. 호출하는 쪽의 트랜잭션 안에서 실행되어야 한다.
+     */
+    public void addVisitCounts(Map<VisitRollupKey, Long> hourlyVisitCounts) {
+        if(hourlyVisitCounts.isEmpty()){
+            return;
+        }
+
+        addVisitCounts(HOURLY_TABLE, hourlyVisitCounts);
+        addVisitCounts(DAILY_TABLE, toDailyVisitCounts(hourlyVisitCounts));
+    }
+
+    /**
+     * [from, to) 구간의 시간/일 집계를 주어진 시간 단위 방문 수로 맞춘다. from, to 는 날짜 경계여야 한다.
+     * 구간을 먼저 비우지 않고 정확한 값으로 upsert 한 뒤, 새 값에 없는 구간만 지운다.
+     * 호출하는 쪽의 트랜잭션 안에서 실행되어야 한다.
+     */
+    public void replaceVisitCounts(LocalDateTime from, LocalDateTime to, Map<VisitRollupKey, Long> hourlyVisitCounts) {
+        Map<VisitRollupKey, Long> dailyVisitCounts = toDailyVisitCounts(hourlyVisitCounts);
+        replaceVisitCounts(HOURLY_TABLE, from, to, hourlyVisitCounts);
+        replaceVisitCounts(DAILY_TABLE, from, to, dailyVisitCounts);
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("select bucket_start from " + HOURLY_TABLE + " limit 1", Timestamp.class).isEmpty();
+    }
+
+    private void replaceVisitCounts(String table, LocalDateTime from, LocalDateTime to, Map<VisitRollupKey, Long> visitCounts) {
+        UpsertSqlBuilder.Upsert upsert = upsertSqlBuilder.replacingUpsert(table, KEY_COLUMNS, VALUE_COLUMNS);
+        jdbcTemplate.batchUpdate(upsert.sql(), toBatchArguments(upsert, visitCounts));
+
+        List<Object[]> staleKeys = jdbcTemplate.query(
+                        "select project_id, product_id, bucket_start from " + table + " where bucket_start >= ? and bucket_start < ?",
+                        (rs, rowNum) -> new VisitRollupKey(rs.getLong("project_id"), rs.getLong("product_id"),
+                                rs.getTimestamp("bucket_start").toLocalDateTime()),
+                        Timestamp.valueOf(from), Timestamp.valueOf(to)).stream()
+                .filter(key -> !visitCounts.containsKey(key))
+                .map(key -> new Object[]{key.projectId(), key.productId(), Timestamp.valueOf(key.bucketStart())})
+                .toList();
+        if(!staleKeys.isEmpty()){
+            jdbcTemplate.batchUpdate("delete from " + table + " where project_id = ? and product_id = ? and bucket_start = ?", staleKeys);
+        }
+    }
+
+    private void addVisitCounts(String table, Map<VisitRollupKey, Long> visitCounts) {
+        // 배치 update 의 결과 행 수는 드라이버 설정에 따라 SUCCESS_NO_INFO 로 올 수 있으므로,
+        // 새 구간 여부를 판단하지 않고 upsert 한 문장으로 더한다.
+        UpsertSqlBuilder.Upsert upsert = upsertSqlBuilder.addingUpsert(table, KEY_COLUMNS, VALUE_COLUMNS);
+        jdbcTemplate.batchUpdate(upsert.sql(), toBatchArguments(upsert, visitCounts));
+    }
+
+    private static List<Object[]> toBatchArguments(UpsertSqlBuilder.Upsert upsert, Map<VisitRollupKey, Long> visitCounts) {
+        return visitCounts.entrySet().stream()
+                .map(entry -> upsert.arguments(entry.getKey().projectId(), entry.getKey().productId(),
+                        Timestamp.valueOf(entry.getKey().bucketStart()), entry.getValue()))
+                .toList();
+    }
+
+    private static Map<VisitRollupKey, Long> toDailyVisitCounts(Map<VisitRollupKey, Long> hourlyVisitCounts) {
+        Map<VisitRollupKey, Long> dailyVisitCounts = new HashMap<>();
+        hourlyVisitCounts.forEach((key, count) -> dailyVisitCounts.merge(
+                new VisitRollupKey(key.projectId(), key.productId(), key.bucketStart().truncatedTo(ChronoUnit.DAYS)),
+                count, Long::sum));
+        return dailyVisitCounts;
+    }
+}
@@ -0,0 +1,21 @@
+package com.developlife.reviewtwits.repository.statistics.columnar;
+
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+
+import java.time.LocalDateTime;
+
+/**
+ * 컬럼 저장소에 추가되는 방문 한 건. 연령대/성별 통계에 쓰이지 않는 방문은 gender, birthYear 가 null 이다.
+ * 상품이 없는 방문은 유입 경로 통계에만 쓰인다. 표본으로 남긴 방문은 sampleWeight 만큼의 방문으로 센다.
+ */
+public record VisitColumnRow(LocalDateTime createdDate,
+                             long projectId,
+                             Long productId,
+                             Inflow inflow,
+                             Device device,
+                             Gender gender,
+                             Integer birthYear,
+                             int sampleWeight) {
+}
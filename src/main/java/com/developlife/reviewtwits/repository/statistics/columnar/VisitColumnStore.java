@@ -0,0 +1,438 @@
+package com.developlife.reviewtwits.repository.statistics.columnar;
+
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.Inflow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * 대시보드 통계를 위해 남아 있는 원본 방문 정보를 메모리에 컬럼 단위로 들고 있는 저장소.
+ * 방문은 segment 단위로 쌓이고, 가득 찬 segment 는 정렬된 불변 segment 로 봉인되어 병렬로 스캔된다.
+ * 시작 시 적재가 끝나기 전이거나 최대 방문 수를 넘으면 {@link #isComplete()} 가 false 가 되고, 조회는 빈 값을 돌려준다.
+ * 저장소는 이 인스턴스가 기록한 방문만 이어서 반영하므로 기본으로 꺼져 있고(statistics.column-store.enabled),
+ * 방문을 기록하는 인스턴스가 하나일 때만 켠다. 꺼져 있으면 항상 미완료 상태로 남아 DB 조회를 사용한다.
+ * 상품은 프로젝트 안에서 0 부터 번호를 붙여, 프로젝트별 집계가 상품 번호로 배열에 바로 더한다.
+ * 방문 하나에 약 20 바이트를 쓰므로 기본 최대 방문 수(1,000,000)는 약 20MB 이다.
+ */
+@Slf4j
+@Repository
+public class VisitColumnStore {
+
+    private static final int AGE_BANDS = 16;
+    private static final int GENDERS = Gender.values().length;
+
+    private final boolean enabled;
+    private final int segmentSize;
+    private final long maxEvents;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> projectCodes = new HashMap<>();
+    // projectCode 번째 프로젝트의 상품 번호
+    private final List<ProjectProducts> projectProducts = new ArrayList<>();
+
+    private List<VisitSegment> sealedSegments = List.of();
+    private VisitSegment.Builder activeSegment;
+    private long eventCount;
+    private LoadState loadState = LoadState.NOT_LOADED;
+    private LocalDateTime loadedBefore;
+    private volatile boolean complete;
+    private boolean disabled;
+
+    public VisitColumnStore(@Value("${statistics.column-store.enabled:false}") boolean enabled,
+                            @Value("${statistics.column-store.segment-size:65536}") int segmentSize,
+                            @Value("${statistics.column-store.max-events:1000000}") long maxEvents) {
+        this.enabled = enabled;
+        this.segmentSize = segmentSize;
+        this.maxEvents = maxEvents;
+        this.activeSegment = new VisitSegment.Builder(segmentSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 시작 시 적재를 시작한다. loadedBefore 이전에 만들어진 방문은 적재로만 추가되고, 이후 방문은 커밋 시점에 추가된다.
+     * 이미 적재되었거나 reset 된 저장소면 false 를 돌려준다.
+     */
+    public boolean beginLoad(LocalDateTime loadedBefore) {
+        lock.writeLock().lock();
+        try {
+            if(!enabled || loadState != LoadState.NOT_LOADED){
+                return false;
+            }
+            loadState = LoadState.LOADING;
+            this.loadedBefore = loadedBefore;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 적재 중인 방문 묶음을 추가한다. 적재가 reset 으로 취소되었으면 false 를 돌려준다.
+     */
+    public boolean appendLoaded(Collection<VisitColumnRow> rows) {
+        lock.writeLock().lock();
+        try {
+            if(loadState != LoadState.LOADING){
+                return false;
+            }
+            append(rows);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 커밋된 방문 묶음을 추가한다. 적재 전이거나 적재 대상 구간의 방문은 적재에서 읽히므로 건너뛴다.
+     */
+    public void appendCommitted(Collection<VisitColumnRow> rows) {
+        lock.writeLock().lock();
+        try {
+            if(loadState == LoadState.NOT_LOADED){
+                return;
+            }
+            if(loadedBefore == null){
+                append(rows);
+                return;
+            }
+            append(rows.stream()
+                    .filter(row -> !row.createdDate().isBefore(loadedBefore))
+                    .toList());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 시작 시 적재가 끝났음을 표시한다. 이후부터 조회가 저장소에서 처리된다.
+     */
+    public void markLoaded() {
+        lock.writeLock().lock();
+        try {
+            if(loadState == LoadState.LOADING){
+                loadState = LoadState.LOADED;
+                complete = !disabled;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(Collection<VisitColumnRow> rows) {
+        if(disabled){
+            return;
+        }
+        if(eventCount + rows.size() > maxEvents){
+            disable();
+            return;
+        }
+        for(VisitColumnRow row : rows){
+            int projectCode = encodeProject(row.projectId());
+            activeSegment.add(toEpochSecond(row.createdDate()),
+                    projectCode,
+                    row.productId() == null ? -1 : projectProducts.get(projectCode).encode(row.productId()),
+                    row.inflow() == null ? VisitSegment.NONE : (byte) row.inflow().ordinal(),
+                    row.device() == null ? VisitSegment.NONE : (byte) row.device().ordinal(),
+                    row.gender() == null ? VisitSegment.NONE : (byte) row.gender().ordinal(),
+                    row.birthYear() == null ? 0 : row.birthYear().shortValue(),
+                    (short) row.sampleWeight());
+            if(activeSegment.isFull()){
+                sealActiveSegment();
+            }
+        }
+        eventCount += rows.size();
+    }
+
+    /**
+     * 원본 방문 정보가 모두 지워졌을 때 저장소도 비운다. 비어 있는 상태 그대로 원본과 일치하므로, 켜져 있으면 완료 상태가 된다.
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            projectCodes.clear();
+            projectProducts.clear();
+            sealedSegments = List.of();
+            activeSegment = new VisitSegment.Builder(segmentSize);
+            eventCount = 0;
+            disabled = false;
+            loadState = LoadState.LOADED;
+            loadedBefore = null;
+            complete = enabled;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 원본 파티션이 삭제된 구간 [from, to) 의 방문을 뺀다.
+     */
+    public void removeBetween(LocalDateTime from, LocalDateTime to) {
+        long fromSecond = toEpochSecond(from);
+        long toSecond = toEpochSecond(to);
+        lock.writeLock().lock();
+        try {
+            List<VisitSegment> remaining = new ArrayList<>(sealedSegments.size());
+            long removed = 0;
+            for(VisitSegment segment : sealedSegments){
+                if(!segment.overlaps(fromSecond, toSecond)){
+                    remaining.add(segment);
+                    continue;
+                }
+                VisitSegment trimmed = segment.without(fromSecond, toSecond);
+                removed += segment.size - trimmed.size;
+                if(trimmed.size > 0){
+                    remaining.add(trimmed);
+                }
+            }
+            sealedSegments = List.copyOf(remaining);
+
+            int activeSize = activeSegment.size();
+            activeSegment.removeBetween(fromSecond, toSecond);
+            removed += activeSize - activeSegment.size();
+            eventCount -= removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 프로젝트의 유입 경로별 방문 수. 분류되지 않은 방문은 기타로 센다.
+     */
+    public Optional<Map<Inflow, Long>> countByInflow(long projectId) {
+        return scan(projectId, productIds -> new InflowCounts(), InflowCounts::add, InflowCounts::merge)
+                .map(InflowCounts::toMap);
+    }
+
+    /**
+     * 프로젝트의 상품별 연령대/성별 방문 수. 연령대는 (currentYear - 출생 연도 + 1) / 10 이다.
+     */
+    public Optional<Demographics> countDemographics(long projectId, int currentYear) {
+        return scan(projectId, productIds -> new DemographicCounts(currentYear, productIds), DemographicCounts::add, DemographicCounts::merge)
+                .map(DemographicCounts::toDemographics);
+    }
+
+    /**
+     * 프로젝트의 segment 를 병렬로 스캔한다. identity 는 프로젝트의 상품 번호별 상품 ID 를 받아 빈 집계를 만든다.
+     * 상품 ID 는 segment 와 같은 잠금 안에서 복사하므로, 스캔하는 segment 의 상품 번호는 모두 그 안에 있다.
+     */
+    private <A> Optional<A> scan(long projectId, Function<long[], A> identity, SegmentScanner<A> scanner, BinaryOperator<A> combiner) {
+        if(!complete){
+            return Optional.empty();
+        }
+        List<VisitSegment> segments;
+        int projectCode;
+        long[] productIds;
+        lock.readLock().lock();
+        try {
+            if(!complete){
+                return Optional.empty();
+            }
+            Integer code = projectCodes.get(projectId);
+            if(code == null){
+                return Optional.of(identity.apply(new long[0]));
+            }
+            projectCode = code;
+            productIds = projectProducts.get(projectCode).ids();
+            segments = new ArrayList<>(sealedSegments.size() + 1);
+            segments.addAll(sealedSegments);
+            segments.add(activeSegment.snapshot());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        A result = segments.parallelStream()
+                .filter(segment -> segment.mayContainProject(projectCode))
+                .map(segment -> {
+                    A partial = identity.apply(productIds);
+                    scanner.scan(partial, segment, projectCode);
+                    return partial;
+                })
+                .reduce(combiner)
+                .orElseGet(() -> identity.apply(productIds));
+        return Optional.of(result);
+    }
+
+    private int encodeProject(long projectId) {
+        Integer code = projectCodes.get(projectId);
+        if(code == null){
+            code = projectCodes.size();
+            projectCodes.put(projectId, code);
+            projectProducts.add(new ProjectProducts());
+        }
+        return code;
+    }
+
+    private void sealActiveSegment() {
+        List<VisitSegment> segments = new ArrayList<>(sealedSegments.size() + 1);
+        segments.addAll(sealedSegments);
+        segments.add(activeSegment.seal());
+        sealedSegments = List.copyOf(segments);
+        activeSegment = new VisitSegment.Builder(segmentSize);
+    }
+
+    private void disable() {
+        log.warn("방문 정보가 컬럼 저장소 최대 크기({})를 넘어 저장소를 비우고 DB 조회를 사용합니다.", maxEvents);
+        projectCodes.clear();
+        projectProducts.clear();
+        sealedSegments = List.of();
+        activeSegment = new VisitSegment.Builder(segmentSize);
+        eventCount = 0;
+        disabled = true;
+        complete = false;
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private enum LoadState {
+        NOT_LOADED, LOADING, LOADED
+    }
+
+    public record Demographics(Map<Long, Map<Integer, Long>> ageBandCounts,
+                               Map<Long, Map<Gender, Long>> genderCounts) {
+    }
+
+    private static final class ProjectProducts {
+
+        private final Map<Long, Integer> codes = new HashMap<>();
+        private long[] ids = new long[16];
+
+        int encode(long productId) {
+            Integer code = codes.get(productId);
+            if(code == null){
+                code = codes.size();
+                if(code == ids.length){
+                    ids = Arrays.copyOf(ids, code * 2);
+                }
+                ids[code] = productId;
+                codes.put(productId, code);
+            }
+            return code;
+        }
+
+        long[] ids() {
+            return Arrays.copyOf(ids, codes.size());
+        }
+    }
+
+    @FunctionalInterface
+    private interface SegmentScanner<A> {
+        void scan(A accumulator, VisitSegment segment, int projectCode);
+    }
+
+    private static final class InflowCounts {
+
+        private final long[] counts = new long[Inflow.values().length];
+
+        void add(VisitSegment segment, int projectCode) {
+            int[] projects = segment.projectCodes;
+            byte[] inflows = segment.inflows;
+            short[] weights = segment.weights;
+            int etc = Inflow.ETC.ordinal();
+            for(int i = 0; i < segment.size; i++){
+                if(projects[i] == projectCode){
+                    counts[inflows[i] < 0 ? etc : inflows[i]] += weights[i];
+                }
+            }
+        }
+
+        InflowCounts merge(InflowCounts other) {
+            for(int i = 0; i < counts.length; i++){
+                counts[i] += other.counts[i];
+            }
+            return this;
+        }
+
+        Map<Inflow, Long> toMap() {
+            Map<Inflow, Long> result = new EnumMap<>(Inflow.class);
+            for(Inflow inflow : Inflow.values()){
+                result.put(inflow, counts[inflow.ordinal()]);
+            }
+            return result;
+        }
+    }
+
+    // 상품 번호 p 의 연령대 b 는 ageBands[p * AGE_BANDS + b], 성별 g 는 genders[p * GENDERS + g] 에 센다.
+    private static final class DemographicCounts {
+
+        private final int currentYear;
+        private final long[] productIds;
+        private final long[] ageBands;
+        private final long[] genders;
+
+        DemographicCounts(int currentYear, long[] productIds) {
+            this.currentYear = currentYear;
+            this.productIds = productIds;
+            this.ageBands = new long[productIds.length * AGE_BANDS];
+            this.genders = new long[productIds.length * GENDERS];
+        }
+
+        void add(VisitSegment segment, int projectCode) {
+            int[] projects = segment.projectCodes;
+            int[] products = segment.productCodes;
+            byte[] genderColumn = segment.genders;
+            short[] birthYears = segment.birthYears;
+            short[] weights = segment.weights;
+            for(int i = 0; i < segment.size; i++){
+                if(projects[i] != projectCode || products[i] < 0){
+                    continue;
+                }
+                if(birthYears[i] != 0){
+                    int band = Math.min(Math.max((currentYear - birthYears[i] + 1) / 10, 0), AGE_BANDS - 1);
+                    ageBands[products[i] * AGE_BANDS + band] += weights[i];
+                }
+                if(genderColumn[i] >= 0){
+                    genders[products[i] * GENDERS + genderColumn[i]] += weights[i];
+                }
+            }
+        }
+
+        DemographicCounts merge(DemographicCounts other) {
+            for(int i = 0; i < ageBands.length; i++){
+                ageBands[i] += other.ageBands[i];
+            }
+            for(int i = 0; i < genders.length; i++){
+                genders[i] += other.genders[i];
+            }
+            return this;
+        }
+
+        Demographics toDemographics() {
+            Map<Long, Map<Integer, Long>> ageBandCounts = new HashMap<>();
+            Map<Long, Map<Gender, Long>> genderCounts = new HashMap<>();
+            Gender[] genderValues = Gender.values();
+            for(int product = 0; product < productIds.length; product++){
+                for(int band = 0; band < AGE_BANDS; band++){
+                    long count = ageBands[product * AGE_BANDS + band];
+                    if(count > 0){
+                        ageBandCounts.computeIfAbsent(productIds[product], productId -> new HashMap<>()).put(band, count);
+                    }
+                }
+                for(int gender = 0; gender < GENDERS; gender++){
+                    long count = genders[product * GENDERS + gender];
+                    if(count > 0){
+                        genderCounts.computeIfAbsent(productIds[product], productId -> new HashMap<>()).put(genderValues[gender], count);
+                    }
+                }
+            }
+            return new Demographics(ageBandCounts, genderCounts);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.developlife.reviewtwits.repository.statistics.columnar;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * 방문 정보를 컬럼별 primitive 배열로 담은 segment.
+ * 상품/프로젝트는 VisitColumnStore 의 사전 코드(int), 유입 경로/디바이스/성별은 enum ordinal(byte, 없으면 -1),
+ * 출생 연도는 short(없으면 0), 표본 가중치는 short 로 저장한다.
+ * 봉인(seal)된 segment 는 방문 시각 순으로 정렬되어 있고, 시각/프로젝트 코드의 min/max(zone map)로 스캔 대상을 거른다.
+ */
+final class VisitSegment {
+
+    static final byte NONE = -1;
+
+    final int size;
+    final long[] createdAt;
+    final int[] projectCodes;
+    final int[] productCodes;
+    final byte[] inflows;
+    final byte[] devices;
+    final byte[] genders;
+    final short[] birthYears;
+    final short[] weights;
+
+    final long minCreatedAt;
+    final long maxCreatedAt;
+    final int minProjectCode;
+    final int maxProjectCode;
+
+    private VisitSegment(int size, long[] createdAt, int[] projectCodes, int[] productCodes,
+                         byte[] inflows, byte[] devices, byte[] genders, short[] birthYears, short[] weights) {
+        this.size = size;
+        this.createdAt = createdAt;
+        this.projectCodes = projectCodes;
+        this.productCodes = productCodes;
+        this.inflows = inflows;
+        this.devices = devices;
+        this.genders = genders;
+        this.birthYears = birthYears;
+        this.weights = weights;
+
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int minProject = Integer.MAX_VALUE;
+        int maxProject = Integer.MIN_VALUE;
+        for(int i = 0; i < size; i++){
+            minTime = Math.min(minTime, createdAt[i]);
+            maxTime = Math.max(maxTime, createdAt[i]);
+            minProject = Math.min(minProject, projectCodes[i]);
+            maxProject = Math.max(maxProject, projectCodes[i]);
+        }
+        this.minCreatedAt = minTime;
+        this.maxCreatedAt = maxTime;
+        this.minProjectCode = minProject;
+        this.maxProjectCode = maxProject;
+    }
+
+    boolean mayContainProject(int projectCode) {
+        return size > 0 && minProjectCode <= projectCode && projectCode <= maxProjectCode;
+    }
+
+    boolean overlaps(long from, long to) {
+        return size > 0 && minCreatedAt < to && maxCreatedAt >= from;
+    }
+
+    /**
+     * [from, to) 구간의 방문을 뺀 segment 를 만든다.
+     */
+    VisitSegment without(long from, long to) {
+        int[] kept = IntStream.range(0, size)
+                .filter(i -> createdAt[i] < from || createdAt[i] >= to)
+                .toArray();
+        return select(kept);
+    }
+
+    private VisitSegment select(int[] rows) {
+        long[] newCreatedAt = new long[rows.length];
+        int[] newProjectCodes = new int[rows.length];
+        int[] newProductCodes = new int[rows.length];
+        byte[] newInflows = new byte[rows.length];
+        byte[] newDevices = new byte[rows.length];
+        byte[] newGenders = new byte[rows.length];
+        short[] newBirthYears = new short[rows.length];
+        short[] newWeights = new short[rows.length];
+        for(int i = 0; i < rows.length; i++){
+            int row = rows[i];
+            newCreatedAt[i] = createdAt[row];
+            newProjectCodes[i] = projectCodes[row];
+            newProductCodes[i] = productCodes[row];
+            newInflows[i] = inflows[row];
+            newDevices[i] = devices[row];
+            newGenders[i] = genders[row];
+            newBirthYears[i] = birthYears[row];
+            newWeights[i] = weights[row];
+        }
+        return new VisitSegment(rows.length, newCreatedAt, newProjectCodes, newProductCodes,
+                newInflows, newDevices, newGenders, newBirthYears, newWeights);
+    }
+
+    /**
+     * 아직 봉인되지 않은 segment. 용량이 차면 방문 시각 순으로 정렬해 VisitSegment 로 봉인한다.
+     */
+    static final class Builder {
+
+        private int size;
+        private long[] createdAt;
+        private int[] projectCodes;
+        private int[] productCodes;
+        private byte[] inflows;
+        private byte[] devices;
+        private byte[] genders;
+        private short[] birthYears;
+        private short[] weights;
+
+        Builder(int capacity) {
+            createdAt = new long[capacity];
+            projectCodes = new int[capacity];
+            productCodes = new int[capacity];
+            inflows = new byte[capacity];
+            devices = new byte[capacity];
+            genders = new byte[capacity];
+            birthYears = new short[capacity];
+            weights = new short[capacity];
+        }
+
+        boolean isFull() {
+            return size == createdAt.length;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(long time, int projectCode, int productCode, byte inflow, byte device, byte gender, short birthYear, short weight) {
+            createdAt[size] = time;
+            projectCodes[size] = projectCode;
+            productCodes[size] = productCode;
+            inflows[size] = inflow;
+            devices[size] = device;
+            genders[size] = gender;
+            birthYears[size] = birthYear;
+            weights[size] = weight;
+            size++;
+        }
+
+        void removeBetween(long from, long to) {
+            int kept = 0;
+            for(int i = 0; i < size; i++){
+                if(createdAt[i] >= from && createdAt[i] < to){
+                    continue;
+                }
+                createdAt[kept] = createdAt[i];
+                projectCodes[kept] = projectCodes[i];
+                productCodes[kept] = productCodes[i];
+                inflows[kept] = inflows[i];
+                devices[kept] = devices[i];
+                genders[kept] = genders[i];
+                birthYears[kept] = birthYears[i];
+                weights[kept] = weights[i];
+                kept++;
+            }
+            size = kept;
+        }
+
+        /**
+         * 조회용으로 현재까지 쌓인 방문을 정렬하지 않고 복사한다.
+         */
+        VisitSegment snapshot() {
+            return new VisitSegment(size, Arrays.copyOf(createdAt, size), Arrays.copyOf(projectCodes, size),
+                    Arrays.copyOf(productCodes, size), Arrays.copyOf(inflows, size), Arrays.copyOf(devices, size),
+                    Arrays.copyOf(genders, size), Arrays.copyOf(birthYears, size), Arrays.copyOf(weights, size));
+        }
+
+        /**
+         * 현재까지 쌓인 방문을 방문 시각 순으로 정렬된 segment 로 만든다.
+         */
+        VisitSegment seal() {
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparingLong(i -> createdAt[i]));
+            int[] rows = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+            return new VisitSegment(size, createdAt, projectCodes, productCodes, inflows, devices, genders, birthYears, weights).select(rows);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.developlife.reviewtwits.service;
+
+import com.developlife.reviewtwits.utils.file.BlobPathUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 더 이상 쓰지 않는 blob 파일을 지운다.
+ * 참조 수가 0 이 된 blob, 파일 정보가 기록되지 않은(쓰기 도중 실패하거나 롤백된) blob 과 그 이미지 변형,
+ * 지워진 blob 이전 방식 파일의 이미지 변형, 서버가 멈춰 요청이 지우지 못한 임시 파일이 대상이다.
+ * blob 은 file_blob 행을 for update 로 잠근 채 참조 수가 0 인지 확인하고 지우므로, 같은 내용을 올리는 요청과 겹치지 않는다.
+ * 기록되지 않은 blob 은 참조 수 0 인 행을 먼저 만들어 같은 방식으로 지운다.
+ */
+@Slf4j
+@Service
+public class FileBlobCollector {
+
+    private static final String FIND_RELEASED_BLOB_SQL =
+            "select hash from file_blob where reference_count <= 0 and released_date < ?";
+    private static final String LOCK_RELEASED_BLOB_SQL =
+            "select blob_path from file_blob where hash = ? and reference_count <= 0 and released_date < ? for update";
+    private static final String DELETE_BLOB_SQL =
+            "delete from file_blob where hash = ?";
+    private static final String INSERT_UNRECORDED_BLOB_SQL =
+            "insert into file_blob (hash, blob_path, byte_size, reference_count, created_date, released_date) values (?, ?, ?, 0, ?, ?)";
+    private static final int HASH_LOOKUP_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path blobDir;
+    private final Path variantDir;
+    private final Path tempDir;
+    private final Duration gracePeriod;
+
+    public FileBlobCollector(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             @Value("${file.dir}") String fileDir,
+                             @Value("${file.blob.grace-hours:24}") long graceHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.blobDir = BlobPathUtils.getBlobDir(fileDir);
+        this.variantDir = BlobPathUtils.getVariantDir(fileDir);
+        this.tempDir = BlobPathUtils.getTempDir(fileDir);
+        this.gracePeriod = Duration.ofHours(graceHours);
+    }
+
+    @Scheduled(cron = "${file.blob.gc-cron:0 40 4 * * *}")
+    public void collect() {
+        int deletedFiles = collect(LocalDateTime.now().minus(gracePeriod));
+        log.info("쓰지 않는 blob 파일 {}개를 지웠습니다.", deletedFiles);
+    }
+
+    /**
+     * cutoff 이전부터 쓰지 않은 파일을 지우고, 지운 파일 수를 반환한다.
+     */
+    public int collect(LocalDateTime cutoff) {
+        recordUnrecordedBlobs(cutoff);
+        int deletedFiles = 0;
+        for(String hash : jdbcTemplate.queryForList(FIND_RELEASED_BLOB_SQL, String.class, Timestamp.valueOf(cutoff))){
+            deletedFiles += deleteReleasedBlob(hash, cutoff) ? 1 : 0;
+        }
+        deletedFiles += deleteUnrecordedVariants(cutoff);
+        deletedFiles += deleteReleasedLegacyVariants(cutoff);
+        for(Path tempFile : listFilesUnmodifiedSince(tempDir, cutoff)){
+            deletedFiles += deleteIfUnmodifiedSince(tempFile, cutoff) ? 1 : 0;
+        }
+        return deletedFiles;
+    }
+
+    // 행을 잠근 트랜잭션 안에서 파일을 지운다. 그동안 같은 blob 을 참조하려는 업로드는 기다렸다가 행이 없으면 blob 을 다시 쓴다.
+    private boolean deleteReleasedBlob(String hash, LocalDateTime cutoff) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<String> blobPaths = jdbcTemplate.queryForList(LOCK_RELEASED_BLOB_SQL, String.class, hash, Timestamp.valueOf(cutoff));
+            if(blobPaths.isEmpty()){
+                return false;
+            }
+            boolean deleted;
+            try {
+                deleted = Files.deleteIfExists(Path.of(blobPaths.get(0)));
+            } catch (IOException e) {
+                log.warn("blob 파일을 지우지 못했습니다. path={}", blobPaths.get(0), e);
+                return false;
+            }
+            jdbcTemplate.update(DELETE_BLOB_SQL, hash);
+            return deleted;
+        }));
+    }
+
+    // 기록되지 않은 원본 blob 은 수정 시각을 참조가 없어진 시각으로 하는 행을 만들어, 참조 수가 0 인 blob 과 같이 잠근 뒤 지운다.
+    private void recordUnrecordedBlobs(LocalDateTime cutoff) {
+        List<Path> candidates = listFilesUnmodifiedSince(blobDir, cutoff).stream()
+                .filter(blob -> !isVariant(blob))
+                .toList();
+        forEachUnrecorded(candidates, blob -> {
+            try {
+                Timestamp lastModified = new Timestamp(Files.getLastModifiedTime(blob).toMillis());
+                jdbcTemplate.update(INSERT_UNRECORDED_BLOB_SQL, extractHash(blob), blob.toString(), Files.size(blob),
+                        Timestamp.valueOf(LocalDateTime.now()), lastModified);
+            } catch (DuplicateKeyException e) {
+                // 그 사이 같은 내용을 올린 요청이 행을 만들었다.
+            } catch (IOException e) {
+                log.warn("blob 파일 정보를 읽지 못했습니다. path={}", blob, e);
+            }
+        });
+    }
+
+    // 이미지 변형({hash}.w{너비}.{형식})은 원본 blob 이 기록되어 있는 동안만 남긴다.
+    private int deleteUnrecordedVariants(LocalDateTime cutoff) {
+        List<Path> candidates = listFilesUnmodifiedSince(blobDir, cutoff).stream()
+                .filter(this::isVariant)
+                .toList();
+        int[] deletedFiles = {0};
+        forEachUnrecorded(candidates, variant -> deletedFiles[0] += deleteIfUnmodifiedSince(variant, cutoff) ? 1 : 0);
+        return deletedFiles[0];
+    }
+
+    // blob 이전 방식 파일의 변형({realFilename}.w{너비}.{형식})은 그 파일이 지워지지 않은 동안만 남긴다.
+    private int deleteReleasedLegacyVariants(LocalDateTime cutoff) {
+        List<Path> candidates = listFilesUnmodifiedSince(variantDir, cutoff);
+        int deletedFiles = 0;
+        for(int from = 0; from < candidates.size(); from += HASH_LOOKUP_CHUNK_SIZE){
+            List<Path> chunk = candidates.subList(from, Math.min(from + HASH_LOOKUP_CHUNK_SIZE, candidates.size()));
+            Set<String> existingFilenames = findExistingFilenames(chunk.stream().map(this::extractRealFilename).distinct().toList());
+            for(Path variant : chunk){
+                if(!existingFilenames.contains(extractRealFilename(variant))){
+                    deletedFiles += deleteIfUnmodifiedSince(variant, cutoff) ? 1 : 0;
+                }
+            }
+        }
+        return deletedFiles;
+    }
+
+    private void forEachUnrecorded(List<Path> candidates, Consumer<Path> action) {
+        for(int from = 0; from < candidates.size(); from += HASH_LOOKUP_CHUNK_SIZE){
+            List<Path> chunk = candidates.subList(from, Math.min(from + HASH_LOOKUP_CHUNK_SIZE, candidates.size()));
+            Set<String> recordedHashes = findRecordedHashes(chunk.stream().map(this::extractHash).distinct().toList());
+            chunk.stream()
+                    .filter(blob -> !recordedHashes.contains(extractHash(blob)))
+                    .forEach(action);
+        }
+    }
+
+    private boolean isVariant(Path blob) {
+        return blob.getFileName().toString().indexOf('.') >= 0;
+    }
+
+    private String extractHash(Path blob) {
+        String fileName = blob.getFileName().toString();
+        int position = fileName.indexOf('.');
+        return position < 0 ? fileName : fileName.substring(0, position);
+    }
+
+    // realFilename 은 {uuid}.{확장자} 이므로 두 번째 . 앞까지이다.
+    private String extractRealFilename(Path variant) {
+        String fileName = variant.getFileName().toString();
+        int position = fileName.indexOf('.', fileName.indexOf('.') + 1);
+        return position < 0 ? fileName : fileName.substring(0, position);
+    }
+
+    private Set<String> findExistingFilenames(List<String> realFilenames) {
+        String placeholders = realFilenames.stream().map(realFilename -> "?").collect(Collectors.joining(", "));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "select real_filename from file_storage where exist = true and real_filename in (" + placeholders + ")",
+                String.class, realFilenames.toArray()));
+    }
+
+    private Set<String> findRecordedHashes(List<String> hashes) {
+        String placeholders = hashes.stream().map(hash -> "?").collect(Collectors.joining(", "));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "select hash from file_blob where hash in (" + placeholders + ")", String.class, hashes.toArray()));
+    }
+
+    private List<Path> listFilesUnmodifiedSince(Path dir, LocalDateTime cutoff) {
+        if(!Files.isDirectory(dir)){
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> isUnmodifiedSince(file, cutoff))
+                    .toList();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("blob 디렉터리를 읽지 못했습니다. dir={}", dir, e);
+            return List.of();
+        }
+    }
+
+    // 그 사이에 다시 쓰인 이미지 변형과 임시 파일은 지우지 않는다.
+    private boolean deleteIfUnmodifiedSince(Path file, LocalDateTime cutoff) {
+        if(!isUnmodifiedSince(file, cutoff)){
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("blob 파일을 지우지 못했습니다. path={}", file, e);
+            return false;
+        }
+    }
+
+    private boolean isUnmodifiedSince(Path file, LocalDateTime cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -7,92 +7,360 @@ import com.developlife.reviewtwits.exception.file.FileNotStoredException;
 import com.developlife.reviewtwits.exception.file.InvalidFilenameExtensionException;
 import com.developlife.reviewtwits.repository.file.FileInfoRepository;
 import com.developlife.reviewtwits.repository.file.FileManagerRepository;
+import com.developlife.reviewtwits.repository.file.FileMetadataIndex;
+import com.developlife.reviewtwits.repository.file.FileMetadataIndex.FileMetadata;
+import com.developlife.reviewtwits.repository.review.ReviewRepository;
 import com.developlife.reviewtwits.type.MadeMultipartFile;
 import com.developlife.reviewtwits.type.ReferenceType;
-import lombok.RequiredArgsConstructor;
+import com.developlife.reviewtwits.type.StagedFile;
+import com.developlife.reviewtwits.utils.file.BlobPathUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
-
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * 업로드 파일은 트랜잭션 밖에서 fileIoExecutor 로 동시에 임시 파일에 쓰고(fsync 까지), 모두 써진 뒤에
+ * 트랜잭션을 열어 파일 정보를 JDBC batch 로 기록한다.
+ * 디스크에는 내용(SHA-256)마다 blob 하나만 두고, FileInfo 는 realFilename(UUID) 과 blob 경로(filePath)를 함께 가진다.
+ * blob 파일은 file_blob 행을 잠근 뒤에만 확인하고 옮기며, FileBlobCollector 도 같은 행을 잠근 채로 지우므로 서로 겹치지 않는다.
+ * 임시 파일은 요청마다 따로 쓰므로 요청이 끝나면 바로 지우고,
+ * 참조가 없어진 blob 과 롤백으로 기록되지 않은 blob 은 FileBlobCollector 가 지운다.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FileStoreService {
 
-    @Value("${file.dir}")
-    private String fileDir;
-
+    private static final String INSERT_FILE_INFO_SQL =
+            "insert into file_storage (file_path, real_filename, original_filename, blob_hash, exist) values (?, ?, ?, ?, true)";
+    private static final String INSERT_FILE_MANAGER_SQL =
+            "insert into file_manager (file_storage_id, reference_id, reference_type) values (?, ?, ?)";
+    private static final String ADD_BLOB_REFERENCE_SQL =
+            "update file_blob set reference_count = reference_count + ?, released_date = null where hash = ?";
+    private static final String INSERT_FILE_BLOB_SQL =
+            "insert into file_blob (hash, blob_path, byte_size, reference_count, created_date) values (?, ?, ?, ?, ?)";
+    // released_date 를 먼저 계산해야 MariaDB 에서도 감소하기 전의 reference_count 로 비교한다.
+    private static final String RELEASE_BLOB_REFERENCE_SQL =
+            "update file_blob set released_date = case when reference_count <= ? then ? else released_date end, " +
+            "reference_count = reference_count - ? where hash = ?";
+
+    private final String fileDir;
     private final FileInfoRepository fileInfoRepository;
     private final FileManagerRepository fileManagerRepository;
+    private final ReviewRepository reviewRepository;
     private final AwsS3Service awsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor fileIoExecutor;
+    private final FileMetadataIndex fileMetadataIndex;
+
+    public FileStoreService(@Value("${file.dir}") String fileDir, FileInfoRepository fileInfoRepository,
+                            FileManagerRepository fileManagerRepository, ReviewRepository reviewRepository,
+                            AwsS3Service awsService, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            @Qualifier("fileIoExecutor") ThreadPoolTaskExecutor fileIoExecutor,
+                            FileMetadataIndex fileMetadataIndex) {
+        this.fileDir = fileDir;
+        this.fileInfoRepository = fileInfoRepository;
+        this.fileManagerRepository = fileManagerRepository;
+        this.reviewRepository = reviewRepository;
+        this.awsService = awsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.fileIoExecutor = fileIoExecutor;
+        this.fileMetadataIndex = fileMetadataIndex;
+    }
 
-    @Transactional
-    public FileInfo storeFile(MultipartFile multipartFile) {
-        if(multipartFile.isEmpty()){
+    public FileInfo storeFile(MultipartFile multipartFile, Long referenceId, ReferenceType referenceType){
+
+        if(multipartFile == null || multipartFile.isEmpty()){
             return null;
         }
+        return storeFiles(List.of(multipartFile), referenceId, referenceType).get(0);
+    }
+
+    public List<FileInfo> storeFiles(List<MultipartFile> multipartFiles, Long referenceID, ReferenceType referenceType) {
+        List<StagedFile> stagedFiles = writeFiles(multipartFiles, referenceType);
+        return saveFiles(stagedFiles, referenceID, referenceType);
+    }
 
-        String originalFilename = multipartFile.getOriginalFilename();
-        String storeFilename = createStoreFileName(originalFilename);
-        try{
-            //log.info("s3에 개별 파일 저장 시도");
-            multipartFile.transferTo(new File(getFullPath(storeFilename)));
-            //awsService.uploadToAWS(multipartFile, storeFilename);
-        }catch(IOException e){
-            e.printStackTrace();
-            throw new FileNotStoredException("IOException 이 발생했습니다. 알려주세요");
+    /**
+     * 비어 있지 않은 파일을 fileIoExecutor 에서 동시에 쓰고, 모두 디스크에 반영될 때까지 기다린다.
+     * 하나라도 쓰지 못하면 먼저 써진 임시 파일을 지우고 FileNotStoredException 을 던진다.
+     * 써 둔 파일을 saveFiles 로 기록하지 못하고 끝나는 쪽은 deleteTempFiles 로 임시 파일을 지워야 한다.
+     */
+    public List<StagedFile> writeFiles(List<MultipartFile> multipartFiles, ReferenceType referenceType) {
+        if(multipartFiles == null || multipartFiles.isEmpty()){
+            return List.of();
         }
-        FileInfo file = FileInfo.builder().filePath(getFullPath(storeFilename)).realFilename(storeFilename)
-                        .originalFilename(originalFilename).build();
-        fileInfoRepository.save(file);
-        return file;
+        if(multipartFiles.get(0).isEmpty()){
+            throw new FileEmptyException("파일 내역이 비워져 있습니다.");
+        }
+        checkFolderAndValidFiles(multipartFiles, referenceType);
+
+        List<Future<StagedFile>> writes = new ArrayList<>();
+        for(MultipartFile multipartFile : multipartFiles){
+            if(multipartFile != null && !multipartFile.isEmpty()){
+                String originalFilename = multipartFile.getOriginalFilename();
+                String storeFilename = createStoreFileName(originalFilename);
+                writes.add(fileIoExecutor.submit(() -> writeBlob(multipartFile, originalFilename, storeFilename)));
+            }
+        }
+        return awaitWrites(writes);
     }
 
-    @Transactional
-    public FileInfo storeFile(MultipartFile multipartFile, Long referenceId, ReferenceType referenceType){
+    /**
+     * 써 둔 파일의 정보를 한 트랜잭션에서 batch 로 기록하고 blob 의 참조 수를 올린다. 진행 중인 트랜잭션이 있으면 참여한다.
+     */
+    public List<FileInfo> saveFiles(List<StagedFile> stagedFiles, Long referenceId, ReferenceType referenceType) {
+        if(stagedFiles.isEmpty()){
+            return List.of();
+        }
+        try {
+            return insertFiles(stagedFiles, referenceId, referenceType);
+        } finally {
+            deleteTempFiles(stagedFiles);
+        }
+    }
 
-        if(multipartFile == null){
-            return null;
+    private List<FileInfo> insertFiles(List<StagedFile> stagedFiles, Long referenceId, ReferenceType referenceType) {
+        return transactionTemplate.execute(status -> {
+            List<FileInfo> fileInfoList = insertFileInfos(stagedFiles);
+            jdbcTemplate.batchUpdate(INSERT_FILE_MANAGER_SQL, fileInfoList, fileInfoList.size(), (ps, fileInfo) -> {
+                ps.setLong(1, fileInfo.getFileID());
+                if(referenceId == null){
+                    ps.setNull(2, Types.BIGINT);
+                }else{
+                    ps.setLong(2, referenceId);
+                }
+                ps.setString(3, referenceType.name());
+            });
+            addBlobReferences(stagedFiles);
+            moveToBlobs(stagedFiles);
+            addReviewImageManifest(fileInfoList, referenceId, referenceType);
+            indexAfterCommit(fileInfoList, stagedFiles);
+            return fileInfoList;
+        });
+    }
+
+    private void indexAfterCommit(List<FileInfo> fileInfoList, List<StagedFile> stagedFiles) {
+        long storedAt = System.currentTimeMillis();
+        runAfterCommit(() -> {
+            for(int i = 0; i < fileInfoList.size(); i++){
+                fileMetadataIndex.put(fileInfoList.get(i), stagedFiles.get(i).byteSize(), storedAt);
+            }
+        });
+    }
+
+    /**
+     * 업로드를 임시 파일로 쓰면서 SHA-256 을 계산한다. 같은 내용의 blob 이 아직 없으면 임시 파일을 디스크에 반영해 둔다.
+     * blob 으로 옮기는 일은 file_blob 행을 잠근 뒤 moveToBlobs 에서 한다.
+     */
+    private StagedFile writeBlob(MultipartFile multipartFile, String originalFilename, String storeFilename)
+            throws IOException, NoSuchAlgorithmException {
+        Path tempPath = BlobPathUtils.getTempDir(fileDir).resolve(storeFilename);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try {
+            long byteSize;
+            try (InputStream inputStream = new DigestInputStream(multipartFile.getInputStream(), digest)) {
+                byteSize = Files.copy(inputStream, tempPath);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path blobPath = getBlobPath(hash);
+
+            // rename 만으로는 OS 버퍼에만 남을 수 있으므로, 트랜잭션을 열기 전에 디스크에 반영해 둔다.
+            // 같은 내용의 blob 이 이미 있으면 대개 옮기지 않고 지우므로 force 하지 않는다.
+            boolean durable = !Files.exists(blobPath);
+            if(durable){
+                force(tempPath);
+            }
+            return new StagedFile(originalFilename, storeFilename, blobPath.toString(), hash, byteSize, tempPath.toString(), durable);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
         }
-        checkFolderAndValidFiles(List.of(multipartFile),referenceType);
+    }
 
-        FileInfo fileInfo = storeFile(multipartFile);
-        fileManagerRepository.save(new FileManager(fileInfo,referenceId,referenceType));
-        return fileInfo;
+    /**
+     * addBlobReferences 로 file_blob 행을 잠근 뒤에 blob 이 있는지 확인하고, 없으면 임시 파일을 blob 으로 옮긴다.
+     * 잠근 행은 FileBlobCollector 가 지울 수 없으므로, 여기서 확인한 blob 은 커밋할 때까지 남아 있다.
+     * 임시 파일은 writeBlob 에서 이미 디스크에 반영했으므로, 잠금 안에서는 rename 과 디렉터리 fsync 만 한다.
+     */
+    private void moveToBlobs(List<StagedFile> stagedFiles) {
+        for(StagedFile stagedFile : stagedFiles){
+            Path blobPath = Path.of(stagedFile.filePath());
+            if(Files.exists(blobPath)){
+                continue;
+            }
+            try {
+                Path tempPath = Path.of(stagedFile.tempPath());
+                // 쓸 때 있던 blob 이 그 사이 지워진 드문 경우에만 여기서 force 한다.
+                if(!stagedFile.durable()){
+                    force(tempPath);
+                }
+                Path blobDir = blobPath.getParent();
+                boolean newBlobDir = !Files.isDirectory(blobDir);
+                Files.createDirectories(blobDir);
+                Files.move(tempPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+                // rename 은 디렉터리 항목을 바꾸므로, 디렉터리도 디스크에 반영해야 서버가 꺼진 뒤에도 blob 이 남는다.
+                forceDirectory(blobDir);
+                if(newBlobDir){
+                    forceDirectory(blobDir.getParent());
+                }
+            } catch (IOException e) {
+                log.error("임시 파일을 blob 으로 옮기지 못했습니다. path={}", blobPath, e);
+                throw new FileNotStoredException("파일을 저장하지 못했습니다. 잠시 후 다시 시도해주세요.");
+            }
+        }
     }
 
-    @Transactional
-    public List<FileInfo> storeFiles(List<MultipartFile> multipartFiles, Long referenceID, ReferenceType referenceType) {
-        if(multipartFiles.get(0).isEmpty()){
-            throw new FileEmptyException("파일 내역이 비워져 있습니다.");
+    private void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
         }
+    }
 
-        checkFolderAndValidFiles(multipartFiles, referenceType);
+    private void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
 
-        List<FileInfo> storeFileResult = new ArrayList<>();
-        List<FileManager> fileManagerList = new ArrayList<>();
+    // blob 으로 옮기지 않은 임시 파일은 지운다. 지우지 못한 파일은 FileBlobCollector 가 유예 기간 뒤에 지운다.
+    public void deleteTempFiles(List<StagedFile> stagedFiles) {
+        for(StagedFile stagedFile : stagedFiles){
+            try {
+                Files.deleteIfExists(Path.of(stagedFile.tempPath()));
+            } catch (IOException e) {
+                log.warn("임시 파일을 지우지 못했습니다. path={}", stagedFile.tempPath(), e);
+            }
+        }
+    }
 
-        for (MultipartFile multipartFile : multipartFiles) {
-            if(multipartFile != null && !multipartFile.isEmpty()){
-                FileInfo fileInfo = storeFile(multipartFile);
-                storeFileResult.add(fileInfo);
-                fileManagerList.add(new FileManager(fileInfo,referenceID,referenceType));
+    private List<StagedFile> awaitWrites(List<Future<StagedFile>> writes) {
+        List<StagedFile> stagedFiles = new ArrayList<>(writes.size());
+        Throwable failure = null;
+        for(Future<StagedFile> write : writes){
+            try {
+                stagedFiles.add(write.get());
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+                writes.forEach(remaining -> remaining.cancel(true));
+                break;
             }
         }
-        fileManagerRepository.saveAll(fileManagerList);
+        if(failure != null){
+            log.error("업로드 파일을 쓰지 못했습니다.", failure);
+            deleteTempFiles(stagedFiles);
+            throw new FileNotStoredException("파일을 저장하지 못했습니다. 잠시 후 다시 시도해주세요.");
+        }
+        return stagedFiles;
+    }
+
+    // MariaDB, H2 모두 executeBatch 뒤에 batch 의 모든 행의 생성된 id 를 순서대로 반환한다.
+    private List<FileInfo> insertFileInfos(List<StagedFile> stagedFiles) {
+        return jdbcTemplate.execute((ConnectionCallback<List<FileInfo>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_FILE_INFO_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for(StagedFile stagedFile : stagedFiles){
+                    ps.setString(1, stagedFile.filePath());
+                    ps.setString(2, stagedFile.realFilename());
+                    ps.setString(3, stagedFile.originalFilename());
+                    ps.setString(4, stagedFile.blobHash());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<FileInfo> fileInfoList = new ArrayList<>(stagedFiles.size());
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    for(StagedFile stagedFile : stagedFiles){
+                        if(!generatedKeys.next()){
+                            throw new FileNotStoredException("저장한 파일 정보의 id 를 받지 못했습니다.");
+                        }
+                        fileInfoList.add(FileInfo.builder()
+                                .fileID(generatedKeys.getLong(1))
+                                .filePath(stagedFile.filePath())
+                                .realFilename(stagedFile.realFilename())
+                                .originalFilename(stagedFile.originalFilename())
+                                .blobHash(stagedFile.blobHash())
+                                .build());
+                    }
+                }
+                return fileInfoList;
+            }
+        });
+    }
+
+    // 동시에 같은 blob 을 처음 기록하는 요청이 있으면 insert 가 중복 키로 실패하므로 다시 참조 수를 올린다.
+    // update 나 insert 한 행은 트랜잭션이 끝날 때까지 잠겨 있으므로, FileBlobCollector 는 그동안 이 blob 을 지우지 못한다.
+    private void addBlobReferences(List<StagedFile> stagedFiles) {
+        Map<String, List<StagedFile>> filesByHash = stagedFiles.stream()
+                .collect(Collectors.groupingBy(StagedFile::blobHash, LinkedHashMap::new, Collectors.toList()));
+        filesByHash.forEach((hash, files) -> {
+            if(jdbcTemplate.update(ADD_BLOB_REFERENCE_SQL, files.size(), hash) > 0){
+                return;
+            }
+            StagedFile blob = files.get(0);
+            try {
+                jdbcTemplate.update(INSERT_FILE_BLOB_SQL, hash, blob.filePath(), blob.byteSize(), files.size(), Timestamp.valueOf(LocalDateTime.now()));
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(ADD_BLOB_REFERENCE_SQL, files.size(), hash);
+            }
+        });
+    }
+
+    private void releaseBlobReferences(List<FileInfo> releasedFileInfoList) {
+        Map<String, Long> releasedCounts = releasedFileInfoList.stream()
+                .filter(fileInfo -> fileInfo.getBlobHash() != null)
+                .collect(Collectors.groupingBy(FileInfo::getBlobHash, Collectors.counting()));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        releasedCounts.forEach((hash, count) -> jdbcTemplate.update(RELEASE_BLOB_REFERENCE_SQL, count, now, count, hash));
+    }
 
-        return storeFileResult;
+    public Path getBlobPath(String hash) {
+        return BlobPathUtils.getBlobPath(fileDir, hash);
+    }
+
+    // 리뷰 이미지는 업로드된 순서 그대로 리뷰의 이미지 목록 뒤에 붙인다.
+    private void addReviewImageManifest(List<FileInfo> storedFileList, Long referenceId, ReferenceType referenceType) {
+        if(referenceType != ReferenceType.REVIEW || storedFileList.isEmpty()){
+            return;
+        }
+        reviewRepository.findById(referenceId)
+                .ifPresent(review -> review.addReviewImages(getFileNameList(storedFileList)));
     }
 
     private void checkFolderAndValidFiles(List<MultipartFile> multipartFiles, ReferenceType referenceType) {
@@ -103,6 +371,22 @@ public class FileStoreService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public Optional<FileInfo> findStoredFile(String storedFileName){
+        return fileInfoRepository.findFileInfoByRealFilename(storedFileName);
+    }
+
+    /**
+     * 삭제되지 않은 파일의 정보를 메모리 색인에서 찾는다. 색인에 없을 때만 DB 에서 읽는다.
+     */
+    public Optional<FileMetadata> findStoredFileMetadata(String storedFileName){
+        return fileMetadataIndex.find(storedFileName);
+    }
+
+    public Path getStoredFilePath(FileMetadata fileMetadata){
+        return fileMetadataIndex.getPath(fileMetadata);
+    }
+
     @Transactional(readOnly = true)
     public String findOriginalFilename(String storedFileName){
         Optional<FileInfo> fileInfo = fileInfoRepository.findFileInfoByRealFilename(storedFileName);
@@ -133,16 +417,31 @@ public class FileStoreService {
     @Transactional
     public void checkDeleteFile(List<String> fileNames){
         List<FileInfo> fileInfoList = fileInfoRepository.findFileInfosByRealFilenameIn(fileNames);
+        List<FileInfo> releasedFileInfoList = fileInfoList.stream().filter(FileInfo::isExist).toList();
         for(FileInfo info : fileInfoList){
             info.setExist(false);
         }
         fileInfoRepository.saveAll(fileInfoList);
+        releaseBlobReferences(releasedFileInfoList);
+        // 커밋 전에 다른 요청이 삭제 전 상태를 다시 채울 수 있으므로 커밋 뒤에도 한 번 더 지우고, 다른 서버에도 알린다.
+        fileMetadataIndex.invalidateAll(fileNames);
+        runAfterCommit(() -> fileMetadataIndex.invalidateAllInstances(fileNames));
+
+        if(fileInfoList.isEmpty()){
+            return;
+        }
+        Set<Long> reviewIdSet = new HashSet<>();
+        for(FileManager manager : fileManagerRepository.findByFileInfoInAndReferenceType(fileInfoList, ReferenceType.REVIEW)){
+            reviewIdSet.add(manager.getReferenceId());
+        }
+        reviewRepository.findAllById(reviewIdSet)
+                .forEach(review -> review.removeReviewImages(fileNames));
     }
 
     private void checkFolder(){
-        File folder = new File(fileDir);
+        File folder = BlobPathUtils.getTempDir(fileDir).toFile();
         if(!folder.exists()){
-            folder.mkdir();
+            folder.mkdirs();
         }
     }
 
@@ -155,7 +454,6 @@ public class FileStoreService {
         return fileNameList;
     }
 
-    @Transactional
     public FileInfo downloadImageFileFromUrl(String imageUrl, String projectName, String productName, long referenceId, ReferenceType referenceType) {
         WebClient webClient = WebClient.builder().
                 exchangeStrategies(ExchangeStrategies.builder()
@@ -173,7 +471,6 @@ public class FileStoreService {
         return storeFile(madeMultipartFile, referenceId, referenceType);
     }
 
-    @Transactional
     public FileInfo downloadProfileImageFromUrl(String imageUrl, String profileImageName, long referenceId, ReferenceType referenceType) {
         WebClient webClient = WebClient.builder().
                 exchangeStrategies(ExchangeStrategies.builder()
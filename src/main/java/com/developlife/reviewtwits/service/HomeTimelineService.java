@@ -0,0 +1,290 @@
+package com.developlife.reviewtwits.service;
+
+import com.developlife.reviewtwits.entity.User;
+import com.developlife.reviewtwits.repository.follow.FollowRepository;
+import com.developlife.reviewtwits.repository.review.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * 팔로우한 유저의 리뷰를 모아 보여주는 홈 타임라인을 Redis sorted set 으로 관리한다.
+ * 리뷰 작성 시 팔로워의 타임라인에 reviewId 를 밀어넣고(fan-out-on-write),
+ * 팔로워가 많은 유저의 리뷰는 작성자 타임라인에만 저장한 뒤 읽을 때 합친다(fan-out-on-read).
+ * 유저가 팔로우한 팔로워 많은 유저 목록은 유저별로 캐시해 읽을 때마다 전체 목록을 보지 않고,
+ * 전체 목록이 바뀌면 버전을 올려 캐시를 함께 버린다.
+ * fan-out 과 삭제된 리뷰 제거는 커밋 후 timelineExecutor 에서 실행한다.
+ */
+@Slf4j
+@Service
+public class HomeTimelineService {
+
+    private static final String HOME_TIMELINE_KEY = "timeline:home:";
+    private static final String USER_TIMELINE_KEY = "timeline:user:";
+    private static final String CELEBRITY_KEY = "timeline:celebrities";
+    private static final String CELEBRITY_VERSION_KEY = "timeline:celebrities:version";
+    private static final String FOLLOWED_CELEBRITY_KEY = "timeline:followed-celebrities:";
+    // 재생성 직후 다시 읽어 넣을 최근 리뷰 수
+    private static final int REBUILD_RECHECK_SIZE = 50;
+    // 타임라인이 만들어졌음을 표시하는 score 0 의 멤버. reviewId 는 1부터 시작하므로 조회 범위에 걸리지 않는다.
+    private static final String TIMELINE_SENTINEL = "0";
+
+    // 이미 만들어진 홈 타임라인에만 추가한다. 없는 타임라인은 다음 조회 때 DB 에서 다시 만든다.
+    private static final String PUSH_IF_EXISTS_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[1]) " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 1, -(tonumber(ARGV[2]) + 1)) " +
+            "end " +
+            "return 0";
+
+    private final StringRedisTemplate redisTemplate;
+    private final FollowRepository followRepository;
+    private final ReviewRepository reviewRepository;
+    private final ThreadPoolTaskExecutor timelineExecutor;
+
+    @Value("${timeline.max-length:800}")
+    private int maxTimelineLength;
+    @Value("${timeline.fanout-follower-limit:10000}")
+    private long fanoutFollowerLimit;
+    @Value("${timeline.ttl-seconds:604800}")
+    private long timelineTtlSeconds;
+    @Value("${timeline.followed-celebrities-ttl-seconds:600}")
+    private long followedCelebritiesTtlSeconds;
+
+    public HomeTimelineService(StringRedisTemplate redisTemplate,
+                               FollowRepository followRepository,
+                               ReviewRepository reviewRepository,
+                               @Qualifier("timelineExecutor") ThreadPoolTaskExecutor timelineExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.followRepository = followRepository;
+        this.reviewRepository = reviewRepository;
+        this.timelineExecutor = timelineExecutor;
+    }
+
+    public void fanOutAfterCommit(long authorId, long reviewId) {
+        runAfterCommit(() -> submit(reviewId, () -> fanOutReview(authorId, reviewId)));
+    }
+
+    // 삭제된 리뷰가 팔로워의 페이지를 비우지 않도록 타임라인에서 뺀다.
+    public void removeAfterCommit(long authorId, long reviewId) {
+        runAfterCommit(() -> submit(reviewId, () -> removeReview(authorId, reviewId)));
+    }
+
+    // 팔로우/언팔로우하면 홈 타임라인과 팔로우한 팔로워 많은 유저 목록을 다시 만든다.
+    public void evictHomeTimelineAfterCommit(long userId) {
+        runAfterCommit(() -> evictHomeTimeline(userId));
+    }
+
+    public List<Long> getHomeTimelineReviewIds(User user, Long reviewId, int size) {
+        String homeTimelineKey = HOME_TIMELINE_KEY + user.getUserId();
+        double maxScore = reviewId == null ? Double.POSITIVE_INFINITY : reviewId - 1;
+
+        try {
+            if(!Boolean.TRUE.equals(redisTemplate.hasKey(homeTimelineKey))){
+                rebuildHomeTimeline(user, homeTimelineKey);
+            }
+
+            List<String> sourceKeys = new ArrayList<>();
+            sourceKeys.add(homeTimelineKey);
+            findFollowedCelebrityIds(user).forEach(celebrityId -> sourceKeys.add(USER_TIMELINE_KEY + celebrityId));
+
+            List<Long> timeline = new ArrayList<>();
+            // 길이 제한으로 잘린 타임라인은 남은 가장 오래된 리뷰까지만 빠짐없이 가지고 있다.
+            long completeFrom = 0;
+            for(String sourceKey : sourceKeys){
+                timeline.addAll(readTimeline(sourceKey, maxScore, size));
+                if(isTrimmed(sourceKey)){
+                    completeFrom = Math.max(completeFrom, findOldestReviewId(sourceKey));
+                }
+            }
+            long completeFromReviewId = completeFrom;
+            List<Long> page = new ArrayList<>(timeline.stream()
+                    .filter(timelineReviewId -> timelineReviewId >= completeFromReviewId)
+                    .distinct()
+                    .sorted(Comparator.reverseOrder())
+                    .limit(size)
+                    .toList());
+
+            // 잘려나간 오래된 구간은 DB 에서 이어서 읽는다.
+            if(page.size() < size && completeFrom > 0){
+                Long lastReviewId = page.isEmpty()
+                        ? Long.valueOf(reviewId == null ? completeFrom : Math.min(reviewId, completeFrom))
+                        : page.get(page.size() - 1);
+                page.addAll(reviewRepository.findReviewIdsOfFollowings(user, lastReviewId, size - page.size()));
+            }
+            return page;
+        } catch (DataAccessException e) {
+            log.warn("홈 타임라인을 Redis 에서 읽지 못해 DB 에서 조회합니다. userId={}", user.getUserId(), e);
+            return reviewRepository.findReviewIdsOfFollowings(user, reviewId, size);
+        }
+    }
+
+    private void fanOutReview(long authorId, long reviewId) {
+        try {
+            long followerCount = followRepository.countByTargetUser_UserId(authorId);
+            boolean isCelebrity = followerCount > fanoutFollowerLimit;
+            List<Long> followerIds = isCelebrity ? List.of() : followRepository.findFollowerIdsOfUser(authorId);
+            String member = String.valueOf(reviewId);
+            String maxLength = String.valueOf(maxTimelineLength);
+            String authorMember = String.valueOf(authorId);
+            // 팔로워가 줄어든 유저는 목록에서 뺀다. 그동안의 리뷰는 팔로워 홈 타임라인에 없으므로 다시 만들게 한다.
+            boolean celebrityChanged = isCelebrity
+                    ? Long.valueOf(1).equals(redisTemplate.opsForSet().add(CELEBRITY_KEY, authorMember))
+                    : Long.valueOf(1).equals(redisTemplate.opsForSet().remove(CELEBRITY_KEY, authorMember));
+            boolean demoted = celebrityChanged && !isCelebrity;
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                String userTimelineKey = USER_TIMELINE_KEY + authorId;
+                stringConnection.zAdd(userTimelineKey, reviewId, member);
+                stringConnection.zRemRange(userTimelineKey, 0, -(maxTimelineLength + 1));
+
+                if(celebrityChanged){
+                    stringConnection.incr(CELEBRITY_VERSION_KEY);
+                }
+                for(Long followerId : followerIds){
+                    if(demoted){
+                        stringConnection.del(HOME_TIMELINE_KEY + followerId);
+                    }else{
+                        stringConnection.eval(PUSH_IF_EXISTS_SCRIPT, ReturnType.INTEGER, 1,
+                                HOME_TIMELINE_KEY + followerId, member, maxLength);
+                    }
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // 타임라인 반영에 실패해도 리뷰 저장은 이미 커밋되었으므로, 다음 재생성 때 DB 에서 복구된다.
+            log.warn("리뷰 타임라인 반영에 실패했습니다. reviewId={}", reviewId, e);
+        }
+    }
+
+    private void submit(long reviewId, Runnable timelineTask) {
+        try {
+            timelineExecutor.execute(timelineTask);
+        } catch (TaskRejectedException e) {
+            log.warn("타임라인 작업 큐가 가득 차 반영하지 못했습니다. reviewId={}", reviewId, e);
+        }
+    }
+
+    private void removeReview(long authorId, long reviewId) {
+        try {
+            long followerCount = followRepository.countByTargetUser_UserId(authorId);
+            List<Long> followerIds = followerCount > fanoutFollowerLimit ? List.of() : followRepository.findFollowerIdsOfUser(authorId);
+            String member = String.valueOf(reviewId);
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.zRem(USER_TIMELINE_KEY + authorId, member);
+                for(Long followerId : followerIds){
+                    stringConnection.zRem(HOME_TIMELINE_KEY + followerId, member);
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("삭제된 리뷰를 타임라인에서 빼지 못했습니다. reviewId={}", reviewId, e);
+        }
+    }
+
+    private void evictHomeTimeline(long userId) {
+        try {
+            redisTemplate.delete(List.of(HOME_TIMELINE_KEY + userId, followedCelebrityKey(userId)));
+        } catch (DataAccessException e) {
+            log.warn("홈 타임라인을 삭제하지 못했습니다. userId={}", userId, e);
+        }
+    }
+
+    /**
+     * DB 를 읽은 뒤 타임라인을 쓰기 전에 커밋된 리뷰의 fan-out 은 타임라인이 없어 건너뛰므로,
+     * 타임라인을 쓴 뒤 최근 리뷰를 한 번 더 읽어 넣는다. 그 뒤에 커밋된 리뷰는 fan-out 이 넣는다.
+     */
+    private void rebuildHomeTimeline(User user, String homeTimelineKey) {
+        List<Long> reviewIdList = reviewRepository.findReviewIdsOfFollowings(user, null, maxTimelineLength);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.del(homeTimelineKey);
+            stringConnection.zAdd(homeTimelineKey, 0, TIMELINE_SENTINEL);
+            for(Long reviewId : reviewIdList){
+                stringConnection.zAdd(homeTimelineKey, reviewId, String.valueOf(reviewId));
+            }
+            stringConnection.expire(homeTimelineKey, timelineTtlSeconds);
+            return null;
+        });
+
+        List<Long> recentReviewIdList = reviewRepository.findReviewIdsOfFollowings(user, null, REBUILD_RECHECK_SIZE);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for(Long reviewId : recentReviewIdList){
+                stringConnection.zAdd(homeTimelineKey, reviewId, String.valueOf(reviewId));
+            }
+            stringConnection.zRemRange(homeTimelineKey, 1, -(maxTimelineLength + 1));
+            return null;
+        });
+    }
+
+    private List<Long> readTimeline(String key, double maxScore, int size) {
+        Set<String> members = redisTemplate.opsForZSet().reverseRangeByScore(key, 1, maxScore, 0, size);
+        List<Long> reviewIdList = new ArrayList<>();
+        if(members != null){
+            members.forEach(member -> reviewIdList.add(Long.valueOf(member)));
+        }
+        return reviewIdList;
+    }
+
+    // sentinel 을 제외한 리뷰 수가 최대 길이에 도달했다면 잘려나간 리뷰가 있을 수 있다.
+    private boolean isTrimmed(String timelineKey) {
+        Long reviewCount = redisTemplate.opsForZSet().count(timelineKey, 1, Double.POSITIVE_INFINITY);
+        return reviewCount != null && reviewCount >= maxTimelineLength;
+    }
+
+    private long findOldestReviewId(String timelineKey) {
+        Set<String> oldest = redisTemplate.opsForZSet().rangeByScore(timelineKey, 1, Double.POSITIVE_INFINITY, 0, 1);
+        return oldest == null || oldest.isEmpty() ? 0 : Long.parseLong(oldest.iterator().next());
+    }
+
+    /**
+     * 유저가 팔로우한 팔로워 많은 유저를 유저별 set 에서 읽는다. 없으면 전체 목록과 팔로우 목록으로 만들어
+     * followed-celebrities-ttl-seconds 동안 쓴다. 빈 목록도 sentinel 로 캐시한다.
+     */
+    private List<Long> findFollowedCelebrityIds(User user) {
+        String followedCelebrityKey = followedCelebrityKey(user.getUserId());
+        Set<String> cached = redisTemplate.opsForSet().members(followedCelebrityKey);
+        if(cached != null && !cached.isEmpty()){
+            return cached.stream()
+                    .filter(member -> !TIMELINE_SENTINEL.equals(member))
+                    .map(Long::valueOf)
+                    .toList();
+        }
+
+        Set<String> celebrities = redisTemplate.opsForSet().members(CELEBRITY_KEY);
+        List<Long> followedCelebrityIds = celebrities == null || celebrities.isEmpty()
+                ? List.of()
+                : followRepository.findFollowingIdsIn(user.getUserId(), celebrities.stream().map(Long::valueOf).toList());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.sAdd(followedCelebrityKey, TIMELINE_SENTINEL);
+            followedCelebrityIds.forEach(celebrityId -> stringConnection.sAdd(followedCelebrityKey, String.valueOf(celebrityId)));
+            stringConnection.expire(followedCelebrityKey, followedCelebritiesTtlSeconds);
+            return null;
+        });
+        return followedCelebrityIds;
+    }
+
+    // 전체 목록의 버전을 키에 넣어, 목록이 바뀌면 이전 캐시는 읽지 않고 TTL 로 사라지게 한다.
+    private String followedCelebrityKey(long userId) {
+        String version = redisTemplate.opsForValue().get(CELEBRITY_VERSION_KEY);
+        return FOLLOWED_CELEBRITY_KEY + userId + ":" + (version == null ? "0" : version);
+    }
+}
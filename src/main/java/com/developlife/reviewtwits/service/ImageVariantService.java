@@ -0,0 +1,370 @@
+package com.developlife.reviewtwits.service;
+
+import com.developlife.reviewtwits.exception.file.InvalidImageVariantException;
+import com.developlife.reviewtwits.utils.file.BlobPathUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.*;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 이미지의 너비/형식 변형을 처음 요청될 때 한 번 만들어 원본 옆({원본}.w{너비}.{형식})에 저장하고, 이후에는 저장된 파일을 준다.
+ * blob 이전 방식으로 저장된 파일의 변형은 file.dir 아래에 섞이지 않도록 variants/{realFilename}.w{너비}.{형식} 에 둔다.
+ * 요청한 너비는 허용된 너비(widths) 중 가장 가까운 큰 값으로 맞추고, 원본보다 크게 늘리지는 않는다.
+ * jpeg 원본의 EXIF 방향(Orientation)은 줄이기 전에 적용하고, 변형에는 EXIF 를 남기지 않는다.
+ * 같은 변형을 동시에 처음 요청하면 한 요청만 만들고 나머지는 그 결과를 기다린다.
+ * 요청 스레드가 오래 묶이지 않도록, 만들 차례나 결과를 wait-millis 넘게 기다려야 하면 원본을 준다.
+ * 변형을 만들 수 없는 이미지(svg, 너무 큰 이미지 등)나 만들다 실패한 경우에는 원본을 주고, 그 원본은 한동안 다시 읽지 않는다.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private static final Map<String, String> FORMATS = Map.of(
+            "jpg", "jpeg", "jpeg", "jpeg", "png", "png", "gif", "png");
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final Path blobDir;
+    private final Path variantDir;
+    private final Path tempDir;
+    private final int[] widths;
+    private final float jpegQuality;
+    private final long maxSourcePixels;
+    private final Semaphore generationPermits;
+    private final long waitMillis;
+    // 변형을 만들 수 없어 원본을 주기로 한 원본 경로
+    private final Cache<Path, Boolean> fallbackSources;
+    private final Counter generationCounter;
+
+    private final Map<Path, CompletableFuture<ImageVariant>> generations = new ConcurrentHashMap<>();
+
+    public ImageVariantService(MeterRegistry meterRegistry,
+                               @Value("${file.dir}") String fileDir,
+                               @Value("${file.image-variant.widths:160,320,640,1080}") int[] widths,
+                               @Value("${file.image-variant.jpeg-quality:0.85}") float jpegQuality,
+                               @Value("${file.image-variant.max-source-pixels:40000000}") long maxSourcePixels,
+                               @Value("${file.image-variant.max-concurrent-generations:2}") int maxConcurrentGenerations,
+                               @Value("${file.image-variant.wait-millis:1000}") long waitMillis,
+                               @Value("${file.image-variant.fallback-maximum-size:10000}") long fallbackMaximumSize,
+                               @Value("${file.image-variant.fallback-expire-after-write-seconds:3600}") long fallbackExpireAfterWriteSeconds) {
+        this.blobDir = BlobPathUtils.getBlobDir(fileDir);
+        this.variantDir = BlobPathUtils.getVariantDir(fileDir);
+        this.tempDir = BlobPathUtils.getTempDir(fileDir);
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.jpegQuality = jpegQuality;
+        this.maxSourcePixels = maxSourcePixels;
+        this.generationPermits = new Semaphore(maxConcurrentGenerations);
+        this.waitMillis = waitMillis;
+        this.fallbackSources = CacheBuilder.newBuilder()
+                .maximumSize(fallbackMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(fallbackExpireAfterWriteSeconds))
+                .build();
+        this.generationCounter = meterRegistry.counter("file.image-variant.generations");
+    }
+
+    /**
+     * 저장된 이미지의 변형을 찾고, 없으면 만든다. width 나 format 이 null 이면 원본의 값을 그대로 쓴다.
+     */
+    public ImageVariant getVariant(String realFilename, Path originalPath, Integer width, String format) {
+        String originalFormat = FORMATS.get(FileStoreService.extractExt(realFilename).toLowerCase(Locale.ROOT));
+        String variantFormat = format == null ? originalFormat : FORMATS.get(format.toLowerCase(Locale.ROOT));
+        if(format != null && variantFormat == null || width != null && width <= 0){
+            throw new InvalidImageVariantException("지원하지 않는 이미지 변형입니다.");
+        }
+        if(variantFormat == null){
+            return ImageVariant.original(originalPath);
+        }
+
+        Integer variantWidth = width == null ? null : snapWidth(width);
+        Path variantPath = variantPath(realFilename, originalPath, (variantWidth == null ? "" : ".w" + variantWidth) + "." + variantFormat);
+        ImageVariant variant = new ImageVariant(variantPath, contentType(variantFormat), true);
+        if(Files.exists(variantPath)){
+            return variant;
+        }
+        if(fallbackSources.getIfPresent(originalPath) != null){
+            return ImageVariant.original(originalPath);
+        }
+
+        CompletableFuture<ImageVariant> generation = new CompletableFuture<>();
+        CompletableFuture<ImageVariant> running = generations.putIfAbsent(variantPath, generation);
+        if(running != null){
+            return await(running, originalPath);
+        }
+        try {
+            ImageVariant generated = Files.exists(variantPath)
+                    ? variant
+                    : generate(originalPath, variant, variantWidth, variantFormat);
+            generation.complete(generated);
+            return generated;
+        } catch (Throwable e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            generations.remove(variantPath, generation);
+        }
+    }
+
+    private ImageVariant await(CompletableFuture<ImageVariant> running, Path originalPath) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ImageVariant.original(originalPath);
+        } catch (ExecutionException | TimeoutException e) {
+            return ImageVariant.original(originalPath);
+        }
+    }
+
+    // blob 의 변형은 blob 옆에 두어 FileBlobCollector 가 blob 과 함께 지우게 한다.
+    private Path variantPath(String realFilename, Path originalPath, String suffix) {
+        if(originalPath.startsWith(blobDir)){
+            return Path.of(originalPath + suffix);
+        }
+        return variantDir.resolve(realFilename + suffix);
+    }
+
+    private int snapWidth(int width) {
+        for(int allowedWidth : widths){
+            if(allowedWidth >= width){
+                return allowedWidth;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    private ImageVariant generate(Path originalPath, ImageVariant variant, Integer width, String format) {
+        Path tempPath = tempDir.resolve(UUID.randomUUID().toString());
+        try {
+            if(!generationPermits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)){
+                return ImageVariant.original(originalPath);
+            }
+            try {
+                BufferedImage image = read(originalPath, width, "jpeg".equals(format));
+                if(image == null){
+                    fallbackSources.put(originalPath, true);
+                    return ImageVariant.original(originalPath);
+                }
+                write(image, format, tempPath);
+                Files.createDirectories(variant.path().getParent());
+                // 다른 요청이 읽는 도중의 파일을 보지 않도록, 다 쓴 임시 파일을 한 번에 옮긴다.
+                Files.move(tempPath, variant.path(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                generationCounter.increment();
+                return variant;
+            } finally {
+                generationPermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ImageVariant.original(originalPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("이미지 변형을 만들지 못해 원본을 보냅니다. path={}", variant.path(), e);
+            fallbackSources.put(originalPath, true);
+            return ImageVariant.original(originalPath);
+        } finally {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException e) {
+                log.warn("이미지 변형의 임시 파일을 지우지 못했습니다. path={}", tempPath, e);
+            }
+        }
+    }
+
+    // 원본이 목표 너비의 두 배보다 크면 subsampling 으로 줄여 읽어, 큰 사진도 전체를 메모리에 올리지 않는다.
+    private BufferedImage read(Path originalPath, Integer width, boolean opaque) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(originalPath.toFile())) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if(!readers.hasNext()){
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, false);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if((long) sourceWidth * sourceHeight > maxSourcePixels){
+                    return null;
+                }
+                // 5~8 은 90도 돌려서 보여 주므로, 보이는 너비는 저장된 높이이다.
+                int orientation = readOrientation(reader);
+                int displayWidth = orientation >= 5 ? sourceHeight : sourceWidth;
+                int displayHeight = orientation >= 5 ? sourceWidth : sourceHeight;
+                int targetWidth = width == null ? displayWidth : Math.min(width, displayWidth);
+                int targetHeight = Math.max(1, (int) Math.round((double) displayHeight * targetWidth / displayWidth));
+
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, displayWidth / (targetWidth * 2));
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return scale(orient(reader.read(0, readParam), orientation), targetWidth, targetHeight, opaque);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // jpeg 의 APP1(Exif) 세그먼트에서 IFD0 의 Orientation 을 읽는다. 없거나 읽을 수 없으면 1(그대로)이다.
+    private int readOrientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if(metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)){
+                return 1;
+            }
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+            NodeList markers = root.getElementsByTagName("unknown");
+            for(int i = 0; i < markers.getLength(); i++){
+                IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+                if(Integer.parseInt(marker.getAttribute("MarkerTag")) == APP1_MARKER
+                        && marker.getUserObject() instanceof byte[] segment){
+                    int orientation = parseOrientation(segment);
+                    if(orientation > 0){
+                        return orientation;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("이미지의 EXIF 방향을 읽지 못했습니다.", e);
+        }
+        return 1;
+    }
+
+    private static int parseOrientation(byte[] segment) {
+        if(segment.length < EXIF_HEADER.length + 8
+                || !Arrays.equals(segment, 0, EXIF_HEADER.length, EXIF_HEADER, 0, EXIF_HEADER.length)){
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(segment, EXIF_HEADER.length, segment.length - EXIF_HEADER.length).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifdOffset = tiff.getInt(4);
+        if(ifdOffset < 8 || ifdOffset + 2 > tiff.limit()){
+            return 0;
+        }
+        int entries = Short.toUnsignedInt(tiff.getShort(ifdOffset));
+        for(int i = 0; i < entries; i++){
+            int entry = ifdOffset + 2 + i * 12;
+            if(entry + 12 > tiff.limit()){
+                return 0;
+            }
+            if(Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG){
+                int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    // EXIF 방향대로 뒤집고 돌린다. 90도 단위라 보간 없이 픽셀을 옮긴다.
+    private BufferedImage orient(BufferedImage source, int orientation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        AffineTransform transform = switch(orientation){
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> null;
+        };
+        if(transform == null){
+            return source;
+        }
+        boolean rotated = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(rotated ? height : width, rotated ? width : height,
+                source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    // 한 번에 크게 줄이면 bilinear 보간이 픽셀을 건너뛰므로, 목표 크기가 될 때까지 절반씩 줄인다.
+    private BufferedImage scale(BufferedImage source, int targetWidth, int targetHeight, boolean opaque) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage scaled = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                if(opaque){
+                    // jpeg 은 투명도를 담지 못하므로 흰 배경 위에 그린다.
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        } while(width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, String format, Path path) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(path.toFile())) {
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            if("jpeg".equals(format)){
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                writeParam.setCompressionQuality(jpegQuality);
+            }
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String contentType(String format) {
+        return "png".equals(format) ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+    }
+
+    // generated 가 false 이면 변형 대신 원본을 보내는 것이므로, 나중에 다시 만들 수 있도록 오래 캐시하지 않는다.
+    public record ImageVariant(Path path, String contentType, boolean generated) {
+        // 원본은 지금까지처럼 image/jpeg 로 보낸다.
+        private static ImageVariant original(Path path) {
+            return new ImageVariant(path, MediaType.IMAGE_JPEG_VALUE, false);
+        }
+    }
+}
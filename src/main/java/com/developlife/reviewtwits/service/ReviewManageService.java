@@ -37,7 +37,8 @@ public class ReviewManageService {
         Review review = reviewRepository.findById(request.reviewId())
                 .orElseThrow(()-> new ReviewNotFoundException("해당 리뷰가 존재하지 않습니다."));
 
-        if(!review.getProject().getUser().equals(user)){
+        // 소유자 비교는 id 만 사용하므로 프로젝트 소유자 엔티티까지 읽지 않는다.
+        if(review.getProject().getUser().getUserId() != user.getUserId()){
             throw new CannotHandleReviewException("해당 리뷰를 허가 및 분류할 권한이 없습니다.");
         }
 
@@ -0,0 +1,65 @@
+package com.developlife.reviewtwits.service;
+
+import com.developlife.reviewtwits.repository.ReactionRepository;
+import com.developlife.reviewtwits.repository.ReviewReactionSummaryRepository;
+import com.developlife.reviewtwits.type.ReactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * review_reaction_summary 를 리액션 변경과 같은 트랜잭션 안에서 갱신한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewReactionSummaryService {
+
+    private final ReviewReactionSummaryRepository reviewReactionSummaryRepository;
+    private final ReactionRepository reactionRepository;
+
+    @Transactional
+    public void increaseReactionCount(long reviewId, ReactionType reactionType) {
+        reviewReactionSummaryRepository.upsertReactionCount(reviewId, reactionType, 1);
+    }
+
+    @Transactional
+    public void decreaseReactionCount(long reviewId, ReactionType reactionType) {
+        reviewReactionSummaryRepository.addReactionCount(reviewId, reactionType, -1);
+    }
+
+    @Transactional
+    public void changeReactionType(long reviewId, ReactionType beforeType, ReactionType afterType) {
+        if(beforeType == afterType){
+            return;
+        }
+        decreaseReactionCount(reviewId, beforeType);
+        increaseReactionCount(reviewId, afterType);
+    }
+
+    // 삭제된 리뷰의 집계는 지우고, 복구되면 남아 있는 리액션으로 다시 만든다.
+    @Transactional
+    public void deleteSummary(long reviewId) {
+        reviewReactionSummaryRepository.deleteByReviewId(reviewId);
+    }
+
+    @Transactional
+    public void rebuildSummary(long reviewId) {
+        reviewReactionSummaryRepository.deleteByReviewId(reviewId);
+        reviewReactionSummaryRepository.rebuildFromReactions(reviewId);
+    }
+
+    // 집계 테이블이 새로 생긴 경우, 기존 리액션으로부터 한 번 채워 넣는다.
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillSummaryIfEmpty() {
+        if(reviewReactionSummaryRepository.count() > 0 || reactionRepository.count() == 0){
+            return;
+        }
+        int insertedCount = reviewReactionSummaryRepository.rebuildFromReactions();
+        log.info("리액션 집계 테이블을 기존 리액션으로부터 {} 건 채웠습니다.", insertedCount);
+    }
+}
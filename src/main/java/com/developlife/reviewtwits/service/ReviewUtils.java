@@ -1,21 +1,69 @@
 package com.developlife.reviewtwits.service;
 
 import com.developlife.reviewtwits.entity.Review;
+import com.developlife.reviewtwits.repository.file.FileManagerRepository;
+import com.developlife.reviewtwits.repository.review.ReviewRepository;
 import com.developlife.reviewtwits.type.ReferenceType;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author ghdic
  * @since 2023/04/07
  */
+@Slf4j
 @RequiredArgsConstructor
 @Component
 public class ReviewUtils {
 
-    private final FileStoreService fileStoreService;
+    private static final int MANIFEST_FILL_CHUNK_SIZE = 500;
+
+    private final ReviewRepository reviewRepository;
+    private final FileManagerRepository fileManagerRepository;
+    private final TransactionTemplate transactionTemplate;
 
     public void saveReviewImage(Review review){
-        review.setReviewImageUuidList(fileStoreService.bringFileNameList(ReferenceType.REVIEW, review.getReviewId()));
+        review.setReviewImageUuidList(review.getReviewImageManifestList());
+    }
+
+    /**
+     * 이미지 목록 컬럼이 생기기 전에 작성된 리뷰(reviewImageManifest 가 null)를 file_manager 기준으로 한 번 채운다.
+     * 기존 리뷰는 업로드 순서를 알 수 없으므로 저장된 순서(fileID)를 따른다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillReviewImageManifest(){
+        int filledCount = 0;
+        Integer chunkCount;
+        do {
+            chunkCount = transactionTemplate.execute(status -> fillReviewImageManifestChunk());
+            filledCount += chunkCount == null ? 0 : chunkCount;
+        } while (chunkCount != null && chunkCount > 0);
+
+        if(filledCount > 0){
+            log.info("리뷰 이미지 목록을 채웠습니다. reviewCount={}", filledCount);
+        }
+    }
+
+    private int fillReviewImageManifestChunk(){
+        List<Review> reviewList = reviewRepository.findByReviewImageManifestIsNull(PageRequest.of(0, MANIFEST_FILL_CHUNK_SIZE));
+        if(reviewList.isEmpty()){
+            return 0;
+        }
+
+        List<Long> reviewIdList = reviewList.stream().map(Review::getReviewId).toList();
+        Map<Long, List<String>> reviewImageMap = fileManagerRepository.findRealFilenamesByReferenceIds(reviewIdList, ReferenceType.REVIEW);
+        for(Review review : reviewList){
+            review.setReviewImageManifest("");
+            review.addReviewImages(reviewImageMap.getOrDefault(review.getReviewId(), List.of()));
+        }
+        return reviewList.size();
     }
 }
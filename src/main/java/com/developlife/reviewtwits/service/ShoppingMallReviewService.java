@@ -13,14 +13,17 @@ import com.developlife.reviewtwits.message.response.review.DetailShoppingMallRev
 import com.developlife.reviewtwits.message.response.review.ShoppingMallReviewProductResponse;
 import com.developlife.reviewtwits.repository.ProductRepository;
 import com.developlife.reviewtwits.repository.ReactionRepository;
+import com.developlife.reviewtwits.repository.review.ReviewCardCache;
 import com.developlife.reviewtwits.repository.review.ReviewRepository;
 import com.developlife.reviewtwits.type.ReactionType;
 import com.developlife.reviewtwits.type.ReferenceType;
+import com.developlife.reviewtwits.type.StagedFile;
 import com.developlife.reviewtwits.type.review.ReviewStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -43,8 +46,23 @@ public class ShoppingMallReviewService {
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final ReactionRepository reactionRepository;
+    private final ReviewReactionSummaryService reviewReactionSummaryService;
+    private final HomeTimelineService homeTimelineService;
+    private final ReviewCardCache reviewCardCache;
+    private final TransactionTemplate transactionTemplate;
 
     public DetailShoppingMallReviewResponse saveShoppingMallReview(ShoppingMallReviewWriteRequest writeRequest, User user) {
+        // 이미지는 트랜잭션을 열기 전에 디스크에 써 둔다.
+        List<StagedFile> stagedImages = fileStoreService.writeFiles(writeRequest.multipartImageFiles(), ReferenceType.REVIEW);
+        try {
+            return transactionTemplate.execute(status -> saveShoppingMallReview(writeRequest, user, stagedImages));
+        } finally {
+            // 리뷰를 저장하지 못했으면 saveFiles 까지 가지 못한 임시 파일이 남으므로 바로 지운다.
+            fileStoreService.deleteTempFiles(stagedImages);
+        }
+    }
+
+    private DetailShoppingMallReviewResponse saveShoppingMallReview(ShoppingMallReviewWriteRequest writeRequest, User user, List<StagedFile> stagedImages) {
 
         Project project = findProject(writeRequest.productURL());
 
@@ -61,7 +79,7 @@ public class ShoppingMallReviewService {
         List<String> fileNames;
 
         if(writeRequest.multipartImageFiles() != null) {
-            List<FileInfo> fileInfoList = fileStoreService.storeFiles(writeRequest.multipartImageFiles(), review.getReviewId(), ReferenceType.REVIEW);
+            List<FileInfo> fileInfoList = fileStoreService.saveFiles(stagedImages, review.getReviewId(), ReferenceType.REVIEW);
             fileNames = fileStoreService.getFileNameList(fileInfoList);
             savedReview.setReviewImageUuidList(fileNames);
         }
@@ -138,12 +156,16 @@ public class ShoppingMallReviewService {
         }
     }
 
+    @Transactional
     public DetailShoppingMallReviewResponse deleteShoppingMallReview(long reviewId){
         Optional<Review> foundReview = reviewRepository.findById(reviewId);
         if(foundReview.isPresent()){
             Review review = foundReview.get();
             review.setStatus(ReviewStatus.DELETED);
             reviewRepository.save(review);
+            reviewReactionSummaryService.deleteSummary(reviewId);
+            homeTimelineService.removeAfterCommit(review.getUser().getUserId(), reviewId);
+            reviewCardCache.evictAfterCommit(reviewId);
 
             review.setReviewImageUuidList(new ArrayList<>());
             return mapper.mapReviewToDetailReviewResponse(review);
@@ -152,12 +174,15 @@ public class ShoppingMallReviewService {
         return null;
     }
 
+    @Transactional
     public DetailShoppingMallReviewResponse restoreShoppingMallReview(long reviewId){
         Optional<Review> foundReview = reviewRepository.findById(reviewId);
         if(foundReview.isPresent()){
             Review review = foundReview.get();
             review.setStatus(ReviewStatus.PENDING);
             reviewRepository.save(review);
+            reviewReactionSummaryService.rebuildSummary(reviewId);
+            reviewCardCache.evictAfterCommit(reviewId);
 
             saveReviewImage(review);
             return mapper.mapReviewToDetailReviewResponse(review);
@@ -165,7 +190,17 @@ public class ShoppingMallReviewService {
         return null;
     }
 
-    public DetailShoppingMallReviewResponse changeShoppingMallReview(long reviewId, ShoppingMallReviewChangeRequest changeRequest){
+    public DetailShoppingMallReviewResponse changeShoppingMallReview(long reviewId, ShoppingMallReviewChangeRequest changeRequest) {
+        // 이미지는 트랜잭션을 열기 전에 디스크에 써 둔다.
+        List<StagedFile> stagedImages = fileStoreService.writeFiles(changeRequest.multipartImageFiles(), ReferenceType.REVIEW);
+        try {
+            return transactionTemplate.execute(status -> changeShoppingMallReview(reviewId, changeRequest, stagedImages));
+        } finally {
+            fileStoreService.deleteTempFiles(stagedImages);
+        }
+    }
+
+    private DetailShoppingMallReviewResponse changeShoppingMallReview(long reviewId, ShoppingMallReviewChangeRequest changeRequest, List<StagedFile> stagedImages){
         Review review = reviewRepository.findById(reviewId).get();
         if(changeRequest.content() != null){
             review.setContent(changeRequest.content());
@@ -176,13 +211,14 @@ public class ShoppingMallReviewService {
         reviewRepository.save(review);
 
         if(changeRequest.multipartImageFiles() != null && !changeRequest.multipartImageFiles().isEmpty()){
-            fileStoreService.storeFiles(changeRequest.multipartImageFiles(),review.getReviewId(),ReferenceType.REVIEW);
+            fileStoreService.saveFiles(stagedImages, review.getReviewId(), ReferenceType.REVIEW);
         }
 
         if(changeRequest.deleteFileList() != null && !changeRequest.deleteFileList().isEmpty()){
             fileStoreService.checkDeleteFile(changeRequest.deleteFileList());
         }
 
+        reviewCardCache.evictAfterCommit(reviewId);
         saveReviewImage(review);
         return mapper.mapReviewToDetailReviewResponse(review);
     }
@@ -197,7 +233,7 @@ public class ShoppingMallReviewService {
     }
 
     private void saveReviewImage(Review review){
-        review.setReviewImageUuidList(fileStoreService.bringFileNameList(ReferenceType.REVIEW, review.getReviewId()));
+        review.setReviewImageUuidList(review.getReviewImageManifestList());
     }
 
     @Transactional
@@ -206,6 +242,7 @@ public class ShoppingMallReviewService {
                 () -> new ReviewNotFoundException("해당 리뷰가 존재하지 않습니다."));
 
         Optional<Reaction> foundReaction = reactionRepository.findByReview_ReviewIdAndUser(reviewId, user);
+        reviewCardCache.evictAfterCommit(reviewId);
 
         Reaction reaction;
         if(foundReaction.isEmpty()){
@@ -214,9 +251,11 @@ public class ShoppingMallReviewService {
                     .user(user)
                     .reactionType(ReactionType.GOOD)
                     .build());
+            reviewReactionSummaryService.increaseReactionCount(reviewId, ReactionType.GOOD);
         }else{
             reaction = foundReaction.get();
             reactionRepository.delete(reaction);
+            reviewReactionSummaryService.decreaseReactionCount(reviewId, reaction.getReactionType());
         }
         return mapper.toDetailReactionResponse(reaction);
     }
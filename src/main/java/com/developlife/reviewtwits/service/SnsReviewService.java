@@ -15,9 +15,11 @@ import com.developlife.reviewtwits.message.response.review.ReviewScrapResultResp
 import com.developlife.reviewtwits.message.response.sns.DetailSnsReviewResponse;
 import com.developlife.reviewtwits.repository.*;
 import com.developlife.reviewtwits.repository.CommentRepository;
+import com.developlife.reviewtwits.repository.review.ReviewCardCache;
 import com.developlife.reviewtwits.repository.review.ReviewRepository;
 import com.developlife.reviewtwits.type.ReferenceType;
 import com.developlife.reviewtwits.type.ReactionType;
+import com.developlife.reviewtwits.type.StagedFile;
 import com.developlife.reviewtwits.type.review.ReviewStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +30,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -57,9 +60,23 @@ public class SnsReviewService {
     private final ProductRepository productRepository;
 
     private final ReviewUtils reviewUtils;
+    private final ReviewReactionSummaryService reviewReactionSummaryService;
+    private final HomeTimelineService homeTimelineService;
+    private final ReviewCardCache reviewCardCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public DetailSnsReviewResponse saveSnsReview(SnsReviewWriteRequest writeRequest, User user) {
+        // 이미지는 트랜잭션을 열기 전에 디스크에 써 둔다.
+        List<StagedFile> stagedImages = fileStoreService.writeFiles(writeRequest.multipartImageFiles(), ReferenceType.REVIEW);
+        try {
+            return transactionTemplate.execute(status -> saveSnsReview(writeRequest, user, stagedImages));
+        } finally {
+            // 리뷰를 저장하지 못했으면 saveFiles 까지 가지 못한 임시 파일이 남으므로 바로 지운다.
+            fileStoreService.deleteTempFiles(stagedImages);
+        }
+    }
 
-    @Transactional
-    public DetailSnsReviewResponse saveSnsReview(SnsReviewWriteRequest writeRequest, User user){
+    private DetailSnsReviewResponse saveSnsReview(SnsReviewWriteRequest writeRequest, User user, List<StagedFile> stagedImages){
 
         Product product = productRepository.findProductByProductUrl(writeRequest.productURL())
                 .orElseThrow(() -> new ProductNotRegisteredException("해당 상품이 존재하지 않습니다."));
@@ -76,11 +93,12 @@ public class SnsReviewService {
         reviewRepository.save(review);
 
         if(writeRequest.multipartImageFiles() != null) {
-            fileStoreService.storeFiles(writeRequest.multipartImageFiles(), review.getReviewId(), ReferenceType.REVIEW);
+            fileStoreService.saveFiles(stagedImages, review.getReviewId(), ReferenceType.REVIEW);
             review.setReviewImageCount(writeRequest.multipartImageFiles().size());
         }
 
         reviewUtils.saveReviewImage(review);
+        homeTimelineService.fanOutAfterCommit(user.getUserId(), review.getReviewId());
         return mapper.toDetailSnsReviewResponse(review, new HashMap<>(), false);
     }
 
@@ -96,6 +114,16 @@ public class SnsReviewService {
         return mappingReview;
     }
 
+    @Transactional(readOnly = true)
+    public List<DetailSnsReviewResponse> getHomeFeeds(User user, Long reviewId, int size){
+        List<Long> reviewIdList = homeTimelineService.getHomeTimelineReviewIds(user, reviewId, size);
+        List<DetailSnsReviewResponse> homeFeeds = reviewRepository.findMappingReviewByIdIn(user, reviewIdList);
+        if(homeFeeds.isEmpty()){
+            throw new ReviewListEmptyException("");
+        }
+        return homeFeeds;
+    }
+
     @Transactional(readOnly = true)
     public List<CommentResponse> getCommentInfo(long reviewId, User user){
         if(!reviewRepository.existsById(reviewId)){
@@ -125,6 +153,7 @@ public class SnsReviewService {
             newComment.setParentId(parentId);
         }
         commentRepository.save(newComment);
+        reviewCardCache.evictAfterCommit(reviewId);
 
         return mapper.toCommentResponse(newComment);
     }
@@ -140,6 +169,7 @@ public class SnsReviewService {
 
         commentLikeRepository.deleteAllByComment(foundComment);
         commentRepository.delete(foundComment);
+        reviewCardCache.evictAfterCommit(foundComment.getReview().getReviewId());
 
         return mapper.toCommentResponse(foundComment);
     }
@@ -165,21 +195,26 @@ public class SnsReviewService {
 
         Optional<Reaction> foundReaction = reactionRepository.findByReview_ReviewIdAndUser(reviewId, user);
 
+        ReactionType inputReactionType = ReactionType.valueOf(inputReaction);
+        reviewCardCache.evictAfterCommit(reviewId);
         Reaction toUpdateReaction;
         if(foundReaction.isPresent()){
             toUpdateReaction = foundReaction.get();
-            if(toUpdateReaction.getReactionType().equals(ReactionType.valueOf(inputReaction))){
+            if(toUpdateReaction.getReactionType().equals(inputReactionType)){
                 reactionRepository.delete(toUpdateReaction);
+                reviewReactionSummaryService.decreaseReactionCount(reviewId, inputReactionType);
                 return mapper.toDetailReactionResponse(toUpdateReaction);
             }
 
-            toUpdateReaction.setReactionType(ReactionType.valueOf(inputReaction));
+            reviewReactionSummaryService.changeReactionType(reviewId, toUpdateReaction.getReactionType(), inputReactionType);
+            toUpdateReaction.setReactionType(inputReactionType);
         }else{
             toUpdateReaction = Reaction.builder()
-                    .reactionType(ReactionType.valueOf(inputReaction))
+                    .reactionType(inputReactionType)
                     .review(review)
                     .user(user)
                     .build();
+            reviewReactionSummaryService.increaseReactionCount(reviewId, inputReactionType);
         }
 
         reactionRepository.save(toUpdateReaction);
@@ -194,6 +229,9 @@ public class SnsReviewService {
 
         review.setStatus(ReviewStatus.DELETED);
         reviewRepository.save(review);
+        reviewReactionSummaryService.deleteSummary(reviewId);
+        homeTimelineService.removeAfterCommit(review.getUser().getUserId(), reviewId);
+        reviewCardCache.evictAfterCommit(reviewId);
 
         review.setReviewImageUuidList(new ArrayList<>());
         return mapper.toDetailSnsReviewResponse(review, new HashMap<>(), false);
@@ -218,8 +256,17 @@ public class SnsReviewService {
         }
     }
 
-    @Transactional
     public DetailSnsReviewResponse changeSnsReview(Long reviewId, SnsReviewChangeRequest changeRequest) {
+        // 이미지는 트랜잭션을 열기 전에 디스크에 써 둔다.
+        List<StagedFile> stagedImages = fileStoreService.writeFiles(changeRequest.multipartImageFiles(), ReferenceType.REVIEW);
+        try {
+            return transactionTemplate.execute(status -> changeSnsReview(reviewId, changeRequest, stagedImages));
+        } finally {
+            fileStoreService.deleteTempFiles(stagedImages);
+        }
+    }
+
+    private DetailSnsReviewResponse changeSnsReview(Long reviewId, SnsReviewChangeRequest changeRequest, List<StagedFile> stagedImages) {
         Review review = reviewRepository.findById(reviewId).get();
         if(changeRequest.content() != null){
             review.setContent(changeRequest.content());
@@ -229,18 +276,16 @@ public class SnsReviewService {
         }
 
         if(changeRequest.multipartImageFiles() != null && !changeRequest.multipartImageFiles().isEmpty()){
-            fileStoreService.storeFiles(changeRequest.multipartImageFiles(),review.getReviewId(), ReferenceType.REVIEW);
-            int currentImageCount = review.getReviewImageUuidList().size() + changeRequest.multipartImageFiles().size();
-            review.setReviewImageCount(currentImageCount);
+            fileStoreService.saveFiles(stagedImages, review.getReviewId(), ReferenceType.REVIEW);
         }
 
         if(changeRequest.deleteFileList() != null && !changeRequest.deleteFileList().isEmpty()){
             fileStoreService.checkDeleteFile(changeRequest.deleteFileList());
-            int currentImageCount = review.getReviewImageUuidList().size() - changeRequest.deleteFileList().size();
-            review.setReviewImageCount(currentImageCount);
         }
+        review.setReviewImageCount(review.getReviewImageManifestList().size());
 
         reviewRepository.save(review);
+        reviewCardCache.evictAfterCommit(reviewId);
         reviewUtils.saveReviewImage(review);
         return mapper.toDetailSnsReviewResponse(review, new HashMap<>(), false);
     }
@@ -46,6 +46,7 @@ public class SnsService {
     private final SnsMapper snsMapper;
     private final ReviewMapper reviewMapper;
     private final FollowMapper followMapper;
+    private final HomeTimelineService homeTimelineService;
 
     @Transactional
     public FollowResultResponse followProcess(User user, String targetUserNickname){
@@ -66,6 +67,7 @@ public class SnsService {
             followRepository.save(newFollow);
         }
 
+        homeTimelineService.evictHomeTimelineAfterCommit(user.getUserId());
         return followMapper.toFollowResultResponse(newFollow);
     }
 
@@ -81,6 +83,7 @@ public class SnsService {
         foundBackFollow.ifPresent(follow -> follow.setFollowBackFlag(false));
         followRepository.delete(foundFollow.get());
 
+        homeTimelineService.evictHomeTimelineAfterCommit(user.getUserId());
         return followMapper.toFollowResultResponse(foundFollow.get());
     }
 
@@ -0,0 +1,125 @@
+package com.developlife.reviewtwits.service;
+
+import com.developlife.reviewtwits.entity.Project;
+import com.developlife.reviewtwits.entity.User;
+import com.developlife.reviewtwits.message.response.project.ProductStatisticsResponse;
+import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
+import com.developlife.reviewtwits.message.response.project.SearchFlowResponse;
+import com.developlife.reviewtwits.message.response.statistics.DailyVisitInfoResponse;
+import com.developlife.reviewtwits.message.response.statistics.DashboardPanelResult;
+import com.developlife.reviewtwits.message.response.statistics.DashboardPanelResult.Status;
+import com.developlife.reviewtwits.message.response.statistics.DashboardResponse;
+import com.developlife.reviewtwits.message.response.statistics.SimpleProjectInfoResponse;
+import com.developlife.reviewtwits.type.project.DashboardPanel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 통계 대시보드의 여러 패널을 한 번의 요청으로 계산한다.
+ * 프로젝트 조회와 권한 확인은 한 번만 하고, 패널은 dashboardExecutor 에서 동시에 계산한다.
+ * 패널마다 panel-timeout 안에 끝난 결과만 담고, 시간 초과나 실패한 패널은 상태만 알려준다.
+ */
+@Slf4j
+@Service
+public class StatDashboardService {
+
+    private final StatService statService;
+    private final ThreadPoolTaskExecutor dashboardExecutor;
+    private final long panelTimeoutNanos;
+
+    public StatDashboardService(StatService statService,
+                                @Qualifier("dashboardExecutor") ThreadPoolTaskExecutor dashboardExecutor,
+                                @Value("${statistics.dashboard.panel-timeout-millis:3000}") long panelTimeoutMillis) {
+        this.statService = statService;
+        this.dashboardExecutor = dashboardExecutor;
+        this.panelTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(panelTimeoutMillis);
+    }
+
+    public DashboardResponse getDashboard(String projectName, Set<DashboardPanel> panels, String range, User user) {
+        Project project = statService.getProject(projectName, user);
+        Set<DashboardPanel> requestedPanels = panels == null || panels.isEmpty()
+                ? EnumSet.allOf(DashboardPanel.class)
+                : EnumSet.copyOf(panels);
+
+        long submittedAt = System.nanoTime();
+        Map<DashboardPanel, Future<PanelOutcome>> futures = new EnumMap<>(DashboardPanel.class);
+        Map<DashboardPanel, DashboardPanelResult> results = new EnumMap<>(DashboardPanel.class);
+        for(DashboardPanel panel : requestedPanels){
+            try {
+                futures.put(panel, dashboardExecutor.submit(() -> new PanelOutcome(computePanel(panel, project, range), System.nanoTime())));
+            } catch (TaskRejectedException e) {
+                results.put(panel, panelResult(Status.REJECTED, 0, "대시보드 요청이 많아 패널을 계산하지 못했습니다."));
+            }
+        }
+
+        // 모든 패널이 같은 시점에 시작했으므로 제출 시점부터의 제한 시간을 함께 기다린다.
+        long deadline = submittedAt + panelTimeoutNanos;
+        DashboardResponse.DashboardResponseBuilder response = DashboardResponse.builder();
+        for(Map.Entry<DashboardPanel, Future<PanelOutcome>> entry : futures.entrySet()){
+            DashboardPanel panel = entry.getKey();
+            Future<PanelOutcome> future = entry.getValue();
+            try {
+                PanelOutcome outcome = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                applyPanel(response, panel, outcome.value());
+                results.put(panel, panelResult(Status.OK, outcome.finishedAt() - submittedAt, null));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.put(panel, panelResult(Status.TIMEOUT, System.nanoTime() - submittedAt, "제한 시간 안에 계산하지 못했습니다."));
+            } catch (ExecutionException e) {
+                log.warn("대시보드 {} 패널을 계산하지 못했습니다. projectId={}", panel, project.getProjectId(), e.getCause());
+                results.put(panel, panelResult(Status.FAILED, System.nanoTime() - submittedAt, "패널을 계산하지 못했습니다."));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(remaining -> remaining.cancel(true));
+                results.put(panel, panelResult(Status.FAILED, System.nanoTime() - submittedAt, "요청이 중단되었습니다."));
+                break;
+            }
+        }
+
+        return response.panels(results).build();
+    }
+
+    private Object computePanel(DashboardPanel panel, Project project, String range) {
+        return switch (panel) {
+            case SIMPLE_PROJECT_INFO -> statService.getSimpleProjectInfo(project);
+            case PRODUCT_STATISTICS -> statService.getProductStatisticsInfo(project);
+            case REQUEST_INFLOW_INFOS -> statService.getRequestSearchFlowInfos(project);
+            case READ_TIME_INFO -> statService.getReadTimeInfo(project);
+            case RECENT_VISIT_COUNTS -> statService.getRecentVisitCounts(project);
+            case DAILY_VISIT_GRAPH_INFOS -> statService.getDailyVisitInfos(project, range);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyPanel(DashboardResponse.DashboardResponseBuilder response, DashboardPanel panel, Object value) {
+        switch (panel) {
+            case SIMPLE_PROJECT_INFO -> response.simpleProjectInfo((SimpleProjectInfoResponse) value);
+            case PRODUCT_STATISTICS -> response.productStatistics((List<ProductStatisticsResponse>) value);
+            case REQUEST_INFLOW_INFOS -> response.requestInflowInfos((SearchFlowResponse) value);
+            case READ_TIME_INFO -> response.readTimeInfo((Map<Integer, Long>) value);
+            case RECENT_VISIT_COUNTS -> response.recentVisitCounts((RecentVisitInfoResponse) value);
+            case DAILY_VISIT_GRAPH_INFOS -> response.dailyVisitGraphInfos((DailyVisitInfoResponse) value);
+        }
+    }
+
+    private DashboardPanelResult panelResult(Status status, long elapsedNanos, String message) {
+        return DashboardPanelResult.builder()
+                .status(status)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .message(message)
+                .build();
+    }
+
+    private record PanelOutcome(Object value, long finishedAt) {
+    }
+}
@@ -1,8 +1,6 @@
 package com.developlife.reviewtwits.service;
 
-import com.developlife.reviewtwits.entity.Product;
 import com.developlife.reviewtwits.entity.Project;
-import com.developlife.reviewtwits.entity.StatInfo;
 import com.developlife.reviewtwits.entity.User;
 import com.developlife.reviewtwits.exception.product.ProductNotRegisteredException;
 import com.developlife.reviewtwits.exception.project.ProjectNotFoundException;
@@ -16,18 +14,35 @@ import com.developlife.reviewtwits.message.response.statistics.VisitTotalGraphRe
 import com.developlife.reviewtwits.message.response.project.*;
 import com.developlife.reviewtwits.message.response.statistics.SaveStatResponse;
 import com.developlife.reviewtwits.message.response.statistics.SimpleProjectInfoResponse;
-import com.developlife.reviewtwits.repository.ProductRepository;
 import com.developlife.reviewtwits.repository.ProjectRepository;
+import com.developlife.reviewtwits.repository.statistics.ProductReferenceCache;
+import com.developlife.reviewtwits.repository.statistics.ProductReferenceCache.ProductReference;
 import com.developlife.reviewtwits.repository.statistics.StatInfoRepository;
+import com.developlife.reviewtwits.service.statistics.LiveVisitBroadcaster;
+import com.developlife.reviewtwits.service.statistics.StatIdAllocator;
+import com.developlife.reviewtwits.service.statistics.UniqueVisitorService;
+import com.developlife.reviewtwits.service.statistics.VisitCounterService;
+import com.developlife.reviewtwits.service.statistics.VisitDedupFilter;
+import com.developlife.reviewtwits.service.statistics.VisitEvent;
+import com.developlife.reviewtwits.service.statistics.VisitEventBuffer;
 import com.developlife.reviewtwits.type.ChartPeriodUnit;
 import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+import com.developlife.reviewtwits.type.project.VisitIngestionPolicy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author WhalesBob
@@ -38,36 +53,101 @@ import java.util.Map;
 public class StatService {
 
     private final StatInfoRepository statInfoRepository;
-    private final ProductRepository productRepository;
     private final ProjectRepository projectRepository;
     private final StatMapper statMapper;
+    private final ProductReferenceCache productReferenceCache;
+    private final StatIdAllocator statIdAllocator;
+    private final VisitEventBuffer visitEventBuffer;
+    private final VisitCounterService visitCounterService;
+    private final UniqueVisitorService uniqueVisitorService;
+    private final LiveVisitBroadcaster liveVisitBroadcaster;
+    private final VisitDedupFilter visitDedupFilter;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * 방문 정보는 버퍼에 넣고 바로 응답하며, 실제 저장은 VisitEventBuffer 가 모아서 처리한다.
+     * 프로젝트의 수집 정책에 따라 중복 방문은 기록하지 않고, 표본 추출에서 빠진 방문은 순 방문자에만 반영한다.
+     * 기록하지 않은 방문도 같은 형태로 응답한다.
+     */
     public SaveStatResponse saveStatInfo(User user, StatMessageRequest statMessageRequest) {
 
-        Device device = Device.valueOf(statMessageRequest.device());
-
-        Product foundProduct = productRepository.findProductByProductUrl(statMessageRequest.productUrl())
+        ProductReference productReference = productReferenceCache.findByProductUrl(statMessageRequest.productUrl())
                 .orElseThrow(() -> new ProductNotRegisteredException("해당 상품이 존재하지 않습니다."));
 
-        StatInfo statInfo = StatInfo.builder()
-                .user(user)
-                .device(device)
-                .inflowUrl(statMessageRequest.inflowUrl())
+        VisitEvent visitEvent = createVisitEvent(user == null ? null : user.getUserId(), statMessageRequest, productReference);
+        List<VisitEvent> recordedEvents = new ArrayList<>(1);
+        List<VisitEvent> sampledOutEvents = new ArrayList<>(1);
+        classifyVisitEvent(visitEvent, productReference.ingestionPolicy(), recordedEvents, sampledOutEvents);
+        ingestVisitEvents(recordedEvents, sampledOutEvents);
+        return statMapper.mapVisitEventToSaveStatResponse(visitEvent, user);
+    }
+
+    /**
+     * beacon 으로 모아 보낸 방문 정보를 한 번에 버퍼에 넣고, 기록한 방문 수를 반환한다.
+     * beacon 은 헤더를 실을 수 없으므로 비로그인 방문으로 기록하고, 등록되지 않은 상품의 방문은 건너뛴다.
+     */
+    public int saveVisitBeacon(List<StatMessageRequest> statMessageRequests) {
+        List<VisitEvent> recordedEvents = new ArrayList<>(statMessageRequests.size());
+        List<VisitEvent> sampledOutEvents = new ArrayList<>();
+        // 등록되지 않은 상품은 캐시하지 않으므로, 같은 batch 안에서는 한 번만 조회한다.
+        Map<String, Optional<ProductReference>> productReferences = new HashMap<>();
+        for(StatMessageRequest statMessageRequest : statMessageRequests){
+            productReferences.computeIfAbsent(statMessageRequest.productUrl(), productReferenceCache::findByProductUrl)
+                    .ifPresent(productReference -> classifyVisitEvent(createVisitEvent(null, statMessageRequest, productReference),
+                            productReference.ingestionPolicy(), recordedEvents, sampledOutEvents));
+        }
+        ingestVisitEvents(recordedEvents, sampledOutEvents);
+        return recordedEvents.size();
+    }
+
+    private VisitEvent createVisitEvent(Long userId, StatMessageRequest statMessageRequest, ProductReference productReference) {
+        String inflowHost = Inflow.parseHost(statMessageRequest.inflowUrl());
+        return VisitEvent.builder()
+                .statId(statIdAllocator.nextId())
+                .userId(userId)
+                .visitorId(statMessageRequest.visitorId())
+                .projectId(productReference.projectId())
+                .productId(productReference.productId())
                 .productUrl(statMessageRequest.productUrl())
-                .product(foundProduct)
-                .project(foundProduct.getProject())
+                .inflowUrl(statMessageRequest.inflowUrl())
+                .inflowHost(inflowHost)
+                .inflow(Inflow.fromHost(inflowHost))
+                .device(Device.valueOf(statMessageRequest.device()))
+                .createdDate(LocalDateTime.now())
+                .sampleWeight(productReference.ingestionPolicy().sampleInterval())
                 .build();
+    }
 
-        StatInfo savedInfo = statInfoRepository.save(statInfo);
-        return statMapper.mapStatInfoToSaveStatResponse(savedInfo);
+    // 중복 방문은 버리고, 표본 추출에서 빠진 방문과 기록할 방문을 나눈다.
+    private void classifyVisitEvent(VisitEvent visitEvent, VisitIngestionPolicy ingestionPolicy,
+                                    List<VisitEvent> recordedEvents, List<VisitEvent> sampledOutEvents) {
+        if(visitDedupFilter.isDuplicate(visitEvent.projectId(), visitEvent.productId(),
+                visitEvent.userId(), visitEvent.visitorId(), ingestionPolicy.dedupWindowSeconds())){
+            return;
+        }
+        if(ingestionPolicy.isSampled() && ThreadLocalRandom.current().nextInt(ingestionPolicy.sampleInterval()) != 0){
+            sampledOutEvents.add(visitEvent);
+        }else{
+            recordedEvents.add(visitEvent);
+        }
     }
+
+    private void ingestVisitEvents(List<VisitEvent> recordedEvents, List<VisitEvent> sampledOutEvents) {
+        if(!sampledOutEvents.isEmpty()){
+            uniqueVisitorService.addAfterCommit(sampledOutEvents);
+        }
+        if(!recordedEvents.isEmpty()){
+            visitEventBuffer.enqueueAll(recordedEvents);
+        }
+    }
+
     public VisitTotalGraphResponse getVisitGraphInfos(String projectName, String inputRange, LocalDate startDate, String inputInterval, User user, String inputEndDate) {
         Project project = getProject(projectName, user);
         ChartPeriodUnit interval = ChartPeriodUnit.findByInputValue(inputInterval);
         LocalDate endDate = getLocalDateFromInput(inputEndDate);
 
-        RecentVisitInfoResponse recentInfo = statInfoRepository.findRecentVisitInfo(project);
-        List<VisitInfoResponse> visitInfo = statInfoRepository.findByPeriod(project, endDate, startDate, interval);
+        RecentVisitInfoResponse recentInfo = visitCounterService.getRecentVisitInfo(project.getProjectId());
+        List<VisitInfoResponse> visitInfo = findVisitInfo(project, endDate, startDate, interval);
 
         return VisitTotalGraphResponse.builder()
                 .range(inputRange)
@@ -97,8 +177,11 @@ public class StatService {
     }
 
     public DailyVisitInfoResponse getDailyVisitInfos(String projectName, String inputRange, LocalDate startDate, User user){
-        Project project = getProject(projectName, user);
-        List<VisitInfoResponse> visitInfo = statInfoRepository.findByPeriod(project, LocalDate.now(), startDate, ChartPeriodUnit.ONE_DAY);
+        return getDailyVisitInfos(getProject(projectName, user), inputRange, startDate);
+    }
+
+    public DailyVisitInfoResponse getDailyVisitInfos(Project project, String inputRange, LocalDate startDate){
+        List<VisitInfoResponse> visitInfo = findVisitInfo(project, LocalDate.now(), startDate, ChartPeriodUnit.ONE_DAY);
 
         return DailyVisitInfoResponse.builder()
                 .range(inputRange)
@@ -112,36 +195,73 @@ public class StatService {
     }
 
     public DailyVisitInfoResponse getDailyVisitInfos(String projectName, String inputRange, User user) {
+        return getDailyVisitInfos(getProject(projectName, user), inputRange);
+    }
+
+    public DailyVisitInfoResponse getDailyVisitInfos(Project project, String inputRange) {
         ChartPeriodUnit range = ChartPeriodUnit.findByInputValue(inputRange);
         LocalDate startDate = ChartPeriodUnit.getTimeRangeBefore(LocalDate.now().atTime(LocalTime.MIN), range, ChartPeriodUnit.ONE_DAY).toLocalDate();
-        return getDailyVisitInfos(projectName, inputRange, startDate, user);
+        return getDailyVisitInfos(project, inputRange, startDate);
     }
     public RecentVisitInfoResponse getRecentVisitCounts(String projectName, User user) {
-        Project project = getProject(projectName, user);
-        return statInfoRepository.findRecentVisitInfo(project);
+        return getRecentVisitCounts(getProject(projectName, user));
+    }
+
+    public RecentVisitInfoResponse getRecentVisitCounts(Project project) {
+        return visitCounterService.getRecentVisitInfo(project.getProjectId());
+    }
+
+    /**
+     * 최근 방문 수를 polling 하는 대신 구독하는 실시간 방문 스트림.
+     */
+    // 구독은 오래 열려 있으므로 권한 확인만 짧은 트랜잭션에서 끝내 커넥션을 돌려준 뒤 구독한다.
+    public SseEmitter subscribeLiveVisits(String projectName, User user) {
+        Long projectId = transactionTemplate.execute(status -> getProject(projectName, user).getProjectId());
+        return liveVisitBroadcaster.subscribe(projectId);
     }
 
     public SimpleProjectInfoResponse getSimpleProjectInfo(String projectName, User user) {
-        Project project = getProject(projectName, user);
+        return getSimpleProjectInfo(getProject(projectName, user));
+    }
+
+    public SimpleProjectInfoResponse getSimpleProjectInfo(Project project) {
         return statInfoRepository.findSimpleProjectInfo(project);
     }
 
     public List<ProductStatisticsResponse> getProductStatisticsInfo(String projectName, User user) {
-        Project project = getProject(projectName, user);
-        return statInfoRepository.findProductStatistics(project);
+        return getProductStatisticsInfo(getProject(projectName, user));
+    }
+
+    public List<ProductStatisticsResponse> getProductStatisticsInfo(Project project) {
+        return uniqueVisitorService.withUniqueVisitorCounts(statInfoRepository.findProductStatistics(project));
     }
 
     public SearchFlowResponse getRequestSearchFlowInfos(String projectName, User user) {
-        Project project = getProject(projectName, user);
+        return getRequestSearchFlowInfos(getProject(projectName, user));
+    }
+
+    public SearchFlowResponse getRequestSearchFlowInfos(Project project) {
         return statInfoRepository.findSearchFlow(project);
     }
 
     public Map<Integer, Long> getReadTimeInfo(String projectName, User user) {
-        Project project = getProject(projectName, user);
+        return getReadTimeInfo(getProject(projectName, user));
+    }
+
+    public Map<Integer, Long> getReadTimeInfo(Project project) {
         return statInfoRepository.readTimeGraphInfo(project);
     }
 
-    private Project getProject(String projectName, User user) {
+    private List<VisitInfoResponse> findVisitInfo(Project project, LocalDate endDate, LocalDate startDate, ChartPeriodUnit interval) {
+        List<VisitInfoResponse> visitInfo = statInfoRepository.findByPeriod(project, endDate, startDate, interval);
+        uniqueVisitorService.fillUniqueVisitorCounts(project.getProjectId(), visitInfo, endDate);
+        return visitInfo;
+    }
+
+    /**
+     * 프로젝트를 찾고 유저의 통계 조회 권한을 확인한다.
+     */
+    public Project getProject(String projectName, User user) {
         Project project = projectRepository.findByProjectName(projectName)
                 .orElseThrow(() -> new ProjectNotFoundException("해당 프로젝트가 존재하지 않습니다."));
 
@@ -0,0 +1,7 @@
+package com.developlife.reviewtwits.service.statistics;
+
+/**
+ * backfill 작업이 한 번에 처리한 chunk 의 마지막 키와 처리한 행 수.
+ */
+public record BackfillChunk(long lastKey, long processedRows) {
+}
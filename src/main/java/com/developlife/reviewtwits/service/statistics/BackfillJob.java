@@ -0,0 +1,33 @@
+package com.developlife.reviewtwits.service.statistics;
+
+/**
+ * 기존 방문/리뷰 기록을 키 순서대로 chunk 단위로 다시 계산하는 통계 backfill 작업.
+ * BackfillJobService 가 chunk 마다 트랜잭션을 열고, 같은 트랜잭션 안에서 체크포인트를 기록한다.
+ */
+public interface BackfillJob {
+
+    /**
+     * 작업 이름. backfill_job_state 의 키이자 관리자 API 의 경로로 쓰인다.
+     */
+    String getName();
+
+    /**
+     * 처음 시작할 때의 키. processChunk 는 이 키보다 큰 키부터 처리한다.
+     */
+    default long getInitialKey() {
+        return 0;
+    }
+
+    /**
+     * 시작할 때 처리할 기록이 남아 있는지. true 이면 실행 중이거나 멈춘 상태가 아닐 때 자동으로 시작한다.
+     */
+    default boolean isPending() {
+        return false;
+    }
+
+    /**
+     * lastKey 보다 큰 키부터 최대 chunkSize 만큼 처리한다. 더 처리할 것이 없으면 null 을 반환한다.
+     * 호출하는 쪽의 트랜잭션 안에서 실행되며, 같은 lastKey 로 다시 호출되어도 결과가 같아야 한다.
+     */
+    BackfillChunk processChunk(long lastKey, int chunkSize);
+}
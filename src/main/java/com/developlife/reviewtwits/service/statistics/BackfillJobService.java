@@ -0,0 +1,288 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.entity.BackfillJobState;
+import com.developlife.reviewtwits.exception.statistics.BackfillJobNotFoundException;
+import com.developlife.reviewtwits.mapper.StatMapper;
+import com.developlife.reviewtwits.message.response.statistics.BackfillJobResponse;
+import com.developlife.reviewtwits.repository.statistics.BackfillJobStateRepository;
+import com.developlife.reviewtwits.type.project.BackfillJobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 통계 backfill 작업을 chunk 단위로 실행한다.
+ * chunk 처리와 체크포인트 기록을 한 트랜잭션으로 묶어, 재시작하면 마지막으로 커밋된 chunk 다음부터 이어서 처리한다.
+ * 초당 처리 행 수(rows-per-second)를 넘지 않도록 chunk 사이에 쉬고, 0 이면 쉬지 않는다.
+ * 작업은 Redis 잠금을 잡은 한 서버에서만 실행하고, chunk 를 처리할 때마다 잠금을 연장한다.
+ */
+@Slf4j
+@Service
+public class BackfillJobService {
+
+    private static final String LOCK_KEY_PREFIX = "statistics:backfill:lock:";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+
+    private final Map<String, BackfillJob> jobs;
+    private final BackfillJobStateRepository backfillJobStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor backfillExecutor;
+    private final StatMapper statMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final int chunkSize;
+    private final long rowsPerSecond;
+
+    // 이 서버에서 실행 중인 작업. 다른 서버와의 중복 실행은 잠금으로 막고, 잠금이 풀린 사이의 겹침은 체크포인트의 version 으로 막는다.
+    private final Set<String> runningJobNames = ConcurrentHashMap.newKeySet();
+    // 잠금의 값. 다른 서버가 잡은 잠금을 연장하거나 풀지 않도록 서버마다 다르다.
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    public BackfillJobService(List<BackfillJob> jobs, BackfillJobStateRepository backfillJobStateRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Qualifier("backfillExecutor") ThreadPoolTaskExecutor backfillExecutor,
+                              StatMapper statMapper, StringRedisTemplate redisTemplate,
+                              @Value("${statistics.backfill.chunk-size:1000}") int chunkSize,
+                              @Value("${statistics.backfill.rows-per-second:5000}") long rowsPerSecond) {
+        this.jobs = jobs.stream().collect(Collectors.toMap(BackfillJob::getName, Function.identity()));
+        this.backfillJobStateRepository = backfillJobStateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillExecutor = backfillExecutor;
+        this.statMapper = statMapper;
+        this.redisTemplate = redisTemplate;
+        this.chunkSize = chunkSize;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<BackfillJobResponse> getJobs() {
+        Map<String, BackfillJobState> states = backfillJobStateRepository.findAll().stream()
+                .collect(Collectors.toMap(BackfillJobState::getJobName, Function.identity()));
+        return jobs.keySet().stream()
+                .sorted()
+                .map(jobName -> states.containsKey(jobName)
+                        ? statMapper.mapBackfillJobStateToBackfillJobResponse(states.get(jobName))
+                        : BackfillJobResponse.builder().jobName(jobName).build())
+                .toList();
+    }
+
+    /**
+     * 작업을 시작한다. 멈췄거나 실패한 작업은 마지막 체크포인트부터 이어서 처리하고,
+     * 끝난 작업이나 restart 를 요청한 작업은 처음부터 다시 처리한다.
+     */
+    public BackfillJobResponse start(String jobName, boolean restart) {
+        BackfillJob job = getJob(jobName);
+        BackfillJobState state = transactionTemplate.execute(status -> {
+            BackfillJobState jobState = backfillJobStateRepository.findById(jobName)
+                    .orElseGet(() -> BackfillJobState.builder().jobName(jobName).build());
+            if(restart || jobState.getStatus() == null || jobState.getStatus() == BackfillJobStatus.COMPLETED){
+                jobState.start(job.getInitialKey());
+            }else{
+                jobState.resume();
+            }
+            return backfillJobStateRepository.save(jobState);
+        });
+        submit(job);
+        return statMapper.mapBackfillJobStateToBackfillJobResponse(state);
+    }
+
+    /**
+     * 실행 중인 작업을 멈춘다. 처리 중이던 chunk 는 롤백되고, 다시 시작하면 마지막 체크포인트부터 이어서 처리한다.
+     */
+    public BackfillJobResponse pause(String jobName) {
+        getJob(jobName);
+        BackfillJobState state = transactionTemplate.execute(status -> {
+            BackfillJobState jobState = backfillJobStateRepository.findById(jobName)
+                    .orElseThrow(() -> new BackfillJobNotFoundException("실행된 적이 없는 작업입니다."));
+            if(jobState.getStatus() == BackfillJobStatus.RUNNING){
+                jobState.pause();
+            }
+            return jobState;
+        });
+        return statMapper.mapBackfillJobStateToBackfillJobResponse(state);
+    }
+
+    /**
+     * 실행 중에 서버가 내려간 작업을 이어서 처리하고, 처리할 기록이 남은 작업을 시작한다.
+     * 끝난 작업은 다시 확인하지 않고, 처음 확인했을 때 처리할 기록이 없던 작업은 끝난 것으로 기록해 둔다.
+     * 모든 서버가 시작할 때 실행하지만, 다른 서버가 잠금을 잡고 실행 중인 작업은 건너뛴다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        Map<String, BackfillJobStatus> statuses = backfillJobStateRepository.findAll().stream()
+                .collect(Collectors.toMap(BackfillJobState::getJobName, BackfillJobState::getStatus));
+        jobs.values().forEach(job -> {
+            BackfillJobStatus status = statuses.get(job.getName());
+            if(status == BackfillJobStatus.RUNNING){
+                submit(job);
+            }else if(status == BackfillJobStatus.PAUSED || status == BackfillJobStatus.COMPLETED){
+                return;
+            }else if(job.isPending()){
+                start(job.getName(), false);
+            }else if(status == null){
+                markCompleted(job);
+            }
+        });
+    }
+
+    private void markCompleted(BackfillJob job) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                BackfillJobState jobState = BackfillJobState.builder().jobName(job.getName()).build();
+                jobState.start(job.getInitialKey());
+                jobState.complete();
+                backfillJobStateRepository.save(jobState);
+            });
+        } catch (DataAccessException e) {
+            // 다른 서버가 먼저 기록했으면 그 상태를 따른다.
+            log.info("{} backfill 작업의 상태를 기록하지 못했습니다.", job.getName(), e);
+        }
+    }
+
+    private BackfillJob getJob(String jobName) {
+        BackfillJob job = jobs.get(jobName);
+        if(job == null){
+            throw new BackfillJobNotFoundException("등록되지 않은 backfill 작업입니다.");
+        }
+        return job;
+    }
+
+    private void submit(BackfillJob job) {
+        if(!runningJobNames.add(job.getName())){
+            return;
+        }
+        try {
+            if(!acquireLock(job)){
+                runningJobNames.remove(job.getName());
+                log.info("다른 서버가 {} backfill 작업을 실행하고 있어 건너뜁니다.", job.getName());
+                return;
+            }
+            backfillExecutor.execute(() -> run(job));
+        } catch (RuntimeException e) {
+            releaseLock(job);
+            runningJobNames.remove(job.getName());
+            throw e;
+        }
+    }
+
+    private boolean acquireLock(BackfillJob job) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY_PREFIX + job.getName(), lockOwner, LOCK_TTL));
+    }
+
+    // 잠금이 만료되어 다른 서버가 잡았으면 false 를 반환한다.
+    private boolean renewLock(BackfillJob job) {
+        String lockKey = LOCK_KEY_PREFIX + job.getName();
+        if(!lockOwner.equals(redisTemplate.opsForValue().get(lockKey))){
+            return false;
+        }
+        redisTemplate.expire(lockKey, LOCK_TTL);
+        return true;
+    }
+
+    private void releaseLock(BackfillJob job) {
+        String lockKey = LOCK_KEY_PREFIX + job.getName();
+        try {
+            if(lockOwner.equals(redisTemplate.opsForValue().get(lockKey))){
+                redisTemplate.delete(lockKey);
+            }
+        } catch (RuntimeException e) {
+            // 풀지 못한 잠금은 LOCK_TTL 뒤에 만료된다.
+            log.warn("{} backfill 작업의 잠금을 풀지 못했습니다.", job.getName(), e);
+        }
+    }
+
+    private void run(BackfillJob job) {
+        long startedAt = System.nanoTime();
+        long processedRows = 0;
+        boolean stopped = false;
+        try {
+            while(true){
+                Long chunkRows;
+                try {
+                    chunkRows = transactionTemplate.execute(status -> processChunk(job));
+                } catch (OptimisticLockingFailureException e) {
+                    // 처리하는 동안 체크포인트가 바뀌었으면 chunk 를 롤백하고 바뀐 상태를 다시 읽는다.
+                    continue;
+                }
+                if(chunkRows == null){
+                    stopped = true;
+                    break;
+                }
+                processedRows += chunkRows;
+                if(!renewLock(job)){
+                    // 상태는 RUNNING 으로 남겨 두고, 잠금을 잡은 서버가 이어서 처리한다.
+                    log.warn("{} backfill 작업의 잠금을 다른 서버가 잡아 이 서버에서는 멈춥니다.", job.getName());
+                    break;
+                }
+                throttle(startedAt, processedRows);
+            }
+        } catch (InterruptedException e) {
+            // 상태를 RUNNING 으로 남겨 두고, 다음 시작 때 이어서 처리한다.
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("{} backfill 작업이 실패했습니다.", job.getName(), e);
+            markFailed(job, e);
+        } finally {
+            releaseLock(job);
+            runningJobNames.remove(job.getName());
+        }
+
+        // 멈추는 사이에 다시 시작된 작업은 이어서 처리한다.
+        if(stopped && backfillJobStateRepository.findById(job.getName())
+                .filter(state -> state.getStatus() == BackfillJobStatus.RUNNING).isPresent()){
+            submit(job);
+        }
+    }
+
+    // 처리한 행 수를 반환하고, 끝났거나 RUNNING 이 아니면 null 을 반환한다.
+    private Long processChunk(BackfillJob job) {
+        BackfillJobState state = backfillJobStateRepository.findById(job.getName()).orElse(null);
+        if(state == null || state.getStatus() != BackfillJobStatus.RUNNING){
+            return null;
+        }
+        BackfillChunk chunk = job.processChunk(state.getLastKey(), chunkSize);
+        if(chunk == null){
+            state.complete();
+            log.info("{} backfill 작업이 {} 건을 처리하고 끝났습니다.", job.getName(), state.getProcessedRows());
+            return null;
+        }
+        state.checkpoint(chunk.lastKey(), chunk.processedRows());
+        return chunk.processedRows();
+    }
+
+    private void throttle(long startedAt, long processedRows) throws InterruptedException {
+        if(rowsPerSecond <= 0){
+            return;
+        }
+        long expectedNanos = TimeUnit.SECONDS.toNanos(processedRows) / rowsPerSecond;
+        long aheadNanos = expectedNanos - (System.nanoTime() - startedAt);
+        if(aheadNanos > 0){
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+
+    private void markFailed(BackfillJob job, RuntimeException cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> backfillJobStateRepository.findById(job.getName())
+                    .ifPresent(state -> state.fail(cause.getClass().getSimpleName() + ": " + cause.getMessage())));
+        } catch (RuntimeException e) {
+            log.warn("{} backfill 작업의 실패 상태를 기록하지 못했습니다.", job.getName(), e);
+        }
+    }
+}
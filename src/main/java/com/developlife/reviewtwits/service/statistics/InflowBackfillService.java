@@ -0,0 +1,72 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.type.project.Inflow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 저장된 방문 정보의 유입 host 와 유입 경로를 stat_id 순서로 chunk 단위로 채운다. 키는 마지막으로 처리한 stat_id 이다.
+ * 유입 경로는 통계를 낼 때 host 로 분류하므로, 분류 기준이 바뀌어도 다시 실행할 필요가 없다.
+ * host 컬럼이 생기기 전에 저장된 방문을 위한 작업으로, 한 번 끝나면 backfill_job_state 에 남은 완료 상태를 보고 다시 확인하지 않는다.
+ * 바뀐 방문만 update 한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class InflowBackfillService implements BackfillJob {
+
+    private static final String SELECT_VISITS_SQL =
+            "select stat_id, inflow, inflow_host, inflow_url from stat_info where stat_id > ? order by stat_id limit ?";
+    private static final String UPDATE_INFLOW_SQL = "update stat_info set inflow = ?, inflow_host = ? where stat_id = ?";
+    private static final String EXISTS_UNCLASSIFIED_SQL =
+            "select stat_id from stat_info where inflow is null or (inflow_host is null and inflow_url is not null) limit 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String getName() {
+        return "inflow-reclassify";
+    }
+
+    @Override
+    public boolean isPending() {
+        return !jdbcTemplate.queryForList(EXISTS_UNCLASSIFIED_SQL, Long.class).isEmpty();
+    }
+
+    @Override
+    public BackfillChunk processChunk(long lastKey, int chunkSize) {
+        List<StoredVisit> chunk = jdbcTemplate.query(SELECT_VISITS_SQL,
+                (rs, rowNum) -> new StoredVisit(rs.getLong("stat_id"), rs.getString("inflow"), rs.getString("inflow_host"), rs.getString("inflow_url")),
+                lastKey, chunkSize);
+        if(chunk.isEmpty()){
+            return null;
+        }
+
+        List<StoredVisit> changedVisits = chunk.stream()
+                .filter(StoredVisit::isChanged)
+                .toList();
+        if(!changedVisits.isEmpty()){
+            jdbcTemplate.batchUpdate(UPDATE_INFLOW_SQL, changedVisits, changedVisits.size(), (ps, visit) -> {
+                ps.setString(1, Inflow.fromHost(visit.parsedHost()).name());
+                ps.setString(2, visit.parsedHost());
+                ps.setLong(3, visit.statId());
+            });
+        }
+        return new BackfillChunk(chunk.get(chunk.size() - 1).statId(), chunk.size());
+    }
+
+    private record StoredVisit(long statId, String inflow, String inflowHost, String inflowUrl) {
+
+        String parsedHost() {
+            return Inflow.parseHost(inflowUrl);
+        }
+
+        boolean isChanged() {
+            String parsedHost = parsedHost();
+            return !Inflow.fromHost(parsedHost).name().equals(inflow) || !Objects.equals(parsedHost, inflowHost);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
+import com.developlife.reviewtwits.message.response.statistics.LiveVisitResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * 프로젝트별 실시간 방문 수를 SSE 구독자에게 보낸다.
+ * 방문을 기록한 서버는 커밋 뒤에 프로젝트별 방문 수를 Redis pub/sub 으로 알리고, 모든 서버가 받아 자기 구독자가 있는 프로젝트 채널에 모은다.
+ * 모은 방문 수는 interval 마다 한 번만 방문 수 카운터를 읽어 모든 구독자에게 보낸다.
+ * 구독자마다 크기가 정해진 전송 버퍼를 두고, 버퍼가 가득 찬 느린 구독자는 연결을 끊는다.
+ * 보낼 방문이 없는 구독자에게는 heartbeat 주기마다 주석 이벤트를 보내 연결을 유지한다.
+ */
+@Slf4j
+@Component
+public class LiveVisitBroadcaster {
+
+    public static final String VISIT_CHANNEL = "statistics:live-visit";
+    private static final String VISIT_EVENT_NAME = "visit";
+
+    private final VisitCounterService visitCounterService;
+    private final StringRedisTemplate redisTemplate;
+    private final ThreadPoolTaskExecutor liveVisitExecutor;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatMillis;
+    private final int sendBufferSize;
+
+    private final Counter receivedVisitCounter;
+    private final Counter droppedSubscriberCounter;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public LiveVisitBroadcaster(VisitCounterService visitCounterService,
+                                StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer redisMessageListenerContainer,
+                                MeterRegistry meterRegistry,
+                                @Qualifier("liveVisitExecutor") ThreadPoolTaskExecutor liveVisitExecutor,
+                                @Value("${statistics.live-visit.timeout-millis:1800000}") long emitterTimeoutMillis,
+                                @Value("${statistics.live-visit.heartbeat-millis:15000}") long heartbeatMillis,
+                                @Value("${statistics.live-visit.send-buffer-size:16}") int sendBufferSize) {
+        this.visitCounterService = visitCounterService;
+        this.redisTemplate = redisTemplate;
+        this.liveVisitExecutor = liveVisitExecutor;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.sendBufferSize = sendBufferSize;
+        this.receivedVisitCounter = meterRegistry.counter("statistics.live-visit.received");
+        this.droppedSubscriberCounter = meterRegistry.counter("statistics.live-visit.dropped");
+        Gauge.builder("statistics.live-visit.subscribers", channels,
+                        currentChannels -> currentChannels.values().stream().mapToInt(channel -> channel.subscribers.size()).sum())
+                .register(meterRegistry);
+        redisMessageListenerContainer.addMessageListener((message, pattern) ->
+                        addPendingVisits(parseVisitCounts(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(VISIT_CHANNEL));
+    }
+
+    /**
+     * 프로젝트 채널에 구독자를 추가하고, 현재 방문 수를 첫 이벤트로 보낸다.
+     */
+    public SseEmitter subscribe(long projectId) {
+        Subscriber subscriber = new Subscriber(projectId, new SseEmitter(emitterTimeoutMillis));
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        channels.compute(projectId, (id, channel) -> {
+            Channel target = channel == null ? new Channel() : channel;
+            target.subscribers.add(subscriber);
+            return target;
+        });
+
+        subscriber.offer(toVisitEvent(0, visitCounterService.getRecentVisitInfo(projectId)));
+        return subscriber.emitter;
+    }
+
+    /**
+     * 방문 정보가 커밋된 뒤에 프로젝트별 새 방문 수를 모든 서버에 알린다. 구독자는 다른 서버에 있을 수 있다.
+     * 알리지 못하면 이 서버의 구독자에게만 보낸다.
+     */
+    public void recordAfterCommit(List<VisitEvent> visitEvents) {
+        Map<Long, Long> visitCounts = new HashMap<>();
+        for(VisitEvent visitEvent : visitEvents){
+            visitCounts.merge(visitEvent.projectId(), (long) visitEvent.sampleWeight(), Long::sum);
+        }
+        if(visitCounts.isEmpty()){
+            return;
+        }
+        runAfterCommit(() -> {
+            try {
+                redisTemplate.convertAndSend(VISIT_CHANNEL, formatVisitCounts(visitCounts));
+            } catch (RuntimeException e) {
+                log.warn("실시간 방문 수를 다른 서버에 알리지 못했습니다.", e);
+                addPendingVisits(visitCounts);
+            }
+        });
+    }
+
+    private void addPendingVisits(Map<Long, Long> visitCounts) {
+        visitCounts.forEach((projectId, count) -> {
+            receivedVisitCounter.increment(count);
+            Channel channel = channels.get(projectId);
+            if(channel != null){
+                channel.pendingVisits.addAndGet(count);
+            }
+        });
+    }
+
+    // projectId:count 를 , 로 이어 보낸다.
+    private String formatVisitCounts(Map<Long, Long> visitCounts) {
+        StringJoiner message = new StringJoiner(",");
+        visitCounts.forEach((projectId, count) -> message.add(projectId + ":" + count));
+        return message.toString();
+    }
+
+    private Map<Long, Long> parseVisitCounts(String message) {
+        Map<Long, Long> visitCounts = new HashMap<>();
+        for(String entry : message.split(",")){
+            int separator = entry.indexOf(':');
+            try {
+                visitCounts.merge(Long.parseLong(entry.substring(0, separator)), Long.parseLong(entry.substring(separator + 1)), Long::sum);
+            } catch (RuntimeException e) {
+                log.warn("실시간 방문 수 메시지를 읽지 못했습니다. entry={}", entry);
+            }
+        }
+        return visitCounts;
+    }
+
+    @Scheduled(fixedDelayString = "${statistics.live-visit.interval-millis:1000}")
+    public void broadcast() {
+        long now = System.currentTimeMillis();
+        channels.forEach((projectId, channel) -> {
+            long newVisits = channel.pendingVisits.getAndSet(0);
+            if(newVisits > 0){
+                try {
+                    LiveEvent visitEvent = toVisitEvent(newVisits, visitCounterService.getRecentVisitInfo(projectId));
+                    channel.subscribers.forEach(subscriber -> subscriber.offer(visitEvent));
+                } catch (RuntimeException e) {
+                    log.warn("실시간 방문 수를 보내지 못했습니다. projectId={}", projectId, e);
+                }
+            }
+            channel.subscribers.stream()
+                    .filter(subscriber -> now - subscriber.lastOfferedAt >= heartbeatMillis)
+                    .forEach(subscriber -> subscriber.offer(LiveEvent.HEARTBEAT));
+        });
+    }
+
+    private LiveEvent toVisitEvent(long newVisits, RecentVisitInfoResponse recentVisitInfo) {
+        return new LiveEvent(VISIT_EVENT_NAME, LiveVisitResponse.builder()
+                .newVisits(newVisits)
+                .todayVisit(recentVisitInfo.todayVisit())
+                .yesterdayVisit(recentVisitInfo.yesterdayVisit())
+                .totalVisit(recentVisitInfo.totalVisit())
+                .build());
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        channels.computeIfPresent(subscriber.projectId, (id, channel) -> {
+            channel.subscribers.remove(subscriber);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private static final class Channel {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final AtomicLong pendingVisits = new AtomicLong();
+    }
+
+    // name 이 없으면 연결 유지를 위한 주석 이벤트이다.
+    private record LiveEvent(String name, Object data) {
+        private static final LiveEvent HEARTBEAT = new LiveEvent(null, null);
+    }
+
+    private final class Subscriber {
+
+        private final long projectId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<LiveEvent> sendBuffer = new ArrayBlockingQueue<>(sendBufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastOfferedAt = System.currentTimeMillis();
+
+        private Subscriber(long projectId, SseEmitter emitter) {
+            this.projectId = projectId;
+            this.emitter = emitter;
+        }
+
+        private void offer(LiveEvent event) {
+            if(closed.get()){
+                return;
+            }
+            if(!sendBuffer.offer(event)){
+                log.debug("전송 버퍼가 가득 찬 실시간 방문 구독자의 연결을 끊습니다. projectId={}", projectId);
+                droppedSubscriberCounter.increment();
+                close();
+                return;
+            }
+            lastOfferedAt = System.currentTimeMillis();
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if(!draining.compareAndSet(false, true)){
+                return;
+            }
+            try {
+                liveVisitExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                close();
+            }
+        }
+
+        // 한 구독자에 대한 전송은 한 스레드에서만 순서대로 실행한다.
+        private void drain() {
+            try {
+                LiveEvent event;
+                while(!closed.get() && (event = sendBuffer.poll()) != null){
+                    emitter.send(event.name() == null
+                            ? SseEmitter.event().comment("heartbeat")
+                            : SseEmitter.event().name(event.name()).data(event.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if(!closed.get() && !sendBuffer.isEmpty()){
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            if(closed.compareAndSet(false, true)){
+                sendBuffer.clear();
+                unsubscribe(this);
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.entity.StatInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * StatInfo 에 매핑된 id 생성기(pooled sequence)로 statId 를 미리 발급한다.
+ * 생성기가 id 를 블록 단위로 예약하므로 DB 는 블록이 소진될 때만 조회한다.
+ * 시작할 때 stat_info_seq 가 이미 기록된 stat_id 보다 뒤처져 있으면(sequence 도입 전 데이터, 복원 등) 앞으로 당긴다.
+ */
+@Slf4j
+@Component
+public class StatIdAllocator {
+
+    private static final String SEQUENCE_NAME = "stat_info_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator identifierGenerator;
+
+    public StatIdAllocator(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.identifierGenerator = sessionFactory.getMetamodel()
+                .entityPersister(StatInfo.class)
+                .getIdentifierGenerator();
+    }
+
+    /**
+     * pooled 생성기는 sequence 값을 예약한 블록의 끝으로 쓰므로, 다음 블록 전체가 max(stat_id) 보다 크도록 sequence 를 맞춘다.
+     * 이 서버가 id 를 발급하기 전에 실행된다.
+     */
+    @PostConstruct
+    public void ensureSequenceAheadOfStoredIds() {
+        Long maxStatId = jdbcTemplate.queryForObject("select max(stat_id) from stat_info", Long.class);
+        if(maxStatId == null){
+            return;
+        }
+        Long nextValue = jdbcTemplate.queryForObject("select next value for " + SEQUENCE_NAME, Long.class);
+        if(nextValue != null && nextValue - StatInfo.ID_ALLOCATION_SIZE >= maxStatId){
+            return;
+        }
+        long restartValue = maxStatId + StatInfo.ID_ALLOCATION_SIZE + 1;
+        jdbcTemplate.execute("alter sequence " + SEQUENCE_NAME + " restart with " + restartValue);
+        log.warn("{} 가 기록된 stat_id({})보다 뒤처져 있어 {} 부터 다시 발급합니다.", SEQUENCE_NAME, maxStatId, restartValue);
+    }
+
+    public long nextId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return ((Number) identifierGenerator.generate((SharedSessionContractImplementor) session, null)).longValue();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 순 방문자 sketch 가 생기기 전에 저장된 방문을 stat_id 순서로 chunk 단위로 sketch 에 넣는다. 키는 마지막으로 처리한 stat_id 이다.
+ * stat_info 에는 비로그인 방문자의 visitorId 가 없으므로 로그인 유저의 방문만 채운다.
+ * 방문 정보가 있으면 처음 시작할 때 한 번 실행되고, Redis 를 비웠을 때는 관리자 API 로 다시 실행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UniqueVisitorBackfillJob implements BackfillJob {
+
+    private static final String SELECT_VISITS_SQL =
+            "select stat_id, project_project_id, product_product_id, user_user_id, created_date from stat_info " +
+            "where stat_id > ? order by stat_id limit ?";
+    private static final String EXISTS_VISIT_SQL = "select stat_id from stat_info limit 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UniqueVisitorService uniqueVisitorService;
+
+    @Override
+    public String getName() {
+        return "unique-visitor";
+    }
+
+    @Override
+    public boolean isPending() {
+        return !jdbcTemplate.queryForList(EXISTS_VISIT_SQL, Long.class).isEmpty();
+    }
+
+    @Override
+    public BackfillChunk processChunk(long lastKey, int chunkSize) {
+        List<StoredVisit> chunk = jdbcTemplate.query(SELECT_VISITS_SQL,
+                (rs, rowNum) -> new StoredVisit(rs.getLong("stat_id"), VisitEvent.builder()
+                        .statId(rs.getLong("stat_id"))
+                        .projectId(rs.getLong("project_project_id"))
+                        .productId(rs.getLong("product_product_id"))
+                        .userId(rs.getObject("user_user_id", Long.class))
+                        .createdDate(rs.getTimestamp("created_date").toLocalDateTime())
+                        .build()),
+                lastKey, chunkSize);
+        if(chunk.isEmpty()){
+            return null;
+        }
+
+        uniqueVisitorService.addStoredVisits(chunk.stream()
+                .map(StoredVisit::visitEvent)
+                .filter(visitEvent -> visitEvent.userId() != null && visitEvent.projectId() != 0)
+                .toList());
+        return new BackfillChunk(chunk.get(chunk.size() - 1).statId(), chunk.size());
+    }
+
+    private record StoredVisit(long statId, VisitEvent visitEvent) {
+    }
+}
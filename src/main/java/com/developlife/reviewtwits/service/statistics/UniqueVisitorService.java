@@ -0,0 +1,188 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.message.response.project.ProductStatisticsResponse;
+import com.developlife.reviewtwits.message.response.statistics.VisitInfoResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * 프로젝트/상품별 순 방문자 수를 Redis HyperLogLog 로 관리한다.
+ * 방문 정보가 기록될 때 프로젝트의 일별 sketch 와 상품의 전체 기간 sketch 에 방문자 id 를 넣고,
+ * 주/월/년 구간은 일별 sketch 를 PFCOUNT 로 합쳐서 센다. 날짜는 방문 수 카운터와 같은 statistics.visit-counter.zone 기준이다.
+ * 이 sketch 가 생기기 전의 방문은 UniqueVisitorBackfillJob 이 채운다.
+ * sketch 하나는 방문자 수와 관계없이 최대 12KB(dense 표현)를 사용하고, 방문자가 적은 동안은 sparse 표현으로 더 작다.
+ * 표준 오차는 약 0.81% 이다.
+ */
+@Slf4j
+@Service
+public class UniqueVisitorService {
+
+    private static final String PROJECT_SKETCH_KEY = "visit:uv:project:";
+    private static final String PRODUCT_SKETCH_KEY = "visit:uv:product:";
+    // 상품 통계는 전체 기간 순 방문자를 보여주므로, 일별 sketch 수천 개를 합치지 않도록 전체 기간 sketch 를 따로 둔다.
+    private static final String TOTAL_SKETCH_SUFFIX = "total";
+
+    private final StringRedisTemplate redisTemplate;
+    private final long retentionDays;
+    private final long sketchTtlSeconds;
+    private final ZoneId counterZone;
+
+    public UniqueVisitorService(StringRedisTemplate redisTemplate,
+                                @Value("${statistics.unique-visitor.retention-days:1830}") long retentionDays,
+                                @Value("${statistics.visit-counter.zone:}") String counterZone) {
+        this.redisTemplate = redisTemplate;
+        this.retentionDays = retentionDays;
+        this.sketchTtlSeconds = retentionDays * 24 * 60 * 60;
+        this.counterZone = counterZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(counterZone);
+    }
+
+    /**
+     * 방문 정보가 커밋된 뒤에 sketch 에 방문자를 추가한다. 방문자를 식별할 수 없는 방문은 순 방문자에서 제외된다.
+     */
+    public void addAfterCommit(List<VisitEvent> visitEvents) {
+        Map<String, Set<String>> sketchMembers = collectSketchMembers(visitEvents);
+        if(sketchMembers.isEmpty()){
+            return;
+        }
+        runAfterCommit(() -> addToSketches(sketchMembers));
+    }
+
+    /**
+     * 이미 기록된 방문을 바로 sketch 에 추가한다. PFADD 는 같은 방문자를 여러 번 넣어도 결과가 같으므로 다시 실행해도 된다.
+     * 보관 기간이 지난 날의 방문은 넣지 않는다.
+     */
+    public void addStoredVisits(List<VisitEvent> visitEvents) {
+        LocalDate oldestDate = LocalDate.now(counterZone).minusDays(retentionDays);
+        Map<String, Set<String>> sketchMembers = collectSketchMembers(visitEvents.stream()
+                .filter(visitEvent -> !toCounterDate(visitEvent.createdDate()).isBefore(oldestDate))
+                .toList());
+        if(!sketchMembers.isEmpty()){
+            addToSketches(sketchMembers);
+        }
+    }
+
+    // 일별 sketch 는 프로젝트 그래프에만 쓰이고, 상품 통계는 전체 기간 sketch 만 읽는다.
+    private Map<String, Set<String>> collectSketchMembers(List<VisitEvent> visitEvents) {
+        Map<String, Set<String>> sketchMembers = new HashMap<>();
+        for(VisitEvent visitEvent : visitEvents){
+            String visitor = visitorOf(visitEvent);
+            if(visitor == null){
+                continue;
+            }
+            LocalDate visitDate = toCounterDate(visitEvent.createdDate());
+            sketchMembers.computeIfAbsent(projectSketchKey(visitEvent.projectId(), visitDate), key -> new HashSet<>()).add(visitor);
+            sketchMembers.computeIfAbsent(productSketchKey(visitEvent.productId(), TOTAL_SKETCH_SUFFIX), key -> new HashSet<>()).add(visitor);
+        }
+        return sketchMembers;
+    }
+
+    // 방문 시각은 서버 시간대로 저장되므로 카운터 시간대의 날짜로 바꾼다.
+    private LocalDate toCounterDate(LocalDateTime createdDate) {
+        return createdDate.atZone(ZoneId.systemDefault()).withZoneSameInstant(counterZone).toLocalDate();
+    }
+
+    /**
+     * 그래프의 각 구간에 포함된 일별 sketch 를 합쳐 구간별 순 방문자 수를 채운다.
+     * 각 구간은 자신의 timeStamp 부터 다음 구간 직전 날짜(마지막 구간은 endDate)까지이다.
+     */
+    public void fillUniqueVisitorCounts(long projectId, List<VisitInfoResponse> visitInfo, LocalDate endDate) {
+        if(visitInfo.isEmpty()){
+            return;
+        }
+        List<String[]> bucketKeys = new ArrayList<>();
+        for(int i = 0; i < visitInfo.size(); i++){
+            LocalDate bucketStart = LocalDate.parse(visitInfo.get(i).getTimeStamp());
+            LocalDate bucketEnd = i + 1 < visitInfo.size()
+                    ? LocalDate.parse(visitInfo.get(i + 1).getTimeStamp()).minusDays(1)
+                    : endDate;
+            bucketKeys.add(bucketStart.datesUntil(bucketEnd.plusDays(1))
+                    .map(date -> projectSketchKey(projectId, date))
+                    .toArray(String[]::new));
+        }
+
+        List<Long> counts = countSketches(bucketKeys);
+        for(int i = 0; i < visitInfo.size(); i++){
+            visitInfo.get(i).setUniqueVisitorCount(counts == null ? null : counts.get(i).intValue());
+        }
+    }
+
+    public List<ProductStatisticsResponse> withUniqueVisitorCounts(List<ProductStatisticsResponse> productStatistics) {
+        List<String[]> productKeys = productStatistics.stream()
+                .map(response -> new String[]{productSketchKey(response.productId(), TOTAL_SKETCH_SUFFIX)})
+                .toList();
+
+        List<Long> counts = countSketches(productKeys);
+        if(counts == null){
+            return productStatistics;
+        }
+        List<ProductStatisticsResponse> response = new ArrayList<>();
+        for(int i = 0; i < productStatistics.size(); i++){
+            response.add(productStatistics.get(i).withUniqueVisitorCount(counts.get(i)));
+        }
+        return response;
+    }
+
+    // 로그인 유저는 userId, 비로그인 방문자는 클라이언트가 보낸 visitorId 로 구분한다.
+    private String visitorOf(VisitEvent visitEvent) {
+        if(visitEvent.userId() != null){
+            return "u:" + visitEvent.userId();
+        }
+        if(visitEvent.visitorId() != null && !visitEvent.visitorId().isBlank()){
+            return "a:" + visitEvent.visitorId();
+        }
+        return null;
+    }
+
+    private void addToSketches(Map<String, Set<String>> sketchMembers) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                sketchMembers.forEach((key, visitors) -> {
+                    stringConnection.pfAdd(key, visitors.toArray(String[]::new));
+                    stringConnection.expire(key, sketchTtlSeconds);
+                });
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("순 방문자 sketch 를 갱신하지 못했습니다.", e);
+        }
+    }
+
+    // 키 묶음마다 PFCOUNT 를 한 번씩 pipeline 으로 보낸다. Redis 를 사용할 수 없으면 null 을 반환한다.
+    private List<Long> countSketches(List<String[]> keyGroups) {
+        if(keyGroups.isEmpty()){
+            return List.of();
+        }
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                keyGroups.forEach(stringConnection::pfCount);
+                return null;
+            });
+            return results.stream().map(result -> (Long) result).toList();
+        } catch (DataAccessException e) {
+            log.warn("순 방문자 수를 Redis 에서 읽지 못했습니다.", e);
+            return null;
+        }
+    }
+
+    private String projectSketchKey(long projectId, LocalDate date) {
+        return PROJECT_SKETCH_KEY + projectId + ":" + date;
+    }
+
+    private String productSketchKey(long productId, String suffix) {
+        return PRODUCT_SKETCH_KEY + productId + ":" + suffix;
+    }
+}
@@ -0,0 +1,83 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.exception.statistics.InvalidBeaconException;
+import com.developlife.reviewtwits.message.request.StatMessageRequest;
+import com.developlife.reviewtwits.service.StatService;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.ByteStreams;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 추적 스크립트가 navigator.sendBeacon 으로 모아 보낸 방문 정보를 읽어 한 번에 기록한다.
+ * 본문은 방문 정보의 JSON 배열이나 한 줄에 하나씩 쓴 NDJSON 이고, 필드 타입이 맞지 않거나 검증에 실패한 방문은 건너뛴다.
+ * navigator.sendBeacon 은 요청 헤더를 정할 수 없으므로 beacon 방문은 비로그인 방문으로 기록하고, 방문자는 visitorId 로 구분한다.
+ */
+@Service
+public class VisitBeaconService {
+
+    private final ObjectReader statMessageReader;
+    private final Validator validator;
+    private final StatService statService;
+    private final int maxEvents;
+    private final long maxBytes;
+
+    public VisitBeaconService(ObjectMapper objectMapper, Validator validator, StatService statService,
+                              @Value("${statistics.beacon.max-events:200}") int maxEvents,
+                              @Value("${statistics.beacon.max-bytes:65536}") long maxBytes) {
+        this.statMessageReader = objectMapper.readerFor(StatMessageRequest.class);
+        this.validator = validator;
+        this.statService = statService;
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 기록한 방문 수를 반환한다. 중복이거나 표본 추출에서 빠진 방문, 등록되지 않은 상품의 방문은 기록하지 않는다.
+     */
+    public int save(InputStream body, long contentLength) {
+        if(contentLength > maxBytes){
+            throw new InvalidBeaconException("beacon 본문은 " + maxBytes + " 바이트 이하여야 합니다.");
+        }
+        List<StatMessageRequest> statMessageRequests = read(ByteStreams.limit(body, maxBytes));
+        if(statMessageRequests.isEmpty()){
+            return 0;
+        }
+        return statService.saveVisitBeacon(statMessageRequests);
+    }
+
+    // readValues 는 최상위 JSON 배열의 원소와, 공백으로 구분된 최상위 값(NDJSON)을 모두 하나씩 읽는다.
+    // 원소를 방문 정보로 바꾸지 못하면 MappingIterator 가 다음 hasNextValue 에서 그 원소의 끝까지 건너뛰므로 나머지는 그대로 읽는다.
+    // JSON 문법이 깨진 본문은 어디서 다시 읽어야 할지 알 수 없으므로 400 으로 거절한다.
+    private List<StatMessageRequest> read(InputStream body) {
+        List<StatMessageRequest> statMessageRequests = new ArrayList<>();
+        try (MappingIterator<StatMessageRequest> iterator = statMessageReader.readValues(body)) {
+            while(iterator.hasNextValue()){
+                if(statMessageRequests.size() == maxEvents){
+                    throw new InvalidBeaconException("beacon 한 번에 보낼 수 있는 방문 정보는 " + maxEvents + "건 이하입니다.");
+                }
+                StatMessageRequest statMessageRequest;
+                try {
+                    statMessageRequest = iterator.nextValue();
+                } catch (JsonMappingException e) {
+                    continue;
+                }
+                if(statMessageRequest != null && validator.validate(statMessageRequest).isEmpty()){
+                    statMessageRequests.add(statMessageRequest);
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidBeaconException("beacon 본문을 읽을 수 없습니다. 방문 정보의 JSON 배열이나 NDJSON 으로 보내주세요.");
+        }
+        return statMessageRequests;
+    }
+}
@@ -0,0 +1,54 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.repository.statistics.UserDemographicsCache;
+import com.developlife.reviewtwits.repository.statistics.UserDemographicsCache.UserDemographics;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnRow;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * 기록된 방문 정보를 컬럼 저장소에 추가한다. 유저의 성별/출생 연도는 기록 트랜잭션 안에서 찾고, 저장소에는 커밋 이후에 추가한다.
+ */
+@Component
+public class VisitColumnIngestor {
+
+    private final VisitColumnStore visitColumnStore;
+    private final UserDemographicsCache userDemographicsCache;
+
+    public VisitColumnIngestor(VisitColumnStore visitColumnStore, UserDemographicsCache userDemographicsCache) {
+        this.visitColumnStore = visitColumnStore;
+        this.userDemographicsCache = userDemographicsCache;
+    }
+
+    public void appendAfterCommit(List<VisitEvent> visitEvents) {
+        if(!visitColumnStore.isEnabled()){
+            return;
+        }
+        Set<Long> userIds = visitEvents.stream()
+                .map(VisitEvent::userId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, UserDemographics> demographics = userIds.isEmpty() ? Map.of() : userDemographicsCache.findAll(userIds);
+
+        List<VisitColumnRow> rows = visitEvents.stream()
+                .map(visitEvent -> toRow(visitEvent, visitEvent.userId() == null ? null : demographics.get(visitEvent.userId())))
+                .toList();
+        runAfterCommit(() -> visitColumnStore.appendCommitted(rows));
+    }
+
+    private VisitColumnRow toRow(VisitEvent visitEvent, UserDemographics demographics) {
+        return new VisitColumnRow(visitEvent.createdDate(), visitEvent.projectId(), visitEvent.productId(),
+                visitEvent.inflow(), visitEvent.device(),
+                demographics == null ? null : demographics.gender(),
+                demographics == null ? null : demographics.birthYear(),
+                visitEvent.sampleWeight());
+    }
+}
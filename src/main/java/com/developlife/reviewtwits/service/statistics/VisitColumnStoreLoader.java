@@ -0,0 +1,105 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnRow;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 시작 시 남아 있는 원본 방문 정보를 stat_id 순서로 chunk 단위로 읽어 컬럼 저장소에 적재한다.
+ * 적재 시작 시각 이전의 방문은 버퍼를 비운 뒤 DB 에서 읽고, 이후의 방문은 VisitColumnIngestor 가 커밋 시점에 추가한다.
+ */
+@Slf4j
+@Service
+public class VisitColumnStoreLoader {
+
+    private static final String SELECT_VISITS_SQL =
+            "select s.stat_id, s.created_date, s.project_project_id, s.product_product_id, s.inflow, s.inflow_host, s.inflow_url, s.device, s.sample_weight, " +
+            "u.provider, u.gender, u.birth_date " +
+            "from stat_info s left join user u on u.user_id = s.user_user_id " +
+            "where s.stat_id > ? and s.created_date < ? and s.project_project_id is not null " +
+            "order by s.stat_id limit ?";
+
+    private final VisitColumnStore visitColumnStore;
+    private final VisitEventBuffer visitEventBuffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public VisitColumnStoreLoader(VisitColumnStore visitColumnStore, VisitEventBuffer visitEventBuffer, JdbcTemplate jdbcTemplate,
+                                  @Value("${statistics.column-store.load-chunk-size:10000}") int chunkSize) {
+        this.visitColumnStore = visitColumnStore;
+        this.visitEventBuffer = visitEventBuffer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Async("threadPoolTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime loadedBefore = LocalDateTime.now();
+        if(!visitColumnStore.beginLoad(loadedBefore)){
+            return;
+        }
+        // 적재 시작 시각 이전에 버퍼에 들어온 방문이 DB 에 기록된 뒤에 읽는다.
+        visitEventBuffer.flush();
+
+        long lastStatId = 0;
+        long loadedCount = 0;
+        while(true){
+            List<LoadedVisit> chunk = jdbcTemplate.query(SELECT_VISITS_SQL,
+                    (rs, rowNum) -> new LoadedVisit(rs.getLong("stat_id"), toRow(rs)),
+                    lastStatId, Timestamp.valueOf(loadedBefore), chunkSize);
+            if(chunk.isEmpty()){
+                break;
+            }
+            // 적재 중에 reset 되었으면 그 뒤의 상태가 원본과 일치하므로 적재를 멈춘다.
+            if(!visitColumnStore.appendLoaded(chunk.stream().map(LoadedVisit::row).toList())){
+                return;
+            }
+            lastStatId = chunk.get(chunk.size() - 1).statId();
+            loadedCount += chunk.size();
+        }
+        visitColumnStore.markLoaded();
+        log.info("방문 정보 {} 건을 컬럼 저장소에 적재했습니다.", loadedCount);
+    }
+
+    private VisitColumnRow toRow(ResultSet rs) throws SQLException {
+        boolean hasProvider = rs.getString("provider") != null;
+        String gender = rs.getString("gender");
+        Timestamp birthDate = rs.getTimestamp("birth_date");
+        return new VisitColumnRow(
+                rs.getTimestamp("created_date").toLocalDateTime(),
+                rs.getLong("project_project_id"),
+                rs.getObject("product_product_id", Long.class),
+                toInflow(rs.getString("inflow_host"), rs.getString("inflow"), rs.getString("inflow_url")),
+                rs.getString("device") == null ? null : Device.valueOf(rs.getString("device")),
+                hasProvider && gender != null ? Gender.valueOf(gender) : null,
+                hasProvider && birthDate != null ? birthDate.toLocalDateTime().getYear() : null,
+                rs.getInt("sample_weight"));
+    }
+
+    // 적재할 때의 분류 기준으로 분류한다. host 를 채우기 전의 방문은 분류해 둔 값을, 그것도 없으면 URL 을 쓴다.
+    private Inflow toInflow(String inflowHost, String inflow, String inflowUrl) {
+        if(inflowHost != null){
+            return Inflow.fromHost(inflowHost);
+        }
+        return inflow == null ? Inflow.fromUrl(inflowUrl) : Inflow.valueOf(inflow);
+    }
+
+    private record LoadedVisit(long statId, VisitColumnRow row) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.message.response.project.RecentVisitInfoResponse;
+import com.developlife.reviewtwits.repository.statistics.StatInfoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
+/**
+ * 프로젝트별 오늘/어제/전체 방문 수를 Redis 카운터로 관리한다.
+ * 일별 카운터는 설정한 시간대의 날짜로 key 를 나누므로, 자정이 지나면 별도 작업 없이 다음 날 key 로 넘어간다.
+ * 카운터가 없거나 Redis 를 사용할 수 없으면 방문 집계 테이블에서 계산하고, 주기적으로 집계 테이블 기준으로 다시 맞춘다.
+ * 전체 카운터가 없는 프로젝트는 0 부터 세지 않도록 올리지 않고, 읽을 때 집계 테이블에서 채운다.
+ */
+@Slf4j
+@Service
+public class VisitCounterService {
+
+    private static final String TOTAL_COUNT_KEY = "visit:count:total:";
+    private static final String DAILY_COUNT_KEY = "visit:count:day:";
+    // 오늘과 어제만 읽으므로 일별 카운터는 사흘이 지나면 만료시킨다.
+    private static final long DAILY_COUNT_TTL_SECONDS = 3 * 24 * 60 * 60;
+    private static final String RECONCILE_LOCK_KEY = "visit:count:reconcile:lock";
+    private static final Duration RECONCILE_LOCK_TTL = Duration.ofHours(1);
+    // KEYS[1] 은 전체 카운터, 나머지는 일별 카운터이다. ARGV 는 KEYS 와 같은 순서의 증가량과 일별 카운터의 TTL 이다.
+    private static final String INCREMENT_IF_SEEDED_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "for i = 2, #KEYS do " +
+            "redis.call('INCRBY', KEYS[i], ARGV[i]) " +
+            "redis.call('EXPIRE', KEYS[i], ARGV[#KEYS + 1]) " +
+            "end " +
+            "return 1";
+
+    private final StringRedisTemplate redisTemplate;
+    private final StatInfoRepository statInfoRepository;
+    private final ZoneId counterZone;
+
+    public VisitCounterService(StringRedisTemplate redisTemplate, StatInfoRepository statInfoRepository,
+                               @Value("${statistics.visit-counter.zone:}") String counterZone) {
+        this.redisTemplate = redisTemplate;
+        this.statInfoRepository = statInfoRepository;
+        this.counterZone = counterZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(counterZone);
+    }
+
+    /**
+     * 방문 정보가 커밋된 뒤에 프로젝트별 전체/일별 카운터를 올린다.
+     */
+    public void incrementAfterCommit(List<VisitEvent> visitEvents) {
+        Map<Long, Long> totalCounts = new HashMap<>();
+        Map<Long, Map<String, Long>> dailyCounts = new HashMap<>();
+        for(VisitEvent visitEvent : visitEvents){
+            totalCounts.merge(visitEvent.projectId(), (long) visitEvent.sampleWeight(), Long::sum);
+            dailyCounts.computeIfAbsent(visitEvent.projectId(), projectId -> new LinkedHashMap<>())
+                    .merge(dailyCountKey(visitEvent.projectId(), toCounterDate(visitEvent.createdDate())),
+                            (long) visitEvent.sampleWeight(), Long::sum);
+        }
+        runAfterCommit(() -> increment(totalCounts, dailyCounts));
+    }
+
+    public RecentVisitInfoResponse getRecentVisitInfo(long projectId) {
+        LocalDate today = LocalDate.now(counterZone);
+        try {
+            List<String> counts = redisTemplate.opsForValue().multiGet(List.of(
+                    TOTAL_COUNT_KEY + projectId,
+                    dailyCountKey(projectId, today),
+                    dailyCountKey(projectId, today.minusDays(1))));
+
+            if(counts == null || counts.get(0) == null){
+                // 카운터가 아직 없는 프로젝트는 집계 테이블에서 한 번 채워 넣는다.
+                return seed(projectId);
+            }
+            return RecentVisitInfoResponse.builder()
+                    .todayVisit(parseCount(counts.get(1)))
+                    .yesterdayVisit(parseCount(counts.get(2)))
+                    .totalVisit(parseCount(counts.get(0)))
+                    .build();
+        } catch (DataAccessException e) {
+            log.warn("방문 수 카운터를 Redis 에서 읽지 못해 DB 에서 조회합니다. projectId={}", projectId, e);
+            return countFromRollup(projectId, today);
+        }
+    }
+
+    // 버퍼 유실이나 Redis 장애로 어긋난 카운터를 방문 집계 테이블 기준으로 다시 맞춘다. 여러 서버 중 lock 을 잡은 한 곳에서만 실행한다.
+    @Scheduled(cron = "${statistics.visit-counter.reconcile-cron:0 10 0 * * *}", zone = "${statistics.visit-counter.zone:}")
+    public void reconcileAll() {
+        if(!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(RECONCILE_LOCK_KEY, "1", RECONCILE_LOCK_TTL))){
+            log.info("다른 서버가 방문 수 카운터를 맞추고 있어 건너뜁니다.");
+            return;
+        }
+        List<Long> projectIds = statInfoRepository.findVisitedProjectIds();
+        for(Long projectId : projectIds){
+            try {
+                reconcile(projectId);
+            } catch (DataAccessException e) {
+                log.warn("방문 수 카운터를 맞추지 못했습니다. projectId={}", projectId, e);
+            }
+        }
+        log.info("프로젝트 {} 개의 방문 수 카운터를 집계 테이블 기준으로 맞췄습니다.", projectIds.size());
+    }
+
+    // 그 사이 다른 요청이 채웠으면 덮어쓰지 않는다.
+    private RecentVisitInfoResponse seed(long projectId) {
+        LocalDate today = LocalDate.now(counterZone);
+        RecentVisitInfoResponse recentVisitInfo = countFromRollup(projectId, today);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.setNX(TOTAL_COUNT_KEY + projectId, String.valueOf(recentVisitInfo.totalVisit()));
+            seedDailyCount(stringConnection, dailyCountKey(projectId, today), recentVisitInfo.todayVisit());
+            seedDailyCount(stringConnection, dailyCountKey(projectId, today.minusDays(1)), recentVisitInfo.yesterdayVisit());
+            return null;
+        });
+        return recentVisitInfo;
+    }
+
+    private void seedDailyCount(StringRedisConnection connection, String key, long count) {
+        connection.set(key, String.valueOf(count), Expiration.seconds(DAILY_COUNT_TTL_SECONDS), SetOption.SET_IF_ABSENT);
+    }
+
+    /**
+     * 카운터를 집계 테이블 값과의 차이만큼 INCRBY 로 맞춘다. SET 으로 덮어쓰지 않으므로 그 사이 올라간 방문은 지워지지 않는다.
+     * 카운터를 읽은 뒤 집계 테이블을 읽기 전에 커밋된 방문은 한 번 더 세어질 수 있고, 다음 정합성 작업에서 다시 맞춰진다.
+     */
+    private void reconcile(long projectId) {
+        LocalDate today = LocalDate.now(counterZone);
+        List<String> keys = List.of(TOTAL_COUNT_KEY + projectId,
+                dailyCountKey(projectId, today), dailyCountKey(projectId, today.minusDays(1)));
+        List<String> counts = redisTemplate.opsForValue().multiGet(keys);
+        if(counts == null || counts.get(0) == null){
+            seed(projectId);
+            return;
+        }
+        RecentVisitInfoResponse recentVisitInfo = countFromRollup(projectId, today);
+        long[] expected = {recentVisitInfo.totalVisit(), recentVisitInfo.todayVisit(), recentVisitInfo.yesterdayVisit()};
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for(int i = 0; i < keys.size(); i++){
+                long delta = expected[i] - parseCount(counts.get(i));
+                if(delta != 0){
+                    stringConnection.incrBy(keys.get(i), delta);
+                }
+                if(i > 0){
+                    stringConnection.expire(keys.get(i), DAILY_COUNT_TTL_SECONDS);
+                }
+            }
+            return null;
+        });
+    }
+
+    private RecentVisitInfoResponse countFromRollup(long projectId, LocalDate today) {
+        return statInfoRepository.countRecentVisits(projectId,
+                toServerDateTime(today.minusDays(1)), toServerDateTime(today), toServerDateTime(today.plusDays(1)));
+    }
+
+    private void increment(Map<Long, Long> totalCounts, Map<Long, Map<String, Long>> dailyCounts) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                totalCounts.forEach((projectId, count) -> {
+                    Map<String, Long> projectDailyCounts = dailyCounts.getOrDefault(projectId, Map.of());
+                    List<String> keysAndArgs = new ArrayList<>();
+                    keysAndArgs.add(TOTAL_COUNT_KEY + projectId);
+                    keysAndArgs.addAll(projectDailyCounts.keySet());
+                    keysAndArgs.add(String.valueOf(count));
+                    projectDailyCounts.values().forEach(dailyCount -> keysAndArgs.add(String.valueOf(dailyCount)));
+                    keysAndArgs.add(String.valueOf(DAILY_COUNT_TTL_SECONDS));
+                    stringConnection.eval(INCREMENT_IF_SEEDED_SCRIPT, ReturnType.INTEGER, 1 + projectDailyCounts.size(),
+                            keysAndArgs.toArray(String[]::new));
+                });
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // 방문 정보는 이미 커밋되었으므로, 어긋난 카운터는 다음 정합성 작업에서 복구된다.
+            log.warn("방문 수 카운터를 올리지 못했습니다.", e);
+        }
+    }
+
+    // 방문 시각은 서버 시간대로 저장되므로 카운터 시간대의 날짜로 바꾼다.
+    private LocalDate toCounterDate(LocalDateTime createdDate) {
+        return createdDate.atZone(ZoneId.systemDefault()).withZoneSameInstant(counterZone).toLocalDate();
+    }
+
+    private LocalDateTime toServerDateTime(LocalDate counterDate) {
+        return counterDate.atStartOfDay(counterZone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private String dailyCountKey(long projectId, LocalDate date) {
+        return DAILY_COUNT_KEY + projectId + ":" + date;
+    }
+
+    private static int parseCount(String count) {
+        return count == null ? 0 : Integer.parseInt(count);
+    }
+}
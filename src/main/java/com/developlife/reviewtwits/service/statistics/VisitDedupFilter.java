@@ -0,0 +1,124 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 프로젝트별로 최근 방문한 (방문자, 상품) 을 시간 구간별 Bloom filter 두 개(현재/직전 구간)에 기록해 중복 방문을 거른다.
+ * 구간 길이는 중복 제거 시간과 같으므로 한 번 본 방문은 중복 제거 시간부터 그 두 배까지 걸러진다.
+ * 한 구간에 expected-insertions 만큼 기록되면 오탐이 늘지 않도록 구간을 일찍 넘기며, 이때는 중복 제거 시간보다 일찍 잊을 수 있다.
+ * 오탐(fpp)만큼 처음 방문도 중복으로 볼 수 있고, 서버마다 따로 기록하므로 다른 서버로 간 새로고침은 거르지 못한다.
+ */
+@Component
+public class VisitDedupFilter {
+
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final Cache<Long, Window> windows;
+    private final Counter expiredRotationCounter;
+    private final Counter saturatedRotationCounter;
+
+    public VisitDedupFilter(MeterRegistry meterRegistry,
+                            @Value("${statistics.visit-dedup.expected-insertions:50000}") long expectedInsertions,
+                            @Value("${statistics.visit-dedup.fpp:0.001}") double falsePositiveProbability,
+                            @Value("${statistics.visit-dedup.maximum-projects:1000}") long maximumProjects,
+                            @Value("${statistics.visit-dedup.expire-after-access-seconds:86400}") long expireAfterAccessSeconds) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.windows = CacheBuilder.newBuilder()
+                .maximumSize(maximumProjects)
+                .expireAfterAccess(Duration.ofSeconds(expireAfterAccessSeconds))
+                .build();
+        Gauge.builder("statistics.visit.dedup.projects", windows, Cache::size)
+                .register(meterRegistry);
+        this.expiredRotationCounter = meterRegistry.counter("statistics.visit.dedup.rotations", "reason", "expired");
+        this.saturatedRotationCounter = meterRegistry.counter("statistics.visit.dedup.rotations", "reason", "saturated");
+    }
+
+    /**
+     * 방문을 기록하고, 중복 제거 시간 안에 같은 방문자가 같은 상품을 방문한 적이 있으면 true 를 반환한다.
+     * 방문자를 식별할 수 없는 방문은 중복으로 보지 않는다.
+     */
+    public boolean isDuplicate(long projectId, long productId, Long userId, String visitorId, int dedupWindowSeconds) {
+        if(dedupWindowSeconds <= 0){
+            windows.invalidate(projectId);
+            return false;
+        }
+        if(userId == null && visitorId == null){
+            return false;
+        }
+
+        long windowMillis = dedupWindowSeconds * 1000L;
+        Window window = windows.getIfPresent(projectId);
+        if(window == null || window.windowMillis != windowMillis){
+            window = windows.asMap().compute(projectId, (id, current) ->
+                    current == null || current.windowMillis != windowMillis ? new Window(windowMillis) : current);
+        }
+        String key = (userId != null ? "u:" + userId : "v:" + visitorId) + ":" + productId;
+        return window.seen(key, System.currentTimeMillis());
+    }
+
+    private BloomFilter<CharSequence> newFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, falsePositiveProbability);
+    }
+
+    /**
+     * 한 시점의 현재/직전 구간. 회전은 새 Generation 으로 통째로 바꾸므로 한 번 읽은 두 filter 는 서로 어긋나지 않는다.
+     * 직전 구간이 없으면 previous 는 null 이다.
+     */
+    private record Generation(BloomFilter<CharSequence> current, BloomFilter<CharSequence> previous, long startedAt) {
+    }
+
+    private final class Window {
+
+        private final long windowMillis;
+        private volatile Generation generation;
+
+        private Window(long windowMillis) {
+            this.windowMillis = windowMillis;
+            this.generation = new Generation(newFilter(), null, System.currentTimeMillis());
+        }
+
+        private boolean seen(String key, long now) {
+            Generation snapshot = generation;
+            if(isExpired(snapshot, now) || isSaturated(snapshot)){
+                snapshot = rotate(now);
+            }
+            // put 은 새로 켠 bit 가 없으면 false 를 반환하므로, 현재 구간에 이미 있던 방문이다.
+            // 그 사이 회전되더라도 기록한 filter 는 다음 Generation 의 직전 구간이 되므로 빠지지 않는다.
+            boolean newInCurrent = snapshot.current().put(key);
+            return !newInCurrent || snapshot.previous() != null && snapshot.previous().mightContain(key);
+        }
+
+        private synchronized Generation rotate(long now) {
+            Generation snapshot = generation;
+            boolean expired = isExpired(snapshot, now);
+            if(!expired && !isSaturated(snapshot)){
+                return snapshot;
+            }
+            // 두 구간 이상 지났으면 직전 구간의 방문도 중복 제거 시간을 넘었다.
+            BloomFilter<CharSequence> previous = now - snapshot.startedAt() < 2 * windowMillis ? snapshot.current() : null;
+            generation = new Generation(newFilter(), previous, now);
+            (expired ? expiredRotationCounter : saturatedRotationCounter).increment();
+            return generation;
+        }
+
+        private boolean isExpired(Generation snapshot, long now) {
+            return now - snapshot.startedAt() >= windowMillis;
+        }
+
+        private boolean isSaturated(Generation snapshot) {
+            return snapshot.current().approximateElementCount() >= expectedInsertions;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 버퍼에 쌓였다가 stat_info 테이블에 한 번에 기록되는 방문 정보.
+ * 연관 엔티티 대신 id 만 들고 있어 요청이 끝난 뒤에도 안전하게 기록할 수 있다.
+ * 표본 추출로 남긴 방문은 sampleWeight 만큼의 방문으로 집계되고, 지정하지 않으면 1 이다.
+ */
+public record VisitEvent(long statId,
+                         Long userId,
+                         String visitorId,
+                         long projectId,
+                         long productId,
+                         String productUrl,
+                         String inflowUrl,
+                         String inflowHost,
+                         Inflow inflow,
+                         Device device,
+                         LocalDateTime createdDate,
+                         int sampleWeight) {
+
+    @Builder
+    public VisitEvent {
+        sampleWeight = Math.max(sampleWeight, 1);
+    }
+}
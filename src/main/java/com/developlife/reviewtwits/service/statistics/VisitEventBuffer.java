@@ -0,0 +1,208 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.exception.statistics.VisitBufferFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 방문 정보를 크기가 정해진 메모리 버퍼에 쌓고, visitWriterExecutor 의 쓰기 스레드가 batch-size 만큼 모이거나
+ * flush-interval 이 지나면 VisitEventWriter 로 한 번에 기록한다.
+ * 기록에 실패한 batch 는 한 번 다시 기록하고, 제약 조건을 어긴 방문 정보가 섞여 있으면 반씩 나눠 기록해 그 방문 정보만 버린다.
+ * 버퍼가 가득 차면 offer-timeout 동안 기다린 뒤 VisitBufferFullException 으로 요청을 거절하고,
+ * 애플리케이션 종료 시에는 남은 방문 정보를 모두 기록한다.
+ */
+@Slf4j
+@Component
+public class VisitEventBuffer {
+
+    private final VisitEventWriter visitEventWriter;
+    private final ThreadPoolTaskExecutor visitWriterExecutor;
+    private final BlockingQueue<VisitEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+
+    // 쓰기 스레드와 flush() 호출자가 동시에 기록하지 않도록 막는다. flush() 가 끝나면 그 전에 들어온 방문 정보는 모두 기록되어 있다.
+    private final Object flushLock = new Object();
+    private volatile boolean running;
+    private volatile Thread writerThread;
+    private Future<?> writer;
+
+    public VisitEventBuffer(VisitEventWriter visitEventWriter, MeterRegistry meterRegistry,
+                            @Qualifier("visitWriterExecutor") ThreadPoolTaskExecutor visitWriterExecutor,
+                            @Value("${statistics.visit-buffer.capacity:20000}") int capacity,
+                            @Value("${statistics.visit-buffer.batch-size:500}") int batchSize,
+                            @Value("${statistics.visit-buffer.flush-interval-millis:1000}") long flushIntervalMillis,
+                            @Value("${statistics.visit-buffer.offer-timeout-millis:50}") long offerTimeoutMillis) {
+        this.visitEventWriter = visitEventWriter;
+        this.visitWriterExecutor = visitWriterExecutor;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        Gauge.builder("statistics.visit.buffer.depth", buffer, BlockingQueue::size)
+                .description("기록 대기 중인 방문 정보 수")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("statistics.visit.flush")
+                .description("방문 정보 batch insert 소요 시간")
+                .register(meterRegistry);
+        this.writtenCounter = meterRegistry.counter("statistics.visit.events", "result", "written");
+        this.rejectedCounter = meterRegistry.counter("statistics.visit.events", "result", "rejected");
+        this.droppedCounter = meterRegistry.counter("statistics.visit.events", "result", "dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = visitWriterExecutor.submit(this::runWriter);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        unparkWriter();
+        try {
+            writer.get(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 5, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("방문 정보 쓰기 스레드가 끝나기를 기다리지 못했습니다.", e);
+        }
+        flush();
+    }
+
+    /**
+     * 방문 정보를 순서대로 버퍼에 넣는다. 버퍼가 가득 차면 이미 넣은 방문 정보는 기록하고, 남은 방문 정보는 거절한다.
+     */
+    public void enqueueAll(List<VisitEvent> visitEvents) {
+        try {
+            for(int i = 0; i < visitEvents.size(); i++){
+                if(!running || !offer(visitEvents.get(i))){
+                    rejectedCounter.increment(visitEvents.size() - i);
+                    throw new VisitBufferFullException("방문 정보 요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+                }
+            }
+        } finally {
+            if(buffer.size() >= batchSize){
+                unparkWriter();
+            }
+        }
+    }
+
+    /**
+     * 버퍼에 남은 방문 정보를 호출한 스레드에서 모두 기록한다.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<VisitEvent> batch = new ArrayList<>(batchSize);
+            while(buffer.drainTo(batch, batchSize) > 0){
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean offer(VisitEvent visitEvent) {
+        try {
+            return buffer.offer(visitEvent, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void unparkWriter() {
+        Thread thread = writerThread;
+        if(thread != null){
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runWriter() {
+        writerThread = Thread.currentThread();
+        while(running){
+            if(buffer.size() < batchSize){
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("방문 정보 기록 스레드에서 예외가 발생했습니다.", e);
+            }
+        }
+    }
+
+    // 방문 통계는 일부 유실을 허용하므로, 실패한 batch 를 버퍼에 다시 쌓지 않고 여기서 끝낸다.
+    private void writeBatch(List<VisitEvent> batch) {
+        long start = System.nanoTime();
+        try {
+            visitEventWriter.write(batch);
+            writtenCounter.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            writeSplit(batch);
+        } catch (RuntimeException e) {
+            log.warn("방문 정보 {}건을 기록하지 못해 한 번 더 기록합니다.", batch.size(), e);
+            retryBatch(batch);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void retryBatch(List<VisitEvent> batch) {
+        try {
+            visitEventWriter.write(batch);
+            writtenCounter.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            writeSplit(batch);
+        } catch (RuntimeException e) {
+            // DB 장애처럼 다시 기록해도 실패하면 나눠 기록해도 실패하므로 batch 를 버린다.
+            droppedCounter.increment(batch.size());
+            log.error("방문 정보 {}건을 기록하지 못했습니다.", batch.size(), e);
+        }
+    }
+
+    // 제약 조건을 어긴 방문 정보가 있으면 batch 를 반씩 나눠 기록해, 그 방문 정보만 버린다.
+    private void writeSplit(List<VisitEvent> batch) {
+        if(batch.size() == 1){
+            droppedCounter.increment();
+            log.error("제약 조건을 어긴 방문 정보를 버립니다. statId={}", batch.get(0).statId());
+            return;
+        }
+        int middle = batch.size() / 2;
+        for(List<VisitEvent> half : List.of(batch.subList(0, middle), batch.subList(middle, batch.size()))){
+            try {
+                visitEventWriter.write(half);
+                writtenCounter.increment(half.size());
+            } catch (DataIntegrityViolationException e) {
+                writeSplit(half);
+            } catch (RuntimeException e) {
+                droppedCounter.increment(half.size());
+                log.error("방문 정보 {}건을 기록하지 못했습니다.", half.size(), e);
+            }
+        }
+    }
+}
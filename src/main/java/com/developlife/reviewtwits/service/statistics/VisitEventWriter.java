@@ -0,0 +1,72 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.repository.statistics.VisitRollupKey;
+import com.developlife.reviewtwits.repository.statistics.VisitRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 방문 정보 묶음을 stat_info 에 batch insert 하고, 같은 트랜잭션 안에서 방문 수 집계를 갱신한다.
+ * 오늘/어제/전체 방문 수 카운터, 순 방문자 sketch, 컬럼 저장소, 실시간 방문 스트림은 커밋 이후에 갱신한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class VisitEventWriter {
+
+    private static final String INSERT_STAT_INFO_SQL =
+            "insert into stat_info (stat_id, created_date, device, inflow_url, product_url, " +
+            "product_product_id, project_project_id, user_user_id, inflow, inflow_host, sample_weight) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VisitRollupRepository visitRollupRepository;
+    private final VisitCounterService visitCounterService;
+    private final UniqueVisitorService uniqueVisitorService;
+    private final VisitColumnIngestor visitColumnIngestor;
+    private final LiveVisitBroadcaster liveVisitBroadcaster;
+
+    @Transactional
+    public void write(List<VisitEvent> visitEvents) {
+        if(visitEvents.isEmpty()){
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_STAT_INFO_SQL, visitEvents, visitEvents.size(), (ps, visitEvent) -> {
+            ps.setLong(1, visitEvent.statId());
+            ps.setTimestamp(2, Timestamp.valueOf(visitEvent.createdDate()));
+            ps.setString(3, visitEvent.device() == null ? null : visitEvent.device().name());
+            ps.setString(4, visitEvent.inflowUrl());
+            ps.setString(5, visitEvent.productUrl());
+            ps.setLong(6, visitEvent.productId());
+            ps.setLong(7, visitEvent.projectId());
+            if(visitEvent.userId() == null){
+                ps.setNull(8, Types.BIGINT);
+            }else{
+                ps.setLong(8, visitEvent.userId());
+            }
+            ps.setString(9, visitEvent.inflow() == null ? null : visitEvent.inflow().name());
+            ps.setString(10, visitEvent.inflowHost());
+            ps.setInt(11, visitEvent.sampleWeight());
+        });
+
+        Map<VisitRollupKey, Long> hourlyVisitCounts = new HashMap<>();
+        for(VisitEvent visitEvent : visitEvents){
+            VisitRollupKey key = new VisitRollupKey(visitEvent.projectId(), visitEvent.productId(),
+                    visitEvent.createdDate().truncatedTo(ChronoUnit.HOURS));
+            hourlyVisitCounts.merge(key, (long) visitEvent.sampleWeight(), Long::sum);
+        }
+        visitRollupRepository.addVisitCounts(hourlyVisitCounts);
+        visitCounterService.incrementAfterCommit(visitEvents);
+        uniqueVisitorService.addAfterCommit(visitEvents);
+        visitColumnIngestor.appendAfterCommit(visitEvents);
+        liveVisitBroadcaster.recordAfterCommit(visitEvents);
+    }
+}
@@ -0,0 +1,50 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.entity.Project;
+import com.developlife.reviewtwits.exception.project.ProjectNotFoundException;
+import com.developlife.reviewtwits.message.request.statistics.VisitIngestionPolicyRequest;
+import com.developlife.reviewtwits.message.response.statistics.VisitIngestionPolicyResponse;
+import com.developlife.reviewtwits.repository.ProjectRepository;
+import com.developlife.reviewtwits.repository.statistics.ProductReferenceCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 프로젝트별 방문 수집 정책(중복 제거, 표본 추출)을 조회하고 바꾼다.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitIngestionPolicyService {
+
+    private final ProjectRepository projectRepository;
+    private final ProductReferenceCache productReferenceCache;
+
+    @Transactional(readOnly = true)
+    public VisitIngestionPolicyResponse getPolicy(String projectName) {
+        return toResponse(findProject(projectName));
+    }
+
+    @Transactional
+    public VisitIngestionPolicyResponse changePolicy(String projectName, VisitIngestionPolicyRequest request) {
+        Project project = findProject(projectName);
+        project.setVisitDedupWindowSeconds(request.dedupWindowSeconds());
+        project.setVisitSampleInterval(request.sampleInterval());
+        // 방문 정보 저장 시 캐시된 정책을 쓰므로 이 서버의 캐시를 비운다.
+        productReferenceCache.evictAll();
+        return toResponse(project);
+    }
+
+    private Project findProject(String projectName) {
+        return projectRepository.findByProjectName(projectName)
+                .orElseThrow(() -> new ProjectNotFoundException("해당 프로젝트가 존재하지 않습니다."));
+    }
+
+    private VisitIngestionPolicyResponse toResponse(Project project) {
+        return VisitIngestionPolicyResponse.builder()
+                .projectName(project.getProjectName())
+                .dedupWindowSeconds(project.getVisitDedupWindowSeconds())
+                .sampleInterval(project.getVisitSampleInterval())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.repository.statistics.StatInfoRepository;
+import com.developlife.reviewtwits.repository.statistics.VisitArchiveRepository;
+import com.developlife.reviewtwits.repository.statistics.VisitPartitionManager;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import com.developlife.reviewtwits.type.project.ProjectPricePlan;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 원본 방문 정보의 월 파티션을 관리한다.
+ * 다음 달 파티션을 미리 만들고, 보관 기간이 지난 파티션은 그 안의 모든 방문을 visit_archive_rollup 으로 압축한 뒤 파티션째 삭제한다.
+ * 파티션에는 여러 프로젝트의 방문이 섞여 있으므로, 그 달에 방문이 있었던 모든 프로젝트 요금제의 보관 기간이 지나야 삭제한다.
+ * 모든 서버에서 같은 시각에 실행되므로 Redis 잠금을 잡은 서버 한 곳에서만 실행한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VisitRetentionService {
+
+    private static final LocalDateTime OLDEST_VISIT = LocalDate.of(1970, 1, 1).atStartOfDay();
+    private static final String MAINTENANCE_LOCK_KEY = "visit:retention:lock";
+    private static final Duration MAINTENANCE_LOCK_TTL = Duration.ofHours(1);
+
+    private final VisitPartitionManager visitPartitionManager;
+    private final VisitArchiveRepository visitArchiveRepository;
+    private final StatInfoRepository statInfoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final VisitColumnStore visitColumnStore;
+    private final StringRedisTemplate redisTemplate;
+
+    @Scheduled(cron = "${statistics.visit-retention.cron:0 30 3 * * *}")
+    public void runMaintenance() {
+        runMaintenance(LocalDate.now());
+    }
+
+    public void runMaintenance(LocalDate today) {
+        if(!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(MAINTENANCE_LOCK_KEY, "1", MAINTENANCE_LOCK_TTL))){
+            log.info("다른 서버가 방문 정보 파티션을 관리하고 있어 건너뜁니다.");
+            return;
+        }
+        YearMonth currentMonth = YearMonth.from(today);
+        visitPartitionManager.ensurePartitioned(currentMonth);
+        visitPartitionManager.ensurePartition(currentMonth);
+        visitPartitionManager.ensurePartition(currentMonth.plusMonths(1));
+
+        // 파티션은 남아 있는 앞 파티션의 경계부터 자기 경계 전까지를 담는다.
+        // 첫 파티션과, 앞 파티션이 삭제된 뒤의 파티션에는 그보다 오래된 방문도 들어 있을 수 있다.
+        LocalDateTime lowerBound = OLDEST_VISIT;
+        for(YearMonth month : visitPartitionManager.findPartitions()){
+            LocalDateTime upperBound = month.plusMonths(1).atDay(1).atStartOfDay();
+            if(!month.isBefore(currentMonth) || !isExpired(month, lowerBound, upperBound, currentMonth)){
+                lowerBound = upperBound;
+                continue;
+            }
+            LocalDateTime from = lowerBound;
+            // 압축은 트랜잭션으로 묶고, 파티션 삭제(DDL)는 압축이 커밋된 뒤에 실행한다.
+            transactionTemplate.executeWithoutResult(status -> {
+                if(!visitArchiveRepository.isCompacted(month)){
+                    int archivedRows = visitArchiveRepository.compact(month, from, upperBound);
+                    log.info("{} 파티션의 {} 이후 방문 정보를 {} 행으로 압축했습니다.", month, from, archivedRows);
+                }
+            });
+            visitPartitionManager.dropPartition(month);
+            visitColumnStore.removeBetween(from, upperBound);
+            log.info("보관 기간이 지난 {} 방문 정보 파티션을 삭제했습니다.", month);
+        }
+    }
+
+    private boolean isExpired(YearMonth month, LocalDateTime lowerBound, LocalDateTime upperBound, YearMonth currentMonth) {
+        List<ProjectPricePlan> pricePlans = statInfoRepository.findPricePlansVisitedBetween(lowerBound, upperBound);
+        if(pricePlans.isEmpty() && visitArchiveRepository.hasRawVisits(lowerBound, upperBound)){
+            // 집계가 아직 채워지지 않아 요금제를 알 수 없으면, 압축되지 않은 방문을 지우지 않도록 남겨 둔다.
+            log.warn("{} 파티션에 방문 정보가 있지만 일간 집계가 없어 보관 기간을 판단하지 못했습니다.", month);
+            return false;
+        }
+        int retentionMonths = pricePlans.stream()
+                .mapToInt(ProjectPricePlan::getRawVisitRetentionMonths)
+                .max()
+                .orElse(0);
+        // 보관 기간이 n 개월이면 이번 달을 포함해 최근 n 개월의 원본을 남긴다.
+        return month.isBefore(currentMonth.minusMonths(retentionMonths - 1L));
+    }
+}
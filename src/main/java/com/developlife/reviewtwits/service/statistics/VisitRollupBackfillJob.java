@@ -0,0 +1,63 @@
+package com.developlife.reviewtwits.service.statistics;
+
+import com.developlife.reviewtwits.repository.statistics.StatInfoRepository;
+import com.developlife.reviewtwits.repository.statistics.VisitRollupKey;
+import com.developlife.reviewtwits.repository.statistics.VisitRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 원본 방문 정보로 시간/일 집계를 하루씩 다시 계산한다. 키는 마지막으로 다시 계산한 날의 epoch day 이다.
+ * 방문이 계속 더해지는 오늘은 건너뛰고, 원본이 삭제된 달의 집계는 그대로 둔다.
+ * 하루의 방문은 group by 한 번으로 세므로 chunk-size 와 관계없이 하루를 한 chunk 로 처리한다.
+ * 집계 테이블이 비어 있는데 방문 정보가 있으면 시작할 때 자동으로 실행된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class VisitRollupBackfillJob implements BackfillJob {
+
+    private static final String NEXT_VISIT_DATE_SQL =
+            "select min(created_date) from stat_info where created_date >= ? and created_date < ?";
+    private static final String EXISTS_VISIT_SQL = "select stat_id from stat_info limit 1";
+
+    private final StatInfoRepository statInfoRepository;
+    private final VisitRollupRepository visitRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String getName() {
+        return "visit-rollup";
+    }
+
+    @Override
+    public long getInitialKey() {
+        return LocalDate.EPOCH.minusDays(1).toEpochDay();
+    }
+
+    @Override
+    public boolean isPending() {
+        return visitRollupRepository.isEmpty() && !jdbcTemplate.queryForList(EXISTS_VISIT_SQL, Long.class).isEmpty();
+    }
+
+    @Override
+    public BackfillChunk processChunk(long lastKey, int chunkSize) {
+        LocalDateTime from = LocalDate.ofEpochDay(lastKey).plusDays(1).atStartOfDay();
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        Timestamp nextVisitDate = jdbcTemplate.queryForObject(NEXT_VISIT_DATE_SQL, Timestamp.class,
+                Timestamp.valueOf(from), Timestamp.valueOf(today));
+        if(nextVisitDate == null){
+            return null;
+        }
+
+        LocalDate day = nextVisitDate.toLocalDateTime().toLocalDate();
+        Map<VisitRollupKey, Long> hourlyVisitCounts = statInfoRepository.countHourlyVisits(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        visitRollupRepository.replaceVisitCounts(day.atStartOfDay(), day.plusDays(1).atStartOfDay(), hourlyVisitCounts);
+        return new BackfillChunk(day.toEpochDay(), hourlyVisitCounts.values().stream().mapToLong(Long::longValue).sum());
+    }
+}
@@ -14,6 +14,7 @@ import com.developlife.reviewtwits.message.response.user.UserInfoResponse;
 import com.developlife.reviewtwits.repository.EmailVerifyRepository;
 import com.developlife.reviewtwits.repository.RefreshTokenRepository;
 import com.developlife.reviewtwits.repository.UserRepository;
+import com.developlife.reviewtwits.repository.statistics.UserDemographicsCache;
 import com.developlife.reviewtwits.service.FileStoreService;
 import com.developlife.reviewtwits.type.ReferenceType;
 import com.developlife.reviewtwits.type.JwtProvider;
@@ -30,6 +31,8 @@ import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDateTime;
 import java.util.Set;
 
+import static com.developlife.reviewtwits.utils.transaction.TransactionUtils.runAfterCommit;
+
 /**
  * @author ghdic
  * @since 2023/02/19
@@ -45,6 +48,7 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final FileStoreService fileStoreService;
+    private final UserDemographicsCache userDemographicsCache;
     private Faker faker = new Faker();
 
     @Transactional(readOnly = true)
@@ -194,6 +198,9 @@ public class UserService {
         }
 
         userRepository.save(user);
+        // 방문 통계에 쓰는 성별/출생 연도도 바뀔 수 있으므로 커밋 뒤 캐시에서 지운다.
+        long userId = user.getUserId();
+        runAfterCommit(() -> userDemographicsCache.evictAllInstances(userId));
         return userMapper.toUserDetailInfoResponse(user);
     }
 
@@ -1,11 +1,8 @@
 package com.developlife.reviewtwits.type;
 
-import com.developlife.reviewtwits.entity.Reaction;
-import com.developlife.reviewtwits.entity.User;
 import com.developlife.reviewtwits.message.response.review.ReactionResponse;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public enum ReactionType {
@@ -26,26 +23,7 @@ public enum ReactionType {
     ReactionType(String emoji) {
     }
     
-    public static Map<String, ReactionResponse> classifyReactionResponses(User user,List<Reaction> reactionList){
-        ReactionType userReactionType = null;
-        Map<ReactionType, Integer> reactionClassify = new HashMap<>();
-        for(Reaction reaction : reactionList){
-            try{
-                ReactionType reactionType = reaction.getReactionType();
-                Integer reactionCount = reactionClassify.get(reactionType);
-                reactionClassify.replace(reactionType, reactionCount + 1);
-            }catch(NullPointerException ex){
-                reactionClassify.put(reaction.getReactionType(), 1);
-            }
-
-            if(reaction.getUser() != null && reaction.getUser().equals(user)){
-                userReactionType = reaction.getReactionType();
-            }
-        }
-        return mappingReactionResponse(userReactionType,reactionClassify);
-    }
-
-    private static Map<String, ReactionResponse> mappingReactionResponse
+    public static Map<String, ReactionResponse> mappingReactionResponse
             (ReactionType userReactionType,Map<ReactionType, Integer> reactionClassify){
 
         Map<String, ReactionResponse> reactionMap = new HashMap<>();
@@ -3,6 +3,7 @@ package com.developlife.reviewtwits.type;
 import com.developlife.reviewtwits.service.FileStoreService;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
@@ -58,6 +59,14 @@ public enum ReferenceType {
         return referenceType.filetypeList.contains(ext);
     }
 
+    // 모든 종류에서 받을 수 있는 파일 확장자를 중복 없이 반환한다.
+    public static List<String> getAllFileTypes(){
+        return Arrays.stream(ReferenceType.values())
+                .flatMap(type -> type.filetypeList.stream())
+                .distinct()
+                .toList();
+    }
+
     public static String getContentType(String fileName){
         String ext = FileStoreService.extractExt(fileName);
         for(ReferenceType type : ReferenceType.values()){
@@ -0,0 +1,10 @@
+package com.developlife.reviewtwits.type;
+
+/**
+ * 임시 파일로 써 두었지만 아직 파일 정보를 DB 에 기록하지 않은 파일
+ * filePath 는 내용이 같은 파일이 함께 쓰는 blob 의 경로이고, tempPath 의 내용은 blob 참조를 기록할 때 blob 으로 옮긴다.
+ * durable 은 임시 파일을 이미 디스크에 반영(force)했는지를 나타낸다.
+ */
+public record StagedFile(String originalFilename, String realFilename, String filePath, String blobHash, long byteSize,
+                         String tempPath, boolean durable) {
+}
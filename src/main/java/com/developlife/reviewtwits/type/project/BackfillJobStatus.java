@@ -0,0 +1,11 @@
+package com.developlife.reviewtwits.type.project;
+
+/**
+ * 통계 backfill 작업의 진행 상태.
+ */
+public enum BackfillJobStatus {
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    FAILED
+}
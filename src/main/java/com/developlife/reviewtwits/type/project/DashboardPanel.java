@@ -0,0 +1,13 @@
+package com.developlife.reviewtwits.type.project;
+
+/**
+ * 통계 대시보드에서 한 번에 요청할 수 있는 패널.
+ */
+public enum DashboardPanel {
+    SIMPLE_PROJECT_INFO,
+    PRODUCT_STATISTICS,
+    REQUEST_INFLOW_INFOS,
+    READ_TIME_INFO,
+    RECENT_VISIT_COUNTS,
+    DAILY_VISIT_GRAPH_INFOS
+}
@@ -1,11 +1,83 @@
 package com.developlife.reviewtwits.type.project;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 방문 유입 경로. 유입 URL 의 host 가 등록된 도메인이거나 그 하위 도메인이면 해당 검색 사이트로 분류한다.
+ * 방문에는 정규화한 host 를 저장하고 통계를 낼 때 분류하므로, 분류 기준을 바꿔도 저장된 방문을 다시 고치지 않는다.
+ */
 public enum Inflow {
-    NAVER,
-    DAUM,
-    GOOGLE,
-    ZOOM,
-    BING,
-    YAHOO,
-    ETC
+    NAVER("naver.com"),
+    DAUM("daum.net"),
+    GOOGLE("google.com", "google.co.kr"),
+    ZOOM("zum.com"),
+    BING("bing.com"),
+    YAHOO("yahoo.com", "yahoo.co.jp"),
+    ETC;
+
+    private static final Pattern SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*://");
+
+    private final List<String> domains;
+
+    Inflow(String... domains) {
+        this.domains = List.of(domains);
+    }
+
+    public static Inflow fromUrl(String inflowUrl) {
+        return fromHost(parseHost(inflowUrl));
+    }
+
+    public static Inflow fromHost(String host) {
+        if(host == null){
+            return ETC;
+        }
+        for(Inflow inflow : values()){
+            if(inflow.matches(host)){
+                return inflow;
+            }
+        }
+        return ETC;
+    }
+
+    private boolean matches(String host) {
+        return domains.stream().anyMatch(domain -> host.equals(domain) || host.endsWith("." + domain));
+    }
+
+    /**
+     * referrer 는 한글, 공백, | 처럼 인코딩되지 않은 문자나 scheme 없는 값으로도 들어오므로 URI 로 파싱하지 않고 host 만 잘라낸다.
+     * scheme 을 떼고, 첫 / ? # 앞까지에서 userinfo 와 port 를 뺀다.
+     */
+    public static String parseHost(String inflowUrl) {
+        if(inflowUrl == null || inflowUrl.isBlank()){
+            return null;
+        }
+        String authority = SCHEME.matcher(inflowUrl.trim()).replaceFirst("");
+        if(authority.startsWith("//")){
+            authority = authority.substring(2);
+        }
+        int pathStart = indexOfAny(authority, "/?#");
+        if(pathStart >= 0){
+            authority = authority.substring(0, pathStart);
+        }
+        String host = authority.substring(authority.lastIndexOf('@') + 1);
+        int portStart = host.lastIndexOf(':');
+        if(portStart >= 0 && !host.endsWith("]")){
+            host = host.substring(0, portStart);
+        }
+        if(host.endsWith(".")){
+            host = host.substring(0, host.length() - 1);
+        }
+        return host.isBlank() ? null : host.toLowerCase(Locale.ROOT);
+    }
+
+    private static int indexOfAny(String value, String characters) {
+        for(int i = 0; i < value.length(); i++){
+            if(characters.indexOf(value.charAt(i)) >= 0){
+                return i;
+            }
+        }
+        return -1;
+    }
 }
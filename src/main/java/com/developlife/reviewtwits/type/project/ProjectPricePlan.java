@@ -1,5 +1,18 @@
 package com.developlife.reviewtwits.type.project;
 
+/**
+ * 프로젝트 요금제. 요금제마다 원본 방문 정보(stat_info)를 보관하는 개월 수가 다르다.
+ */
 public enum ProjectPricePlan {
-    FREE_PLAN, PLUS_PLAN, PRO_PLAN,BUSINESS_PLAN
+    FREE_PLAN(3), PLUS_PLAN(6), PRO_PLAN(12), BUSINESS_PLAN(24);
+
+    private final int rawVisitRetentionMonths;
+
+    ProjectPricePlan(int rawVisitRetentionMonths) {
+        this.rawVisitRetentionMonths = rawVisitRetentionMonths;
+    }
+
+    public int getRawVisitRetentionMonths() {
+        return rawVisitRetentionMonths;
+    }
 }
@@ -0,0 +1,19 @@
+package com.developlife.reviewtwits.type.project;
+
+/**
+ * 프로젝트별 방문 정보 수집 정책.
+ * dedupWindowSeconds 안에 같은 방문자가 같은 상품을 다시 방문하면 기록하지 않고(0 이면 끄기),
+ * sampleInterval 건 중 한 건꼴로만 기록하면서 기록한 방문에 sampleInterval 만큼의 가중치를 준다(1 이면 모두 기록).
+ */
+public record VisitIngestionPolicy(int dedupWindowSeconds, int sampleInterval) {
+
+    public static final VisitIngestionPolicy NONE = new VisitIngestionPolicy(0, 1);
+
+    public boolean isDedupEnabled() {
+        return dedupWindowSeconds > 0;
+    }
+
+    public boolean isSampled() {
+        return sampleInterval > 1;
+    }
+}
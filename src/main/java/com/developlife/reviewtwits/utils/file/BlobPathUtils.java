@@ -0,0 +1,33 @@
+package com.developlife.reviewtwits.utils.file;
+
+import java.nio.file.Path;
+
+/**
+ * file.dir 아래 blob 과 임시 파일의 경로를 만든다. blob 은 내용(SHA-256)마다 하나씩 blobs/{hash 앞 두 글자}/{hash} 에 둔다.
+ * blob 이전 방식으로 저장된 파일의 이미지 변형은 variants 아래에 둔다.
+ */
+public final class BlobPathUtils {
+
+    public static final String BLOB_DIR = "blobs";
+    public static final String TEMP_DIR = "tmp";
+    public static final String VARIANT_DIR = "variants";
+
+    private BlobPathUtils() {
+    }
+
+    public static Path getBlobDir(String fileDir) {
+        return Path.of(fileDir, BLOB_DIR);
+    }
+
+    public static Path getTempDir(String fileDir) {
+        return Path.of(fileDir, TEMP_DIR);
+    }
+
+    public static Path getVariantDir(String fileDir) {
+        return Path.of(fileDir, VARIANT_DIR);
+    }
+
+    public static Path getBlobPath(String fileDir, String hash) {
+        return getBlobDir(fileDir).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
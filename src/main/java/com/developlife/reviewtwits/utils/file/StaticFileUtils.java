@@ -0,0 +1,211 @@
+package com.developlife.reviewtwits.utils.file;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 내용이 바뀌지 않는 UUID 이름의 파일을 HTTP 캐시 헤더, 조건부 요청(304), 단일 byte range(206) 와 함께 보낸다.
+ * 본문은 Tomcat sendfile 로 요청이 끝난 뒤 FileChannel.transferTo 로 소켓에 바로 보내고,
+ * sendfile 을 쓸 수 없으면 FileChannel.transferTo 로 응답 스트림에 복사한다.
+ */
+public final class StaticFileUtils {
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String NO_CACHE_CONTROL = "no-cache";
+    private static final String NO_STORE_CACHE_CONTROL = "no-store";
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private StaticFileUtils() {
+    }
+
+    public static String toETag(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * If-None-Match 가 etag 와 같으면 디스크를 보지 않고 304 를 보내고 true 를 반환한다.
+     * 파일 이름이 바뀌지 않는 한 내용도 바뀌지 않으므로, 삭제되지 않았는지만 확인한 뒤에 부른다.
+     * 파일이 있는지 모르므로 If-None-Match: * 는 여기서 맞추지 않고, 파일을 찾은 뒤 write 에서 맞춘다.
+     */
+    public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        return checkNotModified(request, response, etag, false);
+    }
+
+    private static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag, boolean fileExists) {
+        if(!matchesETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag, fileExists)){
+            return false;
+        }
+        response.setStatus(HttpStatus.NOT_MODIFIED.value());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        return true;
+    }
+
+    /**
+     * 파일을 보낸다. etag 가 null 이면 바뀔 수 있는 응답으로 보고 캐시 검증 헤더 없이 no-cache 로 보낸다.
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response,
+                             Path path, String contentType, String etag) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("해당 파일이 존재하지 않습니다.");
+        }
+        write(request, response, path, contentType, etag, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * 크기와 수정 시각을 이미 알고 있는 파일을 디스크를 확인하지 않고 보낸다.
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response,
+                             Path path, String contentType, String etag, long fileSize, long lastModified) throws IOException {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if(etag == null){
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE_CONTROL);
+        }else{
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+            if(checkNotModified(request, response, etag, true) || isNotModifiedSince(request, lastModified)){
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+
+        long start = 0;
+        long end = fileSize;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if(range != null && isRangeApplicable(request, etag, lastModified)){
+            long[] byteRange = parseRange(range, fileSize);
+            if(byteRange == null){
+                // 오류 응답은 캐시하지 않는다.
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE_CACHE_CONTROL);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                return;
+            }
+            if(byteRange.length == 2){
+                start = byteRange[0];
+                end = byteRange[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + fileSize);
+            }
+        }
+        response.setContentLengthLong(end - start);
+        if("HEAD".equals(request.getMethod()) || start == end){
+            return;
+        }
+
+        if(Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))){
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end);
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            for(long position = start; position < end; ){
+                position += fileChannel.transferTo(position, end - position, output);
+            }
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("해당 파일이 존재하지 않습니다.");
+        }
+    }
+
+    // * 는 파일이 있을 때만 맞는다.
+    private static boolean matchesETag(String ifNoneMatch, String etag, boolean fileExists) {
+        if(ifNoneMatch == null || etag == null){
+            return false;
+        }
+        for(String candidate : ifNoneMatch.split(",")){
+            String trimmed = candidate.trim();
+            if(trimmed.equals("*") && fileExists || trimmed.equals(etag) || trimmed.equals("W/" + etag)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match 가 있으면 If-Modified-Since 는 보지 않는다.
+    private static boolean isNotModifiedSince(HttpServletRequest request, long lastModified) {
+        if(request.getHeader(HttpHeaders.IF_NONE_MATCH) != null){
+            return false;
+        }
+        long ifModifiedSince = getDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range 가 지금 파일과 다르면 range 를 무시하고 전체를 보낸다.
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if(ifRange == null){
+            return true;
+        }
+        if(ifRange.startsWith("\"")){
+            return ifRange.equals(etag);
+        }
+        long ifRangeDate = getDateHeader(request, HttpHeaders.IF_RANGE);
+        return ifRangeDate >= 0 && lastModified / 1000 == ifRangeDate / 1000;
+    }
+
+    private static long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * bytes=start-end, bytes=start-, bytes=-suffix 형식의 range 하나를 [start, end) 로 반환한다.
+     * 형식이 다르거나 여러 range 를 요청하면 range 를 무시하도록 빈 배열을, 파일 범위를 벗어나면 null 을 반환한다.
+     */
+    private static long[] parseRange(String range, long fileSize) {
+        if(!range.startsWith("bytes=") || range.indexOf(',') >= 0){
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if(dash < 0){
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if(first.isEmpty()){
+                long suffixLength = Long.parseLong(last);
+                if(suffixLength <= 0 || fileSize == 0){
+                    return null;
+                }
+                return new long[]{Math.max(0, fileSize - suffixLength), fileSize};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? fileSize : Math.min(Long.parseLong(last) + 1, fileSize);
+            if(start >= fileSize || start >= end){
+                return start >= fileSize ? null : new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
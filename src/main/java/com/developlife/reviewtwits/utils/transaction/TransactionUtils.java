@@ -0,0 +1,27 @@
+package com.developlife.reviewtwits.utils.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 커밋 이후에 실행해야 하는 작업(캐시 무효화, Redis 반영 등)을 등록한다.
+ * 진행 중인 트랜잭션이 없으면 바로 실행한다.
+ */
+public final class TransactionUtils {
+
+    private TransactionUtils() {
+    }
+
+    public static void runAfterCommit(Runnable task) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
@@ -23,6 +23,9 @@ public class ApiTest {
     @Autowired
     private DatabaseCleanup databaseCleanup;
 
+    @Autowired
+    private QueryCountRecorder queryCountRecorder;
+
     @LocalServerPort
     private int port;
 
@@ -42,6 +45,7 @@ public class ApiTest {
     void setUpRestDocs(RestDocumentationContextProvider restDocumentation) {
         this.spec = new RequestSpecBuilder()
                 .setPort(port)
+                .addFilter(new QueryBudgetFilter(queryCountRecorder))
                 .addFilter(documentationConfiguration(restDocumentation)
                         .operationPreprocessors()
                         .withRequestDefaults(prettyPrint())
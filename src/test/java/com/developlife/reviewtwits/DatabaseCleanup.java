@@ -1,8 +1,17 @@
 package com.developlife.reviewtwits;
 
+import com.developlife.reviewtwits.repository.file.FileMetadataIndex;
+import com.developlife.reviewtwits.repository.review.ReviewCardCache;
+import com.developlife.reviewtwits.repository.statistics.ProductReferenceCache;
+import com.developlife.reviewtwits.repository.statistics.UserDemographicsCache;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import com.developlife.reviewtwits.service.statistics.VisitEventBuffer;
 import com.google.common.base.CaseFormat;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +29,27 @@ public class DatabaseCleanup implements InitializingBean {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ReviewCardCache reviewCardCache;
+
+    @Autowired
+    private VisitEventBuffer visitEventBuffer;
+
+    @Autowired
+    private ProductReferenceCache productReferenceCache;
+
+    @Autowired
+    private UserDemographicsCache userDemographicsCache;
+
+    @Autowired
+    private VisitColumnStore visitColumnStore;
+
+    @Autowired
+    private FileMetadataIndex fileMetadataIndex;
+
     private List<String> tableNames;
     @Value("${spring.datasource.username}")
     private String key;
@@ -54,6 +84,8 @@ public class DatabaseCleanup implements InitializingBean {
     @Transactional
     public void execute() {
         System.out.println("key: " + key);
+        // 이전 테스트의 방문 정보가 비운 뒤의 테이블에 늦게 기록되지 않도록 먼저 기록한다.
+        visitEventBuffer.flush();
         entityManager.flush();
         entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
 
@@ -63,6 +95,17 @@ public class DatabaseCleanup implements InitializingBean {
         }
 
         entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY TRUE").executeUpdate();
+
+        // 타임라인에 남은 reviewId 가 다음 테스트의 새 리뷰와 겹치지 않도록 Redis 도 비운다.
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.flushDb();
+            return null;
+        });
+        reviewCardCache.evictAll();
+        productReferenceCache.evictAll();
+        userDemographicsCache.evictAll();
+        fileMetadataIndex.evictAll();
+        visitColumnStore.reset();
     }
 
 }
\ No newline at end of file
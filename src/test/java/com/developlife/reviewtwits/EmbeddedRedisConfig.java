@@ -0,0 +1,56 @@
+package com.developlife.reviewtwits;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import redis.embedded.RedisServer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * 테스트 실행 시 spring.redis.port 로 임베디드 Redis 를 띄운다.
+ * 이미 떠 있는 Redis(로컬 서버 또는 다른 테스트 컨텍스트)가 있으면 그대로 사용한다.
+ */
+@Profile("test")
+@Configuration
+public class EmbeddedRedisConfig {
+
+    @Value("${spring.redis.host}")
+    private String redisHost;
+    @Value("${spring.redis.port}")
+    private int redisPort;
+
+    private RedisServer redisServer;
+
+    @PostConstruct
+    public void startRedis() {
+        if(isRedisRunning()){
+            return;
+        }
+        redisServer = RedisServer.builder()
+                .port(redisPort)
+                .setting("maxmemory 128M")
+                .build();
+        redisServer.start();
+    }
+
+    @PreDestroy
+    public void stopRedis() {
+        if(redisServer != null){
+            redisServer.stop();
+        }
+    }
+
+    private boolean isRedisRunning() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(redisHost, redisPort), 200);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
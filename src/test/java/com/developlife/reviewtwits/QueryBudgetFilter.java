@@ -0,0 +1,60 @@
+package com.developlife.reviewtwits;
+
+import com.developlife.reviewtwits.config.query.QueryCountResult;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.util.Map;
+
+/**
+ * ApiTest 의 요청마다 실행된 SQL 수를 확인하고, 선언된 예산을 넘기면 테스트를 실패시킨다.
+ * maxQueries 는 요청 전체의 SQL 수, maxRepeated 는 같은 SQL 이 반복된 최대 횟수(N+1 감지)이다.
+ */
+public class QueryBudgetFilter implements Filter {
+
+    public record QueryBudget(int maxQueries, int maxRepeated) {
+    }
+
+    // "METHOD 매핑된 URL 패턴" 별 쿼리 예산
+    static final Map<String, QueryBudget> QUERY_BUDGETS = Map.of(
+            "GET /sns/feeds", new QueryBudget(15, 3),
+            "GET /sns/home-feeds", new QueryBudget(15, 3),
+            "GET /sns/feeds/filter", new QueryBudget(15, 3),
+            "GET /sns/reviews/{reviewId}", new QueryBudget(12, 3),
+            "GET /sns/scrap-reviews", new QueryBudget(15, 3),
+            "GET /sns/comments/{reviewId}", new QueryBudget(10, 3),
+            "GET /reviews/shopping/list", new QueryBudget(12, 3),
+            "GET /review-management/search", new QueryBudget(10, 3),
+            "GET /statistics/dashboard/product-statistics", new QueryBudget(12, 3),
+            "POST /statistics/beacon", new QueryBudget(4, 2)
+    );
+
+    private final QueryCountRecorder queryCountRecorder;
+
+    public QueryBudgetFilter(QueryCountRecorder queryCountRecorder) {
+        this.queryCountRecorder = queryCountRecorder;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        queryCountRecorder.clear();
+        Response response = ctx.next(requestSpec, responseSpec);
+
+        QueryCountResult result = queryCountRecorder.awaitResult();
+        if(result == null){
+            return response;
+        }
+
+        QueryBudget budget = QUERY_BUDGETS.get(result.method() + " " + result.endpoint());
+        if(budget != null && (result.queryCount() > budget.maxQueries() || result.maxRepeatedCount() > budget.maxRepeated())){
+            throw new AssertionError(String.format(
+                    "%s %s 의 쿼리 예산(%d, 반복 %d)을 초과했습니다. queryCount=%d, entityLoadCount=%d, mostRepeated=%s",
+                    result.method(), result.endpoint(), budget.maxQueries(), budget.maxRepeated(),
+                    result.queryCount(), result.entityLoadCount(), result.mostRepeatedStatements(3)));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,51 @@
+package com.developlife.reviewtwits;
+
+import com.developlife.reviewtwits.config.query.QueryCountResult;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 서버 쪽 QueryCountFilter 가 발행한 마지막 요청의 쿼리 집계를 보관한다.
+ * ApiTest 는 요청을 하나씩 순서대로 보내므로 마지막 결과가 곧 방금 보낸 요청의 결과이다.
+ * 쿼리 수는 요청 스레드와 QueryCountHolder.propagate 로 감싼 executor 작업(대시보드 패널)만 포함한다.
+ */
+@Component
+public class QueryCountRecorder {
+
+    private static final long AWAIT_TIMEOUT_MILLIS = 2000;
+
+    private final AtomicReference<CompletableFuture<QueryCountResult>> lastResult =
+            new AtomicReference<>(new CompletableFuture<>());
+
+    @EventListener
+    public void record(QueryCountResult result) {
+        CompletableFuture<QueryCountResult> recorded = lastResult.get();
+        if(!recorded.complete(result)){
+            lastResult.set(CompletableFuture.completedFuture(result));
+        }
+    }
+
+    public void clear() {
+        lastResult.set(new CompletableFuture<>());
+    }
+
+    // 응답을 받은 직후 서버 필터의 finally 가 아직 끝나지 않았을 수 있어 잠시 기다린다.
+    public QueryCountResult awaitResult() {
+        try {
+            return lastResult.get().get(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
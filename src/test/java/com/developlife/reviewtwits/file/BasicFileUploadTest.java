@@ -4,14 +4,29 @@ import com.developlife.reviewtwits.entity.FileInfo;
 import com.developlife.reviewtwits.entity.FileManager;
 import com.developlife.reviewtwits.repository.file.FileInfoRepository;
 import com.developlife.reviewtwits.repository.file.FileManagerRepository;
+import com.developlife.reviewtwits.repository.file.FileMetadataIndex;
+import com.developlife.reviewtwits.repository.file.FileMetadataIndex.FileMetadata;
+import com.developlife.reviewtwits.service.FileBlobCollector;
+import com.developlife.reviewtwits.type.MadeMultipartFile;
+import com.developlife.reviewtwits.type.ReferenceType;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.transaction.Transactional;
+import java.io.File;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 public class BasicFileUploadTest extends FileUploadTest {
@@ -22,6 +37,21 @@ public class BasicFileUploadTest extends FileUploadTest {
     @Autowired
     public FileManagerRepository fileManagerRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FileBlobCollector fileBlobCollector;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private FileMetadataIndex fileMetadataIndex;
+
     @Nested
     class CheckFileUploadTest{
         @Test
@@ -37,10 +67,6 @@ public class BasicFileUploadTest extends FileUploadTest {
         }
     }
 
-    private String getStoredFullPath(ResponseEntity<String> response) {
-        return fileStoreService.getFullPath(response.getBody());
-    }
-
     @Test
     @Transactional
     @DisplayName("파일 업로드 시, 해당 경로, 같은 이름으로 FileStorage, FileManager 테이블에 정보가 업데이트되는지 확안하기")
@@ -52,10 +78,130 @@ public class BasicFileUploadTest extends FileUploadTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
 
         FileInfo updatedInfo = fileInfoRepository.findByOriginalFilename("testDB.txt").get();
-        assertThat(updatedInfo.getFilePath()).isEqualTo(getStoredFullPath(response));
+        assertThat(updatedInfo.getRealFilename()).isEqualTo(response.getBody());
+        assertThat(updatedInfo.getBlobHash()).isNotNull();
+        assertThat(updatedInfo.getFilePath()).isEqualTo(fileStoreService.getBlobPath(updatedInfo.getBlobHash()).toString());
+        assertThat(new File(updatedInfo.getFilePath())).exists();
 
         FileManager updatedFileManager = fileManagerRepository.findByFileInfo_FileID(updatedInfo.getFileID());
         assertThat(updatedFileManager.getReferenceId()).isEqualTo(id);
         assertThat(updatedFileManager.getReferenceType().name()).isEqualTo(referenceType);
     }
+
+    @Test
+    @DisplayName("여러 파일을 한 번에 저장하면, 모든 파일이 디스크와 FileStorage, FileManager 테이블에 저장되는지 확인하기")
+    void storeFiles_multipleFiles_existInDirectoryAndFileTable() {
+        List<MultipartFile> multipartFiles = List.of(
+                new MadeMultipartFile("first".getBytes(), "multi1.txt"),
+                new MadeMultipartFile("second".getBytes(), "multi2.txt"),
+                new MadeMultipartFile("third".getBytes(), "multi3.txt"));
+
+        List<FileInfo> storedFiles = fileStoreService.storeFiles(multipartFiles, 41L, ReferenceType.TEST);
+
+        assertThat(storedFiles).extracting(FileInfo::getOriginalFilename)
+                .containsExactly("multi1.txt", "multi2.txt", "multi3.txt");
+        assertThat(storedFiles).allMatch(fileInfo -> new File(fileInfo.getFilePath()).exists());
+        assertThat(fileStoreService.bringFileNameList(ReferenceType.TEST, 41L))
+                .containsExactlyInAnyOrderElementsOf(fileStoreService.getFileNameList(storedFiles));
+    }
+
+    @Test
+    @DisplayName("같은 내용의 파일을 두 번 저장하면, 파일 이름은 따로 받고 blob 하나를 함께 쓰는지 확인하기")
+    void storeFiles_sameContent_shareBlob() {
+        List<FileInfo> storedFiles = fileStoreService.storeFiles(List.of(
+                new MadeMultipartFile("same content".getBytes(), "same1.txt"),
+                new MadeMultipartFile("same content".getBytes(), "same2.txt")), 43L, ReferenceType.TEST);
+
+        assertThat(storedFiles).extracting(FileInfo::getRealFilename).doesNotHaveDuplicates();
+        assertThat(storedFiles).extracting(FileInfo::getBlobHash).containsOnly(storedFiles.get(0).getBlobHash());
+        assertThat(jdbcTemplate.queryForObject("select reference_count from file_blob where hash = ?",
+                Long.class, storedFiles.get(0).getBlobHash())).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("참조가 없어진 blob 을 같은 내용으로 다시 올리면, 사라진 blob 을 다시 쓰고 정리 대상에서 빠지는지 확인하기")
+    void storeFiles_releasedBlobReuploaded_rewriteAndKeepBlob() {
+        FileInfo storedFile = fileStoreService.storeFile(new MadeMultipartFile("reuploaded".getBytes(), "reuploaded1.txt"), 45L, ReferenceType.TEST);
+        fileStoreService.checkDeleteFile(List.of(storedFile.getRealFilename()));
+        fileBlobCollector.collect(LocalDateTime.now().plusSeconds(1));
+        assertThat(new File(storedFile.getFilePath())).doesNotExist();
+
+        FileInfo reuploadedFile = fileStoreService.storeFile(new MadeMultipartFile("reuploaded".getBytes(), "reuploaded2.txt"), 45L, ReferenceType.TEST);
+        fileBlobCollector.collect(LocalDateTime.now().plusSeconds(1));
+
+        assertThat(reuploadedFile.getFilePath()).isEqualTo(storedFile.getFilePath());
+        assertThat(new File(reuploadedFile.getFilePath())).exists();
+        assertThat(jdbcTemplate.queryForObject("select reference_count from file_blob where hash = ?",
+                Long.class, reuploadedFile.getBlobHash())).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("저장한 파일은 메모리 색인에서 찾을 수 있고, 삭제하면 색인에서도 찾을 수 없는지 확인하기")
+    void findStoredFileMetadata_storeAndDelete() {
+        FileInfo storedFile = fileStoreService.storeFile(new MadeMultipartFile("indexed".getBytes(), "indexed.txt"), 44L, ReferenceType.TEST);
+
+        FileMetadata fileMetadata = fileStoreService.findStoredFileMetadata(storedFile.getRealFilename()).orElseThrow();
+        assertThat(fileMetadata.originalFilename()).isEqualTo("indexed.txt");
+        assertThat(fileMetadata.size()).isEqualTo("indexed".getBytes().length);
+        assertThat(fileStoreService.getStoredFilePath(fileMetadata)).hasToString(storedFile.getFilePath());
+
+        fileStoreService.checkDeleteFile(List.of(storedFile.getRealFilename()));
+        assertThat(fileStoreService.findStoredFileMetadata(storedFile.getRealFilename())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("다른 서버가 파일을 삭제했다고 알리면, 이 서버의 메모리 색인에서도 찾을 수 없는지 확인하기")
+    void findStoredFileMetadata_deletedOnOtherInstance() throws InterruptedException {
+        FileInfo storedFile = fileStoreService.storeFile(new MadeMultipartFile("remote deleted".getBytes(), "remote.txt"), 46L, ReferenceType.TEST);
+        assertThat(fileStoreService.findStoredFileMetadata(storedFile.getRealFilename())).isPresent();
+
+        // 다른 서버의 삭제처럼 DB 만 바꾸고 무효화를 알린다.
+        jdbcTemplate.update("update file_storage set exist = false where real_filename = ?", storedFile.getRealFilename());
+        redisTemplate.convertAndSend(FileMetadataIndex.INVALIDATION_CHANNEL, storedFile.getRealFilename());
+
+        for(int i = 0; i < 50 && fileStoreService.findStoredFileMetadata(storedFile.getRealFilename()).isPresent(); i++){
+            Thread.sleep(100);
+        }
+        assertThat(fileStoreService.findStoredFileMetadata(storedFile.getRealFilename())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("DB 에 없던 파일은 잠시 없는 파일로 기억하고, 이 서버에서 저장하면 바로 찾을 수 있는지 확인하기")
+    void findStoredFileMetadata_negativeCacheOverriddenByPut() {
+        String realFilename = UUID.randomUUID() + ".txt";
+        assertThat(fileStoreService.findStoredFileMetadata(realFilename)).isEmpty();
+
+        // 다른 서버에서 저장한 것처럼 DB 에만 기록하면, 기억한 동안은 DB 를 다시 읽지 않는다.
+        FileInfo fileInfo = fileInfoRepository.save(FileInfo.builder()
+                .filePath(fileStoreService.getFullPath(realFilename))
+                .realFilename(realFilename)
+                .originalFilename("negative.txt")
+                .build());
+        assertThat(fileStoreService.findStoredFileMetadata(realFilename)).isEmpty();
+
+        fileMetadataIndex.put(fileInfo, 7L, System.currentTimeMillis());
+        assertThat(fileStoreService.findStoredFileMetadata(realFilename)).isPresent();
+    }
+
+    @Test
+    @DisplayName("파일 정보를 기록한 트랜잭션이 롤백되면, 미리 써 둔 blob 이 참조 없이 남았다가 정리되는지 확인하기")
+    void storeFiles_rollback_collectWrittenBlobs() {
+        List<MultipartFile> multipartFiles = List.of(
+                new MadeMultipartFile("rollback first".getBytes(), "rollback1.txt"),
+                new MadeMultipartFile("rollback second".getBytes(), "rollback2.txt"));
+        List<String> storedPaths = new ArrayList<>();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            fileStoreService.storeFiles(multipartFiles, 42L, ReferenceType.TEST)
+                    .forEach(fileInfo -> storedPaths.add(fileInfo.getFilePath()));
+            assertThat(storedPaths).allMatch(path -> new File(path).exists());
+            throw new IllegalStateException("파일 정보 기록 이후의 작업이 실패했습니다.");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(fileStoreService.bringFileNameList(ReferenceType.TEST, 42L)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from file_blob", Long.class)).isZero();
+
+        fileBlobCollector.collect(LocalDateTime.now().plusSeconds(1));
+        assertThat(storedPaths).hasSize(2).noneMatch(path -> new File(path).exists());
+    }
 }
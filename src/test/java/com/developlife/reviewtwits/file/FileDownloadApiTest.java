@@ -3,22 +3,51 @@ package com.developlife.reviewtwits.file;
 import com.developlife.reviewtwits.ApiTest;
 import com.developlife.reviewtwits.CommonDocument;
 import com.developlife.reviewtwits.service.AwsS3Service;
+import com.developlife.reviewtwits.service.FileStoreService;
+import com.developlife.reviewtwits.service.ImageVariantService;
+import com.developlife.reviewtwits.service.ImageVariantService.ImageVariant;
+import com.developlife.reviewtwits.utils.file.BlobPathUtils;
 import com.google.common.net.HttpHeaders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.w3c.dom.Node;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
 import static io.restassured.RestAssured.given;
 import static com.epages.restdocs.apispec.RestAssuredRestDocumentationWrapper.document;
 import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
 
 
 /**
@@ -30,6 +59,12 @@ public class FileDownloadApiTest extends ApiTest {
     @Autowired
     private FileDownloadSteps downloadSteps;
 
+    @Autowired
+    private FileStoreService fileStoreService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 //    @MockBean
 //    private AwsS3Service awsS3Service;
 
@@ -104,6 +139,280 @@ public class FileDownloadApiTest extends ApiTest {
                 .log().all().extract();
     }
 
+    @Test
+    void 이미지불러오기요청_캐시검증_304(){
+        String etag = given(this.spec)
+                .pathParam("UUID",uuidImageFilename)
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .header(HttpHeaders.CACHE_CONTROL, containsString("immutable"))
+                .header(HttpHeaders.LAST_MODIFIED, notNullValue())
+                .extract().header(HttpHeaders.ETAG);
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "이미 받은 이미지의 ETag 를 If-None-Match 로 보내면 본문 없이 304 로 응답합니다.",
+                        "이미지캐시검증요청", FileDownloadDocument.uuidFileName))
+                .pathParam("UUID",uuidImageFilename)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NOT_MODIFIED.value())
+                .header(HttpHeaders.ETAG, etag)
+                .log().all();
+    }
+
+    @Test
+    void 이미지불러오기요청_삭제된_이미지는_캐시검증에도_404(){
+        String etag = given(this.spec)
+                .pathParam("UUID",uuidImageFilename)
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .extract().header(HttpHeaders.ETAG);
+
+        fileStoreService.checkDeleteFile(List.of(uuidImageFilename));
+
+        given(this.spec)
+                .pathParam("UUID",uuidImageFilename)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NOT_FOUND.value())
+                .header(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
+
+    @Test
+    void 파일다운로드요청_범위_206(){
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "Range 헤더로 요청한 byte 범위만 보냅니다.",
+                        "파일범위다운로드요청", FileDownloadDocument.uuidFileName))
+                .pathParam("UUID",uuidFilename)
+                .header(HttpHeaders.RANGE, "bytes=1-3")
+                .when()
+                .get("/request-download-files/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.PARTIAL_CONTENT.value())
+                .header(HttpHeaders.CONTENT_RANGE, "bytes 1-3/7")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(equalTo("xam"))
+                .log().all();
+    }
+
+    @Test
+    void 파일다운로드요청_범위초과_416(){
+        given(this.spec)
+                .pathParam("UUID",uuidFilename)
+                .header(HttpHeaders.RANGE, "bytes=100-")
+                .when()
+                .get("/request-download-files/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value())
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */7")
+                .header(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
+
+    @Test
+    void 파일다운로드요청_모든ETag조건_있는파일만_304(){
+        given(this.spec)
+                .pathParam("UUID",uuidFilename)
+                .header(HttpHeaders.IF_NONE_MATCH, "*")
+                .when()
+                .get("/request-download-files/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        given(this.spec)
+                .pathParam("UUID","123123.txt")
+                .header(HttpHeaders.IF_NONE_MATCH, "*")
+                .when()
+                .get("/request-download-files/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NOT_FOUND.value())
+                .header(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
+
+    @Test
+    void 이미지변형요청_성공_200() throws IOException {
+        byte[] variant = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "이미지를 요청한 너비와 형식으로 줄여서 보냅니다. 처음 요청할 때 만든 이미지를 저장해 두고 이후에는 저장된 이미지를 보냅니다.",
+                        "이미지변형요청", FileDownloadDocument.uuidFileName, FileDownloadDocument.imageVariantParameters))
+                .pathParam("UUID",uuidImageFilename)
+                .queryParam("w", 100)
+                .queryParam("fmt", "jpeg")
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .header(HttpHeaders.CONTENT_TYPE, startsWith(MediaType.IMAGE_JPEG_VALUE))
+                .extract().asByteArray();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(variant));
+        assertThat(image.getWidth()).isEqualTo(160);
+        assertThat(image.getHeight()).isEqualTo(160);
+    }
+
+    @Test
+    void 이미지변형요청_두번째_요청은_저장된_변형을_보냄() throws IOException {
+        // 내용이 같은 이미지는 blob 을 함께 쓰므로, 앞선 테스트가 만든 변형을 지우고 시작한다.
+        Path blobPath = fileStoreService.getStoredFilePath(fileStoreService.findStoredFileMetadata(uuidImageFilename).orElseThrow());
+        Files.deleteIfExists(Path.of(blobPath + ".w160.jpeg"));
+        double generations = meterRegistry.get("file.image-variant.generations").counter().count();
+
+        byte[] first = 이미지변형요청(uuidImageFilename, 100);
+        byte[] second = 이미지변형요청(uuidImageFilename, 100);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(meterRegistry.get("file.image-variant.generations").counter().count()).isEqualTo(generations + 1);
+    }
+
+    @Test
+    void 이미지변형_동시에_처음_요청해도_한번만_만듦(@TempDir Path fileDir) throws Exception {
+        Files.createDirectories(fileDir.resolve(BlobPathUtils.TEMP_DIR));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ImageVariantService imageVariantService = new ImageVariantService(meterRegistry, fileDir.toString(), new int[]{160}, 0.85f, 40_000_000L, 2, 10_000, 100, 3600);
+        Path originalPath = fileDir.resolve("parallel.jpg");
+        ImageIO.write(new BufferedImage(1280, 1280, BufferedImage.TYPE_INT_RGB), "jpeg", originalPath.toFile());
+
+        int requestCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService requests = Executors.newFixedThreadPool(requestCount);
+        try {
+            List<Future<ImageVariant>> variants = new ArrayList<>();
+            for(int i = 0; i < requestCount; i++){
+                variants.add(requests.submit(() -> {
+                    start.await();
+                    return imageVariantService.getVariant("parallel.jpg", originalPath, 100, "jpeg");
+                }));
+            }
+            start.countDown();
+
+            for(Future<ImageVariant> variant : variants){
+                assertThat(variant.get(10, TimeUnit.SECONDS).generated()).isTrue();
+            }
+            assertThat(meterRegistry.get("file.image-variant.generations").counter().count()).isEqualTo(1);
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+
+    @Test
+    void 이미지변형_EXIF_방향대로_돌린뒤_줄임(@TempDir Path fileDir) throws IOException {
+        Files.createDirectories(fileDir.resolve(BlobPathUtils.TEMP_DIR));
+        ImageVariantService imageVariantService = new ImageVariantService(new SimpleMeterRegistry(), fileDir.toString(), new int[]{160}, 0.85f, 40_000_000L, 2, 1000, 100, 3600);
+        // 왼쪽 절반이 빨강, 오른쪽 절반이 파랑인 가로 사진을 시계 방향으로 90도 돌려서 보도록(Orientation 6) 저장한다.
+        BufferedImage stored = new BufferedImage(640, 320, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = stored.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 320, 320);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(320, 0, 320, 320);
+        graphics.dispose();
+        Path originalPath = fileDir.resolve("rotated.jpg");
+        JPEG_EXIF_방향으로_저장(stored, 6, originalPath);
+
+        ImageVariant variant = imageVariantService.getVariant("rotated.jpg", originalPath, 100, "jpeg");
+
+        BufferedImage image = ImageIO.read(variant.path().toFile());
+        assertThat(image.getWidth()).isEqualTo(160);
+        assertThat(image.getHeight()).isEqualTo(320);
+        assertThat(new Color(image.getRGB(80, 40)).getRed()).isGreaterThan(200);
+        assertThat(new Color(image.getRGB(80, 280)).getBlue()).isGreaterThan(200);
+    }
+
+    @Test
+    void 이미지변형_만들수없는_원본은_다시_읽지않고_원본을_보냄(@TempDir Path fileDir) throws IOException {
+        Files.createDirectories(fileDir.resolve(BlobPathUtils.TEMP_DIR));
+        ImageVariantService imageVariantService = new ImageVariantService(new SimpleMeterRegistry(), fileDir.toString(), new int[]{160}, 0.85f, 40_000_000L, 2, 1000, 100, 3600);
+        Path originalPath = fileDir.resolve("broken.jpg");
+        Files.write(originalPath, "not an image".getBytes());
+
+        assertThat(imageVariantService.getVariant("broken.jpg", originalPath, 100, "jpeg").generated()).isFalse();
+
+        ImageIO.write(new BufferedImage(320, 320, BufferedImage.TYPE_INT_RGB), "jpeg", originalPath.toFile());
+        assertThat(imageVariantService.getVariant("broken.jpg", originalPath, 100, "jpeg").generated()).isFalse();
+        assertThat(fileDir.resolve(BlobPathUtils.VARIANT_DIR).resolve("broken.jpg.w160.jpeg")).doesNotExist();
+    }
+
+    @Test
+    void 이미지변형_만들_차례를_기다리다_시간이_지나면_원본을_보냄(@TempDir Path fileDir) throws IOException {
+        Files.createDirectories(fileDir.resolve(BlobPathUtils.TEMP_DIR));
+        ImageVariantService imageVariantService = new ImageVariantService(new SimpleMeterRegistry(), fileDir.toString(), new int[]{160}, 0.85f, 40_000_000L, 0, 10, 100, 3600);
+        Path originalPath = fileDir.resolve("waiting.jpg");
+        ImageIO.write(new BufferedImage(320, 320, BufferedImage.TYPE_INT_RGB), "jpeg", originalPath.toFile());
+
+        ImageVariant variant = imageVariantService.getVariant("waiting.jpg", originalPath, 100, "jpeg");
+
+        assertThat(variant.generated()).isFalse();
+        assertThat(variant.path()).isEqualTo(originalPath);
+    }
+
+    private byte[] 이미지변형요청(String fileName, int width) {
+        return given(this.spec)
+                .pathParam("UUID", fileName)
+                .queryParam("w", width)
+                .queryParam("fmt", "jpeg")
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .extract().asByteArray();
+    }
+
+    // IFD0 에 Orientation 하나만 담은 big-endian Exif 세그먼트를 APP1 으로 넣는다.
+    private void JPEG_EXIF_방향으로_저장(BufferedImage image, int orientation, Path path) throws IOException {
+        byte[] exif = {'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0};
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(path.toFile())) {
+            IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree("javax_imageio_jpeg_image_1.0");
+            IIOMetadataNode app1 = new IIOMetadataNode("unknown");
+            app1.setAttribute("MarkerTag", String.valueOf(0xE1));
+            app1.setUserObject(exif);
+            Node markerSequence = root.getElementsByTagName("markerSequence").item(0);
+            markerSequence.insertBefore(app1, markerSequence.getFirstChild());
+            metadata.setFromTree("javax_imageio_jpeg_image_1.0", root);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, metadata), null);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @Test
+    void 이미지변형요청_형식아님_400(){
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, CommonDocument.ErrorResponseFields))
+                .pathParam("UUID",uuidImageFilename)
+                .queryParam("fmt", "webp")
+                .when()
+                .get("/request-images/{UUID}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("find{it.errorType == 'InvalidImageVariantException' " +
+                        "&& it.fieldName == 'variant' " + "&& it.message == '지원하지 않는 이미지 변형입니다.'}", notNullValue())
+                .log().all().extract();
+    }
+
     @Test
     void 이미지파일요청_실패_404(){
         given(this.spec)
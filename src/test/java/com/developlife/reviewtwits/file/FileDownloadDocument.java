@@ -5,6 +5,7 @@ import org.springframework.restdocs.snippet.Snippet;
 import static com.developlife.reviewtwits.DocumentFormatProvider.required;
 import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
 import static org.springframework.restdocs.request.RequestDocumentation.pathParameters;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
 
 /**
  * @author WhalesBob
@@ -14,4 +15,9 @@ public class FileDownloadDocument {
     public static final Snippet uuidFileName = pathParameters(
             parameterWithName("UUID").attributes(required()).description("UUID 와 확장자로 구성된 파일 이름")
     );
-}
\ No newline at end of file
+
+    public static final Snippet imageVariantParameters = requestParameters(
+            parameterWithName("w").description("이미지 너비. 허용된 너비(160, 320, 640, 1080) 중 가장 가까운 큰 값으로 맞추고, 원본보다 크게 늘리지 않습니다.").optional(),
+            parameterWithName("fmt").description("이미지 형식(jpeg, jpg, png). 없으면 원본 형식").optional()
+    );
+}
@@ -3,7 +3,11 @@ package com.developlife.reviewtwits.review;
 import com.developlife.reviewtwits.ApiTest;
 import com.developlife.reviewtwits.CommonDocument;
 import com.developlife.reviewtwits.CommonSteps;
+import com.developlife.reviewtwits.QueryCountRecorder;
+import com.developlife.reviewtwits.config.query.QueryCountResult;
+import com.developlife.reviewtwits.config.security.JwtTokenProvider;
 import com.developlife.reviewtwits.entity.*;
+import com.developlife.reviewtwits.message.request.sns.FollowRequest;
 import com.developlife.reviewtwits.message.request.user.RegisterUserRequest;
 import com.developlife.reviewtwits.message.response.review.CommentResponse;
 import com.developlife.reviewtwits.message.response.review.ReactionResponse;
@@ -11,13 +15,19 @@ import com.developlife.reviewtwits.message.response.sns.DetailSnsReviewResponse;
 import com.developlife.reviewtwits.project.ProjectSteps;
 import com.developlife.reviewtwits.repository.*;
 import com.developlife.reviewtwits.repository.CommentRepository;
+import com.developlife.reviewtwits.repository.file.FileInfoRepository;
+import com.developlife.reviewtwits.repository.review.ReviewCard;
+import com.developlife.reviewtwits.repository.review.ReviewCardCache;
 import com.developlife.reviewtwits.repository.review.ReviewRepository;
+import com.developlife.reviewtwits.service.HomeTimelineService;
 import com.developlife.reviewtwits.service.ProjectService;
 import com.developlife.reviewtwits.service.user.UserService;
 import com.developlife.reviewtwits.sns.SnsSteps;
 import com.developlife.reviewtwits.type.review.ReviewStatus;
 import com.developlife.reviewtwits.user.UserDocument;
 import com.developlife.reviewtwits.user.UserSteps;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.builder.MultiPartSpecBuilder;
 import io.restassured.http.ContentType;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.ExtractableResponse;
@@ -33,11 +43,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.developlife.reviewtwits.review.ShoppingMallReviewSteps.임시_상품정보_생성;
 import static com.developlife.reviewtwits.review.SnsReviewSteps.*;
@@ -87,6 +103,24 @@ public class SnsReviewApiTest extends ApiTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HomeTimelineService homeTimelineService;
+
+    @Autowired
+    private FileInfoRepository fileInfoRepository;
+
+    @Autowired
+    private QueryCountRecorder queryCountRecorder;
+
+    @Autowired
+    private ReviewCardCache reviewCardCache;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
 //    @Autowired
 //    private AmazonS3 s3Client;
 
@@ -1413,6 +1447,322 @@ public class SnsReviewApiTest extends ApiTest {
         assertThat(allReviews).isNotEmpty();
     }
 
+    @Test
+    void SNS_홈피드_팔로우한_유저_리뷰_요청_성공() throws InterruptedException {
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+
+        Long notFollowedReviewId = snsReviewSteps.SNS_리뷰_작성(otherToken, "review before follow : other");
+        팔로우_요청(otherToken, SnsSteps.userNickname);
+
+        // 팔로우 직후 첫 조회에서 DB 기준으로 타임라인이 만들어진다.
+        given(this.spec)
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("size", 2)
+                .when()
+                .get("/sns/home-feeds")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value());
+
+        List<Long> reviewIdList = new ArrayList<>();
+        for(int writeCount = 1; writeCount <= 3; writeCount++){
+            reviewIdList.add(snsReviewSteps.SNS_리뷰_작성(token, "review count : " + writeCount));
+        }
+        // fan-out 은 커밋 후 timelineExecutor 에서 반영된다.
+        홈피드_반영_대기(otherToken, 3, List.of(reviewIdList.get(2), reviewIdList.get(1), reviewIdList.get(0)));
+
+        int size = 2;
+        ExtractableResponse<Response> firstResponse = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "팔로우한 유저들의 SNS 리뷰를 최신순으로 모아 보여주는 홈 피드 API 입니다." +
+                        "<br> X-AUTH-TOKEN 이 필요하며, 넣어주지 않으면 401 Unauthorized 를 받게 됩니다." +
+                        "<br> 처음에는 reviewId 를 넣어주지 않은 상태로 요청을 보내고, 이후에는 리뷰 리스트의 마지막 reviewId 를 넘겨주면 됩니다." +
+                        "<br> size 값은 필수 값이며, 1 이상이어야 합니다." +
+                        "<br> 더 이상 보여줄 리뷰가 없으면 204 No Content 가 반환됩니다.", "SNS홈피드요청",
+                        UserDocument.AccessTokenHeader, SnsReviewDocument.ReviewIdAndSizeField, SnsReviewDocument.SnsReviewFeedResponseField))
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("size", size)
+                .when()
+                .get("/sns/home-feeds")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        JsonPath firstJsonPath = firstResponse.jsonPath();
+        assertThat(firstJsonPath.getList("reviewId", Long.class)).containsExactly(reviewIdList.get(2), reviewIdList.get(1));
+
+        ExtractableResponse<Response> secondResponse = given(this.spec)
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("size", size)
+                .param("reviewId", firstJsonPath.getLong("[1].reviewId"))
+                .when()
+                .get("/sns/home-feeds")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        List<Long> secondReviewIdList = secondResponse.jsonPath().getList("reviewId", Long.class);
+        assertThat(secondReviewIdList).containsExactly(reviewIdList.get(0));
+        assertThat(secondReviewIdList).doesNotContain(notFollowedReviewId);
+    }
+
+    @Test
+    void SNS_홈피드_삭제된_리뷰는_타임라인에서_빠짐() throws InterruptedException {
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+
+        팔로우_요청(otherToken, SnsSteps.userNickname);
+        홈피드_반영_대기(otherToken, 2, List.of());
+
+        List<Long> reviewIdList = new ArrayList<>();
+        for(int writeCount = 1; writeCount <= 3; writeCount++){
+            reviewIdList.add(snsReviewSteps.SNS_리뷰_작성(token, "review for home feed delete : " + writeCount));
+        }
+        홈피드_반영_대기(otherToken, 2, List.of(reviewIdList.get(2), reviewIdList.get(1)));
+
+        given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .pathParam("reviewId", reviewIdList.get(1))
+                .when()
+                .delete("/sns/reviews/{reviewId}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+
+        // 삭제된 리뷰 대신 다음 리뷰가 채워져 페이지가 짧아지지 않는다.
+        홈피드_반영_대기(otherToken, 2, List.of(reviewIdList.get(2), reviewIdList.get(0)));
+    }
+
+    @Test
+    void SNS_홈피드_팔로워_많은_유저의_잘린_타임라인은_DB_에서_이어서_조회() throws InterruptedException {
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+
+        // 작성자를 팔로워 많은 유저로 만들고, 작성자 타임라인은 최근 2개만 남긴다.
+        ReflectionTestUtils.setField(homeTimelineService, "fanoutFollowerLimit", 0L);
+        ReflectionTestUtils.setField(homeTimelineService, "maxTimelineLength", 2);
+        try {
+            팔로우_요청(otherToken, SnsSteps.userNickname);
+            // 팔로워 많은 유저가 생기기 전에 팔로우 목록이 캐시된다.
+            홈피드_반영_대기(otherToken, 3, List.of());
+
+            List<Long> reviewIdList = new ArrayList<>();
+            for(int writeCount = 1; writeCount <= 4; writeCount++){
+                reviewIdList.add(snsReviewSteps.SNS_리뷰_작성(token, "review for celebrity timeline : " + writeCount));
+            }
+            홈피드_반영_대기(otherToken, 3, List.of(reviewIdList.get(3), reviewIdList.get(2), reviewIdList.get(1)));
+
+            List<Long> nextReviewIdList = given(this.spec)
+                    .header("X-AUTH-TOKEN", otherToken)
+                    .param("size", 3)
+                    .param("reviewId", reviewIdList.get(1))
+                    .when()
+                    .get("/sns/home-feeds")
+                    .then()
+                    .assertThat()
+                    .statusCode(HttpStatus.OK.value())
+                    .extract().jsonPath().getList("reviewId", Long.class);
+            assertThat(nextReviewIdList).containsExactly(reviewIdList.get(0));
+        } finally {
+            ReflectionTestUtils.setField(homeTimelineService, "fanoutFollowerLimit", 10000L);
+            ReflectionTestUtils.setField(homeTimelineService, "maxTimelineLength", 800);
+        }
+    }
+
+    @Test
+    void SNS_홈피드_언팔로우후_요청_204(){
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+
+        팔로우_요청(otherToken, SnsSteps.userNickname);
+        snsReviewSteps.SNS_리뷰_작성(token, "review for home feed unfollow");
+
+        given(this.spec)
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("size", 10)
+                .when()
+                .get("/sns/home-feeds")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+
+        given(this.spec)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .header("X-AUTH-TOKEN", otherToken)
+                .body(FollowRequest.builder().targetUserNickname(SnsSteps.userNickname).build())
+                .when()
+                .post("/sns/request-unfollow");
+
+        given(this.spec)
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("size", 10)
+                .when()
+                .get("/sns/home-feeds")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value());
+    }
+
+    @Test
+    void 리뷰카드_캐시_재사용_및_변경시_무효화_테스트(){
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+        Long registeredReviewId = SNS_리뷰_작성(token, "write review for review card cache");
+
+        double hitCountBefore = 리뷰카드_캐시_조회수("hit");
+        SNS_리뷰_하나_조회(token, registeredReviewId);
+        SNS_리뷰_하나_조회(otherToken, registeredReviewId);
+        assertThat(리뷰카드_캐시_조회수("hit")).isGreaterThan(hitCountBefore);
+
+        // 카드는 공유하더라도, 조회자별 리액션 여부는 따로 계산된다.
+        SNS_리액션_추가(otherToken, registeredReviewId);
+        assertThat(SNS_리뷰_하나_조회(otherToken, registeredReviewId).getBoolean("reactionResponses.GOOD.isReacted")).isTrue();
+        JsonPath writerView = SNS_리뷰_하나_조회(token, registeredReviewId);
+        assertThat(writerView.getBoolean("reactionResponses.GOOD.isReacted")).isFalse();
+        assertThat(writerView.getInt("reactionResponses.GOOD.count")).isEqualTo(1);
+
+        given(this.spec)
+                .contentType(MediaType.MULTIPART_FORM_DATA_VALUE)
+                .header("X-AUTH-TOKEN", token)
+                .pathParam("reviewId", registeredReviewId)
+                .multiPart(CommonSteps.multipartText("content", changeCommentContent))
+                .when()
+                .patch("/sns/reviews/{reviewId}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+
+        assertThat(SNS_리뷰_하나_조회(otherToken, registeredReviewId).getString("content")).isEqualTo(changeCommentContent);
+    }
+
+    @Test
+    void 리뷰카드_조회중_무효화되면_읽은_카드를_캐시에_넣지_않음(){
+        long reviewId = 987654321L;
+        ReviewCard staleCard = ReviewCard.builder()
+                .reviewId(reviewId)
+                .content("stale content")
+                .reviewImageUrlList(List.of())
+                .reactionCounts(Map.of())
+                .build();
+        AtomicInteger loadCount = new AtomicInteger();
+
+        // 읽는 도중 커밋된 변경으로 카드가 지워지는 상황
+        Map<Long, ReviewCard> firstCards = reviewCardCache.getAll(List.of(reviewId), reviewIdList -> {
+            loadCount.incrementAndGet();
+            reviewCardCache.evictAfterCommit(reviewId);
+            return Map.of(reviewId, staleCard);
+        });
+        assertThat(firstCards).containsEntry(reviewId, staleCard);
+
+        reviewCardCache.getAll(List.of(reviewId), reviewIdList -> {
+            loadCount.incrementAndGet();
+            return Map.of(reviewId, staleCard);
+        });
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    void 리뷰_이미지_업로드순서_유지_및_삭제반영_테스트() throws IOException {
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        List<String> uploadOrder = List.of("third.png", "first.png", "second.png");
+
+        RequestSpecification request = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .multiPart("productURL", productURL)
+                .multiPart(CommonSteps.multipartText("content", "write review for image order test"))
+                .multiPart("score", starScore)
+                .multiPart(CommonSteps.multipartText("productName", productName));
+        for(String fileName : uploadOrder){
+            request.multiPart(new MultiPartSpecBuilder(PNG_이미지_바이트_생성())
+                    .controlName("multipartImageFiles")
+                    .fileName(fileName)
+                    .mimeType(MediaType.IMAGE_PNG_VALUE)
+                    .build());
+        }
+        long reviewId = request.when()
+                .post("/sns/reviews")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .extract().jsonPath().getLong("reviewId");
+
+        List<String> realFilenameList = 리뷰_이미지_파일명_조회(token, reviewId);
+        assertThat(원본파일명_변환(realFilenameList)).containsExactlyElementsOf(uploadOrder);
+
+        given(this.spec)
+                .contentType(MediaType.MULTIPART_FORM_DATA_VALUE)
+                .header("X-AUTH-TOKEN", token)
+                .pathParam("reviewId", reviewId)
+                .multiPart("deleteFileList", realFilenameList.get(1))
+                .when()
+                .patch("/sns/reviews/{reviewId}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+
+        assertThat(원본파일명_변환(리뷰_이미지_파일명_조회(token, reviewId))).containsExactly("third.png", "second.png");
+        assertThat(reviewRepository.findById(reviewId).get().getReviewImageCount()).isEqualTo(2);
+    }
+
+    @Test
+    void 리뷰매핑_리액션_스크랩_집계_테스트(){
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+        Long registeredReviewId = SNS_리뷰_작성(token, "write review for mapping test");
+
+        SNS_리액션_추가(token, registeredReviewId);
+        SNS_리액션_추가(otherToken, registeredReviewId);
+        SNS_리뷰_스크랩_추가(token, registeredReviewId);
+
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("reviewId").descending());
+        User user = userRepository.findByAccountId(UserSteps.accountId).get();
+
+        List<DetailSnsReviewResponse> allReviews = reviewRepository.findMappingReviewById(user, null, pageable);
+        assertThat(allReviews).hasSize(1);
+
+        DetailSnsReviewResponse mappedReview = allReviews.get(0);
+        assertThat(mappedReview.reviewImageUrlList()).hasSize(리뷰_이미지_파일정보_생성().size());
+        assertThat(mappedReview.reactionResponses().get(reactionContent).count()).isEqualTo(2);
+        assertThat(mappedReview.reactionResponses().get(reactionContent).isReacted()).isTrue();
+        assertThat(mappedReview.isScrapped()).isTrue();
+
+        List<DetailSnsReviewResponse> anonymousReviews = reviewRepository.findMappingReviewById(null, null, pageable);
+        assertThat(anonymousReviews.get(0).reactionResponses().get(reactionContent).isReacted()).isFalse();
+        assertThat(anonymousReviews.get(0).isScrapped()).isFalse();
+    }
+
+    @Test
+    void 리뷰매핑_리액션_변경_취소_집계반영_테스트(){
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+        Long registeredReviewId = SNS_리뷰_작성(token, "write review for reaction summary test");
+
+        SNS_리액션_추가(token, registeredReviewId);
+        SNS_리액션_추가(otherToken, registeredReviewId);
+
+        // 리액션 변경 후, 같은 리액션으로 한번 더 눌러 취소
+        given(this.spec)
+                .header("X-AUTH-TOKEN", otherToken)
+                .pathParam("reviewId", registeredReviewId)
+                .param("reaction", newReactionContent)
+                .when()
+                .post("/sns/review-reaction/{reviewId}");
+
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("reviewId").descending());
+        User user = userRepository.findByAccountId(UserSteps.accountId).get();
+        DetailSnsReviewResponse changedReview = reviewRepository.findMappingReviewById(user, null, pageable).get(0);
+        assertThat(changedReview.reactionResponses().get(reactionContent).count()).isEqualTo(1);
+        assertThat(changedReview.reactionResponses().get(newReactionContent).count()).isEqualTo(1);
+        assertThat(changedReview.reactionResponses().get(newReactionContent).isReacted()).isFalse();
+
+        SNS_리액션_추가(token, registeredReviewId);
+        DetailSnsReviewResponse canceledReview = reviewRepository.findMappingReviewById(user, null, pageable).get(0);
+        assertThat(canceledReview.reactionResponses()).doesNotContainKey(reactionContent);
+        assertThat(canceledReview.reactionResponses().get(newReactionContent).count()).isEqualTo(1);
+    }
+
     Long SNS_리뷰_작성(String token, String content) {
 
         RequestSpecification request = given(this.spec).log().all()
@@ -1511,6 +1861,129 @@ public class SnsReviewApiTest extends ApiTest {
         return response.jsonPath();
     }
 
+    @Test
+    void 여러_작성자_피드_댓글_조회시_작성자수만큼_쿼리가_반복되지_않음(){
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        final int writerCount = 5;
+        List<String> writerTokenList = 작성자_여러명_토큰_생성(writerCount);
+
+        Long commentedReviewId = SNS_리뷰_작성(token, "write review for lazy loading test");
+        for(String writerToken : writerTokenList){
+            SNS_리뷰_작성(writerToken, "write review for lazy loading test");
+            SNS_리뷰_댓글_작성(writerToken, commentedReviewId);
+        }
+
+        given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("size", 10)
+                .when()
+                .get("/sns/feeds")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+        QueryCountResult feedResult = queryCountRecorder.awaitResult();
+
+        given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .pathParam("reviewId", commentedReviewId)
+                .when()
+                .get("/sns/comments/{reviewId}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+        QueryCountResult commentResult = queryCountRecorder.awaitResult();
+
+        // 작성자 정보는 fetch join 으로, 권한은 batch 로 읽으므로 작성자 수와 무관하게 같은 쿼리가 반복되지 않는다.
+        assertThat(feedResult.maxRepeatedCount()).isLessThan(writerCount);
+        assertThat(commentResult.maxRepeatedCount()).isLessThan(writerCount);
+        assertThat(commentResult.queryCount()).isLessThan(writerCount * 2);
+    }
+
+    JsonPath SNS_리뷰_하나_조회(String token, long reviewId){
+        return given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .pathParam("reviewId", reviewId)
+                .when()
+                .get("/sns/reviews/{reviewId}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .extract().jsonPath();
+    }
+
+    double 리뷰카드_캐시_조회수(String result){
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ReviewCardCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    byte[] PNG_이미지_바이트_생성() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    List<String> 리뷰_이미지_파일명_조회(String token, long reviewId){
+        return SNS_리뷰_하나_조회(token, reviewId).getList("reviewImageUrlList", String.class).stream()
+                .map(imageUrl -> imageUrl.substring(imageUrl.lastIndexOf("/") + 1))
+                .toList();
+    }
+
+    List<String> 원본파일명_변환(List<String> realFilenameList){
+        return realFilenameList.stream()
+                .map(realFilename -> fileInfoRepository.findFileInfoByRealFilename(realFilename).get().getOriginalFilename())
+                .toList();
+    }
+
+    List<String> 작성자_여러명_토큰_생성(int count){
+        List<String> tokenList = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            User writer = userRepository.save(User.builder()
+                    .accountId("writer" + i + "@test.com")
+                    .nickname("writer" + i)
+                    .phoneNumber("0107777000" + i)
+                    .roles(UserSteps.일반유저권한_생성())
+                    .build());
+            tokenList.add(jwtTokenProvider.issueJwtTokenResponse(writer).accessToken());
+        }
+        return tokenList;
+    }
+
+    void 팔로우_요청(String token, String targetUserNickname){
+        given(this.spec)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .header("X-AUTH-TOKEN", token)
+                .body(FollowRequest.builder().targetUserNickname(targetUserNickname).build())
+                .when()
+                .post("/sns/request-follow")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    void 홈피드_반영_대기(String token, int size, List<Long> expectedReviewIdList) throws InterruptedException {
+        List<Long> reviewIdList = List.of();
+        for(int attempt = 0; attempt < 50; attempt++){
+            ExtractableResponse<Response> response = given(this.spec)
+                    .header("X-AUTH-TOKEN", token)
+                    .param("size", size)
+                    .when()
+                    .get("/sns/home-feeds")
+                    .then()
+                    .extract();
+            reviewIdList = response.statusCode() == HttpStatus.OK.value()
+                    ? response.jsonPath().getList("reviewId", Long.class)
+                    : List.of();
+            if(reviewIdList.equals(expectedReviewIdList)){
+                return;
+            }
+            Thread.sleep(100);
+        }
+        assertThat(reviewIdList).containsExactlyElementsOf(expectedReviewIdList);
+    }
+
     void 추가회원가입정보_입력(String token, String nickname) throws IOException {
         MultiPartSpecification profileImage = ShoppingMallReviewSteps.프로필_이미지_파일정보생성();
 
@@ -2,40 +2,74 @@ package com.developlife.reviewtwits.statistics;
 
 import com.developlife.reviewtwits.ApiTest;
 import com.developlife.reviewtwits.CommonDocument;
+import com.developlife.reviewtwits.entity.BackfillJobState;
 import com.developlife.reviewtwits.entity.Product;
 import com.developlife.reviewtwits.entity.Project;
 import com.developlife.reviewtwits.entity.StatInfo;
 import com.developlife.reviewtwits.entity.User;
+import com.developlife.reviewtwits.message.request.StatMessageRequest;
+import com.developlife.reviewtwits.message.request.statistics.VisitIngestionPolicyRequest;
 import com.developlife.reviewtwits.message.request.user.RegisterUserRequest;
 import com.developlife.reviewtwits.message.response.statistics.VisitInfoResponse;
 import com.developlife.reviewtwits.project.ProjectDocument;
 import com.developlife.reviewtwits.project.ProjectSteps;
 import com.developlife.reviewtwits.repository.ProductRepository;
 import com.developlife.reviewtwits.repository.ProjectRepository;
+import com.developlife.reviewtwits.repository.statistics.BackfillJobStateRepository;
 import com.developlife.reviewtwits.repository.statistics.StatInfoRepository;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
 import com.developlife.reviewtwits.review.ShoppingMallReviewSteps;
 import com.developlife.reviewtwits.service.ProjectService;
+import com.developlife.reviewtwits.service.statistics.BackfillJobService;
+import com.developlife.reviewtwits.service.statistics.LiveVisitBroadcaster;
+import com.developlife.reviewtwits.service.statistics.StatIdAllocator;
+import com.developlife.reviewtwits.service.statistics.VisitColumnStoreLoader;
+import com.developlife.reviewtwits.service.statistics.VisitCounterService;
+import com.developlife.reviewtwits.service.statistics.VisitDedupFilter;
+import com.developlife.reviewtwits.service.statistics.VisitEvent;
+import com.developlife.reviewtwits.service.statistics.VisitEventBuffer;
+import com.developlife.reviewtwits.service.statistics.VisitEventWriter;
+import com.developlife.reviewtwits.service.statistics.VisitRetentionService;
 import com.developlife.reviewtwits.service.user.UserService;
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.BackfillJobStatus;
+import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+import com.developlife.reviewtwits.type.project.VisitIngestionPolicy;
 import com.developlife.reviewtwits.sns.SnsSteps;
 import com.developlife.reviewtwits.user.UserSteps;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.ExtractableResponse;
 import io.restassured.response.Response;
 import io.restassured.specification.MultiPartSpecification;
+import io.restassured.specification.RequestSpecification;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import javax.sql.DataSource;
 import java.io.IOException;
-import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.developlife.reviewtwits.review.ShoppingMallReviewSteps.임시_상품정보_생성;
 import static com.epages.restdocs.apispec.RestAssuredRestDocumentationWrapper.document;
@@ -61,9 +95,52 @@ public class StatApiTest extends ApiTest {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private VisitEventWriter visitEventWriter;
+
+    @Autowired
+    private VisitRetentionService visitRetentionService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private VisitEventBuffer visitEventBuffer;
+
+    @Autowired
+    private VisitCounterService visitCounterService;
+
+    @Autowired
+    private BackfillJobStateRepository backfillJobStateRepository;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private VisitColumnStore visitColumnStore;
+
+    @Autowired
+    private BackfillJobService backfillJobService;
+
+    @Autowired
+    private StatIdAllocator statIdAllocator;
+
+    @Autowired
+    private LiveVisitBroadcaster liveVisitBroadcaster;
+
+    @Autowired
+    @Qualifier("liveVisitExecutor")
+    private ThreadPoolTaskExecutor liveVisitExecutor;
+    @Autowired
+    @Qualifier("backfillExecutor")
+    private ThreadPoolTaskExecutor backfillExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
     private RegisterUserRequest registerUserRequest;
     private RegisterUserRequest registerOtherUserRequest;
 
@@ -117,6 +194,8 @@ public class StatApiTest extends ApiTest {
 
         JsonPath jsonPath = response.jsonPath();
         long statId = jsonPath.getLong("statId");
+        // 방문 정보는 버퍼에 쌓였다가 저장되므로, 남은 방문 정보를 기록한 뒤 확인한다.
+        visitEventBuffer.flush();
         Optional<StatInfo> foundStatInfo = statInfoRepository.findById(statId);
 
         assertThat(foundStatInfo).isPresent();
@@ -124,6 +203,17 @@ public class StatApiTest extends ApiTest {
         assertThat(jsonPath.getString("productUrl")).isEqualTo(StatInfoSteps.productUrl);
         assertThat(jsonPath.getString("deviceInfo")).isEqualTo(StatInfoSteps.device);
         assertThat(jsonPath.getString("inflowUrl")).isEqualTo(StatInfoSteps.inflowUrl);
+        assertThat(foundStatInfo.get().getInflow()).isEqualTo(Inflow.NAVER);
+    }
+
+    @Test
+    void 유입경로_인코딩되지_않은_referrer_분류(){
+        assertThat(Inflow.fromUrl("https://search.naver.com/search.naver?query=리뷰 트윗|추천")).isEqualTo(Inflow.NAVER);
+        assertThat(Inflow.fromUrl("www.google.co.kr/search?q=리뷰")).isEqualTo(Inflow.GOOGLE);
+        assertThat(Inflow.fromUrl("//m.search.daum.net#q")).isEqualTo(Inflow.DAUM);
+        assertThat(Inflow.fromUrl("https://user:pw@WWW.BING.COM:443/search")).isEqualTo(Inflow.BING);
+        assertThat(Inflow.fromUrl("https://notnaver.com/search")).isEqualTo(Inflow.ETC);
+        assertThat(Inflow.fromUrl("   ")).isEqualTo(Inflow.ETC);
     }
 
     @Test
@@ -164,6 +254,134 @@ public class StatApiTest extends ApiTest {
                 .statusCode(HttpStatus.OK.value())
                 .log().all().extract();
     }
+    @Test
+    void 통계정보_beacon_등록_성공_204(){
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "추적 스크립트가 navigator.sendBeacon 으로 모아 둔 방문 정보를 한 번에 보냅니다." +
+                                "<br>본문은 방문 정보의 JSON 배열이나 한 줄에 하나씩 쓴 NDJSON 이고, Content-Type 은 text/plain, application/x-ndjson, application/json 중 하나입니다." +
+                                "<br>형식이 맞지 않거나 등록되지 않은 상품의 방문은 건너뛰고, 204 No Content 가 반환됩니다." +
+                                "<br>sendBeacon 은 요청 헤더를 정할 수 없으므로 beacon 방문은 비로그인 방문으로 기록하며, 방문자는 visitorId 로 구분합니다." +
+                                "<br>본문을 읽을 수 없거나 크기, 건수 제한을 넘으면 400 Bad Request 가 반환됩니다.", "방문정보beacon등록",
+                        StatDocument.beaconRequestFields))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .body(List.of(StatInfoSteps.통계정보_생성(), StatInfoSteps.통계정보_생성("https://www.google.com/"),
+                        StatInfoSteps.통계정보_생성_device_형식아님()))
+                .when()
+                .post("/statistics/beacon")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value())
+                .log().all().extract();
+
+        visitEventBuffer.flush();
+        List<StatInfo> savedStatInfos = statInfoRepository.findAll();
+        assertThat(savedStatInfos).hasSize(2);
+        assertThat(savedStatInfos).allMatch(statInfo -> statInfo.getUser() == null);
+    }
+
+    @Test
+    void 통계정보_beacon_NDJSON_유저정보없음_성공_204(){
+        String body = String.join("\n",
+                "{\"inflowUrl\":\"" + StatInfoSteps.inflowUrl + "\",\"productUrl\":\"" + StatInfoSteps.productUrl + "\",\"device\":\"PC\",\"visitorId\":\"visitor-1\"}",
+                "{\"productUrl\":\"" + StatInfoSteps.productUrl + "\",\"device\":\"MOBILE\"}",
+                "{\"productUrl\":\"" + StatInfoSteps.notRegisteredProductUrl + "\",\"device\":\"PC\"}");
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH))
+                .contentType(MediaType.TEXT_PLAIN_VALUE)
+                .body(body)
+                .when()
+                .post("/statistics/beacon")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value())
+                .log().all().extract();
+
+        visitEventBuffer.flush();
+        List<StatInfo> savedStatInfos = statInfoRepository.findAll();
+        assertThat(savedStatInfos).hasSize(2);
+        assertThat(savedStatInfos).allMatch(statInfo -> statInfo.getUser() == null);
+    }
+
+    @Test
+    void 통계정보_beacon_타입이_맞지않는_원소만_건너뜀_204(){
+        String visit = "{\"inflowUrl\":\"" + StatInfoSteps.inflowUrl + "\",\"productUrl\":\"" + StatInfoSteps.productUrl + "\",\"device\":\"PC\",\"visitorId\":\"%s\"}";
+        String body = "[" + String.join(",",
+                String.format(visit, "visitor-1"),
+                "{\"productUrl\":{\"url\":\"" + StatInfoSteps.productUrl + "\"},\"device\":\"PC\"}",
+                "[\"" + StatInfoSteps.productUrl + "\"]",
+                "42",
+                String.format(visit, "visitor-2")) + "]";
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .when()
+                .post("/statistics/beacon")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value())
+                .log().all().extract();
+
+        visitEventBuffer.flush();
+        assertThat(statInfoRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void 통계정보_beacon_형식아님_400(){
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, CommonDocument.ErrorResponseFields))
+                .contentType(MediaType.TEXT_PLAIN_VALUE)
+                .body("visited " + StatInfoSteps.productUrl)
+                .when()
+                .post("/statistics/beacon")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .log().all().extract();
+
+        visitEventBuffer.flush();
+        assertThat(statInfoRepository.count()).isZero();
+    }
+
+    @Test
+    void 방문정보_batch_에_제약조건을_어긴_방문이_있으면_그_방문만_버림(){
+        통계_사전작업();
+        long visitCount = statInfoRepository.count();
+        Map<String, Object> storedVisit = jdbcTemplate.queryForMap(
+                "select stat_id, project_project_id, product_product_id from stat_info order by stat_id limit 1");
+        double droppedVisits = meterRegistry.get("statistics.visit.events").tag("result", "dropped").counter().count();
+
+        // 이미 기록된 stat_id 를 가진 방문이 batch 가운데에 섞여 있다.
+        List<VisitEvent> visitEvents = new ArrayList<>();
+        for(long statId : new long[]{100_001L, 100_002L, ((Number) storedVisit.get("stat_id")).longValue(), 100_003L, 100_004L}){
+            visitEvents.add(VisitEvent.builder()
+                    .statId(statId)
+                    .projectId(((Number) storedVisit.get("project_project_id")).longValue())
+                    .productId(((Number) storedVisit.get("product_product_id")).longValue())
+                    .createdDate(LocalDateTime.now())
+                    .build());
+        }
+        visitEventBuffer.enqueueAll(visitEvents);
+        visitEventBuffer.flush();
+
+        assertThat(statInfoRepository.count()).isEqualTo(visitCount + 4);
+        assertThat(meterRegistry.get("statistics.visit.events").tag("result", "dropped").counter().count()).isEqualTo(droppedVisits + 1);
+    }
+
+    @Test
+    void 방문정보_id_sequence_가_기록된_id_보다_뒤처져_있으면_시작할때_앞으로_당김(){
+        통계_사전작업();
+        jdbcTemplate.update("update stat_info set stat_id = 10000000 where stat_id = 1");
+
+        statIdAllocator.ensureSequenceAheadOfStoredIds();
+
+        assertThat(jdbcTemplate.queryForObject("select next value for stat_info_seq", Long.class))
+                .isGreaterThan(10_000_000L + StatInfo.ID_ALLOCATION_SIZE);
+    }
+
     @Test
     void 통계정보_등록_URL_형식아님_400(){
         given(this.spec)
@@ -267,6 +485,28 @@ public class StatApiTest extends ApiTest {
         assertThat(jsonPath.getString("range")).isEqualTo(ProjectSteps.exampleRange);
     }
 
+    @Test
+    void 일간_방문_통계정보_같은_유저의_반복방문은_순방문자_한명으로_집계() {
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        ExtractableResponse<Response> response = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .param("count", ProjectSteps.exampleCount)
+                .when()
+                .get("/statistics/tick-counts/daily-visit-graph-infos")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        List<Map<String, Object>> visitInfo = response.jsonPath().getList("visitInfo");
+        Map<String, Object> todayVisitInfo = visitInfo.get(visitInfo.size() - 1);
+        assertThat(todayVisitInfo.get("visitCount")).isEqualTo(3);
+        assertThat(todayVisitInfo.get("uniqueVisitorCount")).isEqualTo(1);
+    }
+
     @Test
     void 일간_방문_통계정보_헤더정보없음_401() {
         Project project = 통계_사전작업();
@@ -499,6 +739,71 @@ public class StatApiTest extends ApiTest {
         assertThat(jsonPath.getInt("totalVisit")).isEqualTo(20);
     }
 
+    @Test
+    void 최근방문_통계정보_요청시_방문수_카운터가_없으면_집계테이블에서_다시_채움(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.flushDb();
+            return null;
+        });
+
+        ExtractableResponse<Response> response = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/recent-visit-counts")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        JsonPath jsonPath = response.jsonPath();
+        assertThat(jsonPath.getInt("todayVisit")).isEqualTo(3);
+        assertThat(jsonPath.getInt("yesterdayVisit")).isEqualTo(2);
+        assertThat(jsonPath.getInt("totalVisit")).isEqualTo(20);
+        assertThat(redisTemplate.opsForValue().get("visit:count:total:" + project.getProjectId())).isEqualTo("20");
+    }
+
+    @Test
+    void 최근방문_통계정보_카운터가_없을때_들어온_방문이_이전_방문수를_가리지_않음(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.flushDb();
+            return null;
+        });
+        방문정보_등록(token, StatInfoSteps.통계정보_생성());
+        visitEventBuffer.flush();
+
+        ExtractableResponse<Response> response = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/recent-visit-counts")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        assertThat(response.jsonPath().getInt("todayVisit")).isEqualTo(4);
+        assertThat(response.jsonPath().getInt("totalVisit")).isEqualTo(21);
+    }
+
+    @Test
+    void 최근방문_통계정보_카운터_정합성_작업은_차이만큼_맞추고_서버_한곳에서만_실행(){
+        Project project = 통계_사전작업();
+        visitCounterService.getRecentVisitInfo(project.getProjectId());
+        redisTemplate.opsForValue().set("visit:count:total:" + project.getProjectId(), "7");
+
+        visitCounterService.reconcileAll();
+        assertThat(redisTemplate.opsForValue().get("visit:count:total:" + project.getProjectId())).isEqualTo("20");
+
+        redisTemplate.opsForValue().set("visit:count:total:" + project.getProjectId(), "7");
+        visitCounterService.reconcileAll();
+        assertThat(redisTemplate.opsForValue().get("visit:count:total:" + project.getProjectId())).isEqualTo("7");
+    }
+
     @Test
     void 최근방문_통계정보_요청_헤더정보없음_401(){
         Project project = 통계_사전작업();
@@ -879,6 +1184,38 @@ public class StatApiTest extends ApiTest {
                 .log().all().extract();
     }
 
+    @Test
+    void 대시보드_상품정보_통계_주요연령대는_출생연도별_최대가_아닌_연령대_합계로_정함(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        int currentYear = LocalDate.now().getYear();
+        int userAgeBand = (currentYear - LocalDate.parse(UserSteps.birthDate).getYear() + 1) / 10;
+
+        // 원본 20건은 한 출생 연도에 몰려 있고, 압축된 방문은 30대의 세 출생 연도에 8건씩 나뉘어 있다.
+        // 출생 연도별로는 원본이 가장 많지만 연령대로 합치면 30대가 24건으로 가장 많다.
+        for(int age = 30; age <= 32; age++){
+            jdbcTemplate.update("insert into visit_archive_rollup (project_id, product_id, month_start, compacted_partition, gender, birth_year, visit_count) " +
+                            "values (?, ?, ?, ?, ?, ?, ?)",
+                    project.getProjectId(), product.getProductId(), LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 1),
+                    Gender.여자.name(), currentYear - age + 1, 8);
+        }
+
+        JsonPath jsonPath = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/dashboard/product-statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+
+        assertThat(userAgeBand).isNotEqualTo(3);
+        assertThat(jsonPath.getLong("[0].mainAge")).isEqualTo(3L);
+        // 성별은 원본의 남자 20건이 압축된 여자 24건보다 적다.
+        assertThat(jsonPath.getString("[0].mainGender")).isEqualTo(Gender.여자.name());
+    }
+
     @Test
     void 대시보드_상품정보_통계_헤더정보없음_401(){
         Project project = 통계_사전작업();
@@ -968,6 +1305,115 @@ public class StatApiTest extends ApiTest {
                 .log().all().extract();
     }
 
+    @Test
+    void 유입경로_통계_요청시_유입URL의_host로_분류된_결과를_집계(){
+        Project project = projectRepository.findAll().get(0);
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        List<String> inflowUrls = List.of(
+                "https://search.naver.com/search?query=reviewtwits",
+                "https://www.google.co.kr/search?q=reviewtwits",
+                "https://blog.example.com/?from=google");
+        for (String inflowUrl : inflowUrls) {
+            given(this.spec)
+                    .contentType(MediaType.APPLICATION_JSON_VALUE)
+                    .header("X-AUTH-TOKEN", token)
+                    .body(StatInfoSteps.통계정보_생성(inflowUrl))
+                    .when()
+                    .post("/statistics/visited-info")
+                    .then()
+                    .assertThat()
+                    .statusCode(HttpStatus.OK.value());
+        }
+        visitEventBuffer.flush();
+        assertThat(jdbcTemplate.queryForList("select inflow_host from stat_info order by stat_id", String.class))
+                .containsExactly("search.naver.com", "www.google.co.kr", "blog.example.com");
+        // 저장할 때의 분류가 아닌 host 로 집계하므로, 분류 기준이 바뀌어도 저장된 방문을 고치지 않아도 된다.
+        jdbcTemplate.update("update stat_info set inflow = 'ETC'");
+
+        JsonPath jsonPath = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/request-inflow-infos")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+
+        assertThat(jsonPath.getLong("total")).isEqualTo(3);
+        assertThat(jsonPath.getLong("naver")).isEqualTo(1);
+        assertThat(jsonPath.getLong("google")).isEqualTo(1);
+        assertThat(jsonPath.getLong("etc")).isEqualTo(1);
+    }
+
+    @Test
+    void 보관기간이_지난_달의_방문정보는_압축후_삭제되고_유입경로_통계는_유지됨(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        visitRetentionService.runMaintenance(LocalDate.now());
+
+        // 2023년 3월의 방문 15건은 삭제되고 최근 방문 5건만 원본으로 남는다.
+        assertThat(statInfoRepository.count()).isEqualTo(5);
+        JsonPath jsonPath = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/request-inflow-infos")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+        assertThat(jsonPath.getLong("total")).isEqualTo(20);
+    }
+
+    @Test
+    void 보관기간_작업은_다른_서버가_실행중이면_건너뜀(){
+        통계_사전작업();
+        long visitCount = statInfoRepository.count();
+
+        // 같은 시각에 실행된 다른 서버가 잠금을 잡고 있으면 아무것도 하지 않는다.
+        redisTemplate.opsForValue().set("visit:retention:lock", "1");
+        visitRetentionService.runMaintenance(LocalDate.now());
+        assertThat(statInfoRepository.count()).isEqualTo(visitCount);
+
+        redisTemplate.delete("visit:retention:lock");
+        visitRetentionService.runMaintenance(LocalDate.now());
+        assertThat(statInfoRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void 컬럼저장소_적재는_stat_id_순서로_chunk를_이어서_모두_읽음(){
+        Project project = 통계_사전작업();
+        VisitColumnStore store = new VisitColumnStore(true, 4, 100);
+        VisitColumnStoreLoader loader = new VisitColumnStoreLoader(store, visitEventBuffer, jdbcTemplate, 3);
+
+        loader.load();
+
+        assertThat(store.isComplete()).isTrue();
+        long totalVisits = store.countByInflow(project.getProjectId()).orElseThrow()
+                .values().stream().mapToLong(Long::longValue).sum();
+        assertThat(totalVisits).isEqualTo(20);
+    }
+
+    @Test
+    void 컬럼저장소가_꺼져있거나_미완료면_원본에서_유입경로를_집계(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        assertThat(visitColumnStore.isComplete()).isFalse();
+
+        JsonPath jsonPath = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/request-inflow-infos")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+        assertThat(jsonPath.getLong("total")).isEqualTo(20);
+    }
+
     @Test
     void 유입경로_통계_헤더정보없음_401(){
         Project project = 통계_사전작업();
@@ -1206,6 +1652,582 @@ public class StatApiTest extends ApiTest {
                 .log().all().extract();
     }
 
+    @Test
+    void 대시보드_통합_요청_성공_200(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        JsonPath jsonPath = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "통계 대시보드의 여러 패널을 한 번에 요청하는 API 입니다." +
+                        "<br>프로젝트 조회와 권한 확인은 한 번만 하고, 요청한 패널들을 동시에 계산합니다. panels 를 입력하지 않으면 모든 패널을 계산합니다." +
+                        "<br>제한 시간 안에 계산하지 못했거나 실패한 패널은 값이 비어 있고, panels 에 패널별 상태와 소요 시간이 담깁니다." +
+                        "<br>헤더에 유저 정보가 존재하지 않으면 401 Unauthorized 가 반환됩니다." +
+                        "<br>해당 프로젝트 아이디로 된 프로젝트에, 유저가 접근할 권한이 없으면 403 Forbidden 이 반환됩니다." +
+                        "<br>해당 프로젝트 아이디로 된 프로젝트가 존재하지 않으면 404 Not Found 가 반환됩니다.", "통계 대시보드 통합 요청",
+                        CommonDocument.AccessTokenHeader,
+                        StatDocument.dashboardRequestParamFields,
+                        StatDocument.dashboardResponseFields))
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/dashboard")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+
+        Map<String, Map<String, Object>> panels = jsonPath.getMap("panels");
+        assertThat(panels).hasSize(6);
+        assertThat(panels.values()).allSatisfy(panel -> assertThat(panel.get("status")).isEqualTo("OK"));
+        assertThat(jsonPath.getInt("recentVisitCounts.totalVisit")).isEqualTo(20);
+        assertThat(jsonPath.getLong("requestInflowInfos.total")).isEqualTo(20);
+        assertThat(jsonPath.getList("productStatistics")).hasSize(1);
+    }
+
+    @Test
+    void 대시보드_통합_요청시_요청한_패널만_계산(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        JsonPath jsonPath = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .param("panels", "RECENT_VISIT_COUNTS", "READ_TIME_INFO")
+                .when()
+                .get("/statistics/dashboard")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+
+        assertThat(jsonPath.getMap("panels")).containsOnlyKeys("RECENT_VISIT_COUNTS", "READ_TIME_INFO");
+        assertThat(jsonPath.getInt("recentVisitCounts.todayVisit")).isEqualTo(3);
+        assertThat(jsonPath.getMap("readTimeInfo")).hasSize(24);
+        assertThat((Object) jsonPath.get("productStatistics")).isNull();
+    }
+
+    @Test
+    void 대시보드_통합_요청_접근권한없음_403(){
+        Project project = 통계_사전작업();
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, CommonDocument.ErrorResponseFields))
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/dashboard")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.FORBIDDEN.value())
+                .log().all().extract();
+    }
+
+    @Test
+    void 실시간_방문_스트림_구독시_현재_방문수를_먼저_전송(){
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        String body = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "프로젝트의 실시간 방문 수를 Server-Sent Events 로 구독하는 API 입니다." +
+                        "<br>구독하면 현재 오늘/어제/전체 방문 수를 visit 이벤트로 먼저 보내고, 이후 새 방문이 기록되면 1초 단위로 모아 newVisits 와 함께 보냅니다." +
+                        "<br>보낼 방문이 없으면 주기적으로 heartbeat 주석을 보내며, 전송이 밀린 느린 구독자는 연결이 끊어집니다." +
+                        "<br>헤더에 유저 정보가 존재하지 않으면 401 Unauthorized 가 반환됩니다." +
+                        "<br>해당 프로젝트 아이디로 된 프로젝트에, 유저가 접근할 권한이 없으면 403 Forbidden 이 반환됩니다." +
+                        "<br>해당 프로젝트 아이디로 된 프로젝트가 존재하지 않으면 404 Not Found 가 반환됩니다.", "실시간 방문 스트림 구독",
+                        CommonDocument.AccessTokenHeader,
+                        StatDocument.projectNameRequestParamField))
+                .header("X-AUTH-TOKEN", token)
+                .accept(MediaType.TEXT_EVENT_STREAM_VALUE)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/live-visits")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().asString();
+
+        assertThat(body).contains("event:visit");
+        assertThat(body).contains("\"todayVisit\":3", "\"totalVisit\":20");
+    }
+
+    @Test
+    void 실시간_방문_스트림은_커넥션_풀_크기보다_많이_구독해도_커넥션을_붙잡지_않음() throws Exception {
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+        int subscriberCount = hikariDataSource.getMaximumPoolSize() + 2;
+
+        ExecutorService subscribers = Executors.newFixedThreadPool(subscriberCount);
+        try {
+            List<Future<String>> bodies = new ArrayList<>();
+            for(int i = 0; i < subscriberCount; i++){
+                bodies.add(subscribers.submit(() -> given(this.spec)
+                        .header("X-AUTH-TOKEN", token)
+                        .accept(MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .param("projectName", project.getProjectName())
+                        .when()
+                        .get("/statistics/live-visits")
+                        .then()
+                        .assertThat()
+                        .statusCode(HttpStatus.OK.value())
+                        .extract().asString()));
+            }
+
+            // 구독이 열려 있는 동안에도 커넥션 풀이 비어 있지 않아 다른 요청이 바로 처리된다.
+            실시간_방문_구독자수_대기(subscriberCount);
+            assertThat(hikariDataSource.getHikariPoolMXBean().getActiveConnections()).isLessThan(hikariDataSource.getMaximumPoolSize());
+            given(this.spec)
+                    .header("X-AUTH-TOKEN", token)
+                    .param("projectName", project.getProjectName())
+                    .when()
+                    .get("/statistics/request-inflow-infos")
+                    .then()
+                    .assertThat()
+                    .statusCode(HttpStatus.OK.value());
+
+            for(Future<String> body : bodies){
+                assertThat(body.get(10, TimeUnit.SECONDS)).contains("event:visit");
+            }
+        } finally {
+            subscribers.shutdownNow();
+        }
+    }
+
+    @Test
+    void 실시간_방문_스트림은_여러번_기록된_방문을_한번에_모아서_전송() throws Exception {
+        Project project = projectRepository.findAll().get(0);
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        ExecutorService subscribers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> body = subscribers.submit(() -> 실시간_방문_스트림_구독(token, project));
+            실시간_방문_구독자수_대기(1);
+
+            // 다른 서버에서 기록된 방문도 Redis 로 전달받으므로, 전달받은 방문 수로 도착을 확인한다.
+            double receivedVisits = meterRegistry.get("statistics.live-visit.received").counter().count();
+            for(int i = 0; i < 3; i++){
+                liveVisitBroadcaster.recordAfterCommit(List.of(VisitEvent.builder()
+                        .projectId(project.getProjectId())
+                        .createdDate(LocalDateTime.now())
+                        .build()));
+            }
+            for(int attempt = 0; attempt < 500
+                    && meterRegistry.get("statistics.live-visit.received").counter().count() < receivedVisits + 3; attempt++){
+                Thread.sleep(10);
+            }
+            liveVisitBroadcaster.broadcast();
+
+            String events = body.get(10, TimeUnit.SECONDS);
+            // 구독할 때의 현재 방문 수 다음에 세 방문을 모은 이벤트 하나만 보낸다.
+            assertThat(events.split("event:visit", -1)).hasSize(3);
+            assertThat(events).contains("\"newVisits\":3");
+        } finally {
+            subscribers.shutdownNow();
+        }
+    }
+
+    @Test
+    void 실시간_방문_스트림은_보낼_방문이_없으면_heartbeat_를_전송() throws Exception {
+        Project project = projectRepository.findAll().get(0);
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        ExecutorService subscribers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> body = subscribers.submit(() -> 실시간_방문_스트림_구독(token, project));
+            실시간_방문_구독자수_대기(1);
+            liveVisitBroadcaster.broadcast();
+
+            assertThat(body.get(10, TimeUnit.SECONDS)).contains(":heartbeat");
+        } finally {
+            subscribers.shutdownNow();
+        }
+    }
+
+    @Test
+    void 실시간_방문_스트림은_전송이_밀린_느린_구독자의_연결을_끊음() throws Exception {
+        Project project = projectRepository.findAll().get(0);
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        // 전송 스레드를 모두 막아, 구독자에게 보낼 이벤트가 전송 버퍼에 쌓이게 한다.
+        CountDownLatch release = new CountDownLatch(1);
+        for(int i = 0; i < liveVisitExecutor.getCorePoolSize(); i++){
+            liveVisitExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        ExecutorService subscribers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> body = subscribers.submit(() -> 실시간_방문_스트림_구독(token, project));
+            실시간_방문_구독자수_대기(1);
+            double droppedSubscribers = meterRegistry.get("statistics.live-visit.dropped").counter().count();
+
+            // 첫 이벤트와 heartbeat 로 전송 버퍼(16)를 넘긴다.
+            for(int i = 0; i < 16; i++){
+                liveVisitBroadcaster.broadcast();
+            }
+
+            실시간_방문_구독자수_대기(0);
+            assertThat(meterRegistry.get("statistics.live-visit.dropped").counter().count()).isEqualTo(droppedSubscribers + 1);
+            release.countDown();
+            body.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            subscribers.shutdownNow();
+        }
+    }
+
+    @Test
+    void 실시간_방문_스트림_접근권한없음_403(){
+        Project project = 통계_사전작업();
+        final String otherToken = userSteps.로그인액세스토큰정보(UserSteps.상대유저_로그인요청생성());
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, CommonDocument.ErrorResponseFields))
+                .header("X-AUTH-TOKEN", otherToken)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/live-visits")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.FORBIDDEN.value())
+                .log().all().extract();
+    }
+
+    @Test
+    void 통계_백필작업_방문집계_재계산_성공_200() throws InterruptedException {
+        통계_사전작업();
+        // 집계가 어긋난 상황을 만든다.
+        jdbcTemplate.update("delete from visit_hourly_rollup");
+        jdbcTemplate.update("delete from visit_daily_rollup");
+        userService.register(userSteps.회원가입정보_어드민_생성(), UserSteps.어드민유저권한_생성());
+        final String adminToken = userSteps.로그인액세스토큰정보(UserSteps.어드민_로그인요청생성());
+
+        ExtractableResponse<Response> response = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "통계 backfill 작업을 시작합니다. 관리자만 요청할 수 있습니다." +
+                                "<br>멈췄거나 실패한 작업은 마지막 체크포인트부터 이어서 처리하고, 끝난 작업이나 restart=true 로 요청한 작업은 처음부터 다시 처리합니다." +
+                                "<br>visit-rollup 은 오늘을 제외한 날의 시간/일 방문 집계를, inflow-reclassify 는 유입 host 가 없는 방문 정보의 유입 host 와 유입 경로를, " +
+                                "unique-visitor 는 로그인 유저 방문의 순 방문자 sketch 를 채웁니다." +
+                                "<br>관리자가 아닐 경우 403 Forbidden, 등록되지 않은 작업일 경우 404 Not Found 가 반환됩니다.", "통계backfill작업시작",
+                        CommonDocument.AccessTokenHeader,
+                        StatDocument.backfillJobPathParam,
+                        StatDocument.backfillJobStartRequestParam,
+                        StatDocument.backfillJobResponseFields))
+                .header("X-AUTH-TOKEN", adminToken)
+                .pathParam("jobName", "visit-rollup")
+                .param("restart", true)
+                .when()
+                .post("/statistics/backfill-jobs/{jobName}/start")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        assertThat(response.jsonPath().getString("status")).isEqualTo(BackfillJobStatus.RUNNING.name());
+        백필작업_완료_대기("visit-rollup");
+
+        // 오늘의 방문은 다시 계산하지 않으므로 3월 15 건과 어제 2 건만 채워진다.
+        Long dailyVisitCount = jdbcTemplate.queryForObject("select sum(visit_count) from visit_daily_rollup", Long.class);
+        Long hourlyVisitCount = jdbcTemplate.queryForObject("select sum(visit_count) from visit_hourly_rollup", Long.class);
+        assertThat(dailyVisitCount).isEqualTo(17L);
+        assertThat(hourlyVisitCount).isEqualTo(17L);
+
+        ExtractableResponse<Response> jobsResponse = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "통계 backfill 작업의 진행 상황을 조회합니다. 관리자만 요청할 수 있습니다.", "통계backfill작업조회",
+                        CommonDocument.AccessTokenHeader,
+                        StatDocument.backfillJobListResponseFields))
+                .header("X-AUTH-TOKEN", adminToken)
+                .when()
+                .get("/statistics/backfill-jobs")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        JsonPath jsonPath = jobsResponse.jsonPath();
+        assertThat(jsonPath.getList("jobName", String.class)).containsExactly("inflow-reclassify", "unique-visitor", "visit-rollup");
+        assertThat(jsonPath.getString("find { it.jobName == 'visit-rollup' }.status")).isEqualTo(BackfillJobStatus.COMPLETED.name());
+        assertThat(jsonPath.getLong("find { it.jobName == 'visit-rollup' }.processedRows")).isEqualTo(17L);
+    }
+
+    @Test
+    void 통계_백필작업_유입경로_재분류_성공_200() throws InterruptedException {
+        통계_사전작업();
+        jdbcTemplate.update("update stat_info set inflow = null");
+        userService.register(userSteps.회원가입정보_어드민_생성(), UserSteps.어드민유저권한_생성());
+        final String adminToken = userSteps.로그인액세스토큰정보(UserSteps.어드민_로그인요청생성());
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH))
+                .header("X-AUTH-TOKEN", adminToken)
+                .pathParam("jobName", "inflow-reclassify")
+                .when()
+                .post("/statistics/backfill-jobs/{jobName}/start")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        백필작업_완료_대기("inflow-reclassify");
+        Long unclassifiedCount = jdbcTemplate.queryForObject("select count(*) from stat_info where inflow is null", Long.class);
+        assertThat(unclassifiedCount).isZero();
+        assertThat(backfillJobStateRepository.findById("inflow-reclassify").orElseThrow().getProcessedRows()).isEqualTo(20L);
+    }
+
+    @Test
+    void 통계_백필작업_순방문자_sketch_채운뒤_주간_구간별_순방문자_집계() throws InterruptedException {
+        Project project = 통계_사전작업();
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        // sketch 가 생기기 전에 저장된 방문처럼 Redis 를 비운다.
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.flushDb();
+            return null;
+        });
+
+        backfillJobService.start("unique-visitor", true);
+        백필작업_완료_대기("unique-visitor");
+
+        JsonPath jsonPath = given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .param("projectName", project.getProjectName())
+                .param("interval", ProjectSteps.exampleInterval)
+                .param("range", "1mo")
+                .param("endDate", "2023-03-31")
+                .when()
+                .get("/statistics/visit-graph-infos")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract().jsonPath();
+
+        // 한 주에 같은 유저가 여러 날 방문해도 순 방문자는 한 명이다.
+        assertThat(jsonPath.getList("visitInfo.findAll { it.visitCount > 1 }")).isNotEmpty();
+        assertThat(jsonPath.getList("visitInfo.findAll { it.visitCount > 0 }.uniqueVisitorCount", Integer.class))
+                .isNotEmpty()
+                .containsOnly(1);
+    }
+
+    @Test
+    void 통계_백필작업_다른_서버가_실행중이면_시작할때_이어받지_않음() throws InterruptedException {
+        통계_사전작업();
+        jdbcTemplate.update("update stat_info set inflow = null");
+        // 다른 작업은 끝난 것으로 두고 유입경로 재분류만 실행 중에 서버가 내려간 상태로 만든다.
+        for(String completedJobName : List.of("visit-rollup", "unique-visitor")){
+            BackfillJobState completedState = BackfillJobState.builder().jobName(completedJobName).build();
+            completedState.start(0);
+            completedState.complete();
+            backfillJobStateRepository.save(completedState);
+        }
+        BackfillJobState runningState = BackfillJobState.builder().jobName("inflow-reclassify").build();
+        runningState.start(0);
+        backfillJobStateRepository.save(runningState);
+
+        // 실행 중에 재시작된 작업이라도 다른 서버가 잠금을 잡고 있으면 이 서버에서는 실행하지 않는다.
+        redisTemplate.opsForValue().set("statistics:backfill:lock:inflow-reclassify", "other-server");
+        backfillJobService.resumeJobs();
+        assertThat(backfillExecutor.getActiveCount()).isZero();
+        assertThat(backfillExecutor.getThreadPoolExecutor().getQueue()).isEmpty();
+        BackfillJobState state = backfillJobStateRepository.findById("inflow-reclassify").orElseThrow();
+        assertThat(state.getStatus()).isEqualTo(BackfillJobStatus.RUNNING);
+        assertThat(state.getProcessedRows()).isZero();
+        assertThat(redisTemplate.opsForValue().get("statistics:backfill:lock:inflow-reclassify")).isEqualTo("other-server");
+
+        // 잠금이 풀리면 마지막 체크포인트부터 이어서 처리한다.
+        redisTemplate.delete("statistics:backfill:lock:inflow-reclassify");
+        backfillJobService.resumeJobs();
+        백필작업_완료_대기("inflow-reclassify");
+        assertThat(backfillJobStateRepository.findById("inflow-reclassify").orElseThrow().getProcessedRows()).isEqualTo(20L);
+    }
+
+    @Test
+    void 통계_백필작업_관리자아님_403(){
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH))
+                .header("X-AUTH-TOKEN", token)
+                .when()
+                .get("/statistics/backfill-jobs")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.FORBIDDEN.value())
+                .log().all().extract();
+    }
+
+    @Test
+    void 통계_백필작업_등록되지않은_작업_404(){
+        userService.register(userSteps.회원가입정보_어드민_생성(), UserSteps.어드민유저권한_생성());
+        final String adminToken = userSteps.로그인액세스토큰정보(UserSteps.어드민_로그인요청생성());
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, CommonDocument.ErrorResponseFields))
+                .header("X-AUTH-TOKEN", adminToken)
+                .pathParam("jobName", "unknown-job")
+                .when()
+                .post("/statistics/backfill-jobs/{jobName}/start")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NOT_FOUND.value())
+                .log().all().extract();
+    }
+
+    @Test
+    void 방문_수집정책_변경_성공_200(){
+        userService.register(userSteps.회원가입정보_어드민_생성(), UserSteps.어드민유저권한_생성());
+        final String adminToken = userSteps.로그인액세스토큰정보(UserSteps.어드민_로그인요청생성());
+
+        ExtractableResponse<Response> response = given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, "프로젝트의 방문 수집 정책을 바꿉니다. 관리자만 요청할 수 있습니다." +
+                                "<br>dedupWindowSeconds 안에 같은 방문자(로그인 유저 또는 visitorId)가 같은 상품을 다시 방문하면 기록하지 않습니다. 0 이면 중복을 제거하지 않습니다." +
+                                "<br>sampleInterval 건 중 한 건꼴로만 방문을 기록하고, 기록한 방문은 sampleInterval 건으로 집계합니다. 1 이면 모든 방문을 기록합니다." +
+                                "<br>입력값이 범위를 벗어나면 400 Bad Request, 관리자가 아닐 경우 403 Forbidden, 프로젝트가 없을 경우 404 Not Found 가 반환됩니다.", "방문수집정책변경",
+                        CommonDocument.AccessTokenHeader,
+                        StatDocument.ingestionPolicyPathParam,
+                        StatDocument.ingestionPolicyRequestFields,
+                        StatDocument.ingestionPolicyResponseFields))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .header("X-AUTH-TOKEN", adminToken)
+                .pathParam("projectName", project.getProjectName())
+                .body(VisitIngestionPolicyRequest.builder().dedupWindowSeconds(60).sampleInterval(10).build())
+                .when()
+                .put("/statistics/ingestion-policies/{projectName}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .log().all().extract();
+
+        assertThat(response.jsonPath().getInt("dedupWindowSeconds")).isEqualTo(60);
+        assertThat(response.jsonPath().getInt("sampleInterval")).isEqualTo(10);
+        Project changedProject = projectRepository.findById(project.getProjectId()).orElseThrow();
+        assertThat(changedProject.getVisitIngestionPolicy()).isEqualTo(new VisitIngestionPolicy(60, 10));
+    }
+
+    @Test
+    void 방문_수집정책_표본추출_간격_범위초과_400(){
+        userService.register(userSteps.회원가입정보_어드민_생성(), UserSteps.어드민유저권한_생성());
+        final String adminToken = userSteps.로그인액세스토큰정보(UserSteps.어드민_로그인요청생성());
+
+        given(this.spec)
+                .filter(document(DEFAULT_RESTDOC_PATH, CommonDocument.ErrorResponseFields))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .header("X-AUTH-TOKEN", adminToken)
+                .pathParam("projectName", project.getProjectName())
+                .body(VisitIngestionPolicyRequest.builder().dedupWindowSeconds(0).sampleInterval(0).build())
+                .when()
+                .put("/statistics/ingestion-policies/{projectName}")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .log().all().extract();
+    }
+
+    @Test
+    void 방문_중복제거_정책이면_같은_방문자의_새로고침은_한번만_기록(){
+        project.setVisitDedupWindowSeconds(60);
+        projectRepository.save(project);
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+
+        for(int i = 0; i < 3; i++){
+            방문정보_등록(token, StatInfoSteps.통계정보_생성());
+        }
+        // 로그인하지 않은 방문자는 visitorId 로 구분한다.
+        방문정보_등록(null, StatInfoSteps.통계정보_생성_visitorId_포함("visitor-1"));
+        방문정보_등록(null, StatInfoSteps.통계정보_생성_visitorId_포함("visitor-1"));
+        방문정보_등록(null, StatInfoSteps.통계정보_생성_visitorId_포함("visitor-2"));
+        visitEventBuffer.flush();
+
+        assertThat(statInfoRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void 방문_중복제거_필터가_가득_차면_구간을_일찍_넘기고_직전_구간으로_중복을_거름(){
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VisitDedupFilter visitDedupFilter = new VisitDedupFilter(meterRegistry, 100, 0.001, 10, 3600);
+
+        for(int i = 0; i < 300; i++){
+            visitDedupFilter.isDuplicate(1L, 1L, null, "visitor-" + i, 60);
+        }
+
+        assertThat(meterRegistry.counter("statistics.visit.dedup.rotations", "reason", "saturated").count()).isGreaterThanOrEqualTo(2);
+        assertThat(visitDedupFilter.isDuplicate(1L, 1L, null, "visitor-299", 60)).isTrue();
+    }
+
+    @Test
+    void 방문_표본추출_정책이면_기록한_방문의_가중치로_방문수를_집계(){
+        project.setVisitSampleInterval(4);
+        projectRepository.save(project);
+        final String token = userSteps.로그인액세스토큰정보(UserSteps.로그인요청생성());
+        // 카운터는 채워진 뒤에만 올라간다.
+        visitCounterService.getRecentVisitInfo(project.getProjectId());
+
+        for(int i = 0; i < 40; i++){
+            방문정보_등록(token, StatInfoSteps.통계정보_생성());
+        }
+        visitEventBuffer.flush();
+
+        List<StatInfo> sampledVisits = statInfoRepository.findAll();
+        assertThat(sampledVisits).allMatch(statInfo -> statInfo.getSampleWeight() == 4);
+        Long rollupVisitCount = jdbcTemplate.queryForObject("select coalesce(sum(visit_count), 0) from visit_daily_rollup", Long.class);
+        assertThat(rollupVisitCount).isEqualTo(sampledVisits.size() * 4L);
+        String totalVisitCount = redisTemplate.opsForValue().get("visit:count:total:" + project.getProjectId());
+        assertThat(Long.parseLong(totalVisitCount)).isEqualTo(sampledVisits.size() * 4L);
+    }
+
+    private void 방문정보_등록(String token, StatMessageRequest request) {
+        RequestSpecification requestSpecification = given()
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .body(request);
+        if(token != null){
+            requestSpecification.header("X-AUTH-TOKEN", token);
+        }
+        requestSpecification
+                .when()
+                .post("/statistics/visited-info")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    private String 실시간_방문_스트림_구독(String token, Project project) {
+        return given(this.spec)
+                .header("X-AUTH-TOKEN", token)
+                .accept(MediaType.TEXT_EVENT_STREAM_VALUE)
+                .param("projectName", project.getProjectName())
+                .when()
+                .get("/statistics/live-visits")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .extract().asString();
+    }
+
+    private void 실시간_방문_구독자수_대기(int subscriberCount) throws InterruptedException {
+        for(int attempt = 0; attempt < 500; attempt++){
+            if(meterRegistry.get("statistics.live-visit.subscribers").gauge().value() == subscriberCount){
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("statistics.live-visit.subscribers").gauge().value()).isEqualTo(subscriberCount);
+    }
+
+    // backfill 작업은 backfillExecutor 에서 실행되므로 끝날 때까지 기다린다.
+    private void 백필작업_완료_대기(String jobName) throws InterruptedException {
+        for(int i = 0; i < 100; i++){
+            Optional<BackfillJobState> state = backfillJobStateRepository.findById(jobName);
+            if(state.isPresent() && state.get().getStatus() != BackfillJobStatus.RUNNING){
+                assertThat(state.get().getStatus()).isEqualTo(BackfillJobStatus.COMPLETED);
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError(jobName + " backfill 작업이 끝나지 않았습니다.");
+    }
+
     Project 통계_사전작업() {
         Project existedProject = projectRepository.findAll().get(0);
 
@@ -1235,16 +2257,19 @@ public class StatApiTest extends ApiTest {
     }
 
     void saveAll(List<StatInfo> statInfos) {
-        int index = 1;
+        List<VisitEvent> visitEvents = new ArrayList<>();
+        long index = 1;
         for (StatInfo statInfo : statInfos) {
-            jdbcTemplate.update("insert into stat_info (stat_id,project_project_id,created_date,product_product_id,user_user_id) values (?,?,?,?,?)",
-                    index,
-                    statInfo.getProject().getProjectId(),
-                    Timestamp.valueOf(statInfo.getCreatedDate()),
-                    statInfo.getProduct().getProductId(),
-                    statInfo.getUser().getUserId());
+            visitEvents.add(VisitEvent.builder()
+                    .statId(index)
+                    .projectId(statInfo.getProject().getProjectId())
+                    .productId(statInfo.getProduct().getProductId())
+                    .userId(statInfo.getUser().getUserId())
+                    .createdDate(statInfo.getCreatedDate())
+                    .build());
             index++;
         }
+        visitEventWriter.write(visitEvents);
     }
 
     void 추가회원가입정보_입력(String token, String nickname) throws IOException {
@@ -8,6 +8,7 @@ import static com.developlife.reviewtwits.DocumentFormatProvider.required;
 import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
 import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
+import static org.springframework.restdocs.request.RequestDocumentation.pathParameters;
 import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
 
 /**
@@ -21,9 +22,17 @@ public class StatDocument {
     public static final Snippet statMessageRequestField = requestFields(
             fieldWithPath("inflowUrl").type(JsonFieldType.VARIES).attributes(required()).description("검색 유입 URL"),
             fieldWithPath("productUrl").type(JsonFieldType.STRING).attributes(required()).description("상품 URL"),
-            fieldWithPath("device").type(JsonFieldType.STRING).attributes(required()).description("디바이스 정보")
+            fieldWithPath("device").type(JsonFieldType.STRING).attributes(required()).description("디바이스 정보"),
+            fieldWithPath("visitorId").type(JsonFieldType.STRING).description("비로그인 방문자 id (순 방문자 집계용, 64자 이하)").optional()
     );
 
+    public static final Snippet beaconRequestFields = requestFields(
+            fieldWithPath("[]").type(JsonFieldType.ARRAY).description("방문 정보 목록 (NDJSON 으로 보낼 때는 한 줄에 하나씩)"),
+            fieldWithPath("[].inflowUrl").type(JsonFieldType.VARIES).description("검색 유입 URL").optional(),
+            fieldWithPath("[].productUrl").type(JsonFieldType.STRING).attributes(required()).description("상품 URL"),
+            fieldWithPath("[].device").type(JsonFieldType.STRING).attributes(required()).description("디바이스 정보"),
+            fieldWithPath("[].visitorId").type(JsonFieldType.VARIES).description("비로그인 방문자 id (순 방문자 집계용, 64자 이하)").optional()
+    );
     public static final Snippet DailyVisitStatRequestParam = requestParameters(
             RequestDocumentation.parameterWithName("projectName").attributes(required()).description("프로젝트 이름"),
             RequestDocumentation.parameterWithName("range").attributes(required()).description("요청하는 통계 범위 구간")
@@ -75,6 +84,7 @@ public class StatDocument {
             fieldWithPath("visitInfo").type(JsonFieldType.ARRAY).description("방문 정보"),
             fieldWithPath("visitInfo[].timeStamp").type(JsonFieldType.STRING).description("방문 날짜"),
             fieldWithPath("visitInfo[].visitCount").type(JsonFieldType.NUMBER).description("방문 수"),
+            fieldWithPath("visitInfo[].uniqueVisitorCount").type(JsonFieldType.NUMBER).description("순 방문자 수 (HyperLogLog 추정값)").optional(),
             fieldWithPath("visitInfo[].previousCompare").type(JsonFieldType.NUMBER).description("어제 방문과의 비교")
     );
     public static final Snippet RecentVisitStatResponseFields = responseFields(
@@ -91,11 +101,14 @@ public class StatDocument {
             fieldWithPath("visitInfo").type(JsonFieldType.ARRAY).description("방문 정보"),
             fieldWithPath("visitInfo[].timeStamp").type(JsonFieldType.STRING).description("방문 날짜"),
             fieldWithPath("visitInfo[].visitCount").type(JsonFieldType.NUMBER).description("방문 수"),
+            fieldWithPath("visitInfo[].uniqueVisitorCount").type(JsonFieldType.NUMBER).description("순 방문자 수 (HyperLogLog 추정값)").optional(),
             fieldWithPath("visitInfo[].previousCompare").type(JsonFieldType.NUMBER).description("어제 방문과의 비교")
     );
     public static final Snippet productStatisticsResponseFields = responseFields(
+            fieldWithPath("[].productId").type(JsonFieldType.NUMBER).description("상품 아이디"),
             fieldWithPath("[].productName").type(JsonFieldType.VARIES).description("상품 이름"),
             fieldWithPath("[].visitCount").type(JsonFieldType.NUMBER).description("상품 방문 수"),
+            fieldWithPath("[].uniqueVisitorCount").type(JsonFieldType.NUMBER).description("상품 순 방문자 수 (HyperLogLog 추정값)").optional(),
             fieldWithPath("[].reviewCount").type(JsonFieldType.NUMBER).description("상품 리뷰 수"),
             fieldWithPath("[].mainAge").type(JsonFieldType.NUMBER).description("방문 유저 주요 연령대"),
             fieldWithPath("[].mainGender").type(JsonFieldType.STRING).description("방문 유저 주요 성별"),
@@ -117,4 +130,57 @@ public class StatDocument {
             fieldWithPath("pendingReviewCount").type(JsonFieldType.NUMBER).description("대기중인 리뷰 수"),
             fieldWithPath("registeredProductCount").type(JsonFieldType.NUMBER).description("등록된 상품 수")
     );
-}
\ No newline at end of file
+
+    public static final Snippet dashboardRequestParamFields = requestParameters(
+            RequestDocumentation.parameterWithName("projectName").attributes(required()).description("프로젝트 이름"),
+            RequestDocumentation.parameterWithName("panels").description("계산할 패널 목록 (SIMPLE_PROJECT_INFO, PRODUCT_STATISTICS, REQUEST_INFLOW_INFOS, READ_TIME_INFO, RECENT_VISIT_COUNTS, DAILY_VISIT_GRAPH_INFOS). 없으면 전체").optional(),
+            RequestDocumentation.parameterWithName("range").description("일간 방문 그래프의 통계 범위 구간 (기본값 1mo)").optional()
+    );
+    public static final Snippet dashboardResponseFields = responseFields(
+            subsectionWithPath("simpleProjectInfo").type(JsonFieldType.OBJECT).description("프로젝트 요약 통계").optional(),
+            subsectionWithPath("productStatistics").type(JsonFieldType.ARRAY).description("상품정보 통계").optional(),
+            subsectionWithPath("requestInflowInfos").type(JsonFieldType.OBJECT).description("유입경로 통계").optional(),
+            subsectionWithPath("readTimeInfo").type(JsonFieldType.OBJECT).description("시간대별 방문 통계").optional(),
+            subsectionWithPath("recentVisitCounts").type(JsonFieldType.OBJECT).description("오늘/어제/전체 방문 수").optional(),
+            subsectionWithPath("dailyVisitGraphInfos").type(JsonFieldType.OBJECT).description("일간 방문 그래프").optional(),
+            subsectionWithPath("panels").type(JsonFieldType.OBJECT).description("패널별 처리 상태(OK, TIMEOUT, FAILED, REJECTED), 소요 시간(elapsedMillis), 메시지")
+    );
+    public static final Snippet backfillJobPathParam = pathParameters(
+            RequestDocumentation.parameterWithName("jobName").description("backfill 작업 이름 (visit-rollup, inflow-reclassify, unique-visitor)")
+    );
+    public static final Snippet backfillJobStartRequestParam = requestParameters(
+            RequestDocumentation.parameterWithName("restart").description("true 이면 체크포인트를 버리고 처음부터 다시 처리 (기본값 false)").optional()
+    );
+    public static final Snippet backfillJobResponseFields = responseFields(
+            fieldWithPath("jobName").type(JsonFieldType.STRING).description("작업 이름"),
+            fieldWithPath("status").type(JsonFieldType.STRING).description("진행 상태 (RUNNING, PAUSED, COMPLETED, FAILED)").optional(),
+            fieldWithPath("lastKey").type(JsonFieldType.NUMBER).description("마지막으로 처리한 chunk 의 키"),
+            fieldWithPath("processedRows").type(JsonFieldType.NUMBER).description("처리한 행 수"),
+            fieldWithPath("lastError").type(JsonFieldType.STRING).description("실패 원인").optional(),
+            fieldWithPath("startedDate").type(JsonFieldType.STRING).description("시작 시각").optional(),
+            fieldWithPath("finishedDate").type(JsonFieldType.STRING).description("끝난 시각").optional(),
+            fieldWithPath("lastModifiedDate").type(JsonFieldType.STRING).description("마지막 체크포인트 시각").optional()
+    );
+    public static final Snippet backfillJobListResponseFields = responseFields(
+            fieldWithPath("[].jobName").type(JsonFieldType.STRING).description("작업 이름"),
+            fieldWithPath("[].status").type(JsonFieldType.STRING).description("진행 상태 (RUNNING, PAUSED, COMPLETED, FAILED), 실행된 적이 없으면 null").optional(),
+            fieldWithPath("[].lastKey").type(JsonFieldType.NUMBER).description("마지막으로 처리한 chunk 의 키"),
+            fieldWithPath("[].processedRows").type(JsonFieldType.NUMBER).description("처리한 행 수"),
+            fieldWithPath("[].lastError").type(JsonFieldType.STRING).description("실패 원인").optional(),
+            fieldWithPath("[].startedDate").type(JsonFieldType.STRING).description("시작 시각").optional(),
+            fieldWithPath("[].finishedDate").type(JsonFieldType.STRING).description("끝난 시각").optional(),
+            fieldWithPath("[].lastModifiedDate").type(JsonFieldType.STRING).description("마지막 체크포인트 시각").optional()
+    );
+    public static final Snippet ingestionPolicyPathParam = pathParameters(
+            RequestDocumentation.parameterWithName("projectName").description("프로젝트 이름")
+    );
+    public static final Snippet ingestionPolicyRequestFields = requestFields(
+            fieldWithPath("dedupWindowSeconds").type(JsonFieldType.NUMBER).attributes(required()).description("중복 방문으로 볼 시간(초, 0~86400). 0 이면 중복을 제거하지 않음"),
+            fieldWithPath("sampleInterval").type(JsonFieldType.NUMBER).attributes(required()).description("몇 건 중 한 건꼴로 기록할지(1~1000). 1 이면 모두 기록")
+    );
+    public static final Snippet ingestionPolicyResponseFields = responseFields(
+            fieldWithPath("projectName").type(JsonFieldType.STRING).description("프로젝트 이름"),
+            fieldWithPath("dedupWindowSeconds").type(JsonFieldType.NUMBER).description("중복 방문으로 볼 시간(초)"),
+            fieldWithPath("sampleInterval").type(JsonFieldType.NUMBER).description("표본 추출 간격")
+    );
+}
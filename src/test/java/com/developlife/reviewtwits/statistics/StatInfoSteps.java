@@ -23,6 +23,23 @@ public class StatInfoSteps {
                 .build();
     }
 
+    public static StatMessageRequest 통계정보_생성(String inflowUrl) {
+        return StatMessageRequest.builder()
+                .inflowUrl(inflowUrl)
+                .productUrl(productUrl)
+                .device(device)
+                .build();
+    }
+
+    public static StatMessageRequest 통계정보_생성_visitorId_포함(String visitorId) {
+        return StatMessageRequest.builder()
+                .inflowUrl(inflowUrl)
+                .productUrl(productUrl)
+                .device(device)
+                .visitorId(visitorId)
+                .build();
+    }
+
     public static StatMessageRequest 통계정보_생성_productUrl_미포함(){
         return StatMessageRequest.builder()
                 .inflowUrl(inflowUrl)
@@ -0,0 +1,77 @@
+package com.developlife.reviewtwits.statistics;
+
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnRow;
+import com.developlife.reviewtwits.repository.statistics.columnar.VisitColumnStore;
+import com.developlife.reviewtwits.type.Gender;
+import com.developlife.reviewtwits.type.project.Device;
+import com.developlife.reviewtwits.type.project.Inflow;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 컬럼 저장소의 segment 집계와 최대 크기 처리를 스프링 컨텍스트 없이 확인한다.
+ */
+public class VisitColumnStoreTest {
+
+    @Test
+    void 컬럼저장소_segment별_집계를_합쳐서_유입경로와_연령대_성별을_계산(){
+        VisitColumnStore store = new VisitColumnStore(true, 4, 100);
+        store.reset();
+        LocalDateTime visitedAt = LocalDateTime.of(2026, 3, 1, 12, 0);
+        store.appendCommitted(List.of(
+                컬럼저장소_방문(visitedAt, 1L, 10L, Inflow.NAVER, Gender.남자, 2002, 1),
+                컬럼저장소_방문(visitedAt, 1L, 10L, Inflow.NAVER, Gender.여자, 1990, 3),
+                컬럼저장소_방문(visitedAt, 1L, 11L, Inflow.GOOGLE, Gender.남자, 2002, 1),
+                컬럼저장소_방문(visitedAt, 1L, null, null, null, null, 1),
+                컬럼저장소_방문(visitedAt, 2L, 20L, Inflow.NAVER, Gender.남자, 2002, 5),
+                컬럼저장소_방문(visitedAt, 1L, 11L, Inflow.GOOGLE, null, null, 2),
+                컬럼저장소_방문(visitedAt, 2L, 20L, Inflow.NAVER, Gender.여자, 2002, 5),
+                컬럼저장소_방문(visitedAt, 1L, 10L, Inflow.BING, Gender.남자, 2002, 1),
+                컬럼저장소_방문(visitedAt, 2L, 20L, Inflow.NAVER, null, null, 5),
+                컬럼저장소_방문(visitedAt, 2L, 21L, Inflow.NAVER, Gender.여자, 1990, 2)));
+
+        Map<Inflow, Long> inflowCounts = store.countByInflow(1L).orElseThrow();
+        assertThat(inflowCounts.get(Inflow.NAVER)).isEqualTo(4);
+        assertThat(inflowCounts.get(Inflow.GOOGLE)).isEqualTo(3);
+        assertThat(inflowCounts.get(Inflow.BING)).isEqualTo(1);
+        assertThat(inflowCounts.get(Inflow.ETC)).isEqualTo(1);
+        assertThat(store.countByInflow(2L).orElseThrow().get(Inflow.NAVER)).isEqualTo(17);
+
+        VisitColumnStore.Demographics demographics = store.countDemographics(1L, 2026).orElseThrow();
+        assertThat(demographics.ageBandCounts()).isEqualTo(Map.of(10L, Map.of(2, 2L, 3, 3L), 11L, Map.of(2, 1L)));
+        assertThat(demographics.genderCounts()).isEqualTo(Map.of(10L, Map.of(Gender.남자, 2L, Gender.여자, 3L), 11L, Map.of(Gender.남자, 1L)));
+
+        // 상품 번호는 프로젝트마다 0 부터 붙이므로, 다른 프로젝트의 상품과 섞이지 않는다.
+        VisitColumnStore.Demographics otherDemographics = store.countDemographics(2L, 2026).orElseThrow();
+        assertThat(otherDemographics.ageBandCounts()).isEqualTo(Map.of(20L, Map.of(2, 10L), 21L, Map.of(3, 2L)));
+        assertThat(otherDemographics.genderCounts()).isEqualTo(Map.of(20L, Map.of(Gender.남자, 5L, Gender.여자, 5L), 21L, Map.of(Gender.여자, 2L)));
+    }
+
+    @Test
+    void 컬럼저장소_최대_방문수를_넘으면_미완료로_바뀌어_조회하지_않음(){
+        VisitColumnStore store = new VisitColumnStore(true, 4, 5);
+        store.reset();
+        LocalDateTime visitedAt = LocalDateTime.of(2026, 3, 1, 12, 0);
+        List<VisitColumnRow> rows = List.of(
+                컬럼저장소_방문(visitedAt, 1L, 10L, Inflow.NAVER, null, null, 1),
+                컬럼저장소_방문(visitedAt, 1L, 10L, Inflow.NAVER, null, null, 1),
+                컬럼저장소_방문(visitedAt, 1L, 10L, Inflow.NAVER, null, null, 1));
+
+        store.appendCommitted(rows);
+        assertThat(store.countByInflow(1L)).isPresent();
+
+        store.appendCommitted(rows);
+        assertThat(store.isComplete()).isFalse();
+        assertThat(store.countByInflow(1L)).isEmpty();
+    }
+
+    private VisitColumnRow 컬럼저장소_방문(LocalDateTime visitedAt, long projectId, Long productId, Inflow inflow,
+                                     Gender gender, Integer birthYear, int sampleWeight) {
+        return new VisitColumnRow(visitedAt, projectId, productId, inflow, Device.PC, gender, birthYear, sampleWeight);
+    }
+}
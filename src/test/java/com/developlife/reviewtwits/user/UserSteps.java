@@ -171,6 +171,13 @@ public class UserSteps {
                 .build();
     }
 
+    public static LoginUserRequest 어드민_로그인요청생성(){
+        return LoginUserRequest.builder()
+                .accountId("admin_" + accountId)
+                .accountPw(accountPw)
+                .build();
+    }
+
     public static LoginUserRequest 상대유저_로그인요청생성(){
         return LoginUserRequest.builder()
                 .accountId(targetAccountId)